@@ -0,0 +1,214 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Builds the documents, sensitive fields and configurations the benchmarks run on.
+ *
+ * <p>A document is {@code {"records":[...]}}. Each record holds a few clear fields and {@code fieldsPerRecord}
+ * sensitive fields {@code f0, f1, ...}, nested {@code depth - 1} objects deep, whose values fit the cipher type
+ * given to them. Records are added until the document reaches the requested size.</p>
+ */
+final class DBLBenchmarkDocuments {
+
+  /**
+   * Cipher types used when a benchmark mixes several, in field order.
+   */
+  static final DBLCipherType[] MIXED_TYPES = {DBLCipherType.PERSON_NAME, DBLCipherType.SSN,
+      DBLCipherType.EMAIL_ADDRESS, DBLCipherType.CREDIT_CARD, DBLCipherType.PHONE_NUMBER, DBLCipherType.DATE,
+      DBLCipherType.STREET_ADDRESS, DBLCipherType.CURRENCY_AMOUNT};
+
+  private DBLBenchmarkDocuments() {
+  }
+
+  /**
+   * @param size a size such as {@code 1KB}, {@code 64KB} or {@code 100MB}
+   */
+  static int bytes(String size) {
+    String value = size.trim().toUpperCase(Locale.ROOT);
+    if (value.endsWith("MB")) {
+      return Integer.parseInt(value.substring(0, value.length() - 2)) << 20;
+    }
+    if (value.endsWith("KB")) {
+      return Integer.parseInt(value.substring(0, value.length() - 2)) << 10;
+    }
+    return Integer.parseInt(value);
+  }
+
+  static String document(int size, int fieldsPerRecord, int depth, DBLCipherType... types) {
+    StringBuilder json = new StringBuilder(size + 1024).append("{\"records\":[");
+    int record = 0;
+    do {
+      if (record > 0) {
+        json.append(',');
+      }
+      json.append("{\"id\":").append(record).append(",\"status\":\"active\"");
+      for (int level = 1; level < depth; level++) {
+        json.append(",\"n").append(level).append("\":{\"level\":").append(level);
+      }
+      for (int field = 0; field < fieldsPerRecord; field++) {
+        json.append(",\"f").append(field).append("\":\"").append(types[field % types.length].sample(record))
+            .append('"');
+      }
+      for (int level = 1; level < depth; level++) {
+        json.append('}');
+      }
+      json.append('}');
+      record++;
+    } while (json.length() < size - 2);
+    return json.append("]}").toString();
+  }
+
+  /**
+   * Builds {@link #document} as the maps and lists the object operations take, of about the same JSON size.
+   */
+  static Map<String, Object> objectDocument(int size, int fieldsPerRecord, int depth, DBLCipherType... types) {
+    List<Object> records = new ArrayList<>();
+    int length = "{\"records\":[]}".length();
+    int record = 0;
+    do {
+      Map<String, Object> values = new LinkedHashMap<>();
+      values.put("id", (long) record);
+      values.put("status", "active");
+      Map<String, Object> level = values;
+      for (int n = 1; n < depth; n++) {
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("level", (long) n);
+        level.put("n" + n, nested);
+        level = nested;
+      }
+      for (int field = 0; field < fieldsPerRecord; field++) {
+        level.put("f" + field, types[field % types.length].sample(record));
+      }
+      records.add(values);
+      length += DBLObjectCrypt.toJson(values).length() + 1;
+      record++;
+    } while (length < size);
+    Map<String, Object> document = new LinkedHashMap<>();
+    document.put("records", records);
+    return document;
+  }
+
+  /**
+   * @return the records of {@link #document} as a JSON array, as the batch operations take them
+   */
+  static String records(String document) {
+    return document.substring("{\"records\":".length(), document.length() - 1);
+  }
+
+  /**
+   * Writes records with the fields of {@link #document} as delimited text with a header, {@code id,status,f0,...},
+   * the sensitive values quoted.
+   */
+  static String delimited(int size, int fieldsPerRecord, DBLCipherType... types) {
+    StringBuilder text = new StringBuilder(size + 1024).append("id,status");
+    for (int field = 0; field < fieldsPerRecord; field++) {
+      text.append(",f").append(field);
+    }
+    int record = 0;
+    do {
+      text.append("\r\n").append(record).append(",active");
+      for (int field = 0; field < fieldsPerRecord; field++) {
+        text.append(",\"").append(types[field % types.length].sample(record).replace("\"", "\"\"")).append('"');
+      }
+      record++;
+    } while (text.length() < size);
+    return text.append("\r\n").toString();
+  }
+
+  /**
+   * @return the cipher specification of the sensitive fields of {@link #document}
+   */
+  static String cipherSpec(int fieldsPerRecord, int depth, DBLCipherType... types) {
+    return cipherSpec("records", fieldsPerRecord, depth, types);
+  }
+
+  /**
+   * @return the cipher specification of the sensitive fields of one of the {@link #records}, or of the columns of
+   *         {@link #delimited} with a depth of 1
+   */
+  static String recordCipherSpec(int fieldsPerRecord, int depth, DBLCipherType... types) {
+    return cipherSpec(null, fieldsPerRecord, depth, types);
+  }
+
+  /**
+   * @return the comma separated paths of the sensitive fields of {@link #document}, as reduceJson expects them
+   */
+  static String pathList(int fieldsPerRecord, int depth) {
+    StringBuilder paths = new StringBuilder();
+    for (int field = 0; field < fieldsPerRecord; field++) {
+      if (field > 0) {
+        paths.append(',');
+      }
+      paths.append(path("records", field, depth));
+    }
+    return paths.toString();
+  }
+
+  private static String cipherSpec(String root, int fieldsPerRecord, int depth, DBLCipherType... types) {
+    StringBuilder spec = new StringBuilder("{");
+    for (int field = 0; field < fieldsPerRecord; field++) {
+      if (field > 0) {
+        spec.append(',');
+      }
+      spec.append('"').append(path(root, field, depth)).append("\":\"FE:")
+          .append(types[field % types.length].getSpecToken()).append('"');
+    }
+    return spec.append('}').toString();
+  }
+
+  private static String path(String root, int field, int depth) {
+    StringBuilder path = new StringBuilder();
+    if (root != null) {
+      path.append(root).append('.');
+    }
+    for (int level = 1; level < depth; level++) {
+      path.append('n').append(level).append('.');
+    }
+    return path.append('f').append(field).toString();
+  }
+
+  /**
+   * Creates and starts a configuration as the runtime would, with the defaults of its parameters. The encryption key
+   * is read from the {@code datablind.benchmark.key} system property.
+   */
+  static DBLConfiguration startConfiguration(String name) throws Exception {
+    DBLConfiguration configuration = newConfiguration(name);
+    configuration.start();
+    return configuration;
+  }
+
+  /**
+   * Creates the configuration {@link #startConfiguration} starts, so that its parameters can be changed first.
+   */
+  static DBLConfiguration newConfiguration(String name) throws Exception {
+    DBLConfiguration configuration = new DBLConfiguration();
+    set(configuration, "configName", name);
+    set(configuration, "encryptionKey", System.getProperty("datablind.benchmark.key", "datablind-benchmark-key"));
+    set(configuration, "enginePoolSize", 16);
+    set(configuration, "keyCacheSize", 64);
+    set(configuration, "fieldPlanCacheSize", 256);
+    set(configuration, "shapeCacheTtl", 3600);
+    set(configuration, "phaseTimings", true);
+    return configuration;
+  }
+
+  static void set(Object target, String field, Object value) throws ReflectiveOperationException {
+    Field declared = target.getClass().getDeclaredField(field);
+    declared.setAccessible(true);
+    declared.set(target, value);
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures EncryptJson and DecryptJson of a 64 KB document whose sensitive fields all have the same cipher type, for
+ * every type the Type Provider offers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DBLCipherTypeBenchmark {
+
+  private static final int DOCUMENT_SIZE = 64 << 10;
+  private static final int FIELDS_PER_RECORD = 4;
+  private static final String TWEAK = "benchmark-tweak";
+
+  @Param({"DATE", "DATE_TIME", "IP_ADDRESS", "GPS", "UPC_A", "CREDIT_CARD", "SSN", "STREET_ADDRESS",
+      "STREET_ADDRESS_NICE", "CURRENCY_AMOUNT", "PHONE_NUMBER", "PERSON_NAME", "PERSON_NAME_NICE", "EMAIL_ADDRESS"})
+  public DBLCipherType cipherType;
+
+  private DBLConfiguration configuration;
+  private DBLOperations operations;
+  private String cipherSpec;
+  private String clearJson;
+  private String encryptedJson;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    configuration = DBLBenchmarkDocuments.startConfiguration("cipher-type-benchmark");
+    operations = new DBLOperations();
+    cipherSpec = DBLBenchmarkDocuments.cipherSpec(FIELDS_PER_RECORD, 1, cipherType);
+    clearJson = DBLBenchmarkDocuments.document(DOCUMENT_SIZE, FIELDS_PER_RECORD, 1, cipherType);
+    encryptedJson = encryptJson();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    configuration.stop();
+  }
+
+  @Benchmark
+  public String encryptJson() {
+    return operations.encryptJson(configuration, cipherSpec, clearJson, TWEAK, "NOTOKEN", "NOPASSPHRASE", false).getOutput();
+  }
+
+  @Benchmark
+  public String decryptJson() {
+    return operations.decryptJson(configuration, cipherSpec, encryptedJson, TWEAK, "NOTOKEN", "NOPASSPHRASE", false, null, false).getOutput();
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures EncryptJson, DecryptJson and reduceJson over document size, sensitive fields per record and nesting depth.
+ *
+ * <p>Fields take their cipher types in turn from {@link DBLBenchmarkDocuments#MIXED_TYPES}. Run with the
+ * {@code gc} profiler, as the {@code jmh} profile does, to see the bytes allocated per operation next to the
+ * time.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class DBLJsonBenchmark {
+
+  private static final String TWEAK = "benchmark-tweak";
+  private static final String NO_TOKEN = "NOTOKEN";
+  private static final String NO_PASSPHRASE = "NOPASSPHRASE";
+
+  @Param({"1KB", "64KB", "1MB", "100MB"})
+  public String documentSize;
+
+  @Param({"1", "4", "16"})
+  public int fieldsPerRecord;
+
+  @Param({"1", "4"})
+  public int depth;
+
+  private DBLConfiguration configuration;
+  private DBLOperations operations;
+  private String cipherSpec;
+  private String paths;
+  private String clearJson;
+  private String encryptedJson;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    configuration = DBLBenchmarkDocuments.startConfiguration("json-benchmark");
+    operations = new DBLOperations();
+    DBLCipherType[] types = DBLBenchmarkDocuments.MIXED_TYPES;
+    cipherSpec = DBLBenchmarkDocuments.cipherSpec(fieldsPerRecord, depth, types);
+    paths = DBLBenchmarkDocuments.pathList(fieldsPerRecord, depth);
+    clearJson = DBLBenchmarkDocuments.document(DBLBenchmarkDocuments.bytes(documentSize), fieldsPerRecord, depth,
+        types);
+    encryptedJson = encryptJson();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    configuration.stop();
+  }
+
+  @Benchmark
+  public String encryptJson() {
+    return operations.encryptJson(configuration, cipherSpec, clearJson, TWEAK, NO_TOKEN, NO_PASSPHRASE, false).getOutput();
+  }
+
+  @Benchmark
+  public String decryptJson() {
+    return operations.decryptJson(configuration, cipherSpec, encryptedJson, TWEAK, NO_TOKEN, NO_PASSPHRASE, false, null, false).getOutput();
+  }
+
+  @Benchmark
+  public String filterJsonRemove() {
+    return operations.filterJson(configuration, paths, clearJson, "remove", NO_TOKEN, NO_PASSPHRASE).getOutput();
+  }
+
+  @Benchmark
+  public String filterJsonRetain() {
+    return operations.filterJson(configuration, paths, clearJson, "retain", NO_TOKEN, NO_PASSPHRASE).getOutput();
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command line options of the load test and the API stub, given as {@code --name=value}.
+ *
+ * <p>Options that are not read are reported by {@link #checkUnused()}, so a misspelt option fails the run instead
+ * of being ignored.</p>
+ */
+final class DBLLoadOptions {
+
+  private final Map<String, String> values = new LinkedHashMap<>();
+
+  DBLLoadOptions(String[] args) {
+    for (String arg : args) {
+      int equals = arg.indexOf('=');
+      if (!arg.startsWith("--") || equals < 3) {
+        throw new IllegalArgumentException("Options are given as --name=value: " + arg);
+      }
+      values.put(arg.substring(2, equals), arg.substring(equals + 1));
+    }
+  }
+
+  String getString(String name, String defaultValue) {
+    String value = values.remove(name);
+    return value == null ? defaultValue : value;
+  }
+
+  int getInt(String name, int defaultValue) {
+    String value = values.remove(name);
+    return value == null ? defaultValue : Integer.parseInt(value.trim());
+  }
+
+  double getDouble(String name, double defaultValue) {
+    String value = values.remove(name);
+    return value == null ? defaultValue : Double.parseDouble(value.trim());
+  }
+
+  /**
+   * Takes the options named {@code prefix.field}, for example {@code --provider.nlpBatchSize=8}.
+   *
+   * @return the values by field name
+   */
+  Map<String, String> getPrefixed(String prefix) {
+    Map<String, String> prefixed = new LinkedHashMap<>();
+    values.entrySet().removeIf(entry -> {
+      if (!entry.getKey().startsWith(prefix + ".")) {
+        return false;
+      }
+      prefixed.put(entry.getKey().substring(prefix.length() + 1), entry.getValue());
+      return true;
+    });
+    return prefixed;
+  }
+
+  /**
+   * @throws IllegalArgumentException if an option was given that no one read
+   */
+  void checkUnused() {
+    if (!values.isEmpty()) {
+      throw new IllegalArgumentException("Unknown options: " + values.keySet());
+    }
+  }
+}
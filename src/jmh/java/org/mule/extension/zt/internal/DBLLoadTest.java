@@ -0,0 +1,685 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.mule.runtime.api.metadata.TypedValue;
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.exception.ModuleException;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+import org.mule.runtime.extension.api.runtime.process.CompletionCallback;
+
+/**
+ * Drives the DataBlind operations under sustained concurrent load and reports their throughput and latency
+ * percentiles, to catch regressions that only show under load before a release.
+ *
+ * <p>The operations run in process against a started configuration. EncryptJsonUsingNLP calls {@link DBLStubApi},
+ * or the API given as {@code --provider.apiUri}, through connections built as {@link DBLConnectionProvider} builds
+ * them: one NLP batcher and one service guard shared by all connections, the provider parameters taking their
+ * defaults unless given as {@code --provider.<parameter>}. Only the HTTP client differs, the JDK one stands in for
+ * the one of the runtime. A call holds a connection of a pool of {@code --pool} connections until it completes, as
+ * the runtime does for a pooling connection provider, so callers wait once the pool is exhausted.</p>
+ *
+ * <p>With {@code --rate}, calls are due on a fixed schedule whatever the latency, and latency is measured from the
+ * time a call was due, so a connector that falls behind shows as latency instead of as fewer calls. Without it,
+ * {@code --concurrency} callers run calls back to back. The operations of {@code --operations} take turns.</p>
+ *
+ * <p>Latency is recorded in a {@link DBLLatencyHistogram}, within about 6%, and written per operation in the
+ * percentile format of HdrHistogram, {@code .hgrm}, which its plotting tools read. The run fails when
+ * {@code --maxP99} or {@code --maxErrorRate} is exceeded.</p>
+ */
+public final class DBLLoadTest {
+
+  private static final String TWEAK = "load-test-tweak";
+  private static final String NEW_TWEAK = "load-test-new-tweak";
+  private static final String NO_TOKEN = "NOTOKEN";
+  private static final String NO_PASSPHRASE = "NOPASSPHRASE";
+  private static final String DEFAULT_OPERATIONS = "EncryptJson,DecryptJson,EncryptJsonUsingNLP";
+  private static final int TICKS_PER_HALF_DISTANCE = 5;
+  private static final long PROGRESS_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+  private final DBLLoadOptions options;
+  private final Map<String, Stats> stats = new LinkedHashMap<>();
+  private final DBLLatencyHistogram poolWait = new DBLLatencyHistogram();
+  private final LongAccumulator maxActiveWorkers = new LongAccumulator(Math::max, 0);
+  private final LongAccumulator maxQueuedWorkerTasks = new LongAccumulator(Math::max, 0);
+  private final AtomicLong inFlight = new AtomicLong();
+  private final AtomicLong next = new AtomicLong();
+  private final ExecutorService consumers = Executors.newCachedThreadPool(daemon("datablind-load-consumer"));
+
+  private DBLConfiguration configuration;
+  private DBLOperations operations;
+  private ConnectionPool pool;
+  private DBLServiceGuard guard;
+  private DBLStubApi stub;
+  private ExecutorService clientThreads;
+  private long lastProgress;
+
+  private DBLLoadTest(DBLLoadOptions options) {
+    this.options = options;
+  }
+
+  /**
+   * Runs the load test. Options are given as {@code --name=value}, see the Load Tests section of the README.
+   */
+  public static void main(String[] args) throws Exception {
+    boolean passed;
+    try {
+      passed = new DBLLoadTest(new DBLLoadOptions(args)).run();
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      passed = false;
+    }
+    // the HTTP client and the engines leave threads behind
+    System.exit(passed ? 0 : 1);
+  }
+
+  private boolean run() throws Exception {
+    String[] selected = options.getString("operations", DEFAULT_OPERATIONS).split(",");
+    int rate = options.getInt("rate", 0);
+    int concurrency = options.getInt("concurrency", 16);
+    int duration = options.getInt("duration", 60);
+    int warmUp = options.getInt("warmup", 10);
+    String documentSize = options.getString("documentSize", "64KB");
+    int fieldsPerRecord = options.getInt("fieldsPerRecord", 4);
+    int depth = options.getInt("depth", 1);
+    int poolSize = options.getInt("pool", 5);
+    int poolTimeout = options.getInt("poolTimeout", 30000);
+    Path report = Paths.get(options.getString("report", "target/load-test"));
+    double maxP99 = options.getDouble("maxP99", 0);
+    double maxErrorRate = options.getDouble("maxErrorRate", 1);
+    int latency = options.getInt("latency", 0);
+    int jitter = options.getInt("jitter", 0);
+    double errorRate = options.getDouble("errorRate", 0);
+    int errorStatus = options.getInt("errorStatus", 503);
+    Map<String, String> configurationParameters = options.getPrefixed("config");
+    Map<String, String> providerParameters = options.getPrefixed("provider");
+    options.checkUnused();
+    if (concurrency < 1 || duration < 1 || warmUp < 0 || rate < 0 || poolSize < 1) {
+      throw new IllegalArgumentException("concurrency, duration and pool must be positive, rate and warmup not negative");
+    }
+
+    configuration = DBLBenchmarkDocuments.newConfiguration("load-test");
+    for (Map.Entry<String, String> parameter : configurationParameters.entrySet()) {
+      set(configuration, parameter.getKey(), parameter.getValue());
+    }
+    configuration.start();
+    operations = new DBLOperations();
+    try {
+      Map<String, Callable<CompletableFuture<?>>> calls = new LinkedHashMap<>();
+      List<String> names = new ArrayList<>();
+      for (String name : selected) {
+        names.add(name.trim());
+      }
+      boolean remote = names.contains("EncryptJsonUsingNLP") || names.contains("all");
+      if (remote) {
+        startConnections(providerParameters, poolSize, poolTimeout, latency, jitter, errorRate, errorStatus);
+      }
+      Map<String, Callable<CompletableFuture<?>>> available = calls(DBLBenchmarkDocuments.bytes(documentSize),
+          fieldsPerRecord, depth, remote);
+      for (String name : names) {
+        if (name.equals("all")) {
+          calls.putAll(available);
+        } else if (available.containsKey(name)) {
+          calls.put(name, available.get(name));
+        } else {
+          throw new IllegalArgumentException("Unknown operation " + name + ", expected one of " + available.keySet());
+        }
+      }
+      for (String name : calls.keySet()) {
+        stats.put(name, new Stats(name));
+      }
+
+      String model = rate > 0 ? "open model at " + rate + " calls/s" : "closed model";
+      System.out.println("DataBlind load test: " + model + ", " + concurrency + " callers, " + duration + " s after a "
+          + warmUp + " s warm-up, " + documentSize + " documents, " + calls.keySet());
+      long started = System.nanoTime();
+      long measureFrom = started + TimeUnit.SECONDS.toNanos(warmUp);
+      long end = measureFrom + TimeUnit.SECONDS.toNanos(duration);
+      List<Callable<CompletableFuture<?>>> mix = new ArrayList<>(calls.values());
+      List<String> mixNames = new ArrayList<>(calls.keySet());
+      if (rate > 0) {
+        runOpen(mix, mixNames, rate, concurrency, started, measureFrom, end);
+      } else {
+        runClosed(mix, mixNames, concurrency, measureFrom, end);
+      }
+      return report(report, duration, maxP99, maxErrorRate);
+    } finally {
+      stop();
+    }
+  }
+
+  /**
+   * Starts {@code concurrency} callers that run calls one after the other until {@code end}.
+   */
+  private void runClosed(List<Callable<CompletableFuture<?>>> mix, List<String> names, int concurrency,
+      long measureFrom, long end) throws InterruptedException {
+    List<Thread> callers = new ArrayList<>();
+    for (int i = 0; i < concurrency; i++) {
+      Thread caller = new Thread(() -> {
+        while (System.nanoTime() < end) {
+          int turn = (int) (next.getAndIncrement() % mix.size());
+          long due = System.nanoTime();
+          try {
+            start(mix.get(turn), names.get(turn), due, measureFrom).get();
+          } catch (InterruptedException e) {
+            return;
+          } catch (ExecutionException e) {
+            // recorded when the call completed
+          }
+        }
+      }, "datablind-load-caller-" + i);
+      caller.start();
+      callers.add(caller);
+    }
+    while (System.nanoTime() < end) {
+      progress(measureFrom, end);
+    }
+    for (Thread caller : callers) {
+      caller.join();
+    }
+  }
+
+  /**
+   * Makes a call due every {@code 1 / rate} seconds until {@code end}, run by a pool of {@code concurrency} callers.
+   * Calls due while every caller is busy wait in the queue of the pool, and their wait counts as latency.
+   */
+  private void runOpen(List<Callable<CompletableFuture<?>>> mix, List<String> names, int rate, int concurrency,
+      long started, long measureFrom, long end) throws InterruptedException {
+    ExecutorService callers = Executors.newFixedThreadPool(concurrency, daemon("datablind-load-caller"));
+    Thread schedule = new Thread(() -> {
+      double period = 1e9 / rate;
+      for (long i = 0; ; i++) {
+        long due = started + (long) (i * period);
+        if (due >= end) {
+          return;
+        }
+        long wait = due - System.nanoTime();
+        if (wait > 0) {
+          LockSupport.parkNanos(wait);
+        }
+        int turn = (int) (i % mix.size());
+        callers.execute(() -> start(mix.get(turn), names.get(turn), due, measureFrom));
+      }
+    }, "datablind-load-schedule");
+    schedule.start();
+    while (System.nanoTime() < end) {
+      progress(measureFrom, end);
+    }
+    schedule.join();
+    callers.shutdown();
+    if (!callers.awaitTermination(60, TimeUnit.SECONDS)) {
+      System.out.println("Calls still queued 60 s after the end of the run were not made");
+      callers.shutdownNow();
+    }
+    // non-blocking calls may still be waiting for the API
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+    while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+  }
+
+  /**
+   * Starts a call and records its outcome when it completes, unless it was due during the warm-up.
+   */
+  private CompletableFuture<?> start(Callable<CompletableFuture<?>> call, String name, long due, long measureFrom) {
+    inFlight.incrementAndGet();
+    CompletableFuture<?> completion;
+    try {
+      completion = call.call();
+    } catch (Exception e) {
+      completion = CompletableFuture.failedFuture(e);
+    }
+    return completion.whenComplete((result, failure) -> {
+      long latency = System.nanoTime() - due;
+      inFlight.decrementAndGet();
+      if (due >= measureFrom) {
+        stats.get(name).record(latency, failure);
+      }
+    });
+  }
+
+  /**
+   * Samples the worker pool of the configuration for a second, and prints the progress of the run every ten seconds.
+   */
+  private void progress(long measureFrom, long end) throws InterruptedException {
+    ForkJoinPool workers = configuration.getWorkerPool();
+    long until = Math.min(end, System.nanoTime() + TimeUnit.SECONDS.toNanos(1));
+    while (System.nanoTime() < until) {
+      maxActiveWorkers.accumulate(workers.getActiveThreadCount());
+      maxQueuedWorkerTasks.accumulate(workers.getQueuedSubmissionCount() + workers.getQueuedTaskCount());
+      Thread.sleep(10);
+    }
+    long now = System.nanoTime();
+    if (now - lastProgress >= PROGRESS_INTERVAL && now < end) {
+      lastProgress = now;
+      long calls = 0;
+      long errors = 0;
+      for (Stats operation : stats.values()) {
+        calls += operation.latency.getCount();
+        errors += operation.errors.sum();
+      }
+      System.out.println(String.format(Locale.ROOT, "%s %4d s: %d calls, %d errors, %d in flight",
+          now < measureFrom ? "warm-up" : "measure", TimeUnit.NANOSECONDS.toSeconds(Math.abs(now - measureFrom)),
+          calls, errors, inFlight.get()));
+    }
+  }
+
+  /**
+   * Builds the calls of every operation on documents of {@code size} bytes, and the encrypted inputs of the
+   * decrypting ones.
+   */
+  private Map<String, Callable<CompletableFuture<?>>> calls(int size, int fieldsPerRecord, int depth,
+      boolean remote) throws Exception {
+    DBLCipherType[] types = DBLBenchmarkDocuments.MIXED_TYPES;
+    String cipherSpec = DBLBenchmarkDocuments.cipherSpec(fieldsPerRecord, depth, types);
+    String recordSpec = DBLBenchmarkDocuments.recordCipherSpec(fieldsPerRecord, depth, types);
+    String columnSpec = DBLBenchmarkDocuments.recordCipherSpec(fieldsPerRecord, 1, types);
+    String paths = DBLBenchmarkDocuments.pathList(fieldsPerRecord, depth);
+    String clearJson = DBLBenchmarkDocuments.document(size, fieldsPerRecord, depth, types);
+    String encryptedJson = operations.encryptJson(configuration, cipherSpec, clearJson, TWEAK, NO_TOKEN,
+        NO_PASSPHRASE, false).getOutput();
+    String clearRecords = DBLBenchmarkDocuments.records(clearJson);
+    String encryptedRecords = DBLBenchmarkDocuments.records(encryptedJson);
+    Object clearObject = DBLBenchmarkDocuments.objectDocument(size, fieldsPerRecord, depth, types);
+    Object encryptedObject = operations.encryptObject(configuration, cipherSpec, TypedValue.of(clearObject), TWEAK,
+        true, NO_TOKEN, NO_PASSPHRASE).getOutput();
+    String clearText = DBLBenchmarkDocuments.delimited(size, fieldsPerRecord, types);
+    String encryptedText = drain(operations.encryptDelimited(configuration, columnSpec, stream(clearText), TWEAK,
+        ",", true, 0, 100, NO_TOKEN, NO_PASSPHRASE));
+
+    Map<String, Callable<CompletableFuture<?>>> calls = new LinkedHashMap<>();
+    calls.put("EncryptJson", sync(() -> operations.encryptJson(configuration, cipherSpec, clearJson, TWEAK,
+        NO_TOKEN, NO_PASSPHRASE, false).getOutput()));
+    calls.put("DecryptJson", sync(() -> operations.decryptJson(configuration, cipherSpec, encryptedJson, TWEAK,
+        NO_TOKEN, NO_PASSPHRASE, false, null, false).getOutput()));
+    calls.put("ReencryptJson", sync(() -> operations.reencryptJson(configuration, cipherSpec, encryptedJson, TWEAK,
+        NEW_TWEAK, null, NO_TOKEN, NO_PASSPHRASE, false).getOutput()));
+    calls.put("reduceJson", sync(() -> operations.filterJson(configuration, paths, clearJson, "remove", NO_TOKEN,
+        NO_PASSPHRASE).getOutput()));
+    calls.put("EncryptJsonStream", sync(() -> drain(operations.encryptJsonStream(configuration, cipherSpec,
+        stream(clearJson), TWEAK, NO_TOKEN, NO_PASSPHRASE))));
+    calls.put("DecryptJsonStream", sync(() -> drain(operations.decryptJsonStream(configuration, cipherSpec,
+        stream(encryptedJson), TWEAK, NO_TOKEN, NO_PASSPHRASE))));
+    calls.put("ReencryptJsonStream", sync(() -> drain(operations.reencryptJsonStream(configuration, cipherSpec,
+        stream(encryptedJson), TWEAK, NEW_TWEAK, null, NO_TOKEN, NO_PASSPHRASE))));
+    calls.put("reduceJsonStream", sync(() -> drain(operations.filterJsonStream(configuration, paths,
+        stream(clearJson), "remove", NO_TOKEN, NO_PASSPHRASE))));
+    calls.put("EncryptJsonBatch", sync(() -> operations.encryptJsonBatch(configuration, recordSpec,
+        stream(clearRecords), TWEAK, 0, 100, NO_TOKEN, NO_PASSPHRASE)));
+    calls.put("DecryptJsonBatch", sync(() -> operations.decryptJsonBatch(configuration, recordSpec,
+        stream(encryptedRecords), TWEAK, 0, 100, NO_TOKEN, NO_PASSPHRASE)));
+    calls.put("ReencryptJsonBatch", sync(() -> operations.reencryptJsonBatch(configuration, recordSpec,
+        stream(encryptedRecords), TWEAK, NEW_TWEAK, null, 0, 100, NO_TOKEN, NO_PASSPHRASE)));
+    calls.put("EncryptObject", sync(() -> operations.encryptObject(configuration, cipherSpec,
+        TypedValue.of(clearObject), TWEAK, true, NO_TOKEN, NO_PASSPHRASE).getOutput()));
+    calls.put("DecryptObject", sync(() -> operations.decryptObject(configuration, cipherSpec,
+        TypedValue.of(encryptedObject), TWEAK, true, NO_TOKEN, NO_PASSPHRASE).getOutput()));
+    calls.put("EncryptDelimited", sync(() -> drain(operations.encryptDelimited(configuration, columnSpec,
+        stream(clearText), TWEAK, ",", true, 0, 100, NO_TOKEN, NO_PASSPHRASE))));
+    calls.put("DecryptDelimited", sync(() -> drain(operations.decryptDelimited(configuration, columnSpec,
+        stream(encryptedText), TWEAK, ",", true, 0, 100, NO_TOKEN, NO_PASSPHRASE))));
+    calls.put("OverrideToken", sync(() -> operations.overrideToken(configuration, "load-test-passphrase", 300)));
+    if (remote) {
+      calls.put("EncryptJsonUsingNLP", () -> encryptJsonUsingNLP(clearJson));
+    }
+    return calls;
+  }
+
+  /**
+   * Calls EncryptJsonUsingNLP with a pooled connection, which goes back to the pool once the response is read.
+   */
+  private CompletableFuture<?> encryptJsonUsingNLP(String clearJson) throws InterruptedException {
+    DBLConnection connection = pool.borrow();
+    CompletableFuture<InputStream> response = new CompletableFuture<>();
+    try {
+      operations.encryptJsonUsingNLP(connection, configuration, clearJson, TWEAK, NO_TOKEN, NO_PASSPHRASE, 0, null, 4,
+          2, new CompletionCallback<InputStream, DBLAttributes>() {
+
+            @Override
+            public void success(Result<InputStream, DBLAttributes> result) {
+              response.complete(result.getOutput());
+            }
+
+            @Override
+            public void error(Throwable e) {
+              response.completeExceptionally(e);
+            }
+          });
+    } catch (RuntimeException e) {
+      response.completeExceptionally(e);
+    }
+    // the flow reads the stream on its own thread, not on the one completing the call
+    return response.thenApplyAsync(stream -> {
+      try {
+        return drain(stream);
+      } catch (IOException e) {
+        throw new CompletionException(e);
+      }
+    }, consumers).whenComplete((result, failure) -> pool.release(connection));
+  }
+
+  /**
+   * Builds the provider, checks the status of the API and fills the connection pool.
+   */
+  private void startConnections(Map<String, String> parameters, int poolSize, int poolTimeout, int latency,
+      int jitter, double errorRate, int errorStatus) throws Exception {
+    DBLConnectionProvider provider = new DBLConnectionProvider();
+    for (Field field : DBLConnectionProvider.class.getDeclaredFields()) {
+      Optional optional = field.getAnnotation(Optional.class);
+      if (optional != null && !optional.defaultValue().isEmpty()) {
+        set(provider, field.getName(), optional.defaultValue());
+      }
+    }
+    set(provider, "apiKey", "load-test-api-key");
+    if (!parameters.containsKey("apiUri")) {
+      stub = new DBLStubApi(0, latency, jitter, errorRate, errorStatus);
+      set(provider, "apiUri", stub.getApiUri());
+    }
+    for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+      set(provider, parameter.getKey(), parameter.getValue());
+    }
+
+    clientThreads = Executors.newCachedThreadPool(daemon("datablind-load-http"));
+    HttpClient client = HttpClient.newBuilder().executor(clientThreads)
+        .connectTimeout(Duration.ofMillis(provider.getConnectTimeout())).build();
+    checkStatus(client, provider);
+    DBLNlpBatcher.Transport transport = DBLStubApi.transport(client, provider.getApiUri(), provider.getApiKey(),
+        provider.getResponseTimeout());
+    guard = provider.newServiceGuard();
+    if (guard != null) {
+      transport = guard.guard(transport);
+    }
+    DBLNlpBatcher batcher = new DBLNlpBatcher(transport, provider.getNlpBatchSize(), provider.getNlpBatchWindow());
+    List<DBLConnection> connections = new ArrayList<>();
+    for (int i = 0; i < poolSize; i++) {
+      connections.add(new DBLConnection("load-test-" + i, null, provider.getApiUri(), provider.getApiKey(),
+          provider.getResponseTimeout(), provider.getMaxInFlightRequests(), batcher, provider.getOverloadAction()));
+    }
+    pool = new ConnectionPool(connections, poolTimeout, poolWait);
+  }
+
+  private static void checkStatus(HttpClient client, DBLConnectionProvider provider) throws Exception {
+    HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+        URI.create(provider.getApiUri() + DBLConnectionProvider.STATUS_PATH))
+        .header("x-api-key", provider.getApiKey())
+        .timeout(Duration.ofMillis(provider.getResponseTimeout()))
+        .GET().build(), HttpResponse.BodyHandlers.ofString());
+    if (response.statusCode() < 200 || response.statusCode() >= 300) {
+      throw new IllegalArgumentException("DataGuard API at " + provider.getApiUri() + " is not available, status "
+          + response.statusCode());
+    }
+  }
+
+  /**
+   * Prints the results, writes them to {@code directory} with a {@code .hgrm} file per operation, and checks the
+   * thresholds.
+   *
+   * @return false if a threshold was exceeded
+   */
+  private boolean report(Path directory, int duration, double maxP99, double maxErrorRate) throws IOException {
+    StringWriter text = new StringWriter();
+    PrintWriter out = new PrintWriter(text);
+    out.println(String.format(Locale.ROOT, "%-22s %9s %8s %9s %9s %9s %9s %9s %9s %9s", "Operation", "Calls",
+        "Errors", "Calls/s", "Mean ms", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "Max ms"));
+    List<String> failures = new ArrayList<>();
+    Files.createDirectories(directory);
+    for (Stats operation : stats.values()) {
+      DBLLatencyHistogram latency = operation.latency;
+      long calls = latency.getCount();
+      long errors = operation.errors.sum();
+      out.println(String.format(Locale.ROOT, "%-22s %9d %8d %9.1f %9.3f %9.3f %9.3f %9.3f %9.3f %9.3f",
+          operation.name, calls, errors, calls / (double) duration, millis(latency.getMean()),
+          millis(latency.getValueAt(0.5)), millis(latency.getValueAt(0.9)), millis(latency.getValueAt(0.99)),
+          millis(latency.getValueAt(0.999)), millis(latency.getMax())));
+      if (errors > 0) {
+        out.println("    errors by type: " + operation.errorsByType);
+      }
+      writePercentiles(latency, directory.resolve(operation.name + ".hgrm"));
+      if (maxP99 > 0 && millis(latency.getValueAt(0.99)) > maxP99) {
+        failures.add(operation.name + " p99 above " + maxP99 + " ms");
+      }
+      if (calls > 0 && errors / (double) calls > maxErrorRate) {
+        failures.add(operation.name + " error rate above " + maxErrorRate);
+      }
+    }
+    out.println(String.format(Locale.ROOT, "Worker pool: %d threads, at most %d active and %d tasks queued",
+        configuration.getWorkerPool().getParallelism(), maxActiveWorkers.get(), maxQueuedWorkerTasks.get()));
+    if (pool != null) {
+      out.println(String.format(Locale.ROOT, "Connection pool: %d connections, wait p99 %.3f ms, max %.3f ms",
+          pool.size, millis(poolWait.getValueAt(0.99)), millis(poolWait.getMax())));
+    }
+    if (guard != null) {
+      out.println("Service guard: concurrency limit " + guard.getConcurrencyLimit() + ", circuit "
+          + guard.getCircuitState() + ", " + guard.getCircuitOpenings() + " openings, " + guard.getRejectedRequests()
+          + " rejected");
+    }
+    if (stub != null) {
+      out.println("API stub: " + stub.getRequests() + " NLP requests, " + stub.getInjectedErrors()
+          + " injected errors");
+    }
+    for (String failure : failures) {
+      out.println("FAILED: " + failure);
+    }
+    out.flush();
+    System.out.print(text);
+    Files.write(directory.resolve("summary.txt"), text.toString().getBytes(StandardCharsets.UTF_8));
+    System.out.println("Latency percentiles written to " + directory.toAbsolutePath());
+    return failures.isEmpty();
+  }
+
+  /**
+   * Writes the percentile distribution of {@code histogram} in milliseconds, as HdrHistogram's
+   * {@code outputPercentileDistribution} does with 5 ticks per half distance.
+   */
+  static void writePercentiles(DBLLatencyHistogram histogram, Path file) throws IOException {
+    long total = histogram.getCount();
+    try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+      out.println(String.format(Locale.ROOT, "%12s %14s %10s %14s%n", "Value", "Percentile", "TotalCount",
+          "1/(1-Percentile)"));
+      double percentile = 0;
+      while (total > 0) {
+        long value = histogram.getValueAt(percentile / 100);
+        long count = (long) Math.ceil(percentile / 100 * total);
+        if (value >= histogram.getMax() || count >= total) {
+          break;
+        }
+        out.println(String.format(Locale.ROOT, "%12.3f %1.12f %10d %14.2f", millis(value), percentile / 100,
+            Math.max(1, count), 100 / (100 - percentile)));
+        long ticks = (long) TICKS_PER_HALF_DISTANCE
+            << ((int) (Math.log(100 / (100 - percentile)) / Math.log(2)) + 1);
+        percentile += 100.0 / ticks;
+      }
+      if (total > 0) {
+        out.println(String.format(Locale.ROOT, "%12.3f %1.12f %10d", millis(histogram.getMax()), 1.0, total));
+      }
+      out.println(String.format(Locale.ROOT, "#[Mean    = %12.3f, Max            = %12.3f]",
+          millis(histogram.getMean()), millis(histogram.getMax())));
+      out.println(String.format(Locale.ROOT, "#[Total count    = %12d]", total));
+    }
+  }
+
+  private void stop() {
+    if (guard != null) {
+      guard.dispose();
+    }
+    if (stub != null) {
+      stub.close();
+    }
+    if (clientThreads != null) {
+      clientThreads.shutdownNow();
+    }
+    consumers.shutdownNow();
+    try {
+      configuration.stop();
+    } catch (Exception e) {
+      System.out.println("The configuration did not stop cleanly: " + e);
+    }
+  }
+
+  /**
+   * Sets a parameter of a configuration or connection provider from its text, as the runtime would.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static void set(Object target, String name, String value) throws ReflectiveOperationException {
+    Class<?> type;
+    try {
+      type = target.getClass().getDeclaredField(name).getType();
+    } catch (NoSuchFieldException e) {
+      throw new IllegalArgumentException("Unknown parameter " + name + " of " + target.getClass().getSimpleName());
+    }
+    Object converted;
+    if (type == int.class || type == Integer.class) {
+      converted = Integer.valueOf(value.trim());
+    } else if (type == long.class || type == Long.class) {
+      converted = Long.valueOf(value.trim());
+    } else if (type == boolean.class || type == Boolean.class) {
+      converted = Boolean.valueOf(value.trim());
+    } else if (type == double.class || type == Double.class) {
+      converted = Double.valueOf(value.trim());
+    } else if (type.isEnum()) {
+      converted = Enum.valueOf((Class) type, value.trim());
+    } else {
+      converted = value;
+    }
+    DBLBenchmarkDocuments.set(target, name, converted);
+  }
+
+  private static Callable<CompletableFuture<?>> sync(Callable<?> call) {
+    return () -> CompletableFuture.completedFuture(call.call());
+  }
+
+  private static InputStream stream(String text) {
+    return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String drain(InputStream stream) throws IOException {
+    try (InputStream in = stream) {
+      return String.valueOf(in.transferTo(OutputStream.nullOutputStream()));
+    }
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1e6;
+  }
+
+  private static ThreadFactory daemon(String name) {
+    AtomicLong count = new AtomicLong();
+    return runnable -> {
+      Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /**
+   * Latency and errors of one operation.
+   */
+  private static final class Stats {
+
+    private final String name;
+    private final DBLLatencyHistogram latency = new DBLLatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final Map<String, LongAdder> errorsByType = new ConcurrentHashMap<>();
+
+    Stats(String name) {
+      this.name = name;
+    }
+
+    void record(long nanos, Throwable failure) {
+      latency.record(nanos);
+      if (failure != null) {
+        errors.increment();
+        errorsByType.computeIfAbsent(errorType(failure), type -> new LongAdder()).increment();
+      }
+    }
+
+    private static String errorType(Throwable failure) {
+      Throwable cause = failure;
+      while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+          && cause.getCause() != null) {
+        cause = cause.getCause();
+      }
+      if (cause instanceof ModuleException && ((ModuleException) cause).getType() != null) {
+        return String.valueOf(((ModuleException) cause).getType());
+      }
+      return cause.getClass().getSimpleName();
+    }
+  }
+
+  /**
+   * Fixed set of connections handed to one call at a time. A caller waits for a free connection up to the pool
+   * timeout, and the wait is recorded.
+   */
+  private static final class ConnectionPool {
+
+    private final int size;
+    private final BlockingQueue<DBLConnection> idle;
+    private final int timeout;
+    private final DBLLatencyHistogram waits;
+
+    ConnectionPool(List<DBLConnection> connections, int timeout, DBLLatencyHistogram waits) {
+      this.size = connections.size();
+      this.idle = new ArrayBlockingQueue<>(size, false, connections);
+      this.timeout = timeout;
+      this.waits = waits;
+    }
+
+    DBLConnection borrow() throws InterruptedException {
+      long started = System.nanoTime();
+      DBLConnection connection = idle.poll(timeout, TimeUnit.MILLISECONDS);
+      waits.record(System.nanoTime() - started);
+      if (connection == null) {
+        throw new IllegalStateException("No connection free after " + timeout + " ms in a pool of " + size);
+      }
+      return connection;
+    }
+
+    void release(DBLConnection connection) {
+      idle.offer(connection);
+    }
+  }
+}
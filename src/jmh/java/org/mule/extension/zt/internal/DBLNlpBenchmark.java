@@ -0,0 +1,130 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.mule.runtime.extension.api.runtime.operation.Result;
+import org.mule.runtime.extension.api.runtime.process.CompletionCallback;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures EncryptJsonUsingNLP against a local stub of the DataBlind API, from several threads, with and without
+ * batching.
+ *
+ * <p>{@link DBLStubApi} answers with the requests it receives, so the benchmark covers encoding the request, the
+ * HTTP round trip on the loopback interface and reading the reply, but not the NLP service itself.</p>
+ *
+ * <p>{@link #requestBodyAsString()} builds the request body the way the connector did before it was streamed, and
+ * {@link #requestBodyStreamed()} sends it as {@link DBLNlpRequest} does. Run with {@code -prof gc}, their
+ * {@code gc.alloc.rate.norm} gives the bytes saved per request. They do not depend on {@code nlpBatchSize}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class DBLNlpBenchmark {
+
+  @Param({"1KB", "64KB"})
+  public String documentSize;
+
+  @Param({"1", "8"})
+  public int nlpBatchSize;
+
+  private DBLStubApi stub;
+  private ExecutorService clientThreads;
+  private DBLConfiguration configuration;
+  private DBLConnection connection;
+  private DBLOperations operations;
+  private String clearJson;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    stub = new DBLStubApi(0, 0, 0, 0, 503);
+    String apiUri = stub.getApiUri();
+    clientThreads = Executors.newCachedThreadPool();
+    HttpClient client = HttpClient.newBuilder().executor(clientThreads).build();
+    configuration = DBLBenchmarkDocuments.startConfiguration("nlp-benchmark");
+    connection = new DBLConnection("nlp-benchmark", null, apiUri, "benchmark-api-key",
+        DBLConnectionProvider.DEFAULT_RESPONSE_TIMEOUT, 1024,
+        new DBLNlpBatcher(DBLStubApi.transport(client, apiUri, "benchmark-api-key",
+            DBLConnectionProvider.DEFAULT_RESPONSE_TIMEOUT), nlpBatchSize, 5));
+    operations = new DBLOperations();
+    clearJson = DBLBenchmarkDocuments.document(DBLBenchmarkDocuments.bytes(documentSize), 4, 1,
+        DBLBenchmarkDocuments.MIXED_TYPES);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    connection.invalidate();
+    configuration.stop();
+    stub.close();
+    clientThreads.shutdownNow();
+  }
+
+  @Benchmark
+  public long encryptJsonUsingNLP() throws Exception {
+    CompletableFuture<InputStream> output = new CompletableFuture<>();
+    operations.encryptJsonUsingNLP(connection, configuration, clearJson, "benchmark-tweak", "NOTOKEN", "NOPASSPHRASE",
+        0, null, 4, 2, new CompletionCallback<InputStream, DBLAttributes>() {
+
+          @Override
+          public void success(Result<InputStream, DBLAttributes> result) {
+            output.complete(result.getOutput());
+          }
+
+          @Override
+          public void error(Throwable e) {
+            output.completeExceptionally(e);
+          }
+        });
+    try (InputStream response = output.get(30, TimeUnit.SECONDS)) {
+      return response.transferTo(OutputStream.nullOutputStream());
+    }
+  }
+
+  @Benchmark
+  public long requestBodyAsString() throws Exception {
+    String payload = String.format("{\n  \"key\": \"%s\",\n  \"tweak\": \"%s\",\n  \"data\": %s,\n"
+        + "  \"overRideToken\": \"%s\",\n  \"overRidePassPhrase\": \"%s\"\n}",
+        "benchmark-api-key", "benchmark-tweak", clearJson, "NOTOKEN", "NOPASSPHRASE");
+    return payload.getBytes(StandardCharsets.UTF_8).length;
+  }
+
+  @Benchmark
+  public long requestBodyStreamed() throws Exception {
+    try (InputStream body = new DBLNlpRequest("benchmark-api-key", "benchmark-tweak", clearJson, "NOTOKEN",
+        "NOPASSPHRASE").open()) {
+      return body.transferTo(OutputStream.nullOutputStream());
+    }
+  }
+}
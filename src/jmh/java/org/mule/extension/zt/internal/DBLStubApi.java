@@ -0,0 +1,220 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in for the DataGuard API, for benchmarks and load tests that must not depend on the real service.
+ *
+ * <p>{@code GET} {@value DBLConnectionProvider#STATUS_PATH} answers that the API is up. {@value DBLNlpBatcher#SINGLE_PATH} answers with the
+ * request it received and {@value DBLNlpBatcher#BATCH_PATH} with the requests as responses, so a test covers
+ * encoding the request, the HTTP round trip and reading the reply, but not the NLP service itself.</p>
+ *
+ * <p>NLP requests can be delayed by a fixed latency plus a uniform jitter, and a share of them can fail with an
+ * error status. Delayed replies are sent by a timer, not by a sleeping server thread, so the stub does not run out
+ * of threads before the connector does.</p>
+ *
+ * <p>Run {@link #main(String[])} to start it on its own, for example for a Mule application whose connection
+ * provider points at it.</p>
+ */
+public final class DBLStubApi implements AutoCloseable {
+
+  private static final byte[] STATUS = "{\"status\":\"UP\"}".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] FAILURE = "{\"error\":\"injected by the stub\"}".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] REQUESTS = "{\"requests\":".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] RESPONSES = "{\"responses\":".getBytes(StandardCharsets.UTF_8);
+
+  private final int latencyMillis;
+  private final int jitterMillis;
+  private final double errorRate;
+  private final int errorStatus;
+  private final HttpServer server;
+  private final ExecutorService serverThreads;
+  private final ScheduledExecutorService timer;
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder injectedErrors = new LongAdder();
+
+  /**
+   * Starts the stub on the loopback interface.
+   *
+   * @param port the port to listen on, 0 for any free port
+   * @param latencyMillis delay added to every NLP reply
+   * @param jitterMillis upper bound of a random delay added on top of {@code latencyMillis}
+   * @param errorRate share of the NLP requests, between 0 and 1, answered with {@code errorStatus}
+   * @param errorStatus the HTTP status of the injected errors, for example 500 or 503
+   */
+  DBLStubApi(int port, int latencyMillis, int jitterMillis, double errorRate, int errorStatus) throws IOException {
+    if (latencyMillis < 0 || jitterMillis < 0 || errorRate < 0 || errorRate > 1) {
+      throw new IllegalArgumentException("latency and jitter must not be negative, the error rate must be between 0 and 1");
+    }
+    this.latencyMillis = latencyMillis;
+    this.jitterMillis = jitterMillis;
+    this.errorRate = errorRate;
+    this.errorStatus = errorStatus;
+    serverThreads = Executors.newFixedThreadPool(Math.max(8, Runtime.getRuntime().availableProcessors()));
+    timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "datablind-stub-api-timer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+    server.createContext(DBLConnectionProvider.STATUS_PATH, this::status);
+    server.createContext(DBLNlpBatcher.SINGLE_PATH, exchange -> nlp(exchange, false));
+    server.createContext(DBLNlpBatcher.BATCH_PATH, exchange -> nlp(exchange, true));
+    server.setExecutor(serverThreads);
+    server.start();
+  }
+
+  /**
+   * @return the API URI of the stub, to be used as the API URI of a connection
+   */
+  String getApiUri() {
+    return "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  /**
+   * @return NLP requests received, batches counting once
+   */
+  long getRequests() {
+    return requests.sum();
+  }
+
+  long getInjectedErrors() {
+    return injectedErrors.sum();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    timer.shutdownNow();
+    serverThreads.shutdownNow();
+  }
+
+  /**
+   * Sends API calls with the JDK client, as {@link DBLConnectionProvider#httpTransport} does with the HTTP client
+   * of the runtime.
+   */
+  static DBLNlpBatcher.Transport transport(HttpClient client, String apiUri, String apiKey, int responseTimeout) {
+    return (path, body) -> client.sendAsync(HttpRequest.newBuilder(URI.create(apiUri + path))
+        .header("Content-Type", "application/json; charset=UTF-8")
+        .header("x-api-key", apiKey)
+        .timeout(Duration.ofMillis(responseTimeout))
+        .POST(HttpRequest.BodyPublishers.ofInputStream(() -> body))
+        .build(), HttpResponse.BodyHandlers.ofInputStream())
+        .thenApply(response -> new DBLNlpBatcher.Reply(response.statusCode(), response.body()));
+  }
+
+  private void status(HttpExchange exchange) throws IOException {
+    try {
+      exchange.getRequestBody().readAllBytes();
+      reply(exchange, 200, STATUS);
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void nlp(HttpExchange exchange, boolean batch) throws IOException {
+    requests.increment();
+    byte[] body;
+    try {
+      body = exchange.getRequestBody().readAllBytes();
+    } catch (IOException e) {
+      exchange.close();
+      throw e;
+    }
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    boolean failed = errorRate > 0 && random.nextDouble() < errorRate;
+    byte[] reply = failed ? FAILURE : batch ? responses(body) : body;
+    int status = failed ? errorStatus : 200;
+    if (failed) {
+      injectedErrors.increment();
+    }
+    long delay = latencyMillis + (jitterMillis > 0 ? random.nextInt(jitterMillis + 1) : 0);
+    if (delay == 0) {
+      send(exchange, status, reply);
+      return;
+    }
+    try {
+      timer.schedule(() -> serverThreads.execute(() -> send(exchange, status, reply)), delay, TimeUnit.MILLISECONDS);
+    } catch (RuntimeException e) {
+      // the stub is closing
+      exchange.close();
+    }
+  }
+
+  private static void send(HttpExchange exchange, int status, byte[] body) {
+    try {
+      reply(exchange, status, body);
+    } catch (IOException e) {
+      // the client has gone, nothing to answer
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private static void reply(HttpExchange exchange, int status, byte[] body) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, body.length);
+    exchange.getResponseBody().write(body);
+  }
+
+  private static byte[] responses(byte[] body) {
+    if (!startsWith(body, REQUESTS)) {
+      return body;
+    }
+    byte[] reply = new byte[body.length - REQUESTS.length + RESPONSES.length];
+    System.arraycopy(RESPONSES, 0, reply, 0, RESPONSES.length);
+    System.arraycopy(body, REQUESTS.length, reply, RESPONSES.length, body.length - REQUESTS.length);
+    return reply;
+  }
+
+  private static boolean startsWith(byte[] body, byte[] prefix) {
+    if (body.length < prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (body[i] != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Starts the stub until the process is stopped. Options are {@code --port}, {@code --latency} and
+   * {@code --jitter} in milliseconds, {@code --errorRate} and {@code --errorStatus}.
+   */
+  public static void main(String[] args) throws Exception {
+    DBLLoadOptions options = new DBLLoadOptions(args);
+    DBLStubApi stub = new DBLStubApi(options.getInt("port", 8081), options.getInt("latency", 0),
+        options.getInt("jitter", 0), options.getDouble("errorRate", 0), options.getInt("errorStatus", 503));
+    options.checkUnused();
+    Runtime.getRuntime().addShutdownHook(new Thread(stub::close));
+    System.out.println("DataGuard API stub listening on " + stub.getApiUri());
+    Thread.currentThread().join();
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Output attributes of the DataBlind operations: where the time of the call went, the sensitive fields it was asked
+ * to transform and the size of its documents.
+ *
+ * <p>Times are in nanoseconds, -1 when phase timings are disabled on the configuration. A phase the call did not go
+ * through is 0. When a document is handed to the engine whole, finding and writing its values happen inside the
+ * engine and are counted as crypto.</p>
+ */
+public final class DBLAttributes implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final long totalNanos;
+  private final long parseNanos;
+  private final long planNanos;
+  private final long cryptoNanos;
+  private final long serializeNanos;
+  private final long remoteNanos;
+  private final Map<String, Integer> fieldsRequested;
+  private final long inputBytes;
+  private final long outputBytes;
+
+  /**
+   * @param totalNanos time the call took
+   * @param inputBytes UTF-8 size of the document received, -1 if unknown
+   * @param outputBytes UTF-8 size of the document returned, -1 if unknown
+   */
+  DBLAttributes(DBLPhaseTimer timer, long totalNanos, long inputBytes, long outputBytes) {
+    this.totalNanos = timer.isEnabled() ? totalNanos : -1;
+    this.parseNanos = timer.nanos(DBLPhaseTimer.Phase.PARSE);
+    this.planNanos = timer.nanos(DBLPhaseTimer.Phase.PLAN);
+    this.cryptoNanos = timer.nanos(DBLPhaseTimer.Phase.CRYPTO);
+    this.serializeNanos = timer.nanos(DBLPhaseTimer.Phase.SERIALIZE);
+    this.remoteNanos = timer.nanos(DBLPhaseTimer.Phase.REMOTE);
+    this.fieldsRequested = countFields(timer.plan());
+    this.inputBytes = inputBytes;
+    this.outputBytes = outputBytes;
+  }
+
+  /**
+   * @return time the call took, from the start of the operation to its result
+   */
+  public long getTotalNanos() {
+    return totalNanos;
+  }
+
+  /**
+   * @return time spent finding the sensitive values in the document
+   */
+  public long getParseNanos() {
+    return parseNanos;
+  }
+
+  /**
+   * @return time spent resolving the sensitive fields to a compiled plan, usually a cache hit
+   */
+  public long getPlanNanos() {
+    return planNanos;
+  }
+
+  /**
+   * @return time spent encrypting or decrypting
+   */
+  public long getCryptoNanos() {
+    return cryptoNanos;
+  }
+
+  /**
+   * @return time spent writing the transformed values back into the document
+   */
+  public long getSerializeNanos() {
+    return serializeNanos;
+  }
+
+  /**
+   * @return time spent waiting for the DataGuard API
+   */
+  public long getRemoteNanos() {
+    return remoteNanos;
+  }
+
+  /**
+   * @return the sensitive fields the call was asked to transform, by cipher type, {@code OTHER} for the types the
+   *         Type Provider does not list; one per field of the plan, not per value transformed; empty when the fields
+   *         were chosen by the NLP service
+   */
+  public Map<String, Integer> getFieldsRequested() {
+    return fieldsRequested;
+  }
+
+  /**
+   * @return UTF-8 size of the document received, -1 if it was not text
+   */
+  public long getInputBytes() {
+    return inputBytes;
+  }
+
+  /**
+   * @return UTF-8 size of the document returned, -1 if it was not text or was streamed
+   */
+  public long getOutputBytes() {
+    return outputBytes;
+  }
+
+  @Override
+  public String toString() {
+    return "DBLAttributes{totalNanos=" + totalNanos + ", parseNanos=" + parseNanos + ", planNanos=" + planNanos
+        + ", cryptoNanos=" + cryptoNanos + ", serializeNanos=" + serializeNanos + ", remoteNanos=" + remoteNanos
+        + ", fieldsRequested=" + fieldsRequested + ", inputBytes=" + inputBytes + ", outputBytes=" + outputBytes
+        + "}";
+  }
+
+  private static Map<String, Integer> countFields(DBLFieldPlan plan) {
+    if (plan == null) {
+      return Collections.emptyMap();
+    }
+    Map<String, Integer> counts = new LinkedHashMap<>();
+    List<DBLFieldPlan.Field> fields = plan.getFields();
+    for (int i = 0; i < fields.size(); i++) {
+      DBLCipherType type = fields.get(i).getCipherType();
+      counts.merge(type == null ? "OTHER" : type.getSpecToken(), 1, Integer::sum);
+    }
+    return Collections.unmodifiableMap(counts);
+  }
+}
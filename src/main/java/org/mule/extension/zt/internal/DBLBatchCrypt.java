@@ -0,0 +1,215 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Applies one sensitive fields plan to every record of a JSON array or of newline delimited JSON.
+ *
+ * <p>Records are sliced out of the input without being parsed, grouped into chunks and the chunks are processed by
+ * up to {@code parallelism} workers of the configuration worker pool. Each worker borrows one engine for a whole
+ * chunk. Results keep the input order, and a record that fails is reported in the error list instead of failing the
+ * batch:</p>
+ *
+ * <pre>{"records":[{...},null,{...}],"errors":[{"index":1,"error":"..."}]}</pre>
+ *
+ * <p>When the plan has cipher types marked for the {@link DBLMemoCache}, records are transformed value by value
+ * through the memo instead of as whole documents. A batch built with its own {@link DBLFieldCipher.BlockTransform}
+ * transforms records value by value in the same way.</p>
+ */
+final class DBLBatchCrypt {
+
+  private final DBLEngineCache engines;
+  private final ForkJoinPool pool;
+  private final String operation;
+  private final String tweak;
+  private final DBLFieldPlan plan;
+  private final String spec;
+  private final String overRideToken;
+  private final String passPhrase;
+  private final DBLMemoCache memo;
+  private final DBLFieldCipher.BlockTransform transform;
+
+  DBLBatchCrypt(DBLEngineCache engines, ForkJoinPool pool, DBLFieldPlan plan, String operation, String tweak,
+                String overRideToken, String passPhrase, DBLMemoCache memo) {
+    this.engines = engines;
+    this.pool = pool;
+    this.operation = operation;
+    this.tweak = tweak;
+    this.plan = plan;
+    this.spec = plan.getSpec();
+    this.overRideToken = overRideToken;
+    this.passPhrase = passPhrase;
+    this.memo = memo;
+    this.transform = null;
+  }
+
+  /**
+   * A batch applying {@code transform} to the values of {@code plan}, record by record, instead of an engine operation.
+   */
+  DBLBatchCrypt(ForkJoinPool pool, DBLFieldPlan plan, DBLFieldCipher.BlockTransform transform) {
+    this.engines = null;
+    this.pool = pool;
+    this.operation = null;
+    this.tweak = null;
+    this.plan = plan;
+    this.spec = plan.getSpec();
+    this.overRideToken = null;
+    this.passPhrase = null;
+    this.memo = null;
+    this.transform = transform;
+  }
+
+  /**
+   * Transforms every record of {@code input}.
+   *
+   * @param parallelism maximum number of chunks processed at once, 0 for the size of the worker pool
+   * @param chunkSize number of records handed to a worker at a time
+   * @return the batch result document
+   * @throws IOException if the input is neither a JSON array nor newline delimited JSON
+   */
+  String run(byte[] input, int parallelism, int chunkSize) throws IOException, InterruptedException {
+    List<String> records = split(input);
+    int count = records.size();
+    String[] results = new String[count];
+    String[] errors = new String[count];
+
+    int size = Math.max(1, chunkSize);
+    int chunks = (count + size - 1) / size;
+    int workers = Math.min(chunks, parallelism > 0 ? parallelism : pool.getParallelism());
+    AtomicInteger nextChunk = new AtomicInteger();
+    Runnable worker = () -> {
+      int chunk;
+      while ((chunk = nextChunk.getAndIncrement()) < chunks) {
+        int from = chunk * size;
+        process(records, from, Math.min(count, from + size), results, errors);
+      }
+    };
+
+    List<Future<?>> running = new ArrayList<>(workers);
+    for (int i = 1; i < workers; i++) {
+      running.add(pool.submit(worker));
+    }
+    // the calling thread works too, so a batch always progresses even on a saturated pool
+    worker.run();
+    for (Future<?> future : running) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("Batch worker failed: " + e.getCause(), e.getCause());
+      }
+    }
+    return render(results, errors);
+  }
+
+  private void process(List<String> records, int from, int to, String[] results, String[] errors) {
+    if (transform != null) {
+      for (int i = from; i < to; i++) {
+        try {
+          results[i] = memoized(records.get(i), transform);
+        } catch (Exception e) {
+          errors[i] = e.toString();
+        }
+      }
+      return;
+    }
+    try {
+      engines.execute(engine -> {
+        DBLFieldCipher.BlockTransform cipher = memo.memoize((cipherSpecs, rawValues) ->
+            DBLFieldCipher.transform(engine, operation, tweak, cipherSpecs, rawValues, overRideToken, passPhrase),
+            plan, operation, tweak, overRideToken, passPhrase);
+        boolean memoized = memo.applies(plan, overRideToken);
+        for (int i = from; i < to; i++) {
+          try {
+            results[i] = memoized ? memoized(records.get(i), cipher)
+                : engine.transform(operation, tweak, records.get(i), spec, overRideToken, passPhrase);
+          } catch (Exception e) {
+            errors[i] = e.toString();
+          }
+        }
+        return null;
+      });
+    } catch (Exception e) {
+      for (int i = from; i < to; i++) {
+        if (results[i] == null && errors[i] == null) {
+          errors[i] = e.toString();
+        }
+      }
+    }
+  }
+
+  private String memoized(String record, DBLFieldCipher.BlockTransform cipher) throws Exception {
+    byte[] document = record.getBytes(StandardCharsets.UTF_8);
+    List<DBLParallelCrypt.Slot> slots = DBLParallelCrypt.locate(document, plan);
+    return slots.isEmpty() ? record : DBLParallelCrypt.transformFields(document, slots, cipher);
+  }
+
+  /**
+   * Slices the records of a JSON array, or of newline delimited JSON, as raw text.
+   */
+  static List<String> split(byte[] input) throws IOException {
+    List<String> records = new ArrayList<>();
+    DBLJsonScanner scanner = new DBLJsonScanner(input);
+    int token = scanner.next(false);
+    boolean array = token == DBLJsonScanner.START_ARRAY;
+    int recordDepth = array ? 1 : 0;
+    if (array) {
+      token = scanner.next(false);
+    }
+    long start = -1;
+    while (token != DBLJsonScanner.END_OF_INPUT) {
+      if (array && scanner.depth() == 0) {
+        // closing bracket of the batch array
+        if (scanner.next(false) != DBLJsonScanner.END_OF_INPUT) {
+          throw new IOException("Unexpected content after the batch array");
+        }
+        break;
+      }
+      if (start < 0) {
+        start = scanner.tokenStart();
+      }
+      if (scanner.depth() == recordDepth) {
+        records.add(new String(input, (int) start, (int) (scanner.tokenEnd() - start), StandardCharsets.UTF_8));
+        start = -1;
+      }
+      token = scanner.next(false);
+    }
+    return records;
+  }
+
+  private static String render(String[] results, String[] errors) {
+    StringBuilder sb = new StringBuilder().append("{\"records\":[");
+    for (int i = 0; i < results.length; i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append(results[i] == null ? "null" : results[i]);
+    }
+    sb.append("],\"errors\":[");
+    boolean first = true;
+    for (int i = 0; i < errors.length; i++) {
+      if (errors[i] != null) {
+        if (!first) {
+          sb.append(',');
+        }
+        first = false;
+        sb.append("{\"index\":").append(i).append(",\"error\":").append(DBLJsonScanner.quote(errors[i])).append('}');
+      }
+    }
+    return sb.append("]}").toString();
+  }
+}
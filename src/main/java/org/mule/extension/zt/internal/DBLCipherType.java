@@ -0,0 +1,133 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The cipher types offered by {@link DBLTypeProvider}.
+ *
+ * <p>Each type carries the display name shown in the type picker and the token used for it inside a
+ * sensitive fields specification (for example {@code FE:PersonName}). {@link #resolve(String)} accepts either
+ * form, as well as the common aliases found in existing flows such as {@code CREDIT_CARD}.</p>
+ */
+public enum DBLCipherType {
+
+  DATE("Date (MM/dd/yyyy)", "Date"),
+  DATE_TIME("DateTime (MM/dd/yyyy HH:mm:ss)", "DateTime"),
+  IP_ADDRESS("IP Address (v4)", "IPAddress", "IP", "IPv4"),
+  GPS("GPS", "GPSCoordinate"),
+  UPC_A("UPC-A", "UPC"),
+  CREDIT_CARD("Credit Card Number", "CreditCardNumber", "CreditCard"),
+  SSN("SSN", "SSN"),
+  STREET_ADDRESS("Street Address", "StreetAddress", "Address"),
+  STREET_ADDRESS_NICE("Street Address Nice", "StreetAddressNice"),
+  CURRENCY_AMOUNT("Currency Amount", "CurrencyAmount", "Currency"),
+  PHONE_NUMBER("Phone Number", "PhoneNumber", "Phone"),
+  PERSON_NAME("Person Name", "PersonName", "Name"),
+  PERSON_NAME_NICE("Person Name Nice", "PersonNameNice"),
+  EMAIL_ADDRESS("Email Address", "EmailAddress", "Email");
+
+  private static final Map<String, DBLCipherType> BY_ALIAS = new HashMap<>();
+  static {
+    for (DBLCipherType type : values()) {
+      BY_ALIAS.put(normalize(type.displayName), type);
+      BY_ALIAS.put(normalize(type.name()), type);
+      BY_ALIAS.put(normalize(type.specToken), type);
+      for (String alias : type.aliases) {
+        BY_ALIAS.put(normalize(alias), type);
+      }
+    }
+  }
+
+  private final String displayName;
+  private final String specToken;
+  private final String[] aliases;
+
+  DBLCipherType(String displayName, String specToken, String... aliases) {
+    this.displayName = displayName;
+    this.specToken = specToken;
+    this.aliases = aliases;
+  }
+
+  /**
+   * @return the name listed by {@link DBLTypeProvider}
+   */
+  public String getDisplayName() {
+    return displayName;
+  }
+
+  /**
+   * @return the token used for this type in a sensitive fields specification
+   */
+  public String getSpecToken() {
+    return specToken;
+  }
+
+  /**
+   * @return a clear value of this type, varying with {@code n}, for warm-up and benchmark documents
+   */
+  String sample(int n) {
+    int d = n % 10;
+    switch (this) {
+      case DATE: return String.format("%02d/%02d/20%02d", 1 + n % 12, 1 + n % 28, n % 100);
+      case DATE_TIME: return String.format("%02d/%02d/2024 %02d:%02d:%02d", 1 + n % 12, 1 + n % 28, n % 24, n % 60, d);
+      case IP_ADDRESS: return "10." + (n >> 16 & 255) + "." + (n >> 8 & 255) + "." + (n & 255);
+      case GPS: return "40.7" + d + "28,-74.00" + d + "0";
+      case UPC_A: return "03600029145" + d;
+      case CREDIT_CARD: return "411111111111111" + d;
+      case SSN: return "123-45-" + String.format("%04d", n % 10000);
+      case STREET_ADDRESS:
+      case STREET_ADDRESS_NICE: return (100 + n % 900) + " Main Street";
+      case CURRENCY_AMOUNT: return (n % 100000) + ".5" + d;
+      case PHONE_NUMBER: return "555-123-" + String.format("%04d", n % 10000);
+      case PERSON_NAME:
+      case PERSON_NAME_NICE: return "John Smith" + (char) ('a' + d);
+      case EMAIL_ADDRESS: return "user" + n + "@example.com";
+      default: throw new IllegalArgumentException(name());
+    }
+  }
+
+  /**
+   * Resolves a display name, spec token or alias to a cipher type. Case, blanks and punctuation are ignored.
+   *
+   * @return the matching type, or {@code null} if the token is not one of the listed types
+   */
+  public static DBLCipherType resolve(String token) {
+    if (token == null) {
+      return null;
+    }
+    return BY_ALIAS.get(normalize(token));
+  }
+
+  /**
+   * @return the display names of every type, in declaration order
+   */
+  public static String[] displayNames() {
+    DBLCipherType[] types = values();
+    String[] names = new String[types.length];
+    for (int i = 0; i < types.length; i++) {
+      names[i] = types[i].displayName;
+    }
+    return names;
+  }
+
+  private static String normalize(String token) {
+    StringBuilder sb = new StringBuilder(token.length());
+    for (int i = 0; i < token.length(); i++) {
+      char c = token.charAt(i);
+      if (Character.isLetterOrDigit(c)) {
+        sb.append(c);
+      }
+    }
+    return sb.toString().toUpperCase(Locale.ROOT);
+  }
+}
@@ -8,19 +8,46 @@
  */
 package org.mule.extension.zt.internal;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.mule.runtime.api.exception.MuleException;
+import org.mule.runtime.api.exception.DefaultMuleException;
+import org.mule.runtime.api.lifecycle.Startable;
+import org.mule.runtime.api.lifecycle.Stoppable;
 import org.mule.runtime.extension.api.annotation.Operations;
 import org.mule.runtime.extension.api.annotation.connectivity.ConnectionProviders;
+import org.mule.runtime.extension.api.annotation.param.Optional;
 import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.RefName;
 import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Placement;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 /**
  * This class represents an extension configuration, values set in this class are commonly used across multiple
  * operations since they represent something core from the extension.
+ * <p>
+ * The configuration owns the {@link DBLEngineCache}, the {@link DBLFieldPlanCache} and the worker pool shared by
+ * all operations: they are built when the configuration starts and released when it stops. It also owns the
+ * {@link DBLMetrics} of its operations, exposed through JMX under the name of the configuration. With warm-up
+ * iterations set, {@link #start()} runs a {@link DBLWarmup} before it returns.
  */
 @Operations(DBLOperations.class)
 @ConnectionProviders(DBLConnectionProvider.class)
-public class DBLConfiguration {
+public class DBLConfiguration implements Startable, Stoppable {
+
+	private final Logger LOGGER = LoggerFactory.getLogger(DBLConfiguration.class);
+
+@RefName
+	private String configName;
 
 @Parameter
 @DisplayName("Encryption Key")
@@ -28,6 +55,236 @@ public class DBLConfiguration {
 	public String getEncryptionKey() {
 		  return encryptionKey;
 	}
+
+@Parameter
+@Optional(defaultValue = "16")
+@Summary("Maximum number of idle encryption engines kept for reuse across concurrent flows.")
+@DisplayName("Engine Pool Size")
+@Placement(tab="Advanced")
+	private int enginePoolSize;
+	public int getEnginePoolSize() {
+		  return enginePoolSize;
+	}
+
+@Parameter
+@Optional(defaultValue = "64")
+@Summary("Maximum number of key contexts cached for OverrideTokenWithNewKey.")
+@DisplayName("Key Cache Size")
+@Placement(tab="Advanced")
+	private int keyCacheSize;
+	public int getKeyCacheSize() {
+		  return keyCacheSize;
+	}
+
+@Parameter
+@Optional(defaultValue = "0")
+@Summary("Maximum number of FE results remembered for the cipher types marked :MEMO in Sensitive Fields, 0 to disable.")
+@DisplayName("Memo Cache Size")
+@Placement(tab="Advanced")
+	private int memoCacheSize;
+	public int getMemoCacheSize() {
+		  return memoCacheSize;
+	}
+
+@Parameter
+@Optional(defaultValue = "300")
+@Summary("Seconds after which a remembered FE result is forgotten and its memory overwritten.")
+@DisplayName("Memo Cache TTL")
+@Placement(tab="Advanced")
+	private int memoCacheTtl;
+	public int getMemoCacheTtl() {
+		  return memoCacheTtl;
+	}
+
+@Parameter
+@Optional(defaultValue = "256")
+@Summary("Maximum number of compiled sensitive fields specifications kept in memory.")
+@DisplayName("Field Plan Cache Size")
+@Placement(tab="Advanced")
+	private int fieldPlanCacheSize;
+	public int getFieldPlanCacheSize() {
+		  return fieldPlanCacheSize;
+	}
+
+@Parameter
+@Optional(defaultValue = "0")
+@Summary("Number of worker threads used by batch and parallel operations, 0 for one per available core.")
+@DisplayName("Worker Threads")
+@Placement(tab="Advanced")
+	private int workerThreads;
+	public int getWorkerThreads() {
+		  return workerThreads;
+	}
+
+@Parameter
+@Optional(defaultValue = "0")
+@Summary("Number of sensitive values from which a document is split across worker threads when Parallel Fields is enabled, 0 to adapt it to the measured cost of a value.")
+@DisplayName("Parallel Field Threshold")
+@Placement(tab="Advanced")
+	private int parallelFieldThreshold;
+	public int getParallelFieldThreshold() {
+		  return parallelFieldThreshold;
+	}
+
+@Parameter
+@Optional(defaultValue = "0")
+@Summary("Maximum number of document shapes for which EncryptJsonUsingNLP remembers the fields chosen by the NLP service and encrypts locally, 0 to always call the service.")
+@DisplayName("Shape Cache Size")
+@Placement(tab="Advanced")
+	private int shapeCacheSize;
+	public int getShapeCacheSize() {
+		  return shapeCacheSize;
+	}
+
+@Parameter
+@Optional(defaultValue = "3600")
+@Summary("Seconds after which a learned document shape is forgotten and learned again from the NLP service.")
+@DisplayName("Shape Cache TTL")
+@Placement(tab="Advanced")
+	private int shapeCacheTtl;
+	public int getShapeCacheTtl() {
+		  return shapeCacheTtl;
+	}
+
+@Parameter
+@Optional
+@Summary("File in which learned document shapes are saved when the configuration stops and loaded when it starts.")
+@DisplayName("Shape Cache Snapshot")
+@Placement(tab="Advanced")
+	private String shapeCacheSnapshot;
+	public String getShapeCacheSnapshot() {
+		  return shapeCacheSnapshot;
+	}
+
+@Parameter
+@Optional(defaultValue = "true")
+@Summary("Time the phases of each EncryptJson, DecryptJson, ReencryptJson, reduceJson and EncryptJsonUsingNLP call and return them in the attributes of the result.")
+@DisplayName("Phase Timings")
+@Placement(tab="Advanced")
+	private boolean phaseTimings;
+	public boolean isPhaseTimings() {
+		  return phaseTimings;
+	}
+
+@Parameter
+@Optional(defaultValue = "REMOTE")
+@Summary("How EncryptJsonUsingNLP finds sensitive fields: with the NLP service, with the local field detector, or with the service and the local detector when the service fails.")
+@DisplayName("Field Detection")
+@Placement(tab="Advanced")
+	private DBLFieldDetection fieldDetection;
+	public DBLFieldDetection getFieldDetection() {
+		  return fieldDetection == null ? DBLFieldDetection.REMOTE : fieldDetection;
+	}
+
+@Parameter
+@Optional
+@Summary("Class implementing DBLFieldDetector, with a public no argument constructor, used for local field detection instead of the built-in detector.")
+@DisplayName("Field Detector Class")
+@Placement(tab="Advanced")
+	private String fieldDetectorClass;
+	public String getFieldDetectorClass() {
+		  return fieldDetectorClass;
+	}
+
+@Parameter
+@Optional(defaultValue = "0")
+@Summary("Number of synthetic EncryptJson, DecryptJson and reduceJson iterations over every cipher type run when the configuration starts, 0 to disable the warm-up.")
+@DisplayName("Warm-up Iterations")
+@Placement(tab="Advanced")
+	private int warmupIterations;
+	public int getWarmupIterations() {
+		  return warmupIterations;
+	}
+
+@Parameter
+@Optional(defaultValue = "60")
+@Summary("Seconds after which the warm-up stops starting new iterations.")
+@DisplayName("Warm-up Timeout")
+@Placement(tab="Advanced")
+	private int warmupTimeout;
+	public int getWarmupTimeout() {
+		  return warmupTimeout;
+	}
+
+	private volatile DBLFieldDetector fieldDetector;
+	public DBLFieldDetector getFieldDetector() {
+		  DBLFieldDetector detector = fieldDetector;
+		  if (detector == null) {
+			  throw new IllegalStateException("DataBlind configuration is not started");
+		  }
+		  return detector;
+	}
+
+	private volatile DBLWarmup warmup;
+	/**
+	 * @return the warm-up run when the configuration started, or null if it is disabled
+	 */
+	public DBLWarmupMXBean getWarmup() {
+		  return warmup;
+	}
+
+	private volatile ForkJoinPool workerPool;
+	public ForkJoinPool getWorkerPool() {
+		  ForkJoinPool pool = workerPool;
+		  if (pool == null) {
+			  throw new IllegalStateException("DataBlind configuration is not started");
+		  }
+		  return pool;
+	}
+
+	private volatile DBLFieldPlanCache fieldPlanCache;
+	public DBLFieldPlanCache getFieldPlanCache() {
+		  DBLFieldPlanCache cache = fieldPlanCache;
+		  if (cache == null) {
+			  throw new IllegalStateException("DataBlind configuration is not started");
+		  }
+		  return cache;
+	}
+
+	private volatile DBLEngineCache engineCache;
+	public DBLEngineCache getEngineCache() {
+		  DBLEngineCache cache = engineCache;
+		  if (cache == null) {
+			  throw new IllegalStateException("DataBlind configuration is not started");
+		  }
+		  return cache;
+	}
+
+	private volatile DBLMemoCache memoCache;
+	public DBLMemoCache getMemoCache() {
+		  DBLMemoCache cache = memoCache;
+		  if (cache == null) {
+			  throw new IllegalStateException("DataBlind configuration is not started");
+		  }
+		  return cache;
+	}
+
+	private volatile DBLShapeCache shapeCache;
+	public DBLShapeCache getShapeCache() {
+		  DBLShapeCache cache = shapeCache;
+		  if (cache == null) {
+			  throw new IllegalStateException("DataBlind configuration is not started");
+		  }
+		  return cache;
+	}
+
+	private volatile DBLMetrics metrics;
+	public DBLMetrics getMetrics() {
+		  DBLMetrics registry = metrics;
+		  if (registry == null) {
+			  throw new IllegalStateException("DataBlind configuration is not started");
+		  }
+		  return registry;
+	}
+
+	private volatile DBLParallelCrypt parallelCrypt;
+	public DBLParallelCrypt getParallelCrypt() {
+		  DBLParallelCrypt crypt = parallelCrypt;
+		  if (crypt == null) {
+			  throw new IllegalStateException("DataBlind configuration is not started");
+		  }
+		  return crypt;
+	}
 /* 
 @Parameter
 @DisplayName("DataGuardAPI Key")
@@ -43,5 +300,118 @@ public class DBLConfiguration {
 		return apiUri;
 	}
 */
-}
 
+	@Override
+	public void start() throws MuleException {
+		// before the engines and the worker pool, so a detector that cannot be created leaves nothing to release
+		fieldDetector = newFieldDetector(fieldDetectorClass);
+		try {
+			fieldPlanCache = new DBLFieldPlanCache(fieldPlanCacheSize);
+			engineCache = new DBLEngineCache(encryptionKey, enginePoolSize, keyCacheSize);
+			workerPool = newWorkerPool(workerThreads > 0 ? workerThreads : Runtime.getRuntime().availableProcessors());
+			memoCache = new DBLMemoCache(memoCacheSize, memoCacheTtl * 1000L);
+			parallelCrypt = new DBLParallelCrypt(engineCache, workerPool, parallelFieldThreshold, memoCache);
+		} catch (Exception e) {
+			throw new DefaultMuleException("Unable to initialize the DataBlind engines", e);
+		}
+		DBLShapeCache shapes = new DBLShapeCache(shapeCacheSize, shapeCacheTtl * 1000L,
+				shapeCacheSnapshot == null || shapeCacheSnapshot.trim().isEmpty() ? null : Paths.get(shapeCacheSnapshot.trim()));
+		if (shapes.isEnabled()) {
+			try {
+				LOGGER.info("DataBlind shape cache: " + shapes.load() + " shapes loaded");
+			} catch (IOException e) {
+				// a missing or damaged snapshot only means the shapes are learned again
+				LOGGER.warn("DataBlind shape cache snapshot could not be read: " + e);
+			}
+		}
+		shapeCache = shapes;
+		DBLMetrics registry = new DBLMetrics(configName);
+		registry.register();
+		if (memoCache.isEnabled()) {
+			registry.registerCache("Memo", memoCache);
+		}
+		if (warmupIterations > 0) {
+			// start only returns once the engines are warm, so no message pays for it
+			DBLWarmup warm = new DBLWarmup(DBLWarmup.of(engineCache), warmupIterations, warmupTimeout * 1000L);
+			warm.run();
+			registry.registerWarmup(warm);
+			warmup = warm;
+		}
+		metrics = registry;
+	}
+
+	@Override
+	public void stop() throws MuleException {
+		DBLMetrics registry = metrics;
+		metrics = null;
+		if (registry != null) {
+			registry.unregister();
+			for (DBLOperationMetrics operation : registry.getOperations()) {
+				if (operation.getCalls() > 0) {
+					LOGGER.info("DataBlind metrics: " + operation);
+				}
+			}
+		}
+		parallelCrypt = null;
+		warmup = null;
+		fieldDetector = null;
+		ForkJoinPool pool = workerPool;
+		workerPool = null;
+		if (pool != null) {
+			pool.shutdown();
+		}
+		DBLEngineCache cache = engineCache;
+		engineCache = null;
+		if (cache != null) {
+			cache.dispose();
+		}
+		DBLShapeCache shapes = shapeCache;
+		shapeCache = null;
+		if (shapes != null && shapes.isEnabled()) {
+			try {
+				LOGGER.info("DataBlind shape cache: " + shapes.getHitCount() + " hits, " + shapes.getMissCount() + " misses, "
+						+ shapes.save() + " shapes saved");
+			} catch (IOException e) {
+				LOGGER.warn("DataBlind shape cache snapshot could not be written: " + e);
+			}
+			shapes.clear();
+		}
+		DBLFieldPlanCache plans = fieldPlanCache;
+		fieldPlanCache = null;
+		if (plans != null) {
+			LOGGER.info("DataBlind field plan cache: " + plans.getHitCount() + " hits, " + plans.getMissCount() + " misses, "
+					+ plans.size() + " plans");
+			plans.clear();
+		}
+		DBLMemoCache memo = memoCache;
+		memoCache = null;
+		if (memo != null && memo.isEnabled()) {
+			LOGGER.info("DataBlind memo cache: " + memo.getHits() + " hits, " + memo.getMisses() + " misses, "
+					+ memo.getSize() + " results");
+			memo.clear();
+		}
+	}
+
+	private static DBLFieldDetector newFieldDetector(String className) throws MuleException {
+		if (className == null || className.trim().isEmpty()) {
+			return new DBLLocalFieldDetector();
+		}
+		try {
+			ClassLoader loader = Thread.currentThread().getContextClassLoader();
+			Class<?> type = Class.forName(className.trim(), true,
+					loader != null ? loader : DBLConfiguration.class.getClassLoader());
+			return (DBLFieldDetector) type.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | ClassCastException | LinkageError e) {
+			throw new DefaultMuleException("Unable to create the DataBlind field detector " + className, e);
+		}
+	}
+
+	private static ForkJoinPool newWorkerPool(int parallelism) {
+		AtomicInteger threadCount = new AtomicInteger();
+		return new ForkJoinPool(parallelism, pool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName("datablind-worker-" + threadCount.incrementAndGet());
+			return thread;
+		}, null, false);
+	}
+}
@@ -1,50 +1,132 @@
-/*
- * Copyright 2025 ZTensor, Inc. All rights reserved.
- * This software is proprietary and confidential. Unauthorized copying, 
- * distribution, or use of this software, via any medium, is strictly prohibited.
- * 
- * This software is licensed for commercial use only. For licensing information,
- * please contact ZTensor, Inc.
- */
-package org.mule.extension.zt.internal;
-
-import org.mule.runtime.http.api.client.HttpClient;
-
-
-/**
- * This class represents an extension connection just as example (there is no real connection with anything here c:).
- */
-public final class DBLConnection {
-
-  private final String id;
-  private final HttpClient httpClient;
-  private final String apiKey;
-  private final String apiUri;
-
-  public DBLConnection(String id, HttpClient httpClient, String apiUri, String apiKey) {
-    this.id = id;
-    this.httpClient = httpClient;
-    this.apiKey = apiKey;
-    this.apiUri = apiUri;
-  }
-
-  public String getId() {
-    return id;
-  }
-
-  public void invalidate() {
-    // do something to invalidate this connection!
-  }
-
-  public HttpClient getHttpClient() {
-    return httpClient;
-  }
-
-  public String getApiKey() {
-    return apiKey;
-  }
-
-  public String getApiUri() {
-    return apiUri;
-  }
-}
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import org.mule.runtime.http.api.client.HttpClient;
+
+/**
+ * This class represents an extension connection just as example (there is no real connection with anything here c:).
+ * <p>
+ * NLP requests sent with {@link #sendNlp(DBLNlpRequest)} are bounded by a response timeout and by a maximum number of
+ * requests in flight on this connection, and may be coalesced with those of other connections by the
+ * {@link DBLNlpBatcher} of the connection provider. The {@link DBLServiceGuard} of the provider, when configured,
+ * limits the calls of all connections together and stops calling an API that keeps failing.
+ */
+public final class DBLConnection {
+
+  private final String id;
+  private final HttpClient httpClient;
+  private final String apiKey;
+  private final String apiUri;
+  private final int responseTimeout;
+  private final int maxInFlightRequests;
+  private final Semaphore inFlight;
+  private final DBLNlpBatcher nlpBatcher;
+  private final DBLOverloadAction overloadAction;
+
+  public DBLConnection(String id, HttpClient httpClient, String apiUri, String apiKey) {
+    this(id, httpClient, apiUri, apiKey, DBLConnectionProvider.DEFAULT_RESPONSE_TIMEOUT,
+        DBLConnectionProvider.DEFAULT_MAX_IN_FLIGHT_REQUESTS,
+        new DBLNlpBatcher(DBLConnectionProvider.httpTransport(httpClient, apiUri, apiKey,
+            DBLConnectionProvider.DEFAULT_RESPONSE_TIMEOUT, false), 1, 0));
+  }
+
+  public DBLConnection(String id, HttpClient httpClient, String apiUri, String apiKey, int responseTimeout,
+                       int maxInFlightRequests, DBLNlpBatcher nlpBatcher) {
+    this(id, httpClient, apiUri, apiKey, responseTimeout, maxInFlightRequests, nlpBatcher, DBLOverloadAction.FAIL_FAST);
+  }
+
+  public DBLConnection(String id, HttpClient httpClient, String apiUri, String apiKey, int responseTimeout,
+                       int maxInFlightRequests, DBLNlpBatcher nlpBatcher, DBLOverloadAction overloadAction) {
+    this.id = id;
+    this.httpClient = httpClient;
+    this.apiKey = apiKey;
+    this.apiUri = apiUri;
+    this.responseTimeout = responseTimeout;
+    this.maxInFlightRequests = Math.max(1, maxInFlightRequests);
+    this.inFlight = new Semaphore(this.maxInFlightRequests);
+    this.nlpBatcher = nlpBatcher;
+    this.overloadAction = overloadAction == null ? DBLOverloadAction.FAIL_FAST : overloadAction;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public void invalidate() {
+    // do something to invalidate this connection!
+  }
+
+  public HttpClient getHttpClient() {
+    return httpClient;
+  }
+
+  public String getApiKey() {
+    return apiKey;
+  }
+
+  public String getApiUri() {
+    return apiUri;
+  }
+
+  public int getResponseTimeout() {
+    return responseTimeout;
+  }
+
+  public int getMaxInFlightRequests() {
+    return maxInFlightRequests;
+  }
+
+  /**
+   * @return what happens to an NLP request that is refused for overload or by the circuit breaker
+   */
+  public DBLOverloadAction getOverloadAction() {
+    return overloadAction;
+  }
+
+  /**
+   * @return the number of requests currently in flight on this connection
+   */
+  public int getInFlightRequests() {
+    return maxInFlightRequests - inFlight.availablePermits();
+  }
+
+  /**
+   * Sends an NLP request to the DataBlind API without blocking the calling thread.
+   * <p>
+   * The returned future fails with a {@link RejectedExecutionException} right away if the connection already has its
+   * maximum number of requests in flight, and with the timeout error of the HTTP client if no response arrives within
+   * the response timeout. The service guard of the provider may refuse it later with a
+   * {@link RejectedExecutionException} as well.
+   *
+   * @param request the request
+   * @return the response body, to be read and closed by the caller
+   */
+  public CompletableFuture<InputStream> sendNlp(DBLNlpRequest request) {
+    if (!inFlight.tryAcquire()) {
+      CompletableFuture<InputStream> rejected = new CompletableFuture<>();
+      rejected.completeExceptionally(new RejectedExecutionException(
+          "Too many DataBlind API requests in flight (" + maxInFlightRequests + ")"));
+      return rejected;
+    }
+    CompletableFuture<InputStream> sent;
+    try {
+      sent = nlpBatcher.submit(request);
+    } catch (RuntimeException e) {
+      inFlight.release();
+      throw e;
+    }
+    return sent.whenComplete((response, failure) -> inFlight.release());
+  }
+}
@@ -1,167 +1,512 @@
-/*
- * Copyright 2025 ZTensor, Inc. All rights reserved.
- * This software is proprietary and confidential. Unauthorized copying, 
- * distribution, or use of this software, via any medium, is strictly prohibited.
- * 
- * This software is licensed for commercial use only. For licensing information,
- * please contact ZTensor, Inc.
- */
-package org.mule.extension.zt.internal;
-
-import org.mule.runtime.api.connection.ConnectionException;
-import org.mule.runtime.extension.api.annotation.param.Parameter;
-import org.mule.runtime.extension.api.annotation.param.Optional;
-import org.mule.runtime.api.connection.ConnectionValidationResult;
-import org.mule.runtime.api.connection.PoolingConnectionProvider;
-import org.mule.runtime.api.exception.MuleException;
-import org.mule.runtime.api.meta.ExternalLibraryType;
-import org.mule.runtime.api.connection.ConnectionProvider;
-import org.mule.runtime.api.connection.CachedConnectionProvider;
-import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
-import org.mule.runtime.extension.api.annotation.param.display.Summary;
-import org.mule.runtime.extension.api.annotation.values.OfValues;
-import org.mule.runtime.extension.api.annotation.ExternalLib;
-import org.mule.runtime.api.lifecycle.Startable;
-import org.mule.runtime.api.lifecycle.Stoppable;
-import javax.inject.Inject;
-
-import org.mule.runtime.http.api.HttpService;
-import org.mule.runtime.http.api.client.HttpClient;
-import org.mule.runtime.http.api.client.HttpClientConfiguration;
-import org.mule.runtime.http.api.domain.message.request.HttpRequest;
-import org.mule.runtime.http.api.domain.message.response.HttpResponse;
-import org.mule.runtime.http.api.domain.entity.ByteArrayHttpEntity;
-import org.mule.runtime.http.api.domain.message.request.HttpRequestBuilder;
-
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-/**
- * This class (as it's name implies) provides connection instances and the funcionality to disconnect and validate those
- * connections.
- * <p>
- * All connection related parameters (values required in order to create a connection) must be
- * declared in the connection providers.
- * <p>
- * This particular example is a {@link PoolingConnectionProvider} which declares that connections resolved by this provider
- * will be pooled and reused. There are other implementations like {@link CachedConnectionProvider} which lazily creates and
- * caches connections or simply {@link ConnectionProvider} if you want a new connection each time something requires one.
- */
-
-public class DBLConnectionProvider implements PoolingConnectionProvider<DBLConnection>, Startable, Stoppable {
-
-  @Parameter
-  @Optional
-  @Summary("The API base URI for the DataGuard API (https://host/Dev)")
-  @DisplayName("API URI")
-  private String apiUri;
-  public String getApiUri() {
-    return apiUri;
-  }
-
-  @Parameter
-  @Optional
-  @Summary("The API Key for the DataGuard API.")
-  @DisplayName("DataGuardAPI Key")
-  private String apiKey;
-  public String getApiKey() {
-    return apiKey;
-  }
-
-  @Inject
-  private HttpService httpService;
-
-  private volatile HttpClient httpClient;
-
-  private final Logger LOGGER = LoggerFactory.getLogger(DBLConnectionProvider.class);
-
-  @Override
-  public DBLConnection connect() throws ConnectionException {
-    /*
-     * The remoteConenctionRequired is true if a valid API URI and API Key is provided. If both are null, 
-     * then it is assumed that the remote connection is not required. The method will attempt to call the status
-     * URI if the apiUri or apiKey are provided. If apiUri and apiKey are not provided, this method will not attempt 
-     * to call the status URI.
-     */
-    boolean remoteConenctionRequired = false;
-    DBLConnection connection = null;
-    String response = null;
-    HttpResponse httpResponse = null;
-    try {
-        // Create the HTTP client with a meaningful name for diagnostics
-        HttpClientConfiguration.Builder builder = new HttpClientConfiguration.Builder();
-        builder.setName("datablind-http-client");
-        httpClient = httpService.getClientFactory().create(builder.build());
-        connection = new DBLConnection("Test", httpClient, apiUri, apiKey);
-        if (apiUri != null || apiKey != null) {
-            remoteConenctionRequired = true;
-            HttpRequest request = HttpRequest.builder()
-             .method("GET")
-             .uri(apiUri + "/datacrypt-status")
-             .addHeader("Content-Type", "application/json")
-             .addHeader("x-api-key", apiKey)
-             .build();
-            httpClient.start();
-            httpResponse = httpClient.send(request);
-            response = new String(httpResponse.getEntity().getContent().readAllBytes());
-            LOGGER.info("DataGuard API Status: " + response);  
-        }
-    }
-    catch (Exception e) {
-        LOGGER.error("Excception, datacrypt-status failed " + e);
-        LOGGER.error(e.getStackTrace().toString());
-        throw new ConnectionException("Operation datacrypt-status failed due to " , e );
-    } 
-    if (remoteConenctionRequired) {
-       int statusCode = httpResponse.getStatusCode();
-       if (statusCode >= 200 && statusCode < 300) {
-              // Successful response
-              LOGGER.info("Request successful. Status code: " + statusCode);
-       } else if (statusCode >= 400 && statusCode < 500) {
-              // Client-side error
-              LOGGER.info("Client error. Status code: " + statusCode);
-              throw new ConnectionException("Operation datacrypt-status failed due to client error. Status code: " + statusCode );
-              // Handle the error, perhaps by logging the payload
-       } else {
-              // Server-side error or other status
-              LOGGER.info("Error. Status code: " + statusCode);
-              throw new ConnectionException("Operation datacrypt-status failed due to server error. Status code: " + statusCode );
-              // Handle as a server error
-       }
-    }
-    return connection;
-  }
-
-  @Override
-  public void disconnect(DBLConnection connection) {
-    try {
-      connection.invalidate();
-    } catch (Exception e) {
-      LOGGER.error("Error while disconnecting [" + connection.getId() + "]: " + e.getMessage(), e);
-    }
-  }
-
-  @Override
-  public ConnectionValidationResult validate(DBLConnection connection) {
-    return ConnectionValidationResult.success();
-  }
-
-  @Override
-  public void start() {
-    try {
-      httpClient.start();
-    } catch (Exception e) {
-      LOGGER.error("Error while starting httpClient: " + e.getMessage(), e);
-    }
-  }
-
-  @Override
-  public void stop() {
-    try {
-      httpClient.stop();
-    } catch (Exception e) {
-      LOGGER.error("Error while stopping httpClient: " + e.getMessage(), e);
-    }
-  }
-}
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.RefName;
+import org.mule.runtime.api.connection.ConnectionValidationResult;
+import org.mule.runtime.api.connection.PoolingConnectionProvider;
+import org.mule.runtime.api.exception.MuleException;
+import org.mule.runtime.api.meta.ExternalLibraryType;
+import org.mule.runtime.api.connection.ConnectionProvider;
+import org.mule.runtime.api.connection.CachedConnectionProvider;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+import org.mule.runtime.extension.api.annotation.values.OfValues;
+import org.mule.runtime.extension.api.annotation.ExternalLib;
+import org.mule.runtime.api.lifecycle.Startable;
+import org.mule.runtime.api.lifecycle.Stoppable;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletionException;
+import java.util.zip.GZIPInputStream;
+
+import org.mule.runtime.http.api.HttpService;
+import org.mule.runtime.http.api.client.HttpClient;
+import org.mule.runtime.http.api.client.HttpClientConfiguration;
+import org.mule.runtime.http.api.client.HttpRequestOptions;
+import org.mule.runtime.http.api.tcp.TcpClientSocketProperties;
+import org.mule.runtime.http.api.domain.message.request.HttpRequest;
+import org.mule.runtime.http.api.domain.message.response.HttpResponse;
+import org.mule.runtime.http.api.domain.entity.InputStreamHttpEntity;
+import org.mule.runtime.http.api.domain.message.request.HttpRequestBuilder;
+
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class (as it's name implies) provides connection instances and the funcionality to disconnect and validate those
+ * connections.
+ * <p>
+ * All connection related parameters (values required in order to create a connection) must be
+ * declared in the connection providers.
+ * <p>
+ * This particular example is a {@link PoolingConnectionProvider} which declares that connections resolved by this provider
+ * will be pooled and reused. There are other implementations like {@link CachedConnectionProvider} which lazily creates and
+ * caches connections or simply {@link ConnectionProvider} if you want a new connection each time something requires one.
+ */
+
+public class DBLConnectionProvider implements PoolingConnectionProvider<DBLConnection>, Startable, Stoppable {
+
+  static final int DEFAULT_RESPONSE_TIMEOUT = 30000;
+  static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 256;
+
+  @Parameter
+  @Optional
+  @Summary("The API base URI for the DataGuard API (https://host/Dev)")
+  @DisplayName("API URI")
+  private String apiUri;
+  public String getApiUri() {
+    return apiUri;
+  }
+
+  @Parameter
+  @Optional
+  @Summary("The API Key for the DataGuard API.")
+  @DisplayName("DataGuardAPI Key")
+  private String apiKey;
+  public String getApiKey() {
+    return apiKey;
+  }
+
+  @Parameter
+  @Optional(defaultValue = "30000")
+  @Summary("Milliseconds to wait for a response from the DataGuard API.")
+  @DisplayName("Response Timeout")
+  private int responseTimeout;
+  public int getResponseTimeout() {
+    return responseTimeout;
+  }
+
+  @Parameter
+  @Optional(defaultValue = "256")
+  @Summary("Maximum number of DataGuard API requests in flight on one connection; requests beyond it are rejected.")
+  @DisplayName("Max In-Flight Requests")
+  private int maxInFlightRequests;
+  public int getMaxInFlightRequests() {
+    return maxInFlightRequests;
+  }
+
+  @Parameter
+  @Optional(defaultValue = "1")
+  @Summary("Maximum number of concurrent NLP requests sent to the DataGuard API as one batch, 1 to send every request on its own.")
+  @DisplayName("NLP Batch Size")
+  private int nlpBatchSize;
+  public int getNlpBatchSize() {
+    return nlpBatchSize;
+  }
+
+  @Parameter
+  @Optional(defaultValue = "10")
+  @Summary("Longest time in milliseconds an NLP request waits for others to join its batch.")
+  @DisplayName("NLP Batch Window")
+  private int nlpBatchWindow;
+  public int getNlpBatchWindow() {
+    return nlpBatchWindow;
+  }
+
+  @Parameter
+  @Optional(defaultValue = "-1")
+  @Summary("Maximum number of outbound connections to the DataGuard API, -1 for no limit.")
+  @DisplayName("Max Connections")
+  private int maxConnections;
+  public int getMaxConnections() {
+    return maxConnections;
+  }
+
+  @Parameter
+  @Optional(defaultValue = "30000")
+  @Summary("Milliseconds an idle connection to the DataGuard API is kept open.")
+  @DisplayName("Connection Idle Timeout")
+  private int connectionIdleTimeout;
+  public int getConnectionIdleTimeout() {
+    return connectionIdleTimeout;
+  }
+
+  @Parameter
+  @Optional(defaultValue = "true")
+  @Summary("Reuse connections to the DataGuard API across requests (HTTP and TCP keep-alive).")
+  @DisplayName("Keep Alive")
+  private boolean keepAlive;
+  public boolean isKeepAlive() {
+    return keepAlive;
+  }
+
+  @Parameter
+  @Optional(defaultValue = "-1")
+  @Summary("Size in bytes of the buffer used to read DataGuard API responses, -1 for the HTTP service default.")
+  @DisplayName("Response Buffer Size")
+  private int responseBufferSize;
+  public int getResponseBufferSize() {
+    return responseBufferSize;
+  }
+
+  @Parameter
+  @Optional(defaultValue = "30000")
+  @Summary("Milliseconds to wait for a connection to the DataGuard API to be established.")
+  @DisplayName("Connect Timeout")
+  private int connectTimeout;
+  public int getConnectTimeout() {
+    return connectTimeout;
+  }
+
+  @Parameter
+  @Optional(defaultValue = "30000")
+  @Summary("Milliseconds during which the result of a DataGuard API status check is reused when validating pooled connections, 0 to check on every validation.")
+  @DisplayName("Status Check Interval")
+  private int statusCheckInterval;
+  public int getStatusCheckInterval() {
+    return statusCheckInterval;
+  }
+
+  @Parameter
+  @Optional(defaultValue = "false")
+  @Summary("Compress NLP request bodies with gzip and accept gzip compressed responses from the DataGuard API.")
+  @DisplayName("Compression")
+  private boolean compression;
+  public boolean isCompression() {
+    return compression;
+  }
+
+  @Parameter
+  @Optional(defaultValue = "false")
+  @Summary("Learn how many DataGuard API requests can be in flight from the response times, up to Max In-Flight Requests, instead of always allowing Max In-Flight Requests.")
+  @DisplayName("Adaptive Concurrency")
+  private boolean adaptiveConcurrency;
+  public boolean isAdaptiveConcurrency() {
+    return adaptiveConcurrency;
+  }
+
+  @Parameter
+  @Optional(defaultValue = "0")
+  @Summary("Number of failed DataGuard API requests in a row after which requests are refused without calling the API, 0 to disable the circuit breaker.")
+  @DisplayName("Circuit Breaker Threshold")
+  private int circuitBreakerThreshold;
+  public int getCircuitBreakerThreshold() {
+    return circuitBreakerThreshold;
+  }
+
+  @Parameter
+  @Optional(defaultValue = "30000")
+  @Summary("Milliseconds during which requests are refused once the circuit breaker opens, before one request is let through to probe the DataGuard API.")
+  @DisplayName("Circuit Breaker Open Time")
+  private int circuitBreakerOpenTime;
+  public int getCircuitBreakerOpenTime() {
+    return circuitBreakerOpenTime;
+  }
+
+  @Parameter
+  @Optional(defaultValue = "FAIL_FAST")
+  @Summary("What happens to an NLP request over the concurrency limit or refused by the circuit breaker: fail at once, wait for a free slot, or protect the document with the local field detector.")
+  @DisplayName("Overload Action")
+  private DBLOverloadAction overloadAction;
+  public DBLOverloadAction getOverloadAction() {
+    return overloadAction;
+  }
+
+  @Parameter
+  @Optional(defaultValue = "1000")
+  @Summary("Longest time in milliseconds an NLP request waits for a free slot with the QUEUE overload action.")
+  @DisplayName("Overload Queue Timeout")
+  private int overloadQueueTimeout;
+  public int getOverloadQueueTimeout() {
+    return overloadQueueTimeout;
+  }
+
+  static final String STATUS_PATH = "/datacrypt-status";
+
+  /**
+   * Sends a GET request to the DataGuard API.
+   */
+  @FunctionalInterface
+  interface StatusTransport {
+
+    /**
+     * @param path the path of the request, appended to the API URI
+     * @return the status and the body of the reply, which the caller closes
+     */
+    DBLNlpBatcher.Reply get(String path) throws Exception;
+  }
+
+  @RefName
+  private String configName;
+
+  @Inject
+  private HttpService httpService;
+
+  private volatile HttpClient httpClient;
+
+  private volatile StatusTransport statusTransport;
+
+  private volatile DBLNlpBatcher nlpBatcher;
+
+  private volatile DBLServiceGuard serviceGuard;
+
+  private volatile StatusCheck lastStatus;
+
+  private final Logger LOGGER = LoggerFactory.getLogger(DBLConnectionProvider.class);
+
+  @Override
+  public DBLConnection connect() throws ConnectionException {
+    /*
+     * The remote connection is required if a valid API URI or API Key is provided. If both are null, 
+     * then it is assumed that the remote connection is not required. The method will check the status
+     * URI if the apiUri or apiKey are provided. If apiUri and apiKey are not provided, this method will not attempt 
+     * to call the status URI.
+     */
+    HttpClient client = httpClient;
+    if (client == null) {
+        throw new ConnectionException("Operation datacrypt-status failed, the DataBlind connection provider is not started");
+    }
+    if (isRemoteConnectionRequired()) {
+        StatusCheck status = checkStatus();
+        if (status.failure != null) {
+            throw status.failure;
+        }
+    }
+    return new DBLConnection("Test", client, apiUri, apiKey, responseTimeout, maxInFlightRequests, nlpBatcher,
+        overloadAction);
+  }
+
+  @Override
+  public void disconnect(DBLConnection connection) {
+    try {
+      connection.invalidate();
+    } catch (Exception e) {
+      LOGGER.error("Error while disconnecting [" + connection.getId() + "]: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Validates a pooled connection with the DataGuard API status. The result of a status check is shared by all
+   * connections and reused for the Status Check Interval, so borrowing a connection rarely costs a round trip.
+   */
+  @Override
+  public ConnectionValidationResult validate(DBLConnection connection) {
+    if (!isRemoteConnectionRequired()) {
+      return ConnectionValidationResult.success();
+    }
+    StatusCheck status = checkStatus();
+    return status.failure == null ? ConnectionValidationResult.success()
+        : ConnectionValidationResult.failure(status.failure.getMessage(), status.failure);
+  }
+
+  @Override
+  public void start() {
+    HttpClientConfiguration.Builder builder = new HttpClientConfiguration.Builder()
+        // a meaningful name for diagnostics
+        .setName("datablind-http-client")
+        .setMaxConnections(maxConnections)
+        .setUsePersistentConnections(keepAlive)
+        .setConnectionIdleTimeout(connectionIdleTimeout)
+        // NLP responses are handed to the flow as streams rather than read into memory
+        .setStreaming(true)
+        .setClientSocketProperties(TcpClientSocketProperties.builder()
+            .connectionTimeout(connectTimeout)
+            .keepAlive(keepAlive)
+            .build());
+    if (responseBufferSize > 0) {
+      builder.setResponseBufferSize(responseBufferSize);
+    }
+    HttpClient client = httpService.getClientFactory().create(builder.build());
+    try {
+      client.start();
+    } catch (Exception e) {
+      LOGGER.error("Error while starting httpClient: " + e.getMessage(), e);
+      throw e;
+    }
+    httpClient = client;
+    statusTransport = statusTransport(client, apiUri, apiKey, responseTimeout);
+    lastStatus = null;
+    DBLNlpBatcher.Transport transport = httpTransport(client, apiUri, apiKey, responseTimeout, compression);
+    DBLServiceGuard guard = newServiceGuard();
+    if (guard != null) {
+      guard.register(configName);
+      transport = guard.guard(transport);
+    }
+    serviceGuard = guard;
+    // shared by all connections, so that requests of concurrent flows can be coalesced whichever pooled
+    // connection they use
+    nlpBatcher = new DBLNlpBatcher(transport, nlpBatchSize, nlpBatchWindow);
+  }
+
+  @Override
+  public void stop() {
+    DBLNlpBatcher batcher = nlpBatcher;
+    nlpBatcher = null;
+    if (batcher != null) {
+      batcher.dispose();
+    }
+    DBLServiceGuard guard = serviceGuard;
+    serviceGuard = null;
+    if (guard != null) {
+      guard.unregister();
+      guard.dispose();
+    }
+    HttpClient client = httpClient;
+    httpClient = null;
+    statusTransport = null;
+    if (client != null) {
+      try {
+        client.stop();
+      } catch (Exception e) {
+        LOGGER.error("Error while stopping httpClient: " + e.getMessage(), e);
+      }
+    }
+  }
+
+  /**
+   * @return a guard limiting the calls to the API, single or batch, of all connections together, or null when the
+   *         parameters do not ask for one
+   */
+  DBLServiceGuard newServiceGuard() {
+    if (adaptiveConcurrency || circuitBreakerThreshold > 0
+        || (overloadAction != null && overloadAction != DBLOverloadAction.FAIL_FAST)) {
+      return new DBLServiceGuard(adaptiveConcurrency, maxInFlightRequests, circuitBreakerThreshold,
+          circuitBreakerOpenTime, overloadAction, overloadQueueTimeout, System::nanoTime);
+    }
+    return null;
+  }
+
+  private boolean isRemoteConnectionRequired() {
+    return apiUri != null || apiKey != null;
+  }
+
+  /**
+   * Returns the last status check if it is recent enough, or checks the status again.
+   */
+  private StatusCheck checkStatus() {
+    StatusCheck status = lastStatus;
+    long now = System.nanoTime();
+    if (status != null && now - status.checkedAt < statusCheckInterval * 1_000_000L) {
+      return status;
+    }
+    ConnectionException failure = null;
+    try {
+      probeStatus();
+    } catch (ConnectionException e) {
+      failure = e;
+    }
+    status = new StatusCheck(now, failure);
+    lastStatus = status;
+    return status;
+  }
+
+  /**
+   * Calls the DataGuard API status URI.
+   *
+   * @throws ConnectionException if the API cannot be reached or answers with an error status
+   */
+  private void probeStatus() throws ConnectionException {
+    StatusTransport transport = statusTransport;
+    if (transport == null) {
+        throw new ConnectionException("Operation datacrypt-status failed, the DataBlind connection provider is not started");
+    }
+    int statusCode;
+    try {
+        DBLNlpBatcher.Reply reply = transport.get(STATUS_PATH);
+        statusCode = reply.status;
+        // the client streams responses, the entity holds the connection until it is closed
+        try (InputStream body = reply.body) {
+            String response = new String(body.readAllBytes());
+            LOGGER.info("DataGuard API Status: " + response);
+        }
+    }
+    catch (Exception e) {
+        LOGGER.error("Excception, datacrypt-status failed " + e);
+        throw new ConnectionException("Operation datacrypt-status failed due to " + e, e );
+    } 
+    if (statusCode >= 200 && statusCode < 300) {
+           // Successful response
+           LOGGER.info("Request successful. Status code: " + statusCode);
+    } else if (statusCode >= 400 && statusCode < 500) {
+           // Client-side error
+           LOGGER.info("Client error. Status code: " + statusCode);
+           throw new ConnectionException("Operation datacrypt-status failed due to client error. Status code: " + statusCode );
+    } else {
+           // Server-side error or other status
+           LOGGER.info("Error. Status code: " + statusCode);
+           throw new ConnectionException("Operation datacrypt-status failed due to server error. Status code: " + statusCode );
+    }
+  }
+
+  /**
+   * Sets the transport of the status checks, which {@link #start()} otherwise creates with the HTTP client.
+   */
+  void setStatusTransport(StatusTransport transport) {
+    statusTransport = transport;
+    lastStatus = null;
+  }
+
+  /**
+   * Outcome of a status check and when it was made.
+   */
+  private static final class StatusCheck {
+
+    private final long checkedAt;
+    private final ConnectionException failure;
+
+    StatusCheck(long checkedAt, ConnectionException failure) {
+      this.checkedAt = checkedAt;
+      this.failure = failure;
+    }
+  }
+
+  /**
+   * A transport sending the status requests of the DataGuard API with {@code client}.
+   */
+  static StatusTransport statusTransport(HttpClient client, String apiUri, String apiKey, int responseTimeout) {
+    return path -> {
+      HttpRequest request = HttpRequest.builder()
+          .method("GET")
+          .uri(apiUri + path)
+          .addHeader("Content-Type", "application/json")
+          .addHeader("x-api-key", apiKey)
+          .build();
+      HttpResponse response = client.send(request, HttpRequestOptions.builder().responseTimeout(responseTimeout).build());
+      return new DBLNlpBatcher.Reply(response.getStatusCode(), response.getEntity().getContent());
+    };
+  }
+
+  /**
+   * A transport posting JSON to the DataGuard API with {@code client}. The request body is streamed to the API and
+   * the reply body is returned as the stream of the response; with {@code compression} both are gzip encoded.
+   */
+  static DBLNlpBatcher.Transport httpTransport(HttpClient client, String apiUri, String apiKey, int responseTimeout,
+                                               boolean compression) {
+    return (path, body) -> {
+      HttpRequestBuilder builder = HttpRequest.builder()
+          .method("POST")
+          .uri(apiUri + path)
+          .addHeader("Content-Type", "application/json; charset=UTF-8")
+          .addHeader("x-api-key", apiKey);
+      if (compression) {
+        builder.addHeader("Content-Encoding", "gzip").addHeader("Accept-Encoding", "gzip");
+        body = DBLNlpRequest.gzip(body);
+      }
+      HttpRequest request = builder.entity(new InputStreamHttpEntity(body)).build();
+      return client.sendAsync(request, HttpRequestOptions.builder().responseTimeout(responseTimeout).build())
+          .thenApply(response -> {
+            InputStream content = response.getEntity().getContent();
+            if ("gzip".equalsIgnoreCase(response.getHeaderValue("Content-Encoding"))) {
+              try {
+                content = new GZIPInputStream(content);
+              } catch (IOException e) {
+                throw new CompletionException(e);
+              }
+            }
+            return new DBLNlpBatcher.Reply(response.getStatusCode(), content);
+          });
+    };
+  }
+}
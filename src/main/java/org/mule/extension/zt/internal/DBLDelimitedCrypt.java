@@ -0,0 +1,346 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * An {@link InputStream} that reads delimited text, such as CSV, from a source stream and yields it with the values
+ * of some columns encrypted or decrypted.
+ *
+ * <p>Rows are read in chunks. For each chunk the values of the sensitive columns are gathered by cipher type and
+ * every type goes through one {@link DBLFieldCipher.BlockTransform} call. With a parallelism above one, the chunks
+ * read ahead are transformed by the configuration worker pool while the consumer reads the earlier ones; output
+ * keeps the input order. Memory depends on the chunk size and the parallelism, not on the size of the file.</p>
+ *
+ * <p>Fields follow RFC 4180: a field may be quoted with double quotes, a quote inside it is doubled, and a quoted
+ * field may hold delimiters and line breaks. Fields are written back quoted if they were quoted or need to be, and
+ * each row keeps its own line break. Empty values are left empty. Sensitive columns are named after the header row,
+ * or numbered from 1 when the file has none.</p>
+ */
+final class DBLDelimitedCrypt extends InputStream {
+
+  private static final byte QUOTE = '"';
+
+  private final InputStream source;
+  private final byte delimiter;
+  private final DBLFieldCipher.BlockTransform cipher;
+  private final ForkJoinPool pool;
+  private final int parallelism;
+  private final int chunkSize;
+  private final byte[] buffer = new byte[8192];
+  private final ByteArrayOutputStream field = new ByteArrayOutputStream();
+  private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+
+  private int[] columns;
+  private String[] cipherSpecs;
+  private int bufferPos;
+  private int bufferEnd;
+  private boolean inputDone;
+  private byte[] current = new byte[0];
+  private int currentPos;
+
+  private DBLDelimitedCrypt(InputStream source, byte delimiter, DBLFieldCipher.BlockTransform cipher,
+                            ForkJoinPool pool, int parallelism, int chunkSize) {
+    this.source = source;
+    this.delimiter = delimiter;
+    this.cipher = cipher;
+    this.pool = pool;
+    this.parallelism = Math.max(1, parallelism);
+    this.chunkSize = Math.max(1, chunkSize);
+  }
+
+  /**
+   * Reads the header row, if any, and resolves the columns of {@code plan}.
+   *
+   * @param plan the sensitive columns, by header name or by number from 1 when there is no header
+   * @param delimiter the field delimiter, a single ASCII character
+   * @throws IllegalArgumentException if the delimiter is not a single ASCII character other than a quote or a line
+   *         break, or a column of the plan is not in the file
+   * @throws IOException if the header cannot be read
+   */
+  static DBLDelimitedCrypt open(InputStream source, DBLFieldPlan plan, char delimiter, boolean header,
+                                DBLFieldCipher.BlockTransform cipher, ForkJoinPool pool, int parallelism,
+                                int chunkSize) throws IOException {
+    if (delimiter == 0 || delimiter > 0x7f || delimiter == QUOTE || delimiter == '\r' || delimiter == '\n') {
+      throw new IllegalArgumentException("Invalid delimiter '" + delimiter + "'");
+    }
+    DBLDelimitedCrypt crypt = new DBLDelimitedCrypt(source, (byte) delimiter, cipher, pool, parallelism, chunkSize);
+    Row names = null;
+    if (header) {
+      names = crypt.readRow();
+      if (names != null) {
+        crypt.current = names.write((byte) delimiter);
+      }
+    }
+    List<DBLFieldPlan.Field> fields = plan.getFields();
+    crypt.columns = new int[fields.size()];
+    crypt.cipherSpecs = new String[fields.size()];
+    for (int i = 0; i < fields.size(); i++) {
+      crypt.columns[i] = column(fields.get(i).getPath(), names);
+      crypt.cipherSpecs[i] = fields.get(i).getCipherSpec();
+    }
+    return crypt;
+  }
+
+  private static int column(String name, Row header) {
+    if (header == null) {
+      try {
+        int number = Integer.parseInt(name.trim());
+        if (number >= 1) {
+          return number - 1;
+        }
+      } catch (NumberFormatException e) {
+        // reported below
+      }
+      throw new IllegalArgumentException("Column '" + name + "' must be a number from 1 when there is no header");
+    }
+    for (int i = 0; i < header.count; i++) {
+      if (header.fields[i].trim().equals(name)) {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException("Column '" + name + "' is not in the header");
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] one = new byte[1];
+    int n = read(one, 0, 1);
+    return n < 0 ? -1 : one[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    while (currentPos == current.length) {
+      if (!next()) {
+        return -1;
+      }
+    }
+    int n = Math.min(len, current.length - currentPos);
+    System.arraycopy(current, currentPos, b, off, n);
+    currentPos += n;
+    return n;
+  }
+
+  @Override
+  public void close() throws IOException {
+    inputDone = true;
+    for (Future<byte[]> future : pending) {
+      future.cancel(false);
+    }
+    pending.clear();
+    source.close();
+  }
+
+  /**
+   * Makes the next transformed chunk current, reading and submitting chunks ahead up to the parallelism.
+   */
+  private boolean next() throws IOException {
+    while (!inputDone && pending.size() < parallelism) {
+      List<Row> rows = new ArrayList<>(Math.min(chunkSize, 1024));
+      Row row;
+      while (rows.size() < chunkSize && (row = readRow()) != null) {
+        rows.add(row);
+      }
+      if (rows.size() < chunkSize) {
+        inputDone = true;
+      }
+      if (rows.isEmpty()) {
+        break;
+      }
+      if (parallelism > 1) {
+        pending.add(pool.submit(() -> transform(rows)));
+      } else {
+        try {
+          pending.add(CompletableFuture.completedFuture(transform(rows)));
+        } catch (IOException e) {
+          throw e;
+        } catch (Exception e) {
+          throw new IOException("DataBlind delimited transformation failed: " + e, e);
+        }
+      }
+    }
+    Future<byte[]> head = pending.poll();
+    if (head == null) {
+      return false;
+    }
+    try {
+      current = head.get();
+    } catch (ExecutionException e) {
+      throw new IOException("DataBlind delimited transformation failed: " + e.getCause(), e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for a chunk", e);
+    }
+    currentPos = 0;
+    return true;
+  }
+
+  /**
+   * Transforms the sensitive values of {@code rows}, one call per cipher type, and writes the rows.
+   */
+  private byte[] transform(List<Row> rows) throws Exception {
+    Map<String, List<int[]>> groups = new LinkedHashMap<>();
+    for (int c = 0; c < columns.length; c++) {
+      List<int[]> cells = groups.computeIfAbsent(cipherSpecs[c], k -> new ArrayList<>());
+      for (int r = 0; r < rows.size(); r++) {
+        Row row = rows.get(r);
+        if (columns[c] < row.count && !row.fields[columns[c]].isEmpty()) {
+          cells.add(new int[] {r, columns[c]});
+        }
+      }
+    }
+    for (Map.Entry<String, List<int[]>> group : groups.entrySet()) {
+      List<int[]> cells = group.getValue();
+      if (cells.isEmpty()) {
+        continue;
+      }
+      String[] specs = new String[cells.size()];
+      String[] rawValues = new String[cells.size()];
+      Arrays.fill(specs, group.getKey());
+      for (int i = 0; i < rawValues.length; i++) {
+        rawValues[i] = DBLJsonScanner.quote(rows.get(cells.get(i)[0]).fields[cells.get(i)[1]]);
+      }
+      String[] results = cipher.apply(specs, rawValues);
+      for (int i = 0; i < results.length; i++) {
+        byte[] raw = results[i].getBytes(StandardCharsets.UTF_8);
+        rows.get(cells.get(i)[0]).fields[cells.get(i)[1]] = DBLJsonScanner.decodeString(raw, 0, raw.length);
+      }
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream(rows.size() * 64);
+    for (Row row : rows) {
+      out.write(row.write(delimiter));
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * @return the next row, or {@code null} at the end of the input
+   */
+  private Row readRow() throws IOException {
+    int b = peek();
+    if (b < 0) {
+      return null;
+    }
+    Row row = new Row();
+    while (true) {
+      boolean quoted = false;
+      field.reset();
+      b = take();
+      if (b == QUOTE) {
+        quoted = true;
+        while (true) {
+          b = take();
+          if (b < 0) {
+            throw new IOException("Unterminated quoted field");
+          }
+          if (b == QUOTE) {
+            if (peek() != QUOTE) {
+              break;
+            }
+            take();
+          }
+          field.write(b);
+        }
+        b = take();
+      }
+      // text after a closing quote is kept, as most readers do
+      while (b >= 0 && b != delimiter && b != '\r' && b != '\n') {
+        field.write(b);
+        b = take();
+      }
+      row.add(field.toString(StandardCharsets.UTF_8), quoted);
+      if (b == delimiter) {
+        continue;
+      }
+      if (b == '\r' && peek() == '\n') {
+        take();
+        row.terminator = "\r\n";
+      } else if (b >= 0) {
+        row.terminator = b == '\r' ? "\r" : "\n";
+      }
+      return row;
+    }
+  }
+
+  private int peek() throws IOException {
+    if (bufferPos == bufferEnd) {
+      bufferEnd = source.read(buffer, 0, buffer.length);
+      bufferPos = 0;
+      if (bufferEnd <= 0) {
+        bufferEnd = 0;
+        return -1;
+      }
+    }
+    return buffer[bufferPos] & 0xff;
+  }
+
+  private int take() throws IOException {
+    int b = peek();
+    if (b >= 0) {
+      bufferPos++;
+    }
+    return b;
+  }
+
+  /**
+   * One row: its fields, whether each was quoted, and its line break.
+   */
+  private static final class Row {
+
+    private String[] fields = new String[8];
+    private boolean[] quoted = new boolean[8];
+    private int count;
+    private String terminator = "";
+
+    void add(String value, boolean wasQuoted) {
+      if (count == fields.length) {
+        fields = Arrays.copyOf(fields, count * 2);
+        quoted = Arrays.copyOf(quoted, count * 2);
+      }
+      fields[count] = value;
+      quoted[count++] = wasQuoted;
+    }
+
+    byte[] write(byte delimiter) {
+      StringBuilder sb = new StringBuilder();
+      char separator = (char) delimiter;
+      for (int i = 0; i < count; i++) {
+        if (i > 0) {
+          sb.append(separator);
+        }
+        String value = fields[i];
+        if (quoted[i] || value.indexOf(separator) >= 0 || value.indexOf('"') >= 0 || value.indexOf('\r') >= 0
+            || value.indexOf('\n') >= 0) {
+          sb.append('"').append(value.replace("\"", "\"\"")).append('"');
+        } else {
+          sb.append(value);
+        }
+      }
+      return sb.append(terminator).toString().getBytes(StandardCharsets.UTF_8);
+    }
+  }
+}
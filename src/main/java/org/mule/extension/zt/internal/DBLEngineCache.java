@@ -0,0 +1,158 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import com.ztensor.datacrypt.*;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the DataBlind crypto engines of a {@link DBLConfiguration} so that operations do not rebuild the
+ * {@link KeyContext} and {@link JsonDataCrypt} on every message.
+ *
+ * <p>The configuration key context is created once when the cache is built. {@link JsonDataCrypt} engines are
+ * borrowed from a bounded idle pool for the duration of a single call, so concurrent flows never share an engine
+ * instance; when the pool is empty a new engine is created and, if the pool is full on return, it is discarded.</p>
+ *
+ * <p>Key contexts for keys other than the configuration key (see {@link DBLOperations#overrideTokenWithNewKey})
+ * are kept in a bounded LRU map keyed by a SHA-256 digest of the key, so raw keys are never used as map keys.</p>
+ */
+public final class DBLEngineCache {
+
+  /**
+   * A unit of work executed against a borrowed engine.
+   */
+  @FunctionalInterface
+  public interface EngineCall<T> {
+    T apply(JsonDataCrypt engine) throws Exception;
+  }
+
+  private static final String KEY_RING = "CipherWorks";
+  private static final String KEY_OWNER = "Admin";
+  private static final String KEY_VERSION = "1.0";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DBLEngineCache.class);
+
+  private final KeyContext keyContext;
+  private final BlockingQueue<JsonDataCrypt> idleEngines;
+  private final Map<String, KeyContext> keyContexts;
+  private volatile boolean disposed;
+
+  /**
+   * @param encryptionKey the configuration encryption key
+   * @param poolSize maximum number of idle engines kept for reuse
+   * @param keyCacheSize maximum number of key contexts kept for keys other than the configuration key
+   * @throws Exception if the key context or the first engine cannot be created
+   */
+  public DBLEngineCache(String encryptionKey, int poolSize, int keyCacheSize) throws Exception {
+    this.keyContext = newKeyContext(encryptionKey);
+    this.idleEngines = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+    this.keyContexts = new LinkedHashMap<String, KeyContext>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, KeyContext> eldest) {
+        return size() > Math.max(1, keyCacheSize);
+      }
+    };
+    idleEngines.offer(new JsonDataCrypt(keyContext));
+  }
+
+  /**
+   * Builds a key context the same way the operations always have, so existing ciphertext stays readable.
+   */
+  static KeyContext newKeyContext(String key) throws Exception {
+    return new KeyContext(KEY_RING, KEY_OWNER, KEY_VERSION, key.getBytes());
+  }
+
+  /**
+   * @return the key context of the configuration encryption key
+   */
+  public KeyContext getKeyContext() {
+    ensureActive();
+    return keyContext;
+  }
+
+  /**
+   * Runs {@code call} with an engine bound to the configuration key. The engine is used by the calling thread only
+   * and is returned to the idle pool afterwards.
+   */
+  public <T> T execute(EngineCall<T> call) throws Exception {
+    ensureActive();
+    JsonDataCrypt engine = idleEngines.poll();
+    if (engine == null) {
+      engine = new JsonDataCrypt(keyContext);
+    }
+    try {
+      return call.apply(engine);
+    } finally {
+      if (!disposed) {
+        idleEngines.offer(engine);
+      }
+    }
+  }
+
+  /**
+   * Runs {@code call} with an engine bound to {@code key}, or to the configuration key when {@code key} is null.
+   * Engines for other keys are built on the cached key context for the call and are not pooled.
+   */
+  public <T> T execute(String key, EngineCall<T> call) throws Exception {
+    if (key == null) {
+      return execute(call);
+    }
+    return call.apply(new JsonDataCrypt(keyContextFor(key)));
+  }
+
+  /**
+   * Returns the cached key context for {@code key}, creating it on first use. The least recently used context is
+   * evicted once the cache is full.
+   */
+  public KeyContext keyContextFor(String key) throws Exception {
+    ensureActive();
+    String digest = digest(key);
+    synchronized (keyContexts) {
+      KeyContext kc = keyContexts.get(digest);
+      if (kc == null) {
+        kc = newKeyContext(key);
+        keyContexts.put(digest, kc);
+      }
+      return kc;
+    }
+  }
+
+  /**
+   * Drops every pooled engine and cached key context. The cache cannot be used afterwards.
+   */
+  public void dispose() {
+    disposed = true;
+    idleEngines.clear();
+    synchronized (keyContexts) {
+      keyContexts.clear();
+    }
+    LOGGER.debug("DataBlind engine cache disposed");
+  }
+
+  private void ensureActive() {
+    if (disposed) {
+      throw new IllegalStateException("DataBlind engine cache has been disposed");
+    }
+  }
+
+  static String digest(String value) throws Exception {
+    MessageDigest md = MessageDigest.getInstance("SHA-256");
+    return HexFormat.of().formatHex(md.digest(value.getBytes(StandardCharsets.UTF_8)));
+  }
+}
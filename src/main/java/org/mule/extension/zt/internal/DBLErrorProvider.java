@@ -14,5 +14,7 @@ public enum DBLErrorProvider implements ErrorTypeDefinition<DBLErrorProvider> {
       INVALID_PARAMETER,
       TIME_OUT,
       NOT_ALLOWED,
-      DATACRYPT_ERROR
+      DATACRYPT_ERROR,
+      TOO_MANY_REQUESTS,
+      SERVICE_UNAVAILABLE
 }
\ No newline at end of file
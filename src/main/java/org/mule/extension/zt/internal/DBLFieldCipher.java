@@ -0,0 +1,128 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.ztensor.datacrypt.*;
+
+/**
+ * Encrypts or decrypts a block of individual field values with a single {@link JsonDataCrypt#transform} call.
+ *
+ * <p>The values are laid out as a flat synthetic document {@code {"f0":v0,"f1":v1,...}} together with a
+ * specification giving each key its own cipher type, so one library call handles a whole block of values of mixed
+ * types. Values go in and come out as raw JSON text, which keeps strings quoted and numbers unquoted exactly as the
+ * library produces them.</p>
+ *
+ * <p>This relies on the library protecting a value from its cipher type, the key and the tweak only, never from its
+ * field name or its path in the document; {@code DBLFieldCipherTestCase} checks it against whole documents.</p>
+ */
+final class DBLFieldCipher {
+
+  /**
+   * A transformation applied to a block of raw field values.
+   */
+  @FunctionalInterface
+  interface BlockTransform {
+    /**
+     * @param cipherSpecs the {@code MODE:TYPE} of each value
+     * @param rawValues the raw JSON text of each value
+     * @return the raw JSON text of each transformed value, in the same order
+     */
+    String[] apply(String[] cipherSpecs, String[] rawValues) throws Exception;
+
+    /**
+     * @return a transform applying this one, then {@code next} to its results with the same cipher types
+     */
+    default BlockTransform andThen(BlockTransform next) {
+      return (cipherSpecs, rawValues) -> next.apply(cipherSpecs, apply(cipherSpecs, rawValues));
+    }
+  }
+
+  private static final String KEY_PREFIX = "f";
+
+  private DBLFieldCipher() {
+  }
+
+  /**
+   * A block transform running {@code operation} ("Encrypt" or "Decrypt") with engines of {@code engines}.
+   */
+  static BlockTransform of(DBLEngineCache engines, String operation, String tweak, String overRideToken,
+                           String passPhrase) {
+    return (cipherSpecs, rawValues) -> engines.execute(engine ->
+        transform(engine, operation, tweak, cipherSpecs, rawValues, overRideToken, passPhrase));
+  }
+
+  /**
+   * A block transform running {@code operation} with engines bound to {@code key}, or to the configuration key when
+   * {@code key} is null.
+   */
+  static BlockTransform of(DBLEngineCache engines, String key, String operation, String tweak, String overRideToken,
+                           String passPhrase) {
+    return (cipherSpecs, rawValues) -> engines.execute(key, engine ->
+        transform(engine, operation, tweak, cipherSpecs, rawValues, overRideToken, passPhrase));
+  }
+
+  /**
+   * Transforms {@code rawValues} with {@code engine} in one library call.
+   */
+  static String[] transform(JsonDataCrypt engine, String operation, String tweak, String[] cipherSpecs,
+                            String[] rawValues, String overRideToken, String passPhrase) throws Exception {
+    int count = rawValues.length;
+    if (count == 0) {
+      return rawValues;
+    }
+    StringBuilder document = new StringBuilder(count * 24).append('{');
+    StringBuilder spec = new StringBuilder(count * 16).append('{');
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        document.append(',');
+        spec.append(',');
+      }
+      document.append('"').append(KEY_PREFIX).append(i).append("\":").append(rawValues[i]);
+      spec.append('"').append(KEY_PREFIX).append(i).append("\":").append(DBLJsonScanner.quote(cipherSpecs[i]));
+    }
+    document.append('}');
+    spec.append('}');
+
+    String transformed = engine.transform(operation, tweak, document.toString(), spec.toString(), overRideToken,
+        passPhrase);
+    return readValues(transformed, count);
+  }
+
+  private static String[] readValues(String transformed, int count) throws IOException {
+    String[] results = new String[count];
+    DBLJsonScanner scanner = new DBLJsonScanner(transformed.getBytes(StandardCharsets.UTF_8));
+    if (scanner.next(false) != DBLJsonScanner.START_OBJECT) {
+      throw new IOException("DataBlind returned an unexpected field block");
+    }
+    int token;
+    while ((token = scanner.next(false)) == DBLJsonScanner.FIELD_NAME) {
+      String name = scanner.fieldName();
+      if (!DBLJsonScanner.isScalar(scanner.next(true)) || !name.startsWith(KEY_PREFIX)) {
+        throw new IOException("DataBlind returned an unexpected field block");
+      }
+      int index = Integer.parseInt(name.substring(KEY_PREFIX.length()));
+      if (index < 0 || index >= count) {
+        throw new IOException("DataBlind returned an unexpected field block");
+      }
+      results[index] = scanner.captured();
+    }
+    if (token != DBLJsonScanner.END_OBJECT) {
+      throw new IOException("DataBlind returned an unexpected field block");
+    }
+    for (int i = 0; i < count; i++) {
+      if (results[i] == null) {
+        throw new IOException("DataBlind returned no value for field " + i + " of the block");
+      }
+    }
+    return results;
+  }
+}
@@ -0,0 +1,22 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+/**
+ * How EncryptJsonUsingNLP finds the sensitive fields of a document.
+ */
+public enum DBLFieldDetection {
+
+  /** The DataBlind NLP service chooses the fields and encrypts them. */
+  REMOTE,
+  /** The {@link DBLFieldDetector} of the configuration chooses the fields, which are encrypted locally. */
+  LOCAL,
+  /** As {@link #REMOTE}, falling back to {@link #LOCAL} when the service fails, times out or rejects the request. */
+  REMOTE_THEN_LOCAL
+}
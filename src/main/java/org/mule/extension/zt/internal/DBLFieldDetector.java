@@ -0,0 +1,25 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.io.IOException;
+
+/**
+ * Chooses the sensitive fields of a JSON document, and their cipher types, without the NLP service.
+ */
+@FunctionalInterface
+public interface DBLFieldDetector {
+
+  /**
+   * @return the sensitive fields of {@code json} as a cipher specification such as {@code {"ssn":"FE:SSN"}}, or
+   *         {@code null} when none is found
+   * @throws IOException if {@code json} is not a JSON document
+   */
+  String detect(String json) throws IOException;
+}
@@ -0,0 +1,412 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * A compiled, immutable form of a sensitive fields specification.
+ *
+ * <p>Two kinds of specification are supported:</p>
+ * <ul>
+ *   <li>cipher specifications, as used by EncryptJson and DecryptJson:
+ *   {@code {'ssn':'FE:SSN','account.creditCard':'AES:CREDIT_CARD'}} (single or double quotes)</li>
+ *   <li>path lists, as used by FilterJson: {@code account.creditCard,ssn,email}</li>
+ * </ul>
+ *
+ * <p>Paths are dotted names from the document root, where {@code *} stands for any name and {@code [*]} after a
+ * name marks an array (arrays are transparent, so it can be left out). Cipher values are {@code MODE:TYPE}; the
+ * type is resolved against {@link DBLCipherType} when it is one of the listed types and kept as written otherwise,
+ * since the DataBlind library may accept types the connector does not list. An {@code FE} value may end with
+ * {@value #MEMO_SUFFIX}, as in {@code 'state':'FE:STATE:MEMO'}, to have the values of that type remembered by the
+ * {@link DBLMemoCache} of the configuration; the suffix is not part of the specification handed to the library.</p>
+ *
+ * <p>Plans are built once per distinct specification and shared through {@link DBLFieldPlanCache}.</p>
+ */
+public final class DBLFieldPlan {
+
+  static final String MEMO_SUFFIX = ":MEMO";
+
+  /**
+   * One sensitive field of a plan.
+   */
+  public static final class Field {
+
+    private final String path;
+    private final String[] segments;
+    private final String mode;
+    private final String typeToken;
+    private final DBLCipherType cipherType;
+    private final boolean memo;
+
+    Field(String path, String mode, String typeToken) {
+      this(path, mode, typeToken, false);
+    }
+
+    Field(String path, String mode, String typeToken, boolean memo) {
+      this.path = path;
+      this.segments = segments(path);
+      this.mode = mode;
+      this.typeToken = typeToken;
+      this.cipherType = DBLCipherType.resolve(typeToken);
+      this.memo = memo;
+    }
+
+    /**
+     * @return the dotted path of the field
+     */
+    public String getPath() {
+      return path;
+    }
+
+    /**
+     * @return the path split on dots, without array markers
+     */
+    public String[] getSegments() {
+      return segments.clone();
+    }
+
+    int segmentCount() {
+      return segments.length;
+    }
+
+    String segment(int i) {
+      return segments[i];
+    }
+
+    /**
+     * @return the cipher mode (for example {@code FE} or {@code AES}), or {@code null} for path lists
+     */
+    public String getMode() {
+      return mode;
+    }
+
+    /**
+     * @return the type as written in the specification, or {@code null} for path lists
+     */
+    public String getTypeToken() {
+      return typeToken;
+    }
+
+    /**
+     * @return the resolved cipher type, or {@code null} if the type is not one of {@link DBLCipherType}
+     */
+    public DBLCipherType getCipherType() {
+      return cipherType;
+    }
+
+    /**
+     * @return the {@code MODE:TYPE} value of the field, or {@code null} for path lists
+     */
+    public String getCipherSpec() {
+      if (typeToken == null) {
+        return null;
+      }
+      return mode == null ? typeToken : mode + ":" + typeToken;
+    }
+
+    /**
+     * @return true if the values of the field are remembered by the memo cache
+     */
+    public boolean isMemo() {
+      return memo;
+    }
+  }
+
+  private final String source;
+  private final List<Field> fields;
+  private final String spec;
+  private final DBLPathTrie trie;
+  private final Set<String> memoSpecs;
+  private final DBLFieldPlan unprojected;
+
+  private DBLFieldPlan(String source, List<Field> fields, String spec) {
+    this(source, fields, spec, null);
+  }
+
+  private DBLFieldPlan(String source, List<Field> fields, String spec, DBLFieldPlan unprojected) {
+    this.source = source;
+    this.fields = Collections.unmodifiableList(fields);
+    this.spec = spec;
+    this.trie = new DBLPathTrie(this.fields);
+    Set<String> memo = new LinkedHashSet<>();
+    for (Field field : fields) {
+      if (field.isMemo()) {
+        memo.add(field.getCipherSpec());
+      }
+    }
+    this.memoSpecs = Collections.unmodifiableSet(memo);
+    this.unprojected = unprojected;
+  }
+
+  /**
+   * @return the specification the plan was compiled from
+   */
+  public String getSource() {
+    return source;
+  }
+
+  /**
+   * @return the fields of the plan, in specification order
+   */
+  public List<Field> getFields() {
+    return fields;
+  }
+
+  /**
+   * @return the canonical specification handed to the DataBlind library
+   */
+  public String getSpec() {
+    return spec;
+  }
+
+  /**
+   * @return the paths of the plan as a trie, for walking documents
+   */
+  DBLPathTrie getTrie() {
+    return trie;
+  }
+
+  /**
+   * @return the {@code MODE:TYPE} values marked {@value #MEMO_SUFFIX}. Memoization is by cipher type, so a type
+   *         marked on one field is remembered for every field of that type.
+   */
+  Set<String> getMemoSpecs() {
+    return memoSpecs;
+  }
+
+  /**
+   * @return for a plan made by {@link #project(String)}, the plan of the fields left out of the projection, or
+   *         {@code null} when every field was projected or the plan is not a projection
+   */
+  DBLFieldPlan getUnprojected() {
+    return unprojected;
+  }
+
+  /**
+   * Restricts a cipher plan to the paths of {@code projection}, a comma separated path list. Paths are compared
+   * segment by segment, so array markers do not matter.
+   *
+   * @throws IllegalArgumentException if the projection is empty, malformed, or lists a path the plan does not have
+   */
+  DBLFieldPlan project(String projection) {
+    List<Field> projected = new ArrayList<>();
+    for (Field path : compilePathList(projection).getFields()) {
+      Field match = null;
+      for (Field field : fields) {
+        if (Arrays.equals(field.segments, path.segments)) {
+          match = field;
+          break;
+        }
+      }
+      if (match == null) {
+        throw new IllegalArgumentException("Projected path '" + path.getPath() + "' is not one of the sensitive fields");
+      }
+      if (!projected.contains(match)) {
+        projected.add(match);
+      }
+    }
+    List<Field> rest = new ArrayList<>(fields);
+    rest.removeAll(projected);
+    DBLFieldPlan unprojectedPlan = rest.isEmpty() ? null : new DBLFieldPlan(source, rest, cipherSpec(rest));
+    return new DBLFieldPlan(source, projected, cipherSpec(projected), unprojectedPlan);
+  }
+
+  /**
+   * Compiles a cipher specification such as {@code {'ssn':'FE:SSN'}}.
+   *
+   * @throws IllegalArgumentException if the specification is not a flat object of string values
+   */
+  public static DBLFieldPlan compileCipherSpec(String source) {
+    if (source == null) {
+      throw new IllegalArgumentException("Sensitive fields must not be null");
+    }
+    List<Field> fields = new ArrayList<>();
+    SpecReader reader = new SpecReader(source);
+    reader.expect('{');
+    if (!reader.consumeIf('}')) {
+      do {
+        String path = reader.readString();
+        reader.expect(':');
+        String value = reader.readString();
+        fields.add(cipherField(path, value));
+      } while (reader.consumeIf(','));
+      reader.expect('}');
+    }
+    reader.expectEnd();
+
+    return new DBLFieldPlan(source, fields, cipherSpec(fields));
+  }
+
+  /**
+   * Compiles a comma separated path list such as {@code account.creditCard,ssn,email}. Blank entries are ignored.
+   *
+   * @throws IllegalArgumentException if the list contains no path
+   */
+  public static DBLFieldPlan compilePathList(String source) {
+    if (source == null) {
+      throw new IllegalArgumentException("Sensitive fields must not be null");
+    }
+    List<Field> fields = new ArrayList<>();
+    for (String entry : source.split(",")) {
+      String path = entry.trim();
+      if (!path.isEmpty()) {
+        checkPath(path);
+        fields.add(new Field(path, null, null));
+      }
+    }
+    if (fields.isEmpty()) {
+      throw new IllegalArgumentException("Sensitive fields must list at least one path");
+    }
+    StringBuilder spec = new StringBuilder(source.length());
+    for (Field field : fields) {
+      if (spec.length() > 0) {
+        spec.append(',');
+      }
+      spec.append(field.getPath());
+    }
+    return new DBLFieldPlan(source, fields, spec.toString());
+  }
+
+  private static String cipherSpec(List<Field> fields) {
+    StringBuilder spec = new StringBuilder(fields.size() * 24).append('{');
+    for (int i = 0; i < fields.size(); i++) {
+      if (i > 0) {
+        spec.append(',');
+      }
+      Field field = fields.get(i);
+      spec.append('"').append(escape(field.getPath())).append("\":\"").append(escape(field.getCipherSpec())).append('"');
+    }
+    return spec.append('}').toString();
+  }
+
+  private static Field cipherField(String path, String value) {
+    String trimmedPath = path.trim();
+    checkPath(trimmedPath);
+    String trimmedValue = value.trim();
+    if (trimmedValue.isEmpty()) {
+      throw new IllegalArgumentException("No cipher type given for sensitive field '" + trimmedPath + "'");
+    }
+    boolean memo = trimmedValue.toUpperCase(Locale.ROOT).endsWith(MEMO_SUFFIX);
+    if (memo) {
+      trimmedValue = trimmedValue.substring(0, trimmedValue.length() - MEMO_SUFFIX.length()).trim();
+    }
+    int colon = trimmedValue.indexOf(':');
+    String mode = colon < 0 ? null : trimmedValue.substring(0, colon).trim();
+    String type = colon < 0 ? trimmedValue : trimmedValue.substring(colon + 1).trim();
+    // only format-preserving encryption is known to be deterministic
+    if (memo && !"FE".equalsIgnoreCase(mode)) {
+      throw new IllegalArgumentException("Sensitive field '" + trimmedPath + "' can only be memoized in FE mode");
+    }
+    return new Field(trimmedPath, mode, type, memo);
+  }
+
+  /**
+   * Splits a path on dots. Arrays are transparent, so an array wildcard such as {@code claims[*].ssn} or
+   * {@code claims[].ssn} is the same path as {@code claims.ssn}.
+   */
+  private static String[] segments(String path) {
+    List<String> segments = new ArrayList<>();
+    for (String segment : path.split("\\.")) {
+      while (segment.endsWith("[*]") || segment.endsWith("[]")) {
+        segment = segment.substring(0, segment.length() - (segment.endsWith("[]") ? 2 : 3));
+      }
+      if (!segment.isEmpty()) {
+        segments.add(segment);
+      }
+    }
+    if (segments.isEmpty()) {
+      throw new IllegalArgumentException("Invalid sensitive field path '" + path + "'");
+    }
+    return segments.toArray(new String[0]);
+  }
+
+  private static void checkPath(String path) {
+    if (path.isEmpty() || path.startsWith(".") || path.endsWith(".") || path.contains("..")) {
+      throw new IllegalArgumentException("Invalid sensitive field path '" + path + "'");
+    }
+  }
+
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+
+  /**
+   * Minimal reader for the flat, possibly single quoted, object used by cipher specifications.
+   */
+  private static final class SpecReader {
+
+    private final String text;
+    private int pos;
+
+    SpecReader(String text) {
+      this.text = text;
+    }
+
+    void expect(char c) {
+      skipBlanks();
+      if (pos >= text.length() || text.charAt(pos) != c) {
+        throw error("expected '" + c + "'");
+      }
+      pos++;
+    }
+
+    boolean consumeIf(char c) {
+      skipBlanks();
+      if (pos < text.length() && text.charAt(pos) == c) {
+        pos++;
+        return true;
+      }
+      return false;
+    }
+
+    void expectEnd() {
+      skipBlanks();
+      if (pos != text.length()) {
+        throw error("unexpected content");
+      }
+    }
+
+    String readString() {
+      skipBlanks();
+      if (pos >= text.length() || (text.charAt(pos) != '\'' && text.charAt(pos) != '"')) {
+        throw error("expected a quoted string");
+      }
+      char quote = text.charAt(pos++);
+      StringBuilder sb = new StringBuilder();
+      while (pos < text.length()) {
+        char c = text.charAt(pos++);
+        if (c == quote) {
+          return sb.toString();
+        }
+        if (c == '\\' && pos < text.length()) {
+          c = text.charAt(pos++);
+        }
+        sb.append(c);
+      }
+      throw error("unterminated string");
+    }
+
+    private void skipBlanks() {
+      while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+        pos++;
+      }
+    }
+
+    private IllegalArgumentException error(String reason) {
+      return new IllegalArgumentException("Invalid sensitive fields, " + reason + " at position " + pos);
+    }
+  }
+}
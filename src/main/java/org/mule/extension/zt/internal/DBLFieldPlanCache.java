@@ -0,0 +1,113 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU cache of compiled {@link DBLFieldPlan}s, keyed by the specification string.
+ *
+ * <p>Sensitive field specifications are usually static values of a flow, so each distinct specification is
+ * parsed once and then served from the cache. Hit and miss counters are kept so the effectiveness of the cache
+ * can be checked on a running application.</p>
+ */
+public final class DBLFieldPlanCache {
+
+  private static final char CIPHER_KIND = 'C';
+  private static final char PATH_KIND = 'P';
+  private static final char PROJECTION_KIND = 'R';
+
+  private final Map<String, DBLFieldPlan> plans;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * @param maxEntries maximum number of plans kept; the least recently used plan is evicted first
+   */
+  public DBLFieldPlanCache(int maxEntries) {
+    int max = Math.max(1, maxEntries);
+    this.plans = new LinkedHashMap<String, DBLFieldPlan>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, DBLFieldPlan> eldest) {
+        return size() > max;
+      }
+    };
+  }
+
+  /**
+   * @return the plan of a cipher specification, see {@link DBLFieldPlan#compileCipherSpec(String)}
+   */
+  public DBLFieldPlan cipherPlan(String sensitiveFields) {
+    return lookup(CIPHER_KIND, sensitiveFields, DBLFieldPlan::compileCipherSpec);
+  }
+
+  /**
+   * @return the plan of a path list, see {@link DBLFieldPlan#compilePathList(String)}
+   */
+  public DBLFieldPlan pathPlan(String sensitiveFields) {
+    return lookup(PATH_KIND, sensitiveFields, DBLFieldPlan::compilePathList);
+  }
+
+  /**
+   * @return the plan of a cipher specification restricted to a path list, see {@link DBLFieldPlan#project(String)}
+   */
+  public DBLFieldPlan projectedPlan(String sensitiveFields, String projection) {
+    if (sensitiveFields == null || projection == null) {
+      throw new IllegalArgumentException("Sensitive fields and projection must not be null");
+    }
+    // the length keeps the boundary between the two strings unambiguous
+    return lookup(PROJECTION_KIND, sensitiveFields.length() + ":" + sensitiveFields + projection,
+        key -> cipherPlan(sensitiveFields).project(projection));
+  }
+
+  private DBLFieldPlan lookup(char kind, String spec, Function<String, DBLFieldPlan> compiler) {
+    if (spec == null) {
+      throw new IllegalArgumentException("Sensitive fields must not be null");
+    }
+    String key = kind + spec;
+    DBLFieldPlan plan;
+    synchronized (plans) {
+      plan = plans.get(key);
+    }
+    if (plan != null) {
+      hits.increment();
+      return plan;
+    }
+    misses.increment();
+    // compiled outside the lock; two threads racing on a new spec just build the same immutable plan twice
+    plan = compiler.apply(spec);
+    synchronized (plans) {
+      plans.put(key, plan);
+    }
+    return plan;
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  public int size() {
+    synchronized (plans) {
+      return plans.size();
+    }
+  }
+
+  public void clear() {
+    synchronized (plans) {
+      plans.clear();
+    }
+  }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * An {@link InputStream} that reads a JSON document from a source stream and yields it with the paths of a
+ * {@link DBLFieldPlan} removed, or with only those paths retained.
+ *
+ * <p>The document is walked with a {@link DBLPathTrie} as the consumer reads. Members the filter drops are passed
+ * over with {@link DBLJsonScanner#skipValue()}, which only looks at quotes and brackets; members it keeps whole are
+ * echoed token by token; only the containers on the way to a listed path are opened. Memory therefore depends on
+ * nesting depth and not on document size. Values kept whole are copied through byte for byte, blanks included;
+ * the containers the filter opens are written back compact, without the members that were dropped.</p>
+ *
+ * <p>When retaining, the containers on the way to a listed path are kept even if none of their members matches, and
+ * scalars that sit where a listed path would continue are dropped. A path listed for removal also removes
+ * everything under it.</p>
+ */
+final class DBLJsonFilter extends InputStream {
+
+  static final String REMOVE = "remove";
+  static final String RETAIN = "retain";
+
+  private static final int COPY = 0;
+  private static final int ENTER = 1;
+  private static final int DROP = 2;
+
+  private final InputStream source;
+  private final DBLJsonScanner scanner;
+  private final DBLPathTrie.Node root;
+  private final boolean retain;
+
+  private final Output output = new Output();
+  private DBLPathTrie.Node[] nodes = new DBLPathTrie.Node[32];
+  private boolean[] members = new boolean[32];
+  private int copyDepth = -1;
+  private int documents;
+  private boolean finished;
+
+  /**
+   * @param retain true to keep only the paths of the plan, false to remove them
+   */
+  DBLJsonFilter(InputStream source, DBLFieldPlan plan, boolean retain) {
+    this.source = source;
+    this.scanner = new DBLJsonScanner(source);
+    this.root = plan.getTrie().root();
+    this.retain = retain;
+  }
+
+  /**
+   * @return true for {@value #RETAIN}, false for {@value #REMOVE}, case insensitive
+   * @throws IllegalArgumentException for any other operation
+   */
+  static boolean retain(String operation) {
+    String value = operation == null ? "" : operation.trim().toLowerCase(Locale.ROOT);
+    if (RETAIN.equals(value)) {
+      return true;
+    }
+    if (REMOVE.equals(value)) {
+      return false;
+    }
+    throw new IllegalArgumentException("Unknown filter operation '" + operation + "', expected remove or retain");
+  }
+
+  /**
+   * Filters an in-memory document.
+   */
+  static String filter(String json, DBLFieldPlan plan, boolean retain) throws IOException {
+    try (InputStream filtered = new DBLJsonFilter(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+        plan, retain)) {
+      return new String(filtered.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] one = new byte[1];
+    int n = read(one, 0, 1);
+    return n < 0 ? -1 : one[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    while (output.readable() == 0) {
+      if (finished) {
+        return -1;
+      }
+      step();
+    }
+    return output.drain(b, off, len);
+  }
+
+  @Override
+  public int available() {
+    return output.readable();
+  }
+
+  @Override
+  public void close() throws IOException {
+    finished = true;
+    source.close();
+  }
+
+  /**
+   * Consumes one token, or one value that is dropped.
+   */
+  private void step() throws IOException {
+    if (copyDepth >= 0) {
+      scanner.next(false);
+      if (scanner.depth() == copyDepth) {
+        endCopy();
+      }
+      return;
+    }
+    int depth = scanner.depth();
+    if (depth == 0) {
+      int b = scanner.peekValue();
+      if (b < 0) {
+        finished = true;
+        return;
+      }
+      if (documents++ > 0) {
+        // newline delimited input
+        output.write('\n');
+      }
+      // a top level value is never dropped, so the output stays a document
+      value(root, b, decide(root, b) == ENTER ? ENTER : COPY);
+      return;
+    }
+    if (scanner.inObject()) {
+      if (scanner.next(false) == DBLJsonScanner.END_OBJECT) {
+        output.write('}');
+        return;
+      }
+      DBLPathTrie.Node parent = nodes[depth - 1];
+      DBLPathTrie.Node node = parent == null ? null : parent.child(scanner.fieldName());
+      int b = scanner.peekValue();
+      int action = decide(node, b);
+      if (action == DROP) {
+        scanner.skipValue();
+        return;
+      }
+      separate(depth);
+      scanner.writeFieldName(output);
+      output.write(':');
+      value(node, b, action);
+    } else {
+      int b = scanner.peekValue();
+      if (b == ']') {
+        scanner.next(false);
+        output.write(']');
+        return;
+      }
+      // array elements share the node of the array
+      DBLPathTrie.Node node = nodes[depth - 1];
+      int action = decide(node, b);
+      if (action == DROP) {
+        scanner.skipValue();
+        return;
+      }
+      separate(depth);
+      value(node, b, action);
+    }
+  }
+
+  private int decide(DBLPathTrie.Node node, int firstByte) {
+    if (node == null) {
+      return retain ? DROP : COPY;
+    }
+    if (node.field() != null) {
+      // end of a listed path
+      return retain ? COPY : DROP;
+    }
+    if (firstByte == '{' || firstByte == '[') {
+      return ENTER;
+    }
+    return retain ? DROP : COPY;
+  }
+
+  private void value(DBLPathTrie.Node node, int firstByte, int action) throws IOException {
+    if (action == ENTER) {
+      scanner.next(false);
+      int depth = scanner.depth();
+      if (depth > nodes.length) {
+        nodes = Arrays.copyOf(nodes, nodes.length * 2);
+        members = Arrays.copyOf(members, members.length * 2);
+      }
+      nodes[depth - 1] = node;
+      members[depth - 1] = false;
+      output.write(firstByte);
+      return;
+    }
+    copyDepth = scanner.depth();
+    scanner.setEcho(output);
+    scanner.next(false);
+    if (scanner.depth() == copyDepth) {
+      endCopy();
+    }
+  }
+
+  private void endCopy() {
+    scanner.setEcho(null);
+    copyDepth = -1;
+  }
+
+  private void separate(int depth) {
+    if (members[depth - 1]) {
+      output.write(',');
+    }
+    members[depth - 1] = true;
+  }
+
+  /**
+   * Readable buffer of the filtered bytes.
+   */
+  private static final class Output extends OutputStream {
+
+    private byte[] bytes = new byte[8 * 1024];
+    private int start;
+    private int end;
+
+    @Override
+    public void write(int b) {
+      ensure(1);
+      bytes[end++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      ensure(len);
+      System.arraycopy(b, off, bytes, end, len);
+      end += len;
+    }
+
+    int readable() {
+      return end - start;
+    }
+
+    int drain(byte[] b, int off, int len) {
+      int n = Math.min(len, end - start);
+      System.arraycopy(bytes, start, b, off, n);
+      start += n;
+      if (start == end) {
+        start = 0;
+        end = 0;
+      }
+      return n;
+    }
+
+    private void ensure(int extra) {
+      if (end + extra <= bytes.length) {
+        return;
+      }
+      if (start > 0) {
+        System.arraycopy(bytes, start, bytes, 0, end - start);
+        end -= start;
+        start = 0;
+      }
+      if (end + extra > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, end + extra));
+      }
+    }
+  }
+}
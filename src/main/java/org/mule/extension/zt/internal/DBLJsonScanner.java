@@ -0,0 +1,501 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Pull tokenizer for UTF-8 JSON working directly on bytes.
+ *
+ * <p>The scanner keeps only a fixed read buffer and a stack of open containers, so memory depends on nesting depth
+ * and not on document size. Every byte it consumes can be echoed to an {@link OutputStream}, which lets callers
+ * copy a document through unchanged except for the scalar values they choose to capture. Captured values are
+ * kept as their raw JSON text (strings keep their quotes and escapes).</p>
+ *
+ * <p>The scanner checks structure only as far as it needs to: it is meant to run on documents that the DataBlind
+ * library would accept, not to be a validating parser.</p>
+ */
+final class DBLJsonScanner {
+
+  static final int END_OF_INPUT = 0;
+  static final int START_OBJECT = 1;
+  static final int END_OBJECT = 2;
+  static final int START_ARRAY = 3;
+  static final int END_ARRAY = 4;
+  static final int FIELD_NAME = 5;
+  static final int STRING = 6;
+  static final int NUMBER = 7;
+  static final int TRUE = 8;
+  static final int FALSE = 9;
+  static final int NULL = 10;
+
+  private static final int BUFFER_SIZE = 16 * 1024;
+
+  private final InputStream in;
+  private final byte[] buf;
+  private int pos;
+  private int limit;
+  private long consumedBefore;
+
+  private OutputStream echo;
+
+  private boolean[] objects = new boolean[32];
+  private int depth;
+  private boolean expectName;
+
+  private byte[] captured = new byte[64];
+  private int capturedLength;
+  private String fieldName;
+  private long tokenStart;
+  private long tokenEnd;
+
+  DBLJsonScanner(InputStream in) {
+    this.in = in;
+    this.buf = new byte[BUFFER_SIZE];
+  }
+
+  /**
+   * Scans an in-memory document; offsets reported by {@link #tokenStart()} are indexes into {@code data}.
+   */
+  DBLJsonScanner(byte[] data) {
+    this.in = null;
+    this.buf = data;
+    this.limit = data.length;
+  }
+
+  /**
+   * Sets the stream that receives every consumed byte that is not captured, or {@code null} to echo nothing.
+   */
+  void setEcho(OutputStream echo) {
+    this.echo = echo;
+  }
+
+  /**
+   * Advances to the next token. Separators and blanks in between are echoed.
+   *
+   * @param captureScalar if the token is a scalar value, keep its raw text in {@link #captured()} instead of
+   *        echoing it. Field names are always both echoed and captured; containers are always echoed.
+   * @return the token type, {@link #END_OF_INPUT} once the input is exhausted
+   */
+  int next(boolean captureScalar) throws IOException {
+    while (true) {
+      int b = peek();
+      if (b < 0) {
+        if (depth > 0) {
+          throw new IOException("Unexpected end of JSON input");
+        }
+        tokenStart = tokenEnd = position();
+        return END_OF_INPUT;
+      }
+      switch (b) {
+        case ' ':
+        case '\t':
+        case '\n':
+        case '\r':
+        case ':':
+          echoByte(b);
+          continue;
+        case ',':
+          echoByte(b);
+          if (depth > 0 && objects[depth - 1]) {
+            expectName = true;
+          }
+          continue;
+        case '{':
+          tokenStart = position();
+          echoByte(b);
+          push(true);
+          tokenEnd = position();
+          return START_OBJECT;
+        case '[':
+          tokenStart = position();
+          echoByte(b);
+          push(false);
+          tokenEnd = position();
+          return START_ARRAY;
+        case '}':
+        case ']':
+          tokenStart = position();
+          echoByte(b);
+          boolean wasObject = pop(b);
+          tokenEnd = position();
+          return wasObject ? END_OBJECT : END_ARRAY;
+        case '"':
+          tokenStart = position();
+          if (expectName && depth > 0 && objects[depth - 1]) {
+            readString(true, true);
+            fieldName = decodeString(captured, 0, capturedLength);
+            expectName = false;
+            tokenEnd = position();
+            return FIELD_NAME;
+          }
+          readString(captureScalar, !captureScalar);
+          tokenEnd = position();
+          return STRING;
+        case 't':
+        case 'f':
+        case 'n':
+          tokenStart = position();
+          int literal = readLiteral(captureScalar);
+          tokenEnd = position();
+          return literal;
+        default:
+          if (b == '-' || (b >= '0' && b <= '9')) {
+            tokenStart = position();
+            readNumber(captureScalar);
+            tokenEnd = position();
+            return NUMBER;
+          }
+          throw new IOException("Unexpected character '" + (char) b + "' in JSON input at offset " + position());
+      }
+    }
+  }
+
+  /**
+   * Consumes the blanks and separators before the next value, without echoing them.
+   *
+   * <p>To be called only where a value is expected: at the top level, after a field name or inside an array.</p>
+   *
+   * @return the first byte of the value, or -1 at the end of the input
+   */
+  int peekValue() throws IOException {
+    while (true) {
+      int b = peek();
+      if (b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == ':' || b == ',') {
+        pos++;
+      } else {
+        return b;
+      }
+    }
+  }
+
+  /**
+   * Consumes the next value, scalar or container, without echoing or tokenizing it: only string quotes and brackets
+   * are looked at, so a large subtree is passed over at the speed of a byte scan.
+   *
+   * <p>To be called only where a value is expected, like {@link #peekValue()}.</p>
+   */
+  void skipValue() throws IOException {
+    int b = peekValue();
+    if (b < 0) {
+      throw new IOException("Unexpected end of JSON input");
+    }
+    tokenStart = position();
+    if (b == '"') {
+      skipString();
+    } else if (b == '{' || b == '[') {
+      int nested = 0;
+      do {
+        if (pos >= limit && !fill()) {
+          throw new IOException("Unexpected end of JSON input");
+        }
+        byte c = buf[pos];
+        if (c == '"') {
+          skipString();
+          continue;
+        }
+        if (c == '{' || c == '[') {
+          nested++;
+        } else if (c == '}' || c == ']') {
+          nested--;
+        }
+        pos++;
+      } while (nested > 0);
+    } else {
+      while (b >= 0 && b != ',' && b != '}' && b != ']' && b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+        pos++;
+        b = peek();
+      }
+    }
+    tokenEnd = position();
+    expectName = false;
+  }
+
+  /**
+   * Writes the raw JSON text of the last {@link #FIELD_NAME} token, quotes and escapes included.
+   */
+  void writeFieldName(OutputStream out) throws IOException {
+    out.write(captured, 0, capturedLength);
+  }
+
+  /**
+   * @return the decoded name of the last {@link #FIELD_NAME} token
+   */
+  String fieldName() {
+    return fieldName;
+  }
+
+  /**
+   * @return the raw JSON text of the last captured token
+   */
+  String captured() {
+    return new String(captured, 0, capturedLength, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @return the number of containers currently open
+   */
+  int depth() {
+    return depth;
+  }
+
+  /**
+   * @return true if the innermost open container is an object
+   */
+  boolean inObject() {
+    return depth > 0 && objects[depth - 1];
+  }
+
+  /**
+   * @return the offset of the first byte of the last token
+   */
+  long tokenStart() {
+    return tokenStart;
+  }
+
+  /**
+   * @return the offset just past the last byte of the last token
+   */
+  long tokenEnd() {
+    return tokenEnd;
+  }
+
+  static boolean isScalar(int token) {
+    return token >= STRING;
+  }
+
+  /**
+   * Decodes the raw text of a JSON string token (with or without its quotes) to its value.
+   */
+  static String decodeString(byte[] raw, int offset, int length) throws IOException {
+    int start = offset;
+    int end = offset + length;
+    if (length >= 2 && raw[start] == '"' && raw[end - 1] == '"') {
+      start++;
+      end--;
+    }
+    String text = new String(raw, start, end - start, StandardCharsets.UTF_8);
+    if (text.indexOf('\\') < 0) {
+      return text;
+    }
+    StringBuilder sb = new StringBuilder(text.length());
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c != '\\') {
+        sb.append(c);
+        continue;
+      }
+      if (++i >= text.length()) {
+        throw new IOException("Invalid escape in JSON string");
+      }
+      char e = text.charAt(i);
+      switch (e) {
+        case 'b': sb.append('\b'); break;
+        case 'f': sb.append('\f'); break;
+        case 'n': sb.append('\n'); break;
+        case 'r': sb.append('\r'); break;
+        case 't': sb.append('\t'); break;
+        case 'u':
+          if (i + 4 >= text.length()) {
+            throw new IOException("Invalid unicode escape in JSON string");
+          }
+          sb.append((char) Integer.parseInt(text.substring(i + 1, i + 5), 16));
+          i += 4;
+          break;
+        default: sb.append(e);
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Encodes {@code value} as a JSON string literal, quotes included.
+   */
+  static String quote(String value) {
+    StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"': sb.append("\\\""); break;
+        case '\\': sb.append("\\\\"); break;
+        case '\n': sb.append("\\n"); break;
+        case '\r': sb.append("\\r"); break;
+        case '\t': sb.append("\\t"); break;
+        case '\b': sb.append("\\b"); break;
+        case '\f': sb.append("\\f"); break;
+        default:
+          if (c < 0x20) {
+            sb.append(String.format("\\u%04x", (int) c));
+          } else {
+            sb.append(c);
+          }
+      }
+    }
+    return sb.append('"').toString();
+  }
+
+  private void readString(boolean capture, boolean echoIt) throws IOException {
+    capturedLength = 0;
+    // opening quote
+    consume(capture, echoIt);
+    boolean escaped = false;
+    while (true) {
+      if (pos >= limit && !fill()) {
+        throw new IOException("Unterminated JSON string");
+      }
+      // copy runs of plain bytes in one go
+      int start = pos;
+      while (pos < limit) {
+        byte c = buf[pos];
+        if (escaped) {
+          escaped = false;
+        } else if (c == '\\') {
+          escaped = true;
+        } else if (c == '"') {
+          break;
+        }
+        pos++;
+      }
+      emit(start, pos - start, capture, echoIt);
+      if (pos < limit) {
+        // closing quote
+        consume(capture, echoIt);
+        return;
+      }
+    }
+  }
+
+  private void skipString() throws IOException {
+    // opening quote
+    pos++;
+    boolean escaped = false;
+    while (true) {
+      if (pos >= limit && !fill()) {
+        throw new IOException("Unterminated JSON string");
+      }
+      while (pos < limit) {
+        byte c = buf[pos++];
+        if (escaped) {
+          escaped = false;
+        } else if (c == '\\') {
+          escaped = true;
+        } else if (c == '"') {
+          return;
+        }
+      }
+    }
+  }
+
+  private void readNumber(boolean capture) throws IOException {
+    capturedLength = 0;
+    while (true) {
+      int b = peek();
+      if (b < 0 || !(b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E' || (b >= '0' && b <= '9'))) {
+        return;
+      }
+      consume(capture, !capture);
+    }
+  }
+
+  private int readLiteral(boolean capture) throws IOException {
+    capturedLength = 0;
+    int first = peek();
+    while (true) {
+      int b = peek();
+      if (b < 'a' || b > 'z') {
+        break;
+      }
+      consume(true, !capture);
+    }
+    String word = new String(captured, 0, capturedLength, StandardCharsets.US_ASCII);
+    int expected = first == 't' ? TRUE : first == 'f' ? FALSE : NULL;
+    if (!word.equals(expected == TRUE ? "true" : expected == FALSE ? "false" : "null")) {
+      throw new IOException("Unexpected literal '" + word + "' in JSON input");
+    }
+    return expected;
+  }
+
+  private void push(boolean object) {
+    if (depth == objects.length) {
+      objects = Arrays.copyOf(objects, depth * 2);
+    }
+    objects[depth++] = object;
+    expectName = object;
+  }
+
+  private boolean pop(int closer) throws IOException {
+    if (depth == 0 || objects[depth - 1] != (closer == '}')) {
+      throw new IOException("Unbalanced '" + (char) closer + "' in JSON input");
+    }
+    depth--;
+    expectName = false;
+    return closer == '}';
+  }
+
+  private int peek() throws IOException {
+    if (pos >= limit && !fill()) {
+      return -1;
+    }
+    return buf[pos] & 0xff;
+  }
+
+  private void echoByte(int b) throws IOException {
+    if (echo != null) {
+      echo.write(b);
+    }
+    pos++;
+  }
+
+  private void consume(boolean capture, boolean echoIt) throws IOException {
+    emit(pos, 1, capture, echoIt);
+    pos++;
+  }
+
+  private void emit(int start, int length, boolean capture, boolean echoIt) throws IOException {
+    if (length == 0) {
+      return;
+    }
+    if (capture) {
+      if (capturedLength + length > captured.length) {
+        captured = Arrays.copyOf(captured, Math.max(captured.length * 2, capturedLength + length));
+      }
+      System.arraycopy(buf, start, captured, capturedLength, length);
+      capturedLength += length;
+    }
+    if (echoIt && echo != null) {
+      echo.write(buf, start, length);
+    }
+  }
+
+  private long position() {
+    return consumedBefore + pos;
+  }
+
+  private boolean fill() throws IOException {
+    if (in == null) {
+      return false;
+    }
+    consumedBefore += limit;
+    pos = 0;
+    limit = 0;
+    int n;
+    do {
+      n = in.read(buf, 0, buf.length);
+    } while (n == 0);
+    if (n < 0) {
+      return false;
+    }
+    limit = n;
+    return true;
+  }
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link DBLFieldDetector} running in process, from field names and value patterns.
+ *
+ * <p>The document is read once with a {@link DBLJsonScanner}. Each string or number value is classified as one of
+ * the {@link DBLCipherType} values:</p>
+ * <ul>
+ *   <li>by its shape, whatever the field is called: SSN ({@code 123-45-6789}), credit card number (13 to 19 digits,
+ *   Luhn checked), email address, phone number with separators, IPv4 address, GPS coordinates, date
+ *   ({@code MM/dd/yyyy}) and date time;</li>
+ *   <li>by the name of its field, compared without case and punctuation with a dictionary of usual names. A known
+ *   name lets looser shapes through (nine digits for {@code ssn}, twelve digits with a valid check digit for
+ *   {@code upc}), and is the only way to find person names, street addresses and currency amounts, whose values
+ *   have no shape of their own.</li>
+ * </ul>
+ *
+ * <p>Arrays are transparent, as in the cipher specifications: all the values of a path vote, and the path gets the
+ * cipher type most of them have. Fields whose names cannot be written as a path are left out. Every type is
+ * encrypted in {@code FE} mode, so values keep their format.</p>
+ */
+public final class DBLLocalFieldDetector implements DBLFieldDetector {
+
+  private static final Pattern SSN = Pattern.compile("\\d{3}-\\d{2}-\\d{4}");
+  private static final Pattern SSN_DIGITS = Pattern.compile("\\d{9}");
+  private static final Pattern CARD = Pattern.compile("\\d{4}([ -]?\\d{3,4}){2,3}[ -]?\\d{0,4}");
+  private static final Pattern EMAIL = Pattern.compile("[A-Za-z0-9._%+'-]+@[A-Za-z0-9-]+(\\.[A-Za-z0-9-]+)*\\.[A-Za-z]{2,}");
+  private static final Pattern PHONE = Pattern.compile("(\\+?1[ .-]?)?(\\(\\d{3}\\) ?|\\d{3}[ .-])\\d{3}[ .-]\\d{4}");
+  private static final Pattern PHONE_DIGITS = Pattern.compile("\\+?\\d{10,15}");
+  private static final Pattern IPV4 = Pattern.compile("(\\d{1,3})\\.(\\d{1,3})\\.(\\d{1,3})\\.(\\d{1,3})");
+  private static final Pattern GPS = Pattern.compile("(-?\\d{1,2}(?:\\.\\d+)?), ?(-?\\d{1,3}(?:\\.\\d+)?)");
+  private static final Pattern UPC = Pattern.compile("\\d{12}");
+  private static final Pattern DATE = Pattern.compile("(0[1-9]|1[0-2])/(0[1-9]|[12]\\d|3[01])/\\d{4}");
+  private static final Pattern DATE_TIME = Pattern.compile(
+      "(0[1-9]|1[0-2])/(0[1-9]|[12]\\d|3[01])/\\d{4} ([01]\\d|2[0-3]):[0-5]\\d:[0-5]\\d");
+  private static final Pattern AMOUNT = Pattern.compile("-?\\d+(\\.\\d{1,2})?");
+
+  private static final Map<String, DBLCipherType> NAMES = new HashMap<>();
+  static {
+    names(DBLCipherType.SSN, "ssn", "socialsecurity", "socialsecuritynumber", "socsecnumber", "taxid");
+    names(DBLCipherType.CREDIT_CARD, "creditcard", "creditcardnumber", "cardnumber", "ccnumber", "cc", "pan",
+        "cardno");
+    names(DBLCipherType.EMAIL_ADDRESS, "email", "emailaddress", "mail", "customeremail", "contactemail",
+        "workemail", "personalemail");
+    names(DBLCipherType.PHONE_NUMBER, "phone", "phonenumber", "mobile", "mobilephone", "cell", "cellphone",
+        "telephone", "tel", "fax", "homephone", "workphone", "contactphone");
+    names(DBLCipherType.IP_ADDRESS, "ip", "ipaddress", "ipv4", "clientip", "remoteip", "sourceip");
+    names(DBLCipherType.GPS, "gps", "coordinates", "latlng", "latlon", "latlong", "geolocation", "geo");
+    names(DBLCipherType.UPC_A, "upc", "upca", "barcode");
+    names(DBLCipherType.DATE, "dob", "dateofbirth", "birthdate", "birthday");
+    names(DBLCipherType.PERSON_NAME, "name", "fullname", "firstname", "lastname", "middlename", "givenname",
+        "surname", "familyname", "personname", "customername", "patientname", "contactname");
+    names(DBLCipherType.STREET_ADDRESS, "address", "streetaddress", "street", "address1", "address2",
+        "addressline1", "addressline2", "homeaddress", "billingaddress", "shippingaddress", "mailingaddress");
+    names(DBLCipherType.CURRENCY_AMOUNT, "amount", "salary", "balance", "income", "accountbalance", "payment");
+  }
+
+  private static void names(DBLCipherType type, String... names) {
+    for (String name : names) {
+      NAMES.put(name, type);
+    }
+  }
+
+  @Override
+  public String detect(String json) throws IOException {
+    DBLJsonScanner scanner = new DBLJsonScanner(json.getBytes(StandardCharsets.UTF_8));
+    String[] names = new String[32];
+    Map<String, Map<DBLCipherType, Integer>> votes = new LinkedHashMap<>();
+    int token;
+    while ((token = scanner.next(true)) != DBLJsonScanner.END_OF_INPUT) {
+      int depth = scanner.depth();
+      if (depth > names.length) {
+        names = Arrays.copyOf(names, Math.max(depth, names.length * 2));
+      }
+      if (token == DBLJsonScanner.FIELD_NAME) {
+        names[depth - 1] = scanner.fieldName();
+        continue;
+      }
+      if (token == DBLJsonScanner.START_ARRAY) {
+        // arrays are transparent, only the names of objects make the path
+        names[depth - 1] = null;
+      }
+      if ((token != DBLJsonScanner.STRING && token != DBLJsonScanner.NUMBER) || depth == 0) {
+        continue;
+      }
+      String name = scanner.inObject() ? names[depth - 1] : nearestName(names, depth);
+      if (name == null) {
+        continue;
+      }
+      DBLCipherType type;
+      if (token == DBLJsonScanner.STRING) {
+        byte[] raw = scanner.captured().getBytes(StandardCharsets.UTF_8);
+        type = classify(name, DBLJsonScanner.decodeString(raw, 0, raw.length));
+      } else {
+        type = classifyNumber(name);
+      }
+      if (type == null) {
+        continue;
+      }
+      String path = path(names, depth);
+      if (path != null) {
+        votes.computeIfAbsent(path, k -> new EnumMap<>(DBLCipherType.class)).merge(type, 1, Integer::sum);
+      }
+    }
+    if (votes.isEmpty()) {
+      return null;
+    }
+    StringBuilder spec = new StringBuilder(32 * votes.size()).append('{');
+    for (Map.Entry<String, Map<DBLCipherType, Integer>> entry : votes.entrySet()) {
+      if (spec.length() > 1) {
+        spec.append(',');
+      }
+      spec.append(DBLJsonScanner.quote(entry.getKey())).append(":\"FE:").append(winner(entry.getValue()).getSpecToken())
+          .append('"');
+    }
+    return spec.append('}').toString();
+  }
+
+  /**
+   * Classifies a string value of the field {@code name}, or returns null when it does not look sensitive.
+   */
+  static DBLCipherType classify(String name, String value) {
+    String text = value.trim();
+    if (text.isEmpty()) {
+      return null;
+    }
+    DBLCipherType named = NAMES.get(normalize(name));
+    if (named != null && fits(named, text)) {
+      return named;
+    }
+    return byShape(text);
+  }
+
+  /**
+   * Classifies a number value: only fields named as amounts are sensitive numbers.
+   */
+  static DBLCipherType classifyNumber(String name) {
+    return NAMES.get(normalize(name)) == DBLCipherType.CURRENCY_AMOUNT ? DBLCipherType.CURRENCY_AMOUNT : null;
+  }
+
+  /**
+   * Whether a value of a field named for {@code type} can be given that type.
+   */
+  private static boolean fits(DBLCipherType type, String text) {
+    switch (type) {
+      case SSN: return SSN.matcher(text).matches() || SSN_DIGITS.matcher(text).matches();
+      case CREDIT_CARD: return isCard(text);
+      case EMAIL_ADDRESS: return EMAIL.matcher(text).matches();
+      case PHONE_NUMBER: return PHONE.matcher(text).matches() || PHONE_DIGITS.matcher(text).matches();
+      case IP_ADDRESS: return isIpv4(text);
+      case GPS: return isGps(text);
+      case UPC_A: return UPC.matcher(text).matches() && upcCheck(text);
+      case DATE: return DATE.matcher(text).matches();
+      case CURRENCY_AMOUNT: return AMOUNT.matcher(text).matches();
+      case PERSON_NAME:
+      case STREET_ADDRESS:
+        return text.length() <= 200 && text.chars().anyMatch(Character::isLetter);
+      default: return false;
+    }
+  }
+
+  /**
+   * Classifies a value by its shape alone. The first character and the presence of {@code @} pick the few patterns
+   * worth trying.
+   */
+  private static DBLCipherType byShape(String text) {
+    int length = text.length();
+    if (length < 7 || length > 254) {
+      return null;
+    }
+    if (text.indexOf('@') > 0) {
+      return EMAIL.matcher(text).matches() ? DBLCipherType.EMAIL_ADDRESS : null;
+    }
+    char first = text.charAt(0);
+    if (first == '(' || first == '+') {
+      return PHONE.matcher(text).matches() ? DBLCipherType.PHONE_NUMBER : null;
+    }
+    if (first != '-' && (first < '0' || first > '9')) {
+      return null;
+    }
+    if (length == 11 && SSN.matcher(text).matches()) {
+      return DBLCipherType.SSN;
+    }
+    if (length == 10 && DATE.matcher(text).matches()) {
+      return DBLCipherType.DATE;
+    }
+    if (length == 19 && DATE_TIME.matcher(text).matches()) {
+      return DBLCipherType.DATE_TIME;
+    }
+    if (isIpv4(text)) {
+      return DBLCipherType.IP_ADDRESS;
+    }
+    if (text.indexOf(',') > 0) {
+      return isGps(text) ? DBLCipherType.GPS : null;
+    }
+    if (PHONE.matcher(text).matches()) {
+      return DBLCipherType.PHONE_NUMBER;
+    }
+    return isCard(text) ? DBLCipherType.CREDIT_CARD : null;
+  }
+
+  private static boolean isCard(String text) {
+    if (!CARD.matcher(text).matches()) {
+      return false;
+    }
+    int sum = 0;
+    int digits = 0;
+    for (int i = text.length() - 1; i >= 0; i--) {
+      char c = text.charAt(i);
+      if (c < '0' || c > '9') {
+        continue;
+      }
+      int d = c - '0';
+      if (digits++ % 2 == 1) {
+        d *= 2;
+        if (d > 9) {
+          d -= 9;
+        }
+      }
+      sum += d;
+    }
+    return digits >= 13 && digits <= 19 && sum % 10 == 0;
+  }
+
+  private static boolean isIpv4(String text) {
+    Matcher m = IPV4.matcher(text);
+    if (!m.matches()) {
+      return false;
+    }
+    for (int i = 1; i <= 4; i++) {
+      if (Integer.parseInt(m.group(i)) > 255) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isGps(String text) {
+    Matcher m = GPS.matcher(text);
+    if (!m.matches()) {
+      return false;
+    }
+    // a decimal point on both sides keeps "10,20" lists out
+    if (m.group(1).indexOf('.') < 0 || m.group(2).indexOf('.') < 0) {
+      return false;
+    }
+    return Math.abs(Double.parseDouble(m.group(1))) <= 90 && Math.abs(Double.parseDouble(m.group(2))) <= 180;
+  }
+
+  private static boolean upcCheck(String digits) {
+    int sum = 0;
+    for (int i = 0; i < 11; i++) {
+      sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 3 : 1);
+    }
+    return (10 - sum % 10) % 10 == digits.charAt(11) - '0';
+  }
+
+  private static DBLCipherType winner(Map<DBLCipherType, Integer> votes) {
+    DBLCipherType best = null;
+    int most = 0;
+    for (Map.Entry<DBLCipherType, Integer> vote : votes.entrySet()) {
+      if (vote.getValue() > most) {
+        best = vote.getKey();
+        most = vote.getValue();
+      }
+    }
+    return best;
+  }
+
+  /**
+   * @return the name of the field holding the array a value sits in, or null for arrays outside any object
+   */
+  private static String nearestName(String[] names, int depth) {
+    for (int i = depth - 1; i >= 0; i--) {
+      if (names[i] != null) {
+        return names[i];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the dotted path of the value at {@code depth}, or null if a name cannot be written in a path
+   */
+  private static String path(String[] names, int depth) {
+    StringBuilder path = new StringBuilder();
+    for (int i = 0; i < depth; i++) {
+      String name = names[i];
+      if (name == null) {
+        continue;
+      }
+      if (name.isEmpty() || name.indexOf('.') >= 0 || name.indexOf('[') >= 0 || name.indexOf(']') >= 0
+          || name.equals(DBLPathTrie.ANY)) {
+        return null;
+      }
+      if (path.length() > 0) {
+        path.append('.');
+      }
+      path.append(name);
+    }
+    return path.length() == 0 ? null : path.toString();
+  }
+
+  private static String normalize(String name) {
+    StringBuilder sb = new StringBuilder(name.length());
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (Character.isLetterOrDigit(c)) {
+        sb.append(c);
+      }
+    }
+    return sb.toString().toLowerCase(Locale.ROOT);
+  }
+}
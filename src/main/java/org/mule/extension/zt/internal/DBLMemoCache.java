@@ -0,0 +1,335 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Bounded, time limited memo of the results of format-preserving encryption and decryption, for fields whose values
+ * repeat a lot, such as a state, a country or a merchant name.
+ *
+ * <p>With the same key, tweak and type, FE always turns a value into the same result, so a result once computed can
+ * be handed out again without calling the engine. Only the cipher types a plan marks with
+ * {@value DBLFieldPlan#MEMO_SUFFIX} are remembered; encryption and decryption are remembered separately. Calls with
+ * an override token are never remembered: the engine checks the token on every call, and a remembered result would
+ * be handed out again after the token expired.</p>
+ *
+ * <p>Entries are keyed by an HMAC-SHA256, under a random key drawn when the cache is created, of the operation, the
+ * type, the tweak, the passphrase and the value, so the cache holds neither values nor digests that could be matched
+ * against guessed values. Results are held as bytes that are overwritten with zeros when the entry expires, is
+ * evicted or the cache is cleared.</p>
+ *
+ * <p>Entries are spread by key over up to {@link #MAX_STRIPES} stripes, each with its own lock and its share of the
+ * entries, so concurrent lookups rarely wait for each other. Within a stripe, entries are kept in insertion order:
+ * the oldest entry is both the first to expire and the one evicted when the stripe is full, so no entry outlives its
+ * time to live by more than the next lookup in its stripe.</p>
+ */
+final class DBLMemoCache implements DBLMemoCacheMXBean {
+
+  private static final class Entry {
+
+    private final byte[] result;
+    private final long expiresAt;
+
+    Entry(byte[] result, long expiresAt) {
+      this.result = result;
+      this.expiresAt = expiresAt;
+    }
+
+    void erase() {
+      Arrays.fill(result, (byte) 0);
+    }
+  }
+
+  static final String NO_TOKEN = "NOTOKEN";
+
+  static final int MAX_STRIPES = 16;
+  // a stripe holds at least this many entries, so that a small cache is not cut into stripes too small to be fair
+  private static final int MIN_STRIPE_ENTRIES = 64;
+
+  private final int maxEntries;
+  private final long ttlMillis;
+  private final LongSupplier clock;
+  private final byte[] secret;
+  private final ThreadLocal<Mac> macs;
+  private final LinkedHashMap<ByteBuffer, Entry>[] stripes;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder expirations = new LongAdder();
+
+  /**
+   * @param maxEntries maximum number of results kept, 0 to disable the cache
+   * @param ttlMillis time after which a result is forgotten
+   */
+  DBLMemoCache(int maxEntries, long ttlMillis) {
+    this(maxEntries, ttlMillis, System::currentTimeMillis);
+  }
+
+  DBLMemoCache(int maxEntries, long ttlMillis, LongSupplier clock) {
+    this.maxEntries = ttlMillis > 0 ? Math.max(0, maxEntries) : 0;
+    this.ttlMillis = ttlMillis;
+    this.clock = clock;
+    this.secret = new byte[32];
+    new SecureRandom().nextBytes(secret);
+    this.macs = ThreadLocal.withInitial(this::newMac);
+    int count = Math.max(1, Math.min(MAX_STRIPES, this.maxEntries / MIN_STRIPE_ENTRIES));
+    @SuppressWarnings("unchecked")
+    LinkedHashMap<ByteBuffer, Entry>[] created = new LinkedHashMap[count];
+    for (int i = 0; i < count; i++) {
+      // the first stripes take the remainder, so the stripes together hold maxEntries
+      created[i] = newStripe(Math.max(1, this.maxEntries / count + (i < this.maxEntries % count ? 1 : 0)));
+    }
+    this.stripes = created;
+  }
+
+  private LinkedHashMap<ByteBuffer, Entry> newStripe(int max) {
+    return new LinkedHashMap<ByteBuffer, Entry>(16, 0.75f, false) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<ByteBuffer, Entry> eldest) {
+        if (size() > max) {
+          eldest.getValue().erase();
+          evictions.increment();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  boolean isEnabled() {
+    return maxEntries > 0;
+  }
+
+  /**
+   * @return true if {@link #memoize} would remember any value of {@code plan} for a call with
+   *         {@code overRideToken}
+   */
+  boolean applies(DBLFieldPlan plan, String overRideToken) {
+    return isEnabled() && !plan.getMemoSpecs().isEmpty() && (overRideToken == null || NO_TOKEN.equals(overRideToken));
+  }
+
+  /**
+   * Wraps {@code transform}, which runs {@code operation} with {@code tweak}, {@code overRideToken} and
+   * {@code passPhrase}, so the values of the memoized types of {@code plan} are looked up first. Values not found
+   * are passed on in one call, each distinct value once, and their results remembered.
+   *
+   * @return {@code transform} itself when nothing of {@code plan} is memoized or {@code overRideToken} is a token
+   */
+  DBLFieldCipher.BlockTransform memoize(DBLFieldCipher.BlockTransform transform, DBLFieldPlan plan, String operation,
+                                        String tweak, String overRideToken, String passPhrase) {
+    if (!applies(plan, overRideToken)) {
+      return transform;
+    }
+    Set<String> memoSpecs = plan.getMemoSpecs();
+    return (cipherSpecs, rawValues) -> {
+      int count = rawValues.length;
+      String[] results = new String[count];
+      ByteBuffer[] keys = new ByteBuffer[count];
+      // first index of each distinct value not found, and where the other occurrences take their result from
+      Map<ByteBuffer, Integer> pending = new HashMap<>();
+      int[] source = new int[count];
+      int missing = 0;
+      for (int i = 0; i < count; i++) {
+        source[i] = i;
+        if (!memoSpecs.contains(cipherSpecs[i])) {
+          missing++;
+          continue;
+        }
+        keys[i] = key(operation, cipherSpecs[i], tweak, passPhrase, rawValues[i]);
+        Integer first = pending.get(keys[i]);
+        if (first != null) {
+          source[i] = first;
+          continue;
+        }
+        results[i] = get(keys[i]);
+        if (results[i] == null) {
+          pending.put(keys[i], i);
+          missing++;
+        }
+      }
+      if (missing > 0) {
+        String[] specs = new String[missing];
+        String[] values = new String[missing];
+        int[] index = new int[missing];
+        for (int i = 0, n = 0; i < count; i++) {
+          if (results[i] == null && source[i] == i) {
+            specs[n] = cipherSpecs[i];
+            values[n] = rawValues[i];
+            index[n++] = i;
+          }
+        }
+        String[] computed = transform.apply(specs, values);
+        for (int n = 0; n < missing; n++) {
+          results[index[n]] = computed[n];
+          if (keys[index[n]] != null) {
+            put(keys[index[n]], computed[n]);
+          }
+        }
+      }
+      for (int i = 0; i < count; i++) {
+        if (source[i] != i) {
+          results[i] = results[source[i]];
+        }
+      }
+      return results;
+    };
+  }
+
+  private String get(ByteBuffer key) {
+    long now = clock.getAsLong();
+    String result = null;
+    LinkedHashMap<ByteBuffer, Entry> entries = stripe(key);
+    synchronized (entries) {
+      expire(entries, now);
+      Entry entry = entries.get(key);
+      if (entry != null) {
+        result = new String(entry.result, StandardCharsets.UTF_8);
+      }
+    }
+    if (result == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return result;
+  }
+
+  private void put(ByteBuffer key, String result) {
+    Entry entry = new Entry(result.getBytes(StandardCharsets.UTF_8), clock.getAsLong() + ttlMillis);
+    LinkedHashMap<ByteBuffer, Entry> entries = stripe(key);
+    synchronized (entries) {
+      // a concurrent miss of the same value may have stored it first
+      Entry previous = entries.remove(key);
+      if (previous != null) {
+        previous.erase();
+      }
+      entries.put(key, entry);
+    }
+  }
+
+  private LinkedHashMap<ByteBuffer, Entry> stripe(ByteBuffer key) {
+    return stripes[(key.hashCode() & Integer.MAX_VALUE) % stripes.length];
+  }
+
+  private void expire(LinkedHashMap<ByteBuffer, Entry> entries, long now) {
+    Iterator<Entry> oldest = entries.values().iterator();
+    while (oldest.hasNext()) {
+      Entry entry = oldest.next();
+      if (now < entry.expiresAt) {
+        return;
+      }
+      entry.erase();
+      oldest.remove();
+      expirations.increment();
+    }
+  }
+
+  private ByteBuffer key(String operation, String cipherSpec, String tweak, String passPhrase, String rawValue) {
+    Mac mac = macs.get();
+    // length prefixes keep ("ab", "c") and ("a", "bc") apart
+    for (String part : new String[] {operation, cipherSpec, tweak, passPhrase, rawValue}) {
+      byte[] bytes = part == null ? new byte[0] : part.getBytes(StandardCharsets.UTF_8);
+      mac.update((byte) (part == null ? 0 : 1));
+      mac.update(new byte[] {(byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16), (byte) (bytes.length >>> 8),
+          (byte) bytes.length});
+      mac.update(bytes);
+    }
+    return ByteBuffer.wrap(mac.doFinal());
+  }
+
+  private Mac newMac() {
+    try {
+      Mac mac = Mac.getInstance("HmacSHA256");
+      mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+      return mac;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public long getHits() {
+    return hits.sum();
+  }
+
+  @Override
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  @Override
+  public double getHitRatio() {
+    long found = hits.sum();
+    long lookups = found + misses.sum();
+    return lookups == 0 ? 0 : (double) found / lookups;
+  }
+
+  @Override
+  public int getSize() {
+    int size = 0;
+    for (LinkedHashMap<ByteBuffer, Entry> entries : stripes) {
+      synchronized (entries) {
+        size += entries.size();
+      }
+    }
+    return size;
+  }
+
+  @Override
+  public int getMaxSize() {
+    return maxEntries;
+  }
+
+  @Override
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  @Override
+  public long getExpirations() {
+    return expirations.sum();
+  }
+
+  @Override
+  public void reset() {
+    hits.reset();
+    misses.reset();
+    evictions.reset();
+    expirations.reset();
+  }
+
+  /**
+   * Forgets every result, overwriting it first.
+   */
+  void clear() {
+    for (LinkedHashMap<ByteBuffer, Entry> entries : stripes) {
+      synchronized (entries) {
+        for (Entry entry : entries.values()) {
+          entry.erase();
+        }
+        entries.clear();
+      }
+    }
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+/**
+ * JMX view of the memo cache of one DataBlind configuration, registered as
+ * {@code org.mule.extension.zt:type=DataBlind,config=<config name>,cache=Memo}.
+ * <p>
+ * Counters accumulate from the start of the configuration or the last {@link #reset()}.
+ */
+public interface DBLMemoCacheMXBean {
+
+  long getHits();
+
+  long getMisses();
+
+  /**
+   * @return hits over lookups, 0 before the first lookup
+   */
+  double getHitRatio();
+
+  int getSize();
+
+  int getMaxSize();
+
+  /**
+   * @return entries dropped to make room for new ones
+   */
+  long getEvictions();
+
+  /**
+   * @return entries dropped because they outlived the time to live
+   */
+  long getExpirations();
+
+  void reset();
+}
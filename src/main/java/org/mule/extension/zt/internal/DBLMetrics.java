@@ -0,0 +1,151 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Metrics of the operations of one configuration.
+ *
+ * <p>The metrics of every operation are created up front, so looking them up on a call is a read of an immutable
+ * map. They are registered with the platform MBean server when the configuration starts, under
+ * {@value #DOMAIN}{@code :type=DataBlind,config=<config name>,operation=<operation>}, and unregistered when it
+ * stops. Caches of the configuration that report their own figures are registered next to them, under
+ * {@code cache=<cache>} instead of {@code operation=<operation>}.</p>
+ */
+final class DBLMetrics {
+
+  static final String DOMAIN = "org.mule.extension.zt";
+
+  static final String ENCRYPT_JSON = "EncryptJson";
+  static final String DECRYPT_JSON = "DecryptJson";
+  static final String REENCRYPT_JSON = "ReencryptJson";
+  static final String ENCRYPT_OBJECT = "EncryptObject";
+  static final String DECRYPT_OBJECT = "DecryptObject";
+  static final String REDUCE_JSON = "reduceJson";
+  static final String ENCRYPT_JSON_USING_NLP = "EncryptJsonUsingNLP";
+  static final String REDUCE_JSON_STREAM = "reduceJsonStream";
+  static final String ENCRYPT_JSON_STREAM = "EncryptJsonStream";
+  static final String DECRYPT_JSON_STREAM = "DecryptJsonStream";
+  static final String REENCRYPT_JSON_STREAM = "ReencryptJsonStream";
+  static final String ENCRYPT_JSON_BATCH = "EncryptJsonBatch";
+  static final String DECRYPT_JSON_BATCH = "DecryptJsonBatch";
+  static final String REENCRYPT_JSON_BATCH = "ReencryptJsonBatch";
+  static final String ENCRYPT_DELIMITED = "EncryptDelimited";
+  static final String DECRYPT_DELIMITED = "DecryptDelimited";
+  static final String OVERRIDE_TOKEN = "OverrideToken";
+  static final String OVERRIDE_TOKEN_WITH_NEW_KEY = "OverrideTokenWithNewKey";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DBLMetrics.class);
+
+  private final String configName;
+  private final Map<String, DBLOperationMetrics> operations;
+  private final List<ObjectName> registered = new ArrayList<>();
+
+  DBLMetrics(String configName) {
+    this.configName = configName == null || configName.isEmpty() ? "default" : configName;
+    Map<String, DBLOperationMetrics> metrics = new LinkedHashMap<>();
+    for (String operation : new String[] {ENCRYPT_JSON, DECRYPT_JSON, REENCRYPT_JSON, ENCRYPT_OBJECT, DECRYPT_OBJECT,
+        REDUCE_JSON, ENCRYPT_JSON_USING_NLP, REDUCE_JSON_STREAM, ENCRYPT_JSON_STREAM, DECRYPT_JSON_STREAM,
+        REENCRYPT_JSON_STREAM, ENCRYPT_JSON_BATCH, DECRYPT_JSON_BATCH, REENCRYPT_JSON_BATCH, ENCRYPT_DELIMITED,
+        DECRYPT_DELIMITED, OVERRIDE_TOKEN, OVERRIDE_TOKEN_WITH_NEW_KEY}) {
+      metrics.put(operation, new DBLOperationMetrics(operation));
+    }
+    this.operations = Collections.unmodifiableMap(metrics);
+  }
+
+  /**
+   * @return the metrics of {@code operation}, one of the operation name constants
+   */
+  DBLOperationMetrics operation(String operation) {
+    DBLOperationMetrics metrics = operations.get(operation);
+    if (metrics == null) {
+      throw new IllegalArgumentException("No metrics for operation " + operation);
+    }
+    return metrics;
+  }
+
+  Collection<DBLOperationMetrics> getOperations() {
+    return operations.values();
+  }
+
+  /**
+   * Registers the MBeans of the operations. A name already taken, for example by a configuration of the same name in
+   * another application, is logged and skipped: metrics are still recorded.
+   */
+  synchronized void register() {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    for (DBLOperationMetrics metrics : operations.values()) {
+      try {
+        ObjectName name = objectName(metrics.getOperation());
+        server.registerMBean(metrics, name);
+        registered.add(name);
+      } catch (JMException e) {
+        LOGGER.warn("DataBlind metrics of " + metrics.getOperation() + " could not be registered: " + e);
+      }
+    }
+  }
+
+  /**
+   * Registers the MBean of a cache of the configuration, with the same tolerance as {@link #register()}.
+   */
+  synchronized void registerCache(String cache, Object mbean) {
+    try {
+      ObjectName name = new ObjectName(DOMAIN + ":type=DataBlind,config=" + ObjectName.quote(configName) + ",cache="
+          + cache);
+      ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, name);
+      registered.add(name);
+    } catch (JMException e) {
+      LOGGER.warn("DataBlind " + cache + " cache metrics could not be registered: " + e);
+    }
+  }
+
+  /**
+   * Registers the MBean of the warm-up of the configuration, with the same tolerance as {@link #register()}.
+   */
+  synchronized void registerWarmup(DBLWarmupMXBean mbean) {
+    try {
+      ObjectName name = new ObjectName(DOMAIN + ":type=DataBlind,config=" + ObjectName.quote(configName)
+          + ",phase=WarmUp");
+      ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, name);
+      registered.add(name);
+    } catch (JMException e) {
+      LOGGER.warn("DataBlind warm-up metrics could not be registered: " + e);
+    }
+  }
+
+  synchronized void unregister() {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    for (ObjectName name : registered) {
+      try {
+        server.unregisterMBean(name);
+      } catch (JMException e) {
+        LOGGER.warn("DataBlind metrics " + name + " could not be unregistered: " + e);
+      }
+    }
+    registered.clear();
+  }
+
+  ObjectName objectName(String operation) throws JMException {
+    return new ObjectName(DOMAIN + ":type=DataBlind,config=" + ObjectName.quote(configName) + ",operation=" + operation);
+  }
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces concurrent NLP requests into batched calls to the DataBlind API.
+ *
+ * <p>Requests are collected until {@code maxBatchSize} are waiting or {@code windowMillis} have passed since the
+ * first of them, then sent as one POST to {@value #BATCH_PATH}, whose body streams the request bodies one after
+ * the other:</p>
+ *
+ * <pre>{"requests":[{...},{...}]}  -&gt;  {"responses":[{...},{...}]}</pre>
+ *
+ * <p>Each caller gets the response at its own index, exactly as {@value #SINGLE_PATH} would have returned it. A
+ * batch of one request is sent to {@value #SINGLE_PATH} directly. If the API does not know the batch endpoint,
+ * batching is switched off and requests go one by one from then on; a successful batch reply that cannot be
+ * matched to its requests is retried one request at a time.</p>
+ *
+ * <p>Any other reply that is not 2xx, such as 429 or 503, fails its requests with a {@link StatusException}, a batch
+ * reply failing every request of the batch, without sending them again.</p>
+ *
+ * <p>The response of a request sent on its own is handed over as the stream of the HTTP reply; only batch replies
+ * are read into memory, to be sliced.</p>
+ */
+final class DBLNlpBatcher {
+
+  static final String SINGLE_PATH = "/datacrypt-nlp";
+  static final String BATCH_PATH = "/datacrypt-nlp-batch";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DBLNlpBatcher.class);
+
+  /**
+   * Sends a POST to the DataBlind API.
+   */
+  @FunctionalInterface
+  interface Transport {
+    /**
+     * @param path the API path, {@value #SINGLE_PATH} or {@value #BATCH_PATH}
+     * @param body the JSON request body, read once
+     * @return the reply, or a failed future if no reply was received
+     */
+    CompletableFuture<Reply> post(String path, InputStream body);
+  }
+
+  /**
+   * Status code and body of an API reply.
+   */
+  static final class Reply {
+
+    final int status;
+    final InputStream body;
+
+    Reply(int status, InputStream body) {
+      this.status = status;
+      this.body = body;
+    }
+  }
+
+  /**
+   * A reply of the API with a status other than 2xx.
+   */
+  static final class StatusException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+    private static final int MAX_DETAIL = 256;
+
+    private final int status;
+
+    StatusException(String path, int status, String detail) {
+      super("DataBlind API " + path + " answered with status " + status + (detail.isEmpty() ? "" : ": " + detail));
+      this.status = status;
+    }
+
+    int getStatus() {
+      return status;
+    }
+
+    /**
+     * Reads the start of the body of {@code reply}, for the message, and closes it.
+     */
+    static StatusException of(String path, Reply reply) {
+      String detail = "";
+      try (InputStream body = reply.body) {
+        detail = new String(body.readNBytes(MAX_DETAIL), StandardCharsets.UTF_8).trim();
+      } catch (IOException e) {
+        // the status is enough
+      }
+      return new StatusException(path, reply.status, detail);
+    }
+  }
+
+  private final Transport transport;
+  private final int maxBatchSize;
+  private final long windowMillis;
+  private final ScheduledExecutorService timer;
+
+  private final Object lock = new Object();
+  private List<Pending> pending = new ArrayList<>();
+  private ScheduledFuture<?> flushTask;
+  private volatile boolean batchSupported = true;
+
+  /**
+   * @param maxBatchSize maximum number of requests in one batch, 1 to send every request on its own
+   * @param windowMillis longest time the first request of a batch waits for others
+   */
+  DBLNlpBatcher(Transport transport, int maxBatchSize, long windowMillis) {
+    this.transport = transport;
+    this.maxBatchSize = Math.max(1, maxBatchSize);
+    this.windowMillis = Math.max(0, windowMillis);
+    this.timer = this.maxBatchSize > 1 ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "datablind-nlp-batcher");
+      thread.setDaemon(true);
+      return thread;
+    }) : null;
+  }
+
+  /**
+   * @return true while requests are being coalesced into batches
+   */
+  boolean isBatching() {
+    return timer != null && batchSupported;
+  }
+
+  /**
+   * Queues an NLP request.
+   *
+   * @param request the request {@value #SINGLE_PATH} expects
+   * @return the response body of the request
+   */
+  CompletableFuture<InputStream> submit(DBLNlpRequest request) {
+    if (!isBatching()) {
+      return single(request);
+    }
+    Pending pendingRequest = new Pending(request);
+    List<Pending> full = null;
+    synchronized (lock) {
+      pending.add(pendingRequest);
+      if (pending.size() >= maxBatchSize) {
+        full = take();
+      } else if (pending.size() == 1) {
+        flushTask = timer.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+      }
+    }
+    if (full != null) {
+      send(full);
+    }
+    return pendingRequest.future;
+  }
+
+  /**
+   * Sends the waiting requests now.
+   */
+  void flush() {
+    List<Pending> batch;
+    synchronized (lock) {
+      batch = take();
+    }
+    if (!batch.isEmpty()) {
+      send(batch);
+    }
+  }
+
+  /**
+   * Sends the waiting requests and stops the batching timer.
+   */
+  void dispose() {
+    flush();
+    if (timer != null) {
+      timer.shutdownNow();
+    }
+  }
+
+  private List<Pending> take() {
+    List<Pending> batch = pending;
+    pending = new ArrayList<>();
+    if (flushTask != null) {
+      flushTask.cancel(false);
+      flushTask = null;
+    }
+    return batch;
+  }
+
+  private CompletableFuture<InputStream> single(DBLNlpRequest request) {
+    return transport.post(SINGLE_PATH, request.open()).thenApply(reply -> {
+      if (!isSuccess(reply)) {
+        throw new CompletionException(StatusException.of(SINGLE_PATH, reply));
+      }
+      return reply.body;
+    });
+  }
+
+  private static boolean isSuccess(Reply reply) {
+    return reply.status >= 200 && reply.status < 300;
+  }
+
+  private void send(List<Pending> batch) {
+    if (batch.size() == 1 || !batchSupported) {
+      batch.forEach(this::sendSingle);
+      return;
+    }
+    List<DBLNlpRequest> requests = new ArrayList<>(batch.size());
+    for (Pending request : batch) {
+      requests.add(request.request);
+    }
+    transport.post(BATCH_PATH, DBLNlpRequest.openBatch(requests)).whenComplete((reply, failure) -> {
+      try {
+        complete(batch, reply, failure);
+      } catch (RuntimeException e) {
+        // never leave a caller waiting on a reply that was lost in handling
+        batch.forEach(request -> request.future.completeExceptionally(e));
+      }
+    });
+  }
+
+  private void complete(List<Pending> batch, Reply reply, Throwable failure) {
+    if (failure != null) {
+      batch.forEach(request -> request.future.completeExceptionally(failure));
+      return;
+    }
+    if (reply.status == 404 || reply.status == 405 || reply.status == 501) {
+      if (batchSupported) {
+        batchSupported = false;
+        LOGGER.info("DataBlind API has no " + BATCH_PATH + " endpoint (status " + reply.status
+            + "), sending NLP requests one by one");
+      }
+      close(reply);
+      batch.forEach(this::sendSingle);
+      return;
+    }
+    if (!isSuccess(reply)) {
+      // the API is failing or overloaded, sending the requests again one by one would only add to its load
+      StatusException error = StatusException.of(BATCH_PATH, reply);
+      batch.forEach(request -> request.future.completeExceptionally(error));
+      return;
+    }
+    List<String> responses = null;
+    try (InputStream body = reply.body) {
+      responses = responses(body.readAllBytes());
+    } catch (IOException e) {
+      LOGGER.warn("Unreadable NLP batch reply, retrying its requests one by one: " + e.getMessage());
+    }
+    if (responses == null || responses.size() != batch.size()) {
+      batch.forEach(this::sendSingle);
+      return;
+    }
+    for (int i = 0; i < batch.size(); i++) {
+      batch.get(i).future.complete(new ByteArrayInputStream(responses.get(i).getBytes(StandardCharsets.UTF_8)));
+    }
+  }
+
+  private static void close(Reply reply) {
+    try {
+      reply.body.close();
+    } catch (IOException e) {
+      // nothing left to read from it
+    }
+  }
+
+  private void sendSingle(Pending request) {
+    single(request.request).whenComplete((response, failure) -> {
+      if (failure != null) {
+        request.future.completeExceptionally(failure);
+      } else {
+        request.future.complete(response);
+      }
+    });
+  }
+
+  /**
+   * Slices the members of the {@code responses} array of a batch reply, or returns {@code null} if there is none.
+   */
+  static List<String> responses(byte[] body) throws IOException {
+    DBLJsonScanner scanner = new DBLJsonScanner(body);
+    if (scanner.next(false) != DBLJsonScanner.START_OBJECT) {
+      return null;
+    }
+    int token;
+    while ((token = scanner.next(false)) != DBLJsonScanner.END_OF_INPUT) {
+      if (token == DBLJsonScanner.FIELD_NAME && scanner.depth() == 1 && "responses".equals(scanner.fieldName())) {
+        if (scanner.next(false) != DBLJsonScanner.START_ARRAY) {
+          return null;
+        }
+        int start = (int) scanner.tokenStart();
+        while (scanner.depth() > 1) {
+          if (scanner.next(false) == DBLJsonScanner.END_OF_INPUT) {
+            return null;
+          }
+        }
+        return DBLBatchCrypt.split(Arrays.copyOfRange(body, start, (int) scanner.tokenEnd()));
+      }
+    }
+    return null;
+  }
+
+  private static final class Pending {
+
+    final DBLNlpRequest request;
+    final CompletableFuture<InputStream> future = new CompletableFuture<>();
+
+    Pending(DBLNlpRequest request) {
+      this.request = request;
+    }
+  }
+}
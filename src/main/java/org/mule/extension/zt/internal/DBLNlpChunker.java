@@ -0,0 +1,232 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Splits a large document into several NLP requests along one of its arrays, and puts the protected chunks back
+ * together.
+ *
+ * <p>The array is the top level value of the document, or the first array found at a dotted path. Each chunk is the
+ * whole document with the array cut down to {@code chunkSize} of its elements, so the NLP service sees every element
+ * with the same field names as in the original. The protected document is the first chunk response with the
+ * elements of all responses, in order, in place of its array.</p>
+ *
+ * <p>At most {@code concurrency} chunks are in flight at once; the next chunk is sent as soon as one completes, so
+ * no thread waits on the service. A chunk that fails is sent again on its own, up to {@code retries} times, before
+ * the whole document fails.</p>
+ */
+final class DBLNlpChunker {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DBLNlpChunker.class);
+
+  private final DBLPathTrie path;
+  private final int chunkSize;
+  private final int concurrency;
+  private final int retries;
+
+  /**
+   * @param path dotted path of the array, {@code null} or blank for a top level array
+   */
+  DBLNlpChunker(String path, int chunkSize, int concurrency, int retries) {
+    this.path = path == null || path.trim().isEmpty() ? null : DBLFieldPlan.compilePathList(path.trim()).getTrie();
+    this.chunkSize = Math.max(1, chunkSize);
+    this.concurrency = Math.max(1, concurrency);
+    this.retries = Math.max(0, retries);
+  }
+
+  /**
+   * @return the chunk documents of {@code json}, or {@code null} when it has no array to split or the array fits in
+   *         one chunk
+   */
+  List<String> split(String json) throws IOException {
+    byte[] document = json.getBytes(StandardCharsets.UTF_8);
+    Array array = locate(document);
+    if (array == null || array.elements.size() <= chunkSize) {
+      return null;
+    }
+    List<String> chunks = new ArrayList<>();
+    for (int from = 0; from < array.elements.size(); from += chunkSize) {
+      int to = Math.min(array.elements.size(), from + chunkSize);
+      int start = array.elements.get(from)[0];
+      int end = array.elements.get(to - 1)[1];
+      ByteArrayOutputStream chunk = new ByteArrayOutputStream(array.open + 1 + end - start + document.length
+          - array.close);
+      chunk.write(document, 0, array.open + 1);
+      chunk.write(document, start, end - start);
+      chunk.write(document, array.close, document.length - array.close);
+      chunks.add(new String(chunk.toByteArray(), StandardCharsets.UTF_8));
+    }
+    return chunks;
+  }
+
+  /**
+   * Sends {@code chunks} with {@code sender} and joins the responses, read on {@code executor}.
+   *
+   * @return the protected document
+   */
+  CompletableFuture<byte[]> send(List<String> chunks, Function<String, CompletableFuture<InputStream>> sender,
+                                 Executor executor) {
+    byte[][] responses = new byte[chunks.size()][];
+    CompletableFuture<byte[]> done = new CompletableFuture<>();
+    AtomicInteger next = new AtomicInteger(concurrency);
+    AtomicInteger remaining = new AtomicInteger(chunks.size());
+    for (int i = 0; i < Math.min(concurrency, chunks.size()); i++) {
+      sendChunk(chunks, i, retries, sender, executor, responses, done, next, remaining);
+    }
+    return done;
+  }
+
+  private void sendChunk(List<String> chunks, int index, int triesLeft,
+                         Function<String, CompletableFuture<InputStream>> sender, Executor executor, byte[][] responses,
+                         CompletableFuture<byte[]> done, AtomicInteger next, AtomicInteger remaining) {
+    if (done.isDone()) {
+      return;
+    }
+    CompletableFuture<InputStream> sent;
+    try {
+      sent = sender.apply(chunks.get(index));
+    } catch (RuntimeException e) {
+      sent = CompletableFuture.failedFuture(e);
+    }
+    sent.thenApplyAsync(DBLNlpChunker::readAll, executor).whenComplete((body, failure) -> {
+      if (failure != null) {
+        if (triesLeft > 0) {
+          LOGGER.warn("DataBlind NLP chunk " + index + " of " + chunks.size() + " failed, sending it again: " + failure);
+          sendChunk(chunks, index, triesLeft - 1, sender, executor, responses, done, next, remaining);
+        } else {
+          done.completeExceptionally(failure);
+        }
+        return;
+      }
+      responses[index] = body;
+      if (remaining.decrementAndGet() == 0) {
+        try {
+          done.complete(join(responses));
+        } catch (IOException | RuntimeException e) {
+          done.completeExceptionally(e);
+        }
+        return;
+      }
+      int following = next.getAndIncrement();
+      if (following < chunks.size()) {
+        sendChunk(chunks, following, retries, sender, executor, responses, done, next, remaining);
+      }
+    });
+  }
+
+  private byte[] join(byte[][] responses) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Array first = null;
+    boolean members = false;
+    for (int i = 0; i < responses.length; i++) {
+      Array array = locate(responses[i]);
+      if (array == null) {
+        throw new IOException("DataBlind NLP response of chunk " + i + " has no array to join");
+      }
+      if (i < responses.length - 1 && array.elements.size() != chunkSize) {
+        throw new IOException("DataBlind NLP response of chunk " + i + " has " + array.elements.size()
+            + " elements instead of " + chunkSize);
+      }
+      if (i == 0) {
+        first = array;
+        out.write(responses[0], 0, array.open + 1);
+      }
+      for (int[] element : array.elements) {
+        if (members) {
+          out.write(',');
+        }
+        out.write(responses[i], element[0], element[1] - element[0]);
+        members = true;
+      }
+    }
+    out.write(responses[0], first.close, responses[0].length - first.close);
+    return out.toByteArray();
+  }
+
+  /**
+   * Finds the array to split and the byte range of each of its elements.
+   */
+  private Array locate(byte[] document) throws IOException {
+    DBLJsonScanner scanner = new DBLJsonScanner(document);
+    DBLPathTracker tracker = path == null ? null : new DBLPathTracker(scanner, path);
+    Array array = null;
+    int token;
+    do {
+      boolean atPath = tracker == null ? scanner.depth() == 0 : tracker.captureNext();
+      token = scanner.next(false);
+      if (tracker != null) {
+        tracker.advance(token);
+      }
+      if (atPath && token == DBLJsonScanner.START_ARRAY) {
+        array = new Array((int) scanner.tokenStart());
+        break;
+      }
+      if (tracker == null) {
+        // only a top level array is split when no path is given
+        return null;
+      }
+    } while (token != DBLJsonScanner.END_OF_INPUT);
+    if (array == null) {
+      return null;
+    }
+    int depth = scanner.depth();
+    int start = -1;
+    while ((token = scanner.next(false)) != DBLJsonScanner.END_OF_INPUT) {
+      if (scanner.depth() < depth) {
+        array.close = (int) scanner.tokenStart();
+        return array;
+      }
+      if (start < 0) {
+        start = (int) scanner.tokenStart();
+      }
+      if (scanner.depth() == depth) {
+        array.elements.add(new int[] {start, (int) scanner.tokenEnd()});
+        start = -1;
+      }
+    }
+    throw new IOException("Unterminated array in the NLP document");
+  }
+
+  private static byte[] readAll(InputStream response) {
+    try (InputStream in = response) {
+      return in.readAllBytes();
+    } catch (IOException e) {
+      throw new CompletionException(e);
+    }
+  }
+
+  /**
+   * An array of a document: offsets of its brackets and byte ranges of its elements.
+   */
+  private static final class Array {
+
+    private final int open;
+    private int close;
+    private final List<int[]> elements = new ArrayList<>();
+
+    Array(int open) {
+      this.open = open;
+    }
+  }
+}
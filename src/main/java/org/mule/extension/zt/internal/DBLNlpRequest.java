@@ -0,0 +1,223 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+
+/**
+ * One request to the NLP endpoint of the DataBlind API.
+ *
+ * <p>The request body is never held in memory as a whole: {@link #open()} returns a stream that writes the envelope
+ * around the document and encodes the document to UTF-8 a buffer at a time while the HTTP client reads it. The
+ * stream can be opened again, which is what lets a batch be retried one request at a time.</p>
+ */
+final class DBLNlpRequest {
+
+  private static final int BUFFER_SIZE = 8192;
+  private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+  private final byte[] head;
+  private final String data;
+  private final byte[] tail;
+
+  /**
+   * @param data the JSON document to protect, written as is into the {@code data} member of the envelope
+   */
+  DBLNlpRequest(String key, String tweak, String data, String overRideToken, String passPhrase) {
+    this.head = ("{\"key\":" + text(key) + ",\"tweak\":" + text(tweak) + ",\"data\":")
+        .getBytes(StandardCharsets.UTF_8);
+    this.data = data;
+    this.tail = (",\"overRideToken\":" + text(overRideToken) + ",\"overRidePassPhrase\":" + text(passPhrase) + "}")
+        .getBytes(StandardCharsets.UTF_8);
+  }
+
+  String getData() {
+    return data;
+  }
+
+  /**
+   * @return a new stream over the UTF-8 body of the request
+   */
+  InputStream open() {
+    return concat(List.of(new ByteArrayInputStream(head), new EncodingStream(data), new ByteArrayInputStream(tail)));
+  }
+
+  /**
+   * @return a new stream over the body of a batch of requests, {@code {"requests":[...]}}
+   */
+  static InputStream openBatch(List<DBLNlpRequest> requests) {
+    List<InputStream> parts = new ArrayList<>(2 * requests.size() + 1);
+    for (DBLNlpRequest request : requests) {
+      parts.add(new ByteArrayInputStream(parts.isEmpty() ? "{\"requests\":[".getBytes(StandardCharsets.UTF_8)
+          : new byte[] {','}));
+      parts.add(request.open());
+    }
+    parts.add(new ByteArrayInputStream("]}".getBytes(StandardCharsets.UTF_8)));
+    return concat(parts);
+  }
+
+  /**
+   * @return a stream over the gzip compression of {@code body}, compressed as it is read
+   */
+  static InputStream gzip(InputStream body) {
+    return new GzipStream(body);
+  }
+
+  private static InputStream concat(List<InputStream> parts) {
+    return new SequenceInputStream(Collections.enumeration(parts));
+  }
+
+  private static String text(String value) {
+    return value == null ? "null" : DBLJsonScanner.quote(value);
+  }
+
+  /**
+   * Encodes a string to UTF-8 one buffer at a time, so the encoded form of the whole string is never allocated.
+   */
+  private static final class EncodingStream extends InputStream {
+
+    private final CharBuffer chars;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    private boolean flushed;
+
+    EncodingStream(String data) {
+      this.chars = CharBuffer.wrap(data);
+      bytes.flip();
+    }
+
+    @Override
+    public int read() throws IOException {
+      return fill() ? bytes.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (!fill()) {
+        return -1;
+      }
+      int n = Math.min(len, bytes.remaining());
+      bytes.get(b, off, n);
+      return n;
+    }
+
+    @Override
+    public int available() {
+      return bytes.remaining();
+    }
+
+    private boolean fill() throws IOException {
+      while (!bytes.hasRemaining()) {
+        if (flushed) {
+          return false;
+        }
+        bytes.clear();
+        CoderResult result = encoder.encode(chars, bytes, true);
+        if (result.isUnderflow()) {
+          flushed = encoder.flush(bytes).isUnderflow();
+        } else if (result.isError()) {
+          result.throwException();
+        }
+        bytes.flip();
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Compresses a stream to the gzip format while it is read: header, deflated body, then CRC and size trailer.
+   */
+  private static final class GzipStream extends InputStream {
+
+    private final CRC32 crc = new CRC32();
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final InputStream deflated;
+    private byte[] frame = GZIP_HEADER;
+    private int position;
+    private boolean trailer;
+
+    GzipStream(InputStream body) {
+      this.deflated = new DeflaterInputStream(new CheckedInputStream(body, crc), deflater, BUFFER_SIZE);
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] one = new byte[1];
+      return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (frame == null) {
+        int n = deflated.read(b, off, len);
+        if (n >= 0) {
+          return n;
+        }
+        frame = trailer();
+        position = 0;
+        trailer = true;
+      }
+      if (position == frame.length) {
+        if (trailer) {
+          return -1;
+        }
+        frame = null;
+        return read(b, off, len);
+      }
+      int n = Math.min(len, frame.length - position);
+      System.arraycopy(frame, position, b, off, n);
+      position += n;
+      return n;
+    }
+
+    private byte[] trailer() {
+      long value = crc.getValue();
+      long size = deflater.getBytesRead();
+      byte[] bytes = new byte[8];
+      for (int i = 0; i < 4; i++) {
+        bytes[i] = (byte) (value >>> (8 * i));
+        bytes[4 + i] = (byte) (size >>> (8 * i));
+      }
+      return bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        deflated.close();
+      } finally {
+        deflater.end();
+      }
+    }
+  }
+}
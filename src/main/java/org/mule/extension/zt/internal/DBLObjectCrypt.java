@@ -0,0 +1,223 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transforms the sensitive fields of a document held as Java objects, the maps and lists DataWeave produces for
+ * {@code application/java}, without writing it out as JSON text first.
+ *
+ * <p>The object graph is walked with the {@link DBLPathTrie} of the plan, with the same path rules as the JSON
+ * operations: arrays are transparent and only string and number values are transformed. The values found are
+ * transformed with one {@link DBLFieldCipher.BlockTransform} call and set back in place.</p>
+ *
+ * <p>The input is never modified. The maps and lists on the way to a sensitive value are copied, as
+ * {@link LinkedHashMap} and {@link ArrayList}; everything else is shared with the input.</p>
+ */
+final class DBLObjectCrypt {
+
+  private DBLObjectCrypt() {
+  }
+
+  /**
+   * @return true if {@code value} is a map or a collection this class can walk
+   */
+  static boolean isStructure(Object value) {
+    return value instanceof Map || value instanceof Collection;
+  }
+
+  /**
+   * Applies {@code cipher} to the values of {@code document} on the sensitive paths of {@code plan}.
+   *
+   * @return a copy of {@code document} with the transformed values, or {@code document} itself when no value
+   *         matched
+   */
+  static Object transform(Object document, DBLFieldPlan plan, DBLFieldCipher.BlockTransform cipher)
+      throws Exception {
+    List<Slot> slots = new ArrayList<>();
+    Object copy = walk(document, plan.getTrie().root(), slots);
+    if (slots.isEmpty()) {
+      return document;
+    }
+    String[] specs = new String[slots.size()];
+    String[] rawValues = new String[slots.size()];
+    for (int i = 0; i < specs.length; i++) {
+      specs[i] = slots.get(i).cipherSpec;
+      rawValues[i] = raw(slots.get(i).value);
+    }
+    String[] results = cipher.apply(specs, rawValues);
+    for (int i = 0; i < results.length; i++) {
+      Slot slot = slots.get(i);
+      slot.set(value(results[i], slot.value));
+    }
+    return copy;
+  }
+
+  /**
+   * Writes {@code value} as JSON text. Values that are neither maps, collections, arrays, strings, numbers nor
+   * booleans are written as strings.
+   */
+  static String toJson(Object value) {
+    StringBuilder sb = new StringBuilder(256);
+    write(value, sb);
+    return sb.toString();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Object walk(Object value, DBLPathTrie.Node node, List<Slot> slots) {
+    if (node == null) {
+      return value;
+    }
+    if (value instanceof Map) {
+      Map<Object, Object> map = (Map<Object, Object>) value;
+      Map<Object, Object> copy = new LinkedHashMap<>(Math.max(16, map.size() * 4 / 3 + 1));
+      for (Map.Entry<Object, Object> entry : map.entrySet()) {
+        DBLPathTrie.Node child = node.child(String.valueOf(entry.getKey()));
+        Object member = entry.getValue();
+        if (child != null && child.field() != null && isScalar(member)) {
+          slots.add(new Slot(child.field().getCipherSpec(), member, copy, entry.getKey(), null, -1));
+        }
+        copy.put(entry.getKey(), walk(member, child, slots));
+      }
+      return copy;
+    }
+    if (value instanceof Collection) {
+      Collection<Object> collection = (Collection<Object>) value;
+      List<Object> copy = new ArrayList<>(collection.size());
+      // array elements share the node of the array
+      for (Object element : collection) {
+        if (node.field() != null && isScalar(element)) {
+          slots.add(new Slot(node.field().getCipherSpec(), element, null, null, copy, copy.size()));
+        }
+        copy.add(walk(element, node, slots));
+      }
+      return copy;
+    }
+    return value;
+  }
+
+  private static boolean isScalar(Object value) {
+    if (value instanceof CharSequence) {
+      return true;
+    }
+    if (value instanceof Double || value instanceof Float) {
+      double d = ((Number) value).doubleValue();
+      return !Double.isNaN(d) && !Double.isInfinite(d);
+    }
+    return value instanceof Number;
+  }
+
+  private static String raw(Object value) {
+    return value instanceof CharSequence ? DBLJsonScanner.quote(value.toString()) : value.toString();
+  }
+
+  /**
+   * Converts a transformed raw value back to an object, keeping integral numbers integral.
+   */
+  private static Object value(String raw, Object original) throws IOException {
+    if (raw.startsWith("\"")) {
+      byte[] bytes = raw.getBytes(StandardCharsets.UTF_8);
+      return DBLJsonScanner.decodeString(bytes, 0, bytes.length);
+    }
+    BigDecimal number;
+    try {
+      number = new BigDecimal(raw);
+    } catch (NumberFormatException e) {
+      throw new IOException("DataBlind returned a value that is neither a string nor a number: " + raw);
+    }
+    if (original instanceof BigDecimal) {
+      return number;
+    }
+    if (original instanceof Double || original instanceof Float) {
+      return number.doubleValue();
+    }
+    try {
+      BigInteger integer = number.toBigIntegerExact();
+      return integer.bitLength() < 64 ? (Object) integer.longValue() : integer;
+    } catch (ArithmeticException e) {
+      return number;
+    }
+  }
+
+  private static void write(Object value, StringBuilder sb) {
+    if (value == null) {
+      sb.append("null");
+    } else if (value instanceof Boolean) {
+      sb.append(value);
+    } else if (value instanceof Number && isScalar(value)) {
+      sb.append(value);
+    } else if (value instanceof Map) {
+      sb.append('{');
+      boolean first = true;
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        if (!first) {
+          sb.append(',');
+        }
+        first = false;
+        sb.append(DBLJsonScanner.quote(String.valueOf(entry.getKey()))).append(':');
+        write(entry.getValue(), sb);
+      }
+      sb.append('}');
+    } else if (value instanceof Collection || value instanceof Object[]) {
+      sb.append('[');
+      boolean first = true;
+      for (Object element : value instanceof Object[] ? Arrays.asList((Object[]) value)
+          : (Collection<?>) value) {
+        if (!first) {
+          sb.append(',');
+        }
+        first = false;
+        write(element, sb);
+      }
+      sb.append(']');
+    } else {
+      sb.append(DBLJsonScanner.quote(String.valueOf(value)));
+    }
+  }
+
+  /**
+   * A matched value and where it sits in the copied graph: a key of a map or an index of a list.
+   */
+  private static final class Slot {
+
+    private final String cipherSpec;
+    private final Object value;
+    private final Map<Object, Object> map;
+    private final Object key;
+    private final List<Object> list;
+    private final int index;
+
+    Slot(String cipherSpec, Object value, Map<Object, Object> map, Object key, List<Object> list, int index) {
+      this.cipherSpec = cipherSpec;
+      this.value = value;
+      this.map = map;
+      this.key = key;
+      this.list = list;
+      this.index = index;
+    }
+
+    void set(Object result) {
+      if (map != null) {
+        map.put(key, result);
+      } else {
+        list.set(index, result);
+      }
+    }
+  }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.mule.runtime.extension.api.error.ErrorTypeDefinition;
+import org.mule.runtime.extension.api.exception.ModuleException;
+
+/**
+ * Call, error, latency, size and field counters of one operation.
+ *
+ * <p>Recording only increments counters that exist from the start, indexed by error type and cipher type ordinals,
+ * so it takes no lock and allocates nothing.</p>
+ */
+final class DBLOperationMetrics implements DBLOperationMetricsMXBean {
+
+  private static final DBLErrorProvider[] ERROR_TYPES = DBLErrorProvider.values();
+  private static final DBLCipherType[] CIPHER_TYPES = DBLCipherType.values();
+  private static final String OTHER = "OTHER";
+
+  private final String operation;
+  private final LongAdder calls = new LongAdder();
+  private final LongAdder errors = new LongAdder();
+  // one more slot for the types that are not listed
+  private final LongAdder[] errorsByType = adders(ERROR_TYPES.length + 1);
+  private final LongAdder[] fieldsRequested = adders(CIPHER_TYPES.length + 1);
+  private final LongAdder bytesIn = new LongAdder();
+  private final LongAdder bytesOut = new LongAdder();
+  private final DBLLatencyHistogram latency = new DBLLatencyHistogram();
+  private volatile long resetAt = System.nanoTime();
+
+  DBLOperationMetrics(String operation) {
+    this.operation = operation;
+  }
+
+  /**
+   * Records a successful call started at {@code startNanos}, a {@link System#nanoTime()} value.
+   *
+   * @param input the document received, or {@code null}
+   * @param output the document returned, or {@code null}
+   */
+  void success(long startNanos, CharSequence input, CharSequence output) {
+    completed(System.nanoTime() - startNanos, utf8Length(input), utf8Length(output));
+  }
+
+  /**
+   * Records a successful call that took {@code nanos}, with the UTF-8 sizes of its documents already counted.
+   */
+  void completed(long nanos, long inputBytes, long outputBytes) {
+    latency.record(nanos);
+    calls.increment();
+    bytesIn.add(inputBytes);
+    bytesOut.add(outputBytes);
+  }
+
+  /**
+   * Records a failed call started at {@code startNanos}, a {@link System#nanoTime()} value.
+   */
+  void failure(long startNanos, Throwable error) {
+    latency.record(System.nanoTime() - startNanos);
+    failed(error);
+  }
+
+  /**
+   * Records a call whose output is a stream read after the operation returns. Only the call is counted: its latency
+   * and sizes would be those of opening the stream, not of transforming the document.
+   */
+  void opened() {
+    calls.increment();
+  }
+
+  /**
+   * Records a call that failed before returning its stream, without a latency, as {@link #opened()} does.
+   */
+  void failed(Throwable error) {
+    calls.increment();
+    errors.increment();
+    ErrorTypeDefinition<?> type = error instanceof ModuleException ? ((ModuleException) error).getType() : null;
+    errorsByType[type instanceof DBLErrorProvider ? ((DBLErrorProvider) type).ordinal() : ERROR_TYPES.length]
+        .increment();
+  }
+
+  /**
+   * Records the sensitive fields of a plan the operation is about to transform: one per field of the plan, however
+   * many values the document holds for it, if any.
+   */
+  void fieldsRequested(DBLFieldPlan plan) {
+    List<DBLFieldPlan.Field> fields = plan.getFields();
+    for (int i = 0; i < fields.size(); i++) {
+      DBLCipherType type = fields.get(i).getCipherType();
+      fieldsRequested[type == null ? CIPHER_TYPES.length : type.ordinal()].increment();
+    }
+  }
+
+  @Override
+  public String getOperation() {
+    return operation;
+  }
+
+  @Override
+  public long getCalls() {
+    return calls.sum();
+  }
+
+  @Override
+  public long getErrors() {
+    return errors.sum();
+  }
+
+  @Override
+  public Map<String, Long> getErrorsByType() {
+    Map<String, Long> counts = new LinkedHashMap<>();
+    for (int i = 0; i < errorsByType.length; i++) {
+      long count = errorsByType[i].sum();
+      if (count > 0) {
+        counts.put(i < ERROR_TYPES.length ? ERROR_TYPES[i].name() : OTHER, count);
+      }
+    }
+    return counts;
+  }
+
+  @Override
+  public double getThroughput() {
+    double seconds = (System.nanoTime() - resetAt) / 1e9;
+    return seconds > 0 ? calls.sum() / seconds : 0;
+  }
+
+  @Override
+  public long getLatencyMeanMicros() {
+    return micros(latency.getMean());
+  }
+
+  @Override
+  public long getLatencyP50Micros() {
+    return micros(latency.getValueAt(0.5));
+  }
+
+  @Override
+  public long getLatencyP99Micros() {
+    return micros(latency.getValueAt(0.99));
+  }
+
+  @Override
+  public long getLatencyP999Micros() {
+    return micros(latency.getValueAt(0.999));
+  }
+
+  @Override
+  public long getLatencyMaxMicros() {
+    return micros(latency.getMax());
+  }
+
+  @Override
+  public long getBytesIn() {
+    return bytesIn.sum();
+  }
+
+  @Override
+  public long getBytesOut() {
+    return bytesOut.sum();
+  }
+
+  @Override
+  public Map<String, Long> getFieldsRequested() {
+    Map<String, Long> counts = new LinkedHashMap<>();
+    for (int i = 0; i < fieldsRequested.length; i++) {
+      long count = fieldsRequested[i].sum();
+      if (count > 0) {
+        counts.put(i < CIPHER_TYPES.length ? CIPHER_TYPES[i].getSpecToken() : OTHER, count);
+      }
+    }
+    return counts;
+  }
+
+  @Override
+  public void reset() {
+    calls.reset();
+    errors.reset();
+    for (LongAdder adder : errorsByType) {
+      adder.reset();
+    }
+    for (LongAdder adder : fieldsRequested) {
+      adder.reset();
+    }
+    bytesIn.reset();
+    bytesOut.reset();
+    latency.reset();
+    resetAt = System.nanoTime();
+  }
+
+  @Override
+  public String toString() {
+    return operation + ": " + getCalls() + " calls, " + getErrors() + " errors, p50 " + getLatencyP50Micros()
+        + "us, p99 " + getLatencyP99Micros() + "us, p99.9 " + getLatencyP999Micros() + "us";
+  }
+
+  /**
+   * Counts the UTF-8 bytes of a string without encoding it.
+   */
+  static long utf8Length(CharSequence text) {
+    if (text == null) {
+      return 0;
+    }
+    int length = text.length();
+    long bytes = length;
+    for (int i = 0; i < length; i++) {
+      char c = text.charAt(i);
+      if (c >= 0x80) {
+        if (c < 0x800) {
+          bytes++;
+        } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+          // four bytes for the pair
+          bytes += 2;
+          i++;
+        } else {
+          bytes += 2;
+        }
+      }
+    }
+    return bytes;
+  }
+
+  private static long micros(long nanos) {
+    return TimeUnit.NANOSECONDS.toMicros(nanos);
+  }
+
+  private static LongAdder[] adders(int count) {
+    LongAdder[] adders = new LongAdder[count];
+    for (int i = 0; i < count; i++) {
+      adders[i] = new LongAdder();
+    }
+    return adders;
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.util.Map;
+
+/**
+ * JMX view of the metrics of one DataBlind operation of one configuration, registered as
+ * {@code org.mule.extension.zt:type=DataBlind,config=<config name>,operation=<operation>}.
+ * <p>
+ * Latencies are in microseconds. Counters accumulate from the start of the configuration or the last
+ * {@link #reset()}.
+ */
+public interface DBLOperationMetricsMXBean {
+
+  String getOperation();
+
+  long getCalls();
+
+  long getErrors();
+
+  /**
+   * @return the number of failed calls by error type, for example {@code DATACRYPT_ERROR}
+   */
+  Map<String, Long> getErrorsByType();
+
+  /**
+   * @return calls per second since the counters were last reset
+   */
+  double getThroughput();
+
+  long getLatencyMeanMicros();
+
+  long getLatencyP50Micros();
+
+  long getLatencyP99Micros();
+
+  long getLatencyP999Micros();
+
+  long getLatencyMaxMicros();
+
+  /**
+   * @return UTF-8 bytes of the documents received by the operation
+   */
+  long getBytesIn();
+
+  /**
+   * @return UTF-8 bytes of the documents returned by the operation
+   */
+  long getBytesOut();
+
+  /**
+   * @return the number of sensitive fields the operation was asked to transform, by cipher type, counted once per
+   *         field of the plan of each call and not per value transformed
+   */
+  Map<String, Long> getFieldsRequested();
+
+  void reset();
+}
@@ -1,394 +1,1683 @@
-/*
- * Copyright 2025 ZTensor, Inc. All rights reserved.
- * This software is proprietary and confidential. Unauthorized copying, 
- * distribution, or use of this software, via any medium, is strictly prohibited.
- * 
- * This software is licensed for commercial use only. For licensing information,
- * please contact ZTensor, Inc.
- */
-package org.mule.extension.zt.internal;
-
-import static org.mule.runtime.extension.api.annotation.param.MediaType.ANY;
-import static org.mule.runtime.extension.api.annotation.param.MediaType.APPLICATION_JSON;
-import org.mule.runtime.extension.api.annotation.values.OfValues;
-import org.mule.runtime.extension.api.exception.ModuleException;
-import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
-import org.mule.runtime.extension.api.annotation.param.display.Password;
-import org.mule.runtime.extension.api.annotation.param.display.Placement;
-import org.mule.runtime.extension.api.annotation.param.Parameter;
-import org.mule.runtime.extension.api.annotation.connectivity.ConnectionProviders;
-import org.mule.runtime.extension.api.annotation.execution.Execution;
-
-
-import org.mule.runtime.extension.api.annotation.Alias;
-import org.mule.runtime.extension.api.annotation.Expression;
-import org.mule.runtime.extension.api.annotation.param.MediaType;
-import org.mule.runtime.extension.api.annotation.param.Optional;
-import org.mule.runtime.extension.api.annotation.param.Config;
-import org.mule.runtime.extension.api.annotation.param.Connection;
-import org.mule.runtime.extension.api.annotation.param.Content;
-import org.mule.runtime.api.meta.ExpressionSupport;
-import com.ztensor.datacrypt.*;
-import com.ztensor.util.json.*;
-
-import org.mule.runtime.http.api.HttpService;
-import org.mule.runtime.http.api.client.HttpClient;
-import org.mule.runtime.http.api.client.HttpClientConfiguration;
-import org.mule.runtime.http.api.domain.message.request.HttpRequest;
-import org.mule.runtime.http.api.domain.message.response.HttpResponse;
-import org.mule.runtime.http.api.domain.entity.ByteArrayHttpEntity;
-import org.mule.runtime.http.api.domain.message.request.HttpRequestBuilder;
-import javax.inject.Inject;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-/**
- * Container class for DataBlind connector operations.
- * 
- * <p>This class provides operations for secure data encryption, decryption, and filtering
- * using the DataBlind encryption framework. All public methods in this class are exposed
- * as MuleSoft connector operations.</p>
- * 
- * <p>The operations support both local encryption using the DataBlind library and remote
- * processing through the DataBlind API service.</p>
- * 
- * <p>Key features include:</p>
- * <ul>
- *   <li>Field-level JSON encryption and decryption</li>
- *   <li>Natural Language Processing (NLP) based automatic field detection</li>
- *   <li>JSON data filtering and masking</li>
- *   <li>Override token generation and management</li>
- * </ul>
- * 
- * @version 3.0.0
- * @since 4.0.24
- * @see DBLConfiguration
- * @see DBLConnection
- * @see DBLErrorProvider
- */
-public class DBLOperations {
-
-  private final Logger LOGGER = LoggerFactory.getLogger(DBLOperations.class);
-
-  private static String versionTag = "v3.0.0";
-	
-  /**
-   * Encrypts specified fields within a JSON document using the configured encryption key.
-   * 
-   * <p>This operation performs field-level encryption on JSON data, allowing selective
-   * encryption of sensitive information while preserving the structure of the document.
-   * The encryption uses the DataBlind framework with AES encryption and supports
-   * additional security features like tweak values and override tokens.</p>
-   * 
-   * <p>On success, the operation returns a JSON response with the encrypted data in the response payload.</p>
-   * 
-   * <p> On failure, the operation throws ModuleException with exception DATACRYPT_ERROR</p>
-   * 
-   * @param configuration The DataBlind configuration containing the encryption key
-   * @param sensitiveFields Json containing sensitive fields along with their data types (e.g., "creditCard,ssn,email")
-   * @param sensitiveJson The JSON document containing fields to be encrypted
-   * @param tweak A unique value used in the encryption process for additional security
-   * @param overRideToken Optional override token, allows an authorized user to retrieve the clear data (default: "NOTOKEN")
-   * @param passPhrase Optional passphrase, allows an authorized user to retrieve the clear data (default: "NOPASSPHRASE")
-   * @return JSON string containing the encrypted and protected values 
-   * @throws ModuleException if encryption fails due to invalid parameters, key issues, or processing errors
-   * @see DBLConfiguration#getEncryptionKey()
-   */
-  //@Execution(ExecutionType.CPU_INTENSIVE)
-  @MediaType(value = APPLICATION_JSON, strict = false)
-  @Alias("EncryptJson")
-  public String encryptJson(@Config DBLConfiguration configuration,
-		  @DisplayName("Sensitive Fields") @Expression(ExpressionSupport.SUPPORTED) String sensitiveFields,
-		  @Content @DisplayName("Sensitive JSON") @Expression(ExpressionSupport.SUPPORTED) String sensitiveJson,
-		  @DisplayName("Tweak") @Expression(ExpressionSupport.SUPPORTED) String tweak, 
-  		  @DisplayName("OverRide Token") 
-  		  @Expression(ExpressionSupport.SUPPORTED) 
-  		  @Optional(defaultValue = "NOTOKEN")
-  		  @Placement(order = 1, tab="Advanced") String overRideToken, 
-  		  @DisplayName("Pass Phrase") 
-  	  	  @Expression(ExpressionSupport.SUPPORTED) 
-  		  @Password 
-  		  @Optional(defaultValue = "NOPASSPHRASE")
-  		  @Placement(order = 2, tab="Advanced") String passPhrase) {
-    String response = "{ 'Success' : 'false', 'error' : 'Undefined' }";
-	LOGGER.info(versionTag + " DataBlind EncryptJson" );    	
-
-    try {    
-        KeyContext kc = new KeyContext("CipherWorks", "Admin", "1.0", configuration.getEncryptionKey().getBytes());
-    	JsonDataCrypt jsonDataCrypt = new JsonDataCrypt(kc);
-    	response = jsonDataCrypt.transform( "Encrypt", tweak, sensitiveJson, sensitiveFields, overRideToken, passPhrase);
-    }
-    catch (Exception e) {
-    	LOGGER.error("Excception, encryptJson failed " + e);
-    	LOGGER.error(e.getStackTrace().toString());
-    	throw new ModuleException("Operation encryptJson failed due to " + e , DBLErrorProvider.DATACRYPT_ERROR);
-
-    }
-    return response;
-  }
-
-  /**
-   * Encrypts JSON fields automatically using Natural Language Processing (NLP) to identify sensitive data.
-   * 
-   * <p>This operation leverages the DataBlind API service to automatically detect and encrypt
-   * sensitive fields within JSON documents using NLP algorithms. The service analyzes field names
-   * and content patterns to identify potentially sensitive information without requiring explicit
-   * field specification.</p>
-   * 
-   * <p>On success, the operation returns a JSON response with the automatically encrypted data in the response payload.</p>
-   * 
-   * <p>On failure, the operation throws ModuleException with exception DATACRYPT_ERROR</p>
-   * 
-   * @param connection The DataBlind connection providing API access
-   * @param configuration The DataBlind configuration containing the encryption key
-   * @param sensitiveJson The JSON document to be processed for automatic field detection and encryption
-   * @param tweak A unique value used in the encryption process for additional security
-   * @param overRideToken Optional override token, allows an authorized user to retrieve the clear data (default: "NOTOKEN")
-   * @param passPhrase Optional passphrase, allows an authorized user to retrieve the clear data (default: "NOPASSPHRASE")
-   * @return JSON string containing the automatically encrypted and protected values
-   * @throws ModuleException if encryption fails due to API communication issues, invalid parameters, or processing errors
-   * @see DBLConnection#getApiUri()
-   * @see DBLConnection#getApiKey()
-   * @see DBLConnection#getHttpClient()
-   */
-//  @Execution(Execution.BLOCKING)
-  @MediaType(value = APPLICATION_JSON, strict = false)
-  @Alias("EncryptJsonUsingNLP")
-  public String encryptJsonUsingNLP(@Connection DBLConnection connection, @Config DBLConfiguration configuration,
-		  @Content @DisplayName("Sensitive JSON") @Expression(ExpressionSupport.SUPPORTED) String sensitiveJson,
-		  @DisplayName("Tweak") @Expression(ExpressionSupport.SUPPORTED) String tweak, 
-  		  @DisplayName("OverRide Token") 
-  		  @Expression(ExpressionSupport.SUPPORTED) 
-  		  @Optional(defaultValue = "NOTOKEN")
-  		  @Placement(order = 1, tab="Advanced") String overRideToken, 
-  		  @DisplayName("Pass Phrase") 
-  	  	  @Expression(ExpressionSupport.SUPPORTED) 
-  		  @Password 
-  		  @Optional(defaultValue = "NOPASSPHRASE")
-  		  @Placement(order = 2, tab="Advanced") String passPhrase) {
-	String response = "{ 'Success' : 'false', 'error' : 'Undefined' }";
-	LOGGER.info(versionTag + " DataBlind EncryptJsonUsingNLP" );    	
-    try {    
-       
-        String jsonPayload = String.format(
-        	    "{\n" +
-        	    "  \"key\": \"%s\",\n" +
-        	    "  \"tweak\": \"%s\",\n" +
-        	    "  \"data\": %s,\n" +
-        	    "  \"overRideToken\": \"%s\",\n" +
-        	    "  \"overRidePassPhrase\": \"%s\"\n" +
-        	    "}", configuration.getEncryptionKey(), tweak, sensitiveJson, overRideToken, passPhrase);
-    	
-        // Create Mule HTTP client
-/*          HttpClientConfiguration clientConfig = new HttpClientConfiguration.Builder()
-            .setName("datablind-http-client")
-            .build();
-        HttpClient httpClient = httpService.getClientFactory().create(clientConfig);
-		httpClient.start();
-*/        
-        // Build HTTP request using the correct Mule API
-        HttpRequest request = HttpRequest.builder()
-            .method("POST")
-            .uri(connection.getApiUri() + "/datacrypt-nlp")
-            .addHeader("Content-Type", "application/json")
-            .addHeader("x-api-key", connection.getApiKey())
-            .entity(new ByteArrayHttpEntity(jsonPayload.getBytes()))
-            .build();
-
-        // Execute request
-        HttpResponse httpResponse = connection.getHttpClient().send(request);
-        response = new String(httpResponse.getEntity().getContent().readAllBytes());
-    }
-    catch (Exception e) {
-    	LOGGER.error("Excception, encryptJsonUsingNLP failed " + e);
-    	LOGGER.error(e.getStackTrace().toString());
-    	throw new ModuleException("Operation encryptJsonUsingNLP failed due to " + e , DBLErrorProvider.DATACRYPT_ERROR);
-    }
-    return response;
-  }
-
-  /**
-   * Reduces JSON data by filtering out sensitive information.
-   * 
-   * <p>This operation provides data reduction capabilities by applying various filtering operations
-   * to sensitive fields within JSON documents. Supported operations include remove and retain. 
-   * Use remove operation to remove the sensitive fields from the JSON document. Use retain operation to 
-   * retain the nonsensitive fields in the JSON document. </p>
-   * 
-   * <p>On success, the operation returns a JSON response with the filtered data in the response payload.</p>
-   * 
-   * <p>On failure, the operation throws ModuleException with exception DATACRYPT_ERROR</p>
-   * 
-   * @param configuration The DataBlind configuration containing the encryption key
-   * @param sensitiveFields String containing comma separated sensitive fields (e.g., "accounnt.creditCard,ssn,email")
-   * @param sensitiveJson The JSON document containing fields to be filtered
-   * @param operation The filtering operation to perform ("remove" or "retain")
-   * @param overRideToken Optional override token, allows an authorized user to retrieve all data (default: "NOTOKEN")
-   * @param passPhrase Optional passphrase, allows an authorized user to retrieve all data (default: "NOPASSPHRASE")
-   * @return JSON string after filtering the requested fields
-   * @throws ModuleException if filtering fails due to invalid parameters, operation issues, or processing errors
-   * @see DBLConfiguration#getEncryptionKey()
-   */
-  @MediaType(value = APPLICATION_JSON, strict = false)
-  @Alias("reduceJson")
-  public String filterJson(@Config DBLConfiguration configuration,
-		  @DisplayName("Sensitive Fields") @Expression(ExpressionSupport.SUPPORTED) String sensitiveFields,
-		  @Content @DisplayName("Sensitive JSON") @Expression(ExpressionSupport.SUPPORTED) String sensitiveJson,
-		  @DisplayName("Operation") @Expression(ExpressionSupport.SUPPORTED) String operation,
-  		  @DisplayName("OverRide Token") 
-  		  @Expression(ExpressionSupport.SUPPORTED) 
-  		  @Optional(defaultValue = "NOTOKEN")
-  		  @Placement(order = 1, tab="Advanced") String overRideToken, 
-  		  @DisplayName("Pass Phrase") 
-  	  	  @Expression(ExpressionSupport.SUPPORTED) 
-  		  @Password 
-  		  @Optional(defaultValue = "NOPASSPHRASE")
-  		  @Placement(order = 2, tab="Advanced") String passPhrase) {
-	String response = "{ 'Success' : 'false', 'error' : 'Undefined' }";
-	LOGGER.info(versionTag + " DataBlind ReduceJson" );    	
-    try {    
-        KeyContext kc = new KeyContext("CipherWorks", "Admin", "1.0", configuration.getEncryptionKey().getBytes());
-        JsonDataCrypt jsonDataCrypt = new JsonDataCrypt(kc);
-    	response = jsonDataCrypt.reduceJson( operation, sensitiveJson, sensitiveFields, overRideToken, passPhrase);
-    }
-    catch (Exception e) {
-    	LOGGER.error("Excception, filterJson failed " + e);
-    	LOGGER.error(e.getStackTrace().toString());
-    	throw new ModuleException("Operation filterJson failed due to " + e , DBLErrorProvider.DATACRYPT_ERROR);
-    }
-    return response;
-  }
-
-  /**
-   * Decrypts previously encrypted fields within a JSON document.
-   * 
-   * <p>This operation reverses the encryption process performed by the encryptJson operation,
-   * restoring the original plaintext values of encrypted fields. The operation requires
-   * the same encryption key, tweak value, and optional parameters that were used during
-   * the original encryption process.</p>
-   * 
-   * <p>On success, the operation returns a JSON response with the decrypted data in the response payload.</p>
-   * 
-   * <p>On failure, the operation throws ModuleException with exception DATACRYPT_ERROR</p>
-   * 
-   * @param configuration The DataBlind configuration containing the encryption key (must match the key used for encryption)
-   * @param sensitiveFields Json containing sensitive fields along with their data types (must match fields used during encryption)
-   * @param encryptedJson The JSON document containing encrypted fields to be decrypted
-   * @param tweak The tweak value used during encryption (must match exactly)
-   * @param overRideToken Optional override token, allows an authorized user to retrieve the clear data (default: "NOTOKEN")
-   * @param passPhrase Optional passphrase, allows an authorized user to retrieve the clear data (default: "NOPASSPHRASE")
-   * @return JSON string containing the decrypted and clear values
-   * @throws ModuleException if decryption fails due to key mismatch, invalid parameters, or processing errors
-   * @see DBLConfiguration#getEncryptionKey()
-   * @see #encryptJson(DBLConfiguration, String, String, String, String, String)
-   */
- @MediaType(value = APPLICATION_JSON, strict = false)
-  @Alias("DecryptJson")
-  public String decryptJson(@Config DBLConfiguration configuration,
-		  @DisplayName("Sensitive Fields") @Expression(ExpressionSupport.SUPPORTED) String sensitiveFields,
-		  @Content @DisplayName("Encrypted JSON") @Expression(ExpressionSupport.SUPPORTED) String encryptedJson,
-		  @DisplayName("Tweak") @Expression(ExpressionSupport.SUPPORTED) String tweak, 
-		  @DisplayName("OverRide Token") 
-		  @Expression(ExpressionSupport.SUPPORTED) 
-		  @Optional(defaultValue = "NOTOKEN")
-		  @Placement(order = 1, tab="Advanced") String overRideToken, 
-		  @DisplayName("Pass Phrase") 
-	  	  @Expression(ExpressionSupport.SUPPORTED) 
-		  @Password 
-		  @Optional(defaultValue = "NOPASSPHRASE")
-		  @Placement(order = 2, tab="Advanced") String passPhrase) {
-	String response = "{ 'Success' : 'false', 'error' : 'Undefined' }";
-	LOGGER.info(versionTag + " DataBlind DecryptJson" );    	
-    try {  
-        KeyContext kc = new KeyContext("CipherWorks", "Admin", "1.0", configuration.getEncryptionKey().getBytes());
-    	JsonDataCrypt jsonDataCrypt = new JsonDataCrypt(kc);
-    	response = jsonDataCrypt.transform( "Decrypt", tweak, encryptedJson, sensitiveFields, overRideToken, passPhrase);
-    }
-    catch (Exception e) {
-    	LOGGER.error("Excception, decryptJson failed " + e);
-    	LOGGER.error(e.getStackTrace().toString());
-    	throw new ModuleException("Operation decryptJson failed due to " + e , DBLErrorProvider.DATACRYPT_ERROR);
-    }
-    return response;
-  }
-
-  /**
-   * Generates an override token for users requiring authorization to access to all oroginal data.
-   * 
-   * <p>This operation creates a time-limited HMAC token that can be used to override
-   * certain security restrictions or provide additional authorization for sensitive
-   * operations. The token is generated using the configured encryption key and includes
-   * an expiration time to ensure security.</p>
-   * 
-   * <p>On success, the operation returns a JSON response with the generated token in the response payload.</p>
-   * 
-   * <p>On failure, the operation throws ModuleException with exception DATACRYPT_ERROR</p>
-   * 
-   * @param configuration The DataBlind configuration containing the encryption key used for token generation
-   * @param passPhrase The passphrase used to generate the token
-   * @param expirationSecs The number of seconds until the token expires 
-   * @return JSON string containing the generated token
-   * @throws ModuleException if token generation fails due to invalid parameters, key issues, or processing errors
-   * @see DBLConfiguration#getEncryptionKey()
-   * @see #encryptJson(DBLConfiguration, String, String, String, String, String)
-   * @see #decryptJson(DBLConfiguration, String, String, String, String, String)
-   */
- @MediaType(value = ANY, strict = false)
- @Alias("OverrideToken")
- public String overrideToken(@Config DBLConfiguration configuration,
-		  @DisplayName("Passphrase") @Expression(ExpressionSupport.SUPPORTED) String passPhrase,
-		  @DisplayName("Expiration Seconds") @Expression(ExpressionSupport.SUPPORTED) Integer expirationSecs) {
-   String response = "{ 'Success' : 'false', 'error' : 'Undefined' }";
-   LOGGER.info(versionTag + " DataBlind OverrideToken" );    	
-   try {    
-       KeyContext kc = new KeyContext("CipherWorks", "Admin", "1.0", configuration.getEncryptionKey().getBytes());
-       HmacToken HmacToken = new HmacToken();
-   	   response = HmacToken.generateToken( kc, passPhrase, expirationSecs.intValue());
-   }
-   catch (Exception e) {
-	LOGGER.error("Excception, overrideToken failed " + e);
-   	LOGGER.error(e.getStackTrace().toString());
-	throw new ModuleException("Operation overrideToken failed due to " + e , DBLErrorProvider.DATACRYPT_ERROR);
-   }
-   return response;
- }
-
-  /**
-   * Generates an override token using a new encryption key.
-   * 
-   * <p>This operation creates a time-limited HMAC token using a specified encryption key
-   * rather than the configuration's default key. This allows for dynamic key management
-   * and the creation of tokens with different security contexts.</p>
-   * 
-   * <p>On success, the operation returns a JSON response with the generated token in the response payload.</p>
-   * 
-   * <p>On failure, the operation throws ModuleException with exception DATACRYPT_ERROR</p>
-   * 
-   * @param key The encryption key to use for token generation (must be valid and accessible)
-   * @param passPhrase The passphrase used to generate the token
-   * @param expirationSecs The number of seconds until the token expires (must be positive)
-   * @return JSON string containing the generated token
-   * @throws ModuleException if token generation fails due to invalid key, parameters, or processing errors
-   * @see #overrideToken(DBLConfiguration, String, Integer)
-   */
- @MediaType(value = ANY, strict = false)
- @Alias("OverrideTokenWithNewKey")
- public String overrideTokenWithNewKey(
-		  @DisplayName("Key") @Expression(ExpressionSupport.SUPPORTED) String key,
-		  @DisplayName("Passphrase") @Expression(ExpressionSupport.SUPPORTED) String passPhrase,
-		  @DisplayName("Expiration Seconds") @Expression(ExpressionSupport.SUPPORTED) Integer expirationSecs) {
-   String response = "{ 'Success' : 'false', 'error' : 'Undefined' }";
-   LOGGER.info(versionTag + " DataBlind OverrideTokenWithNewKey" );    	
-   try {    
-       KeyContext kc = new KeyContext("CipherWorks", "Admin", "1.0", key.getBytes());
-       HmacToken HmacToken = new HmacToken();
-   	   response = HmacToken.generateToken( kc, passPhrase, expirationSecs.intValue());
-   }
-   catch (Exception e) {
-	LOGGER.error("Excception, overrideTokenWithNewKey failed " + e);
-   	LOGGER.error(e.getStackTrace().toString());
-	throw new ModuleException("Operation overrideTokenWithNewKey failed due to " + e , DBLErrorProvider.DATACRYPT_ERROR);
-   }
-   return response;
- }
-
-}
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.mule.runtime.extension.api.annotation.param.MediaType.ANY;
+import static org.mule.runtime.extension.api.annotation.param.MediaType.APPLICATION_JSON;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.mule.runtime.extension.api.annotation.values.OfValues;
+import org.mule.runtime.extension.api.exception.ModuleException;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Password;
+import org.mule.runtime.extension.api.annotation.param.display.Placement;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.connectivity.ConnectionProviders;
+import org.mule.runtime.extension.api.annotation.execution.Execution;
+
+
+import org.mule.runtime.extension.api.annotation.Alias;
+import org.mule.runtime.extension.api.annotation.Expression;
+import org.mule.runtime.extension.api.annotation.param.MediaType;
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Config;
+import org.mule.runtime.extension.api.annotation.param.Connection;
+import org.mule.runtime.extension.api.annotation.param.Content;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+import org.mule.runtime.extension.api.runtime.process.CompletionCallback;
+import org.mule.runtime.api.meta.ExpressionSupport;
+import org.mule.runtime.api.meta.model.operation.ExecutionType;
+import org.mule.runtime.api.metadata.TypedValue;
+import org.mule.runtime.api.streaming.bytes.CursorStreamProvider;
+import com.ztensor.datacrypt.*;
+import com.ztensor.util.json.*;
+
+import org.mule.runtime.http.api.HttpService;
+import org.mule.runtime.http.api.client.HttpClient;
+import org.mule.runtime.http.api.client.HttpClientConfiguration;
+import org.mule.runtime.http.api.domain.message.request.HttpRequest;
+import org.mule.runtime.http.api.domain.message.response.HttpResponse;
+import org.mule.runtime.http.api.domain.entity.ByteArrayHttpEntity;
+import org.mule.runtime.http.api.domain.message.request.HttpRequestBuilder;
+import javax.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+  /**
+ * Container class for DataBlind connector operations.
+ * 
+ * <p>This class provides operations for secure data encryption, decryption, and filtering
+ * using the DataBlind encryption framework. All public methods in this class are exposed
+ * as MuleSoft connector operations.</p>
+ * 
+ * <p>The operations support both local encryption using the DataBlind library and remote
+ * processing through the DataBlind API service.</p>
+ * 
+ * <p>Key features include:</p>
+ * <ul>
+ *   <li>Field-level JSON encryption and decryption</li>
+ *   <li>Natural Language Processing (NLP) based automatic field detection</li>
+ *   <li>JSON data filtering and masking</li>
+ *   <li>Override token generation and management</li>
+ * </ul>
+ * 
+ * @version 3.0.0
+ * @since 4.0.24
+ * @see DBLConfiguration
+ * @see DBLConnection
+ * @see DBLErrorProvider
+ */
+public class DBLOperations {
+
+  private final Logger LOGGER = LoggerFactory.getLogger(DBLOperations.class);
+
+  private static String versionTag = "v3.0.0";
+	
+  /**
+   * Encrypts specified fields within a JSON document using the configured encryption key.
+   * 
+   * <p>This operation performs field-level encryption on JSON data, allowing selective
+   * encryption of sensitive information while preserving the structure of the document.
+   * The encryption uses the DataBlind framework with AES encryption and supports
+   * additional security features like tweak values and override tokens.</p>
+   * 
+   * <p>Cipher types marked {@code :MEMO} in the sensitive fields, such as {@code 'state':'FE:STATE:MEMO'}, are
+   * looked up in the memo cache of the configuration when it is enabled, so that a value seen before is not
+   * encrypted again.</p>
+   * 
+   * <p>On success, the operation returns a JSON response with the encrypted data in the response payload.</p>
+   * 
+   * <p> On failure, the operation throws ModuleException with exception DATACRYPT_ERROR</p>
+   * 
+   * @param configuration The DataBlind configuration containing the encryption key
+   * @param sensitiveFields Json containing sensitive fields along with their data types (e.g., "creditCard,ssn,email")
+   * @param sensitiveJson The JSON document containing fields to be encrypted
+   * @param tweak A unique value used in the encryption process for additional security
+   * @param overRideToken Optional override token, allows an authorized user to retrieve the clear data (default: "NOTOKEN")
+   * @param passPhrase Optional passphrase, allows an authorized user to retrieve the clear data (default: "NOPASSPHRASE")
+   * @param parallelFields Optional, splits documents with many sensitive values across the worker threads of the configuration (default: false)
+   * @return JSON string containing the encrypted and protected values, with the phase timings of the call as
+   *         {@link DBLAttributes}
+   * @throws ModuleException if encryption fails due to invalid parameters, key issues, or processing errors
+   * @see DBLConfiguration#getEncryptionKey()
+   */
+  @Execution(ExecutionType.CPU_INTENSIVE)
+  @MediaType(value = APPLICATION_JSON, strict = false)
+  @Alias("EncryptJson")
+  public Result<String, DBLAttributes> encryptJson(@Config DBLConfiguration configuration,
+		  @DisplayName("Sensitive Fields") @Expression(ExpressionSupport.SUPPORTED) String sensitiveFields,
+		  @Content @DisplayName("Sensitive JSON") @Expression(ExpressionSupport.SUPPORTED) String sensitiveJson,
+		  @DisplayName("Tweak") @Expression(ExpressionSupport.SUPPORTED) String tweak, 
+  		  @DisplayName("OverRide Token") 
+  		  @Expression(ExpressionSupport.SUPPORTED) 
+  		  @Optional(defaultValue = "NOTOKEN")
+  		  @Placement(order = 1, tab="Advanced") String overRideToken, 
+  		  @DisplayName("Pass Phrase") 
+  	  	  @Expression(ExpressionSupport.SUPPORTED) 
+  		  @Password 
+  		  @Optional(defaultValue = "NOPASSPHRASE")
+  		  @Placement(order = 2, tab="Advanced") String passPhrase,
+  		  @DisplayName("Parallel Fields") 
+  		  @Optional(defaultValue = "false")
+  		  @Placement(order = 3, tab="Advanced") boolean parallelFields) {
+	LOGGER.info(versionTag + " DataBlind EncryptJson" );    	
+    return timed(configuration, DBLMetrics.ENCRYPT_JSON, sensitiveJson, (metrics, timer) -> {
+      String response = "{ 'Success' : 'false', 'error' : 'Undefined' }";
+      long resolving = timer.start();
+      DBLFieldPlan plan = cipherPlan(configuration, sensitiveFields, "encryptJson");
+      timer.stop(DBLPhaseTimer.Phase.PLAN, resolving);
+      metrics.fieldsRequested(plan);
+      timer.fieldsRequested(plan);
+      try {    
+      	if (parallelFields) {
+      		response = configuration.getParallelCrypt().transform("Encrypt", tweak, sensitiveJson, plan, overRideToken, passPhrase, timer);
+      	} else if (configuration.getMemoCache().applies(plan, overRideToken)) {
+      		response = configuration.getParallelCrypt().transformSequentially("Encrypt", tweak, sensitiveJson, plan, overRideToken, passPhrase, timer);
+      	} else {
+      		long crypto = timer.start();
+      		response = configuration.getEngineCache().execute(jsonDataCrypt ->
+      				jsonDataCrypt.transform( "Encrypt", tweak, sensitiveJson, plan.getSpec(), overRideToken, passPhrase));
+      		timer.stop(DBLPhaseTimer.Phase.CRYPTO, crypto);
+      	}
+      }
+      catch (Exception e) {
+      	LOGGER.error("Excception, encryptJson failed " + e);
+      	LOGGER.error(e.getStackTrace().toString());
+      	throw new ModuleException("Operation encryptJson failed due to " + e , DBLErrorProvider.DATACRYPT_ERROR);
+
+      }
+      return response;
+    });
+  }
+
+  /**
+   * Encrypts JSON fields automatically using Natural Language Processing (NLP) to identify sensitive data.
+   * 
+   * <p>This operation leverages the DataBlind API service to automatically detect and encrypt
+   * sensitive fields within JSON documents using NLP algorithms. The service analyzes field names
+   * and content patterns to identify potentially sensitive information without requiring explicit
+   * field specification.</p>
+   * 
+   * <p>The operation is non-blocking: the request is sent with the asynchronous HTTP client and no
+   * thread waits for the remote round trip. The response timeout and the maximum number of requests
+   * in flight are set on the connection.</p>
+   * 
+   * <p>The request body is streamed to the API as UTF-8, optionally gzip compressed, and the response is
+   * returned as a stream without being read into memory by the connector.</p>
+   * 
+   * <p>With an NLP chunk size, a document whose array (the top level array, or the array at the NLP chunk path)
+   * has more elements than the chunk size is sent as several requests, each with a slice of the array, at most
+   * NLP chunk concurrency at a time. The protected chunks are joined in their original order, and a chunk that
+   * fails is sent again on its own before the operation fails.</p>
+   * 
+   * <p>The field detection of the configuration selects where the sensitive fields are found. With LOCAL, the
+   * document is not sent: the fields are found by the local field detector, from their values and names, and
+   * encrypted with FE ciphers by the local engines. With REMOTE_THEN_LOCAL, the local detector is used when the
+   * NLP service fails, times out or rejects the request.</p>
+   * 
+   * <p>On success, the operation returns a JSON response with the automatically encrypted data in the response payload.</p>
+   * 
+   * <p>On failure, the operation throws ModuleException with exception INVALID_PARAMETER for an invalid NLP chunk path, DATACRYPT_ERROR, TIME_OUT when no
+   * response arrives within the response timeout, TOO_MANY_REQUESTS when the connection already has
+   * its maximum number of requests in flight or the concurrency limit of the connection provider is reached,
+   * or SERVICE_UNAVAILABLE while the circuit breaker of the connection provider is open. With the LOCAL overload
+   * action of the connection provider, refused requests are protected by the local field detector instead.</p>
+   * 
+   * @param connection The DataBlind connection providing API access
+   * @param configuration The DataBlind configuration containing the encryption key
+   * @param sensitiveJson The JSON document to be processed for automatic field detection and encryption
+   * @param tweak A unique value used in the encryption process for additional security
+   * @param overRideToken Optional override token, allows an authorized user to retrieve the clear data (default: "NOTOKEN")
+   * @param passPhrase Optional passphrase, allows an authorized user to retrieve the clear data (default: "NOPASSPHRASE")
+   * @param nlpChunkSize Optional, number of array elements sent per NLP request, 0 to send the document whole (default: 0)
+   * @param nlpChunkPath Optional, dotted path of the array to split, the top level array when not set
+   * @param nlpChunkConcurrency Optional, maximum number of chunks in flight at once (default: 4)
+   * @param nlpChunkRetries Optional, number of times a failed chunk is sent again (default: 2)
+   * @param callback Completed with the JSON stream containing the automatically encrypted and protected values, and
+   *                 the phase timings of the call as {@link DBLAttributes}
+   * @see DBLConnection#getApiUri()
+   * @see DBLConnection#getApiKey()
+   * @see DBLConnection#sendNlp(DBLNlpRequest)
+   * @see DBLConfiguration#getFieldDetection()
+   */
+  @MediaType(value = APPLICATION_JSON, strict = false)
+  @Alias("EncryptJsonUsingNLP")
+  public void encryptJsonUsingNLP(@Connection DBLConnection connection, @Config DBLConfiguration configuration,
+		  @Content @DisplayName("Sensitive JSON") @Expression(ExpressionSupport.SUPPORTED) String sensitiveJson,
+		  @DisplayName("Tweak") @Expression(ExpressionSupport.SUPPORTED) String tweak, 
+  		  @DisplayName("OverRide Token") 
+  		  @Expression(ExpressionSupport.SUPPORTED) 
+  		  @Optional(defaultValue = "NOTOKEN")
+  		  @Placement(order = 1, tab="Advanced") String overRideToken, 
+  		  @DisplayName("Pass Phrase") 
+  	  	  @Expression(ExpressionSupport.SUPPORTED) 
+  		  @Password 
+  		  @Optional(defaultValue = "NOPASSPHRASE")
+  		  @Placement(order = 2, tab="Advanced") String passPhrase,
+  		  @DisplayName("NLP Chunk Size") 
+  		  @Optional(defaultValue = "0")
+  		  @Placement(order = 3, tab="Advanced") int nlpChunkSize,
+  		  @DisplayName("NLP Chunk Path") 
+  		  @Expression(ExpressionSupport.SUPPORTED) 
+  		  @Optional
+  		  @Placement(order = 4, tab="Advanced") String nlpChunkPath,
+  		  @DisplayName("NLP Chunk Concurrency") 
+  		  @Optional(defaultValue = "4")
+  		  @Placement(order = 5, tab="Advanced") int nlpChunkConcurrency,
+  		  @DisplayName("NLP Chunk Retries") 
+  		  @Optional(defaultValue = "2")
+  		  @Placement(order = 6, tab="Advanced") int nlpChunkRetries,
+  		  CompletionCallback<InputStream, DBLAttributes> callback) {
+	LOGGER.info(versionTag + " DataBlind EncryptJsonUsingNLP" );    	
+    DBLPhaseTimer timer = DBLPhaseTimer.of(configuration.isPhaseTimings());
+    CompletionCallback<InputStream, Void> completion = measured(configuration, DBLMetrics.ENCRYPT_JSON_USING_NLP,
+    		sensitiveJson, timer, callback);
+    DBLFieldDetection detection = configuration.getFieldDetection();
+    try {
+    }
+    catch (ModuleException e) {
+    	completion.error(e);
+    	return;
+    }
+    try {    
+        if (detection == DBLFieldDetection.LOCAL) {
+        	completion.success(detectLocally(configuration, timer, sensitiveJson, tweak, overRideToken, passPhrase));
+        	return;
+        }
+
+        // documents of a shape already learned from the NLP service are encrypted locally
+        DBLShapeCache shapes = configuration.getShapeCache();
+        String shape = shapes.isEnabled() ? fingerprint(sensitiveJson) : null;
+        if (shape != null) {
+        	DBLShapeCache.Entry known = shapes.get(shape);
+        	if (known != null && known.getPlan() != null) {
+        		DBLFieldPlan plan = known.getPlan();
+        		timer.fieldsRequested(plan);
+        		long crypto = timer.start();
+        		String response = configuration.getEngineCache().execute(jsonDataCrypt ->
+        				jsonDataCrypt.transform( "Encrypt", tweak, sensitiveJson, plan.getSpec(), overRideToken, passPhrase));
+        		timer.stop(DBLPhaseTimer.Phase.CRYPTO, crypto);
+        		completion.success(Result.<InputStream, Void>builder()
+        				.output(new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8))).build());
+        		return;
+        	}
+        	if (known != null) {
+        		// tried before without success, do not learn again until it expires
+        		shape = null;
+        	}
+        }
+        String learnShape = shape;
+
+        // large documents go out as several requests, each with a slice of their array
+        if (nlpChunkSize > 0) {
+        	DBLNlpChunker chunker;
+        	try {
+        		chunker = new DBLNlpChunker(nlpChunkPath, nlpChunkSize,
+        				Math.min(nlpChunkConcurrency, connection.getMaxInFlightRequests()), nlpChunkRetries);
+        	}
+        	catch (IllegalArgumentException e) {
+        		completion.error(new ModuleException("Invalid NLP chunk path: " + e.getMessage(), DBLErrorProvider.INVALID_PARAMETER, e));
+        		return;
+        	}
+        	List<String> chunks = chunker.split(sensitiveJson);
+        	if (chunks != null) {
+        		String key = configuration.getEncryptionKey();
+        		long remote = timer.start();
+        		chunker.send(chunks, chunk -> connection.sendNlp(new DBLNlpRequest(key, tweak, chunk, overRideToken, passPhrase)),
+        				configuration.getWorkerPool()).whenComplete((body, failure) -> {
+        			timer.stop(DBLPhaseTimer.Phase.REMOTE, remote);
+        			if (failure != null) {
+        				remoteFailed(connection, configuration, timer, detection, failure, sensitiveJson, tweak, overRideToken, passPhrase, completion);
+        			} else if (learnShape == null || !learnShape(configuration, learnShape, sensitiveJson,
+        					new ByteArrayInputStream(body), completion, tweak, overRideToken, passPhrase)) {
+        				completion.success(Result.<InputStream, Void>builder().output(new ByteArrayInputStream(body)).build());
+        			}
+        		});
+        		return;
+        	}
+        }
+
+        // the body is encoded while it is sent, the document is never copied into a payload string
+        DBLNlpRequest request = new DBLNlpRequest(configuration.getEncryptionKey(), tweak, sensitiveJson,
+        		overRideToken, passPhrase);
+    	
+        // Send without blocking; the callback completes the operation once the response arrives
+        long remote = timer.start();
+        connection.sendNlp(request).whenComplete((response, failure) -> {
+        	timer.stop(DBLPhaseTimer.Phase.REMOTE, remote);
+        	if (failure != null) {
+        		remoteFailed(connection, configuration, timer, detection, failure, sensitiveJson, tweak, overRideToken, passPhrase, completion);
+        	} else if (learnShape == null
+        			|| !learnShape(configuration, learnShape, sensitiveJson, response, completion, tweak, overRideToken, passPhrase)) {
+        		completion.success(Result.<InputStream, Void>builder().output(response).build());
+        	}
+        });
+    }
+    catch (Exception e) {
+    	remoteFailed(connection, configuration, timer, detection, e, sensitiveJson, tweak, overRideToken, passPhrase, completion);
+    }
+  }
+
+  /**
+   * Reduces JSON data by filtering out sensitive information.
+   * 
+   * <p>This operation provides data reduction capabilities by applying various filtering operations
+   * to sensitive fields within JSON documents. Supported operations include remove and retain. 
+   * Use remove operation to remove the sensitive fields from the JSON document. Use retain operation to 
+   * retain the nonsensitive fields in the JSON document. </p>
+   * 
+   * <p>Without an override token the document is filtered by the connector in a single pass: the paths
+   * are matched with a trie, where {@code *} matches any field name and {@code [*]} marks an array, and
+   * dropped subtrees are skipped without being parsed. With an override token, or an operation other
+   * than remove and retain, the DataBlind library filters the document.</p>
+   * 
+   * <p>On success, the operation returns a JSON response with the filtered data in the response payload.</p>
+   * 
+   * <p>On failure, the operation throws ModuleException with exception DATACRYPT_ERROR</p>
+   * 
+   * @param configuration The DataBlind configuration containing the encryption key
+   * @param sensitiveFields String containing comma separated sensitive fields (e.g., "accounnt.creditCard,ssn,email")
+   * @param sensitiveJson The JSON document containing fields to be filtered
+   * @param operation The filtering operation to perform ("remove" or "retain")
+   * @param overRideToken Optional override token, allows an authorized user to retrieve all data (default: "NOTOKEN")
+   * @param passPhrase Optional passphrase, allows an authorized user to retrieve all data (default: "NOPASSPHRASE")
+   * @return JSON string after filtering the requested fields, with the phase timings of the call as
+   *         {@link DBLAttributes}
+   * @throws ModuleException if filtering fails due to invalid parameters, operation issues, or processing errors
+   * @see DBLConfiguration#getEncryptionKey()
+   */
+  @MediaType(value = APPLICATION_JSON, strict = false)
+  @Alias("reduceJson")
+  public Result<String, DBLAttributes> filterJson(@Config DBLConfiguration configuration,
+		  @DisplayName("Sensitive Fields") @Expression(ExpressionSupport.SUPPORTED) String sensitiveFields,
+		  @Content @DisplayName("Sensitive JSON") @Expression(ExpressionSupport.SUPPORTED) String sensitiveJson,
+		  @DisplayName("Operation") @Expression(ExpressionSupport.SUPPORTED) String operation,
+  		  @DisplayName("OverRide Token") 
+  		  @Expression(ExpressionSupport.SUPPORTED) 
+  		  @Optional(defaultValue = "NOTOKEN")
+  		  @Placement(order = 1, tab="Advanced") String overRideToken, 
+  		  @DisplayName("Pass Phrase") 
+  	  	  @Expression(ExpressionSupport.SUPPORTED) 
+  		  @Password 
+  		  @Optional(defaultValue = "NOPASSPHRASE")
+  		  @Placement(order = 2, tab="Advanced") String passPhrase) {
+	LOGGER.info(versionTag + " DataBlind ReduceJson" );    	
+    return timed(configuration, DBLMetrics.REDUCE_JSON, sensitiveJson, (metrics, timer) -> {
+      String response = "{ 'Success' : 'false', 'error' : 'Undefined' }";
+      long resolving = timer.start();
+      DBLFieldPlan plan = pathPlan(configuration, sensitiveFields, "filterJson");
+      timer.stop(DBLPhaseTimer.Phase.PLAN, resolving);
+      metrics.fieldsRequested(plan);
+      timer.fieldsRequested(plan);
+      try {    
+      	if (filtersLocally(operation, overRideToken)) {
+      		// one pass that reads and writes the document
+      		long parse = timer.start();
+      		response = DBLJsonFilter.filter(sensitiveJson, plan, DBLJsonFilter.retain(operation));
+      		timer.stop(DBLPhaseTimer.Phase.PARSE, parse);
+      	} else {
+      		long crypto = timer.start();
+      		response = configuration.getEngineCache().execute(jsonDataCrypt ->
+      				jsonDataCrypt.reduceJson( operation, sensitiveJson, plan.getSpec(), overRideToken, passPhrase));
+      		timer.stop(DBLPhaseTimer.Phase.CRYPTO, crypto);
+      	}
+      }
+      catch (Exception e) {
+      	LOGGER.error("Excception, filterJson failed " + e);
+      	LOGGER.error(e.getStackTrace().toString());
+      	throw new ModuleException("Operation filterJson failed due to " + e , DBLErrorProvider.DATACRYPT_ERROR);
+      }
+      return response;
+    });
+  }
+
+  /**
+   * Decrypts previously encrypted fields within a JSON document.
+   * 
+   * <p>This operation reverses the encryption process performed by the encryptJson operation,
+   * restoring the original plaintext values of encrypted fields. The operation requires
+   * the same encryption key, tweak value, and optional parameters that were used during
+   * the original encryption process.</p>
+   * 
+   * <p>Cipher types marked {@code :MEMO} in the sensitive fields are looked up in the memo cache of the
+   * configuration when it is enabled, as for EncryptJson.</p>
+   * 
+   * <p>With a projection, only the listed paths are decrypted; the other sensitive fields keep their encrypted
+   * values, or are removed from the document when unprojected fields are dropped. The projected plan is computed
+   * once per sensitive fields and projection and kept in the field plan cache.</p>
+   * 
+   * <p>On success, the operation returns a JSON response with the decrypted data in the response payload.</p>
+   * 
+   * <p>On failure, the operation throws ModuleException with exception DATACRYPT_ERROR, or INVALID_PARAMETER when the
+   * projection lists a path that is not a sensitive field</p>
+   * 
+   * @param configuration The DataBlind configuration containing the encryption key (must match the key used for encryption)
+   * @param sensitiveFields Json containing sensitive fields along with their data types (must match fields used during encryption)
+   * @param encryptedJson The JSON document containing encrypted fields to be decrypted
+   * @param tweak The tweak value used during encryption (must match exactly)
+   * @param overRideToken Optional override token, allows an authorized user to retrieve the clear data (default: "NOTOKEN")
+   * @param passPhrase Optional passphrase, allows an authorized user to retrieve the clear data (default: "NOPASSPHRASE")
+   * @param parallelFields Optional, splits documents with many sensitive values across the worker threads of the configuration (default: false)
+   * @param projection Optional, comma separated paths of the sensitive fields to decrypt, all of them when not set
+   * @param dropUnprojected Optional, removes the sensitive fields left out of the projection instead of passing them through encrypted (default: false)
+   * @return JSON string containing the decrypted and clear values, with the phase timings of the call as
+   *         {@link DBLAttributes}
+   * @throws ModuleException if decryption fails due to key mismatch, invalid parameters, or processing errors
+   * @see DBLConfiguration#getEncryptionKey()
+   * @see #encryptJson(DBLConfiguration, String, String, String, String, String, boolean)
+   */
+  @Execution(ExecutionType.CPU_INTENSIVE)
+  @MediaType(value = APPLICATION_JSON, strict = false)
+  @Alias("DecryptJson")
+  public Result<String, DBLAttributes> decryptJson(@Config DBLConfiguration configuration,
+		  @DisplayName("Sensitive Fields") @Expression(ExpressionSupport.SUPPORTED) String sensitiveFields,
+		  @Content @DisplayName("Encrypted JSON") @Expression(ExpressionSupport.SUPPORTED) String encryptedJson,
+		  @DisplayName("Tweak") @Expression(ExpressionSupport.SUPPORTED) String tweak, 
+		  @DisplayName("OverRide Token") 
+		  @Expression(ExpressionSupport.SUPPORTED) 
+		  @Optional(defaultValue = "NOTOKEN")
+		  @Placement(order = 1, tab="Advanced") String overRideToken, 
+		  @DisplayName("Pass Phrase") 
+	  	  @Expression(ExpressionSupport.SUPPORTED) 
+		  @Password 
+		  @Optional(defaultValue = "NOPASSPHRASE")
+		  @Placement(order = 2, tab="Advanced") String passPhrase,
+		  @DisplayName("Parallel Fields") 
+		  @Optional(defaultValue = "false")
+		  @Placement(order = 3, tab="Advanced") boolean parallelFields,
+		  @DisplayName("Projection") 
+		  @Expression(ExpressionSupport.SUPPORTED) 
+		  @Optional
+		  @Placement(order = 4, tab="Advanced") String projection,
+		  @DisplayName("Drop Unprojected") 
+		  @Optional(defaultValue = "false")
+		  @Placement(order = 5, tab="Advanced") boolean dropUnprojected) {
+	LOGGER.info(versionTag + " DataBlind DecryptJson" );    	
+    return timed(configuration, DBLMetrics.DECRYPT_JSON, encryptedJson, (metrics, timer) -> {
+      String response = "{ 'Success' : 'false', 'error' : 'Undefined' }";
+      long resolving = timer.start();
+      DBLFieldPlan plan = projection == null || projection.trim().isEmpty()
+      		? cipherPlan(configuration, sensitiveFields, "decryptJson")
+      		: projectedPlan(configuration, sensitiveFields, projection, "decryptJson");
+      timer.stop(DBLPhaseTimer.Phase.PLAN, resolving);
+      metrics.fieldsRequested(plan);
+      timer.fieldsRequested(plan);
+      try {  
+      	String document = encryptedJson;
+      	if (dropUnprojected && plan.getUnprojected() != null) {
+      		// removed before decrypting, the dropped values are never decrypted
+      		long parse = timer.start();
+      		document = DBLJsonFilter.filter(encryptedJson, plan.getUnprojected(), false);
+      		timer.stop(DBLPhaseTimer.Phase.PARSE, parse);
+      	}
+      	String input = document;
+      	if (parallelFields) {
+      		response = configuration.getParallelCrypt().transform("Decrypt", tweak, input, plan, overRideToken, passPhrase, timer);
+      	} else if (configuration.getMemoCache().applies(plan, overRideToken)) {
+      		response = configuration.getParallelCrypt().transformSequentially("Decrypt", tweak, input, plan, overRideToken, passPhrase, timer);
+      	} else {
+      		long crypto = timer.start();
+      		response = configuration.getEngineCache().execute(jsonDataCrypt ->
+      				jsonDataCrypt.transform( "Decrypt", tweak, input, plan.getSpec(), overRideToken, passPhrase));
+      		timer.stop(DBLPhaseTimer.Phase.CRYPTO, crypto);
+      	}
+      }
+      catch (Exception e) {
+      	LOGGER.error("Excception, decryptJson failed " + e);
+      	LOGGER.error(e.getStackTrace().toString());
+      	throw new ModuleException("Operation decryptJson failed due to " + e , DBLErrorProvider.DATACRYPT_ERROR);
+      }
+      return response;
+    });
+  }
+
+  /**
+   * Re-encrypts the protected fields of a JSON document under the configuration key and a new tweak, for key or
+   * tweak rotation.
+   * 
+   * <p>The document is read once: the values on the sensitive field paths are decrypted with the old key
+   * and tweak and encrypted again with the configuration key and the new tweak, a block at a time, and
+   * spliced back in place. Everything else is copied through unchanged, and no clear copy of the
+   * document is ever built. Without an old key the configuration key is used on both sides, which
+   * rotates the tweak only.</p>
+   * 
+   * <p>Cipher types marked {@code :MEMO} are looked up in the memo cache for the encryption side only.</p>
+   * 
+   * <p>On success, the operation returns a JSON response with the re-encrypted data in the response payload.</p>
+   * 
+   * <p>On failure, the operation throws ModuleException with exception INVALID_PARAMETER when the
+   * sensitive fields cannot be parsed, or DATACRYPT_ERROR</p>
+   * 
+   * @param configuration The DataBlind configuration containing the new encryption key
+   * @param sensitiveFields Json containing sensitive fields along with their data types (must match fields used during encryption)
+   * @param encryptedJson The JSON document containing encrypted fields to be re-encrypted
+   * @param oldTweak The tweak value used during the original encryption (must match exactly)
+   * @param tweak The tweak value used for the new encryption
+   * @param oldKey Optional, the encryption key used during the original encryption, the configuration key when not set
+   * @param overRideToken Optional override token, allows an authorized user to retrieve the clear data (default: "NOTOKEN")
+   * @param passPhrase Optional passphrase, allows an authorized user to retrieve the clear data (default: "NOPASSPHRASE")
+   * @param parallelFields Optional, splits documents with many sensitive values across the worker threads of the configuration (default: false)
+   * @return JSON string containing the values protected under the new key and tweak, with the phase timings of the call as
+   *         {@link DBLAttributes}
+   * @throws ModuleException if re-encryption fails due to key mismatch, invalid parameters, or processing errors
+   * @see #decryptJson(DBLConfiguration, String, String, String, String, String, boolean, String, boolean)
+   * @see #encryptJson(DBLConfiguration, String, String, String, String, String, boolean)
+   */
+  @Execution(ExecutionType.CPU_INTENSIVE)
+  @MediaType(value = APPLICATION_JSON, strict = false)
+  @Alias("ReencryptJson")
+  public Result<String, DBLAttributes> reencryptJson(@Config DBLConfiguration configuration,
+		  @DisplayName("Sensitive Fields") @Expression(ExpressionSupport.SUPPORTED) String sensitiveFields,
+		  @Content @DisplayName("Encrypted JSON") @Expression(ExpressionSupport.SUPPORTED) String encryptedJson,
+		  @DisplayName("Old Tweak") @Expression(ExpressionSupport.SUPPORTED) String oldTweak, 
+		  @DisplayName("Tweak") @Expression(ExpressionSupport.SUPPORTED) String tweak, 
+		  @DisplayName("Old Key") 
+		  @Expression(ExpressionSupport.SUPPORTED) 
+		  @Password 
+		  @Optional String oldKey, 
+		  @DisplayName("OverRide Token") 
+		  @Expression(ExpressionSupport.SUPPORTED) 
+		  @Optional(defaultValue = "NOTOKEN")
+		  @Placement(order = 1, tab="Advanced") String overRideToken, 
+		  @DisplayName("Pass Phrase") 
+	  	  @Expression(ExpressionSupport.SUPPORTED) 
+		  @Password 
+		  @Optional(defaultValue = "NOPASSPHRASE")
+		  @Placement(order = 2, tab="Advanced") String passPhrase,
+		  @DisplayName("Parallel Fields") 
+		  @Optional(defaultValue = "false")
+		  @Placement(order = 3, tab="Advanced") boolean parallelFields) {
+	LOGGER.info(versionTag + " DataBlind ReencryptJson" );    	
+    return timed(configuration, DBLMetrics.REENCRYPT_JSON, encryptedJson, (metrics, timer) -> {
+      String response = "{ 'Success' : 'false', 'error' : 'Undefined' }";
+      long resolving = timer.start();
+      DBLFieldPlan plan = cipherPlan(configuration, sensitiveFields, "reencryptJson");
+      timer.stop(DBLPhaseTimer.Phase.PLAN, resolving);
+      metrics.fieldsRequested(plan);
+      timer.fieldsRequested(plan);
+      try {  
+      	response = configuration.getParallelCrypt().transform(encryptedJson, plan,
+      			reencryption(configuration, plan, oldKey, oldTweak, tweak, overRideToken, passPhrase), parallelFields,
+      			timer);
+      }
+      catch (Exception e) {
+      	LOGGER.error("Excception, reencryptJson failed " + e);
+      	LOGGER.error(e.getStackTrace().toString());
+      	throw new ModuleException("Operation reencryptJson failed due to " + e , DBLErrorProvider.DATACRYPT_ERROR);
+      }
+      return response;
+    });
+  }
+
+  /**
+   * Encrypts specified fields of a payload held as Java objects, such as the output of a DataWeave
+   * script with {@code output application/java}.
+   * 
+   * <p>A map or list payload is walked directly: the values at the sensitive field paths are encrypted
+   * in one block and set in a copy of the maps and lists on their way, so the payload is neither
+   * written out as JSON text nor parsed again. Path rules are those of EncryptJsonStream. With Output
+   * Structure the result is returned as maps and lists, otherwise as JSON text. A payload that is JSON
+   * text, as a string or a stream, is encrypted as by EncryptJson and returned as text.</p>
+   * 
+   * <p>On success, the operation returns the payload with the encrypted and protected values.</p>
+   * 
+   * <p>On failure, the operation throws ModuleException with exception INVALID_PARAMETER when the
+   * sensitive fields cannot be parsed or the payload is neither a map, a list nor JSON text, or
+   * DATACRYPT_ERROR</p>
+   * 
+   * @param configuration The DataBlind configuration containing the encryption key
+   * @param sensitiveFields Json containing sensitive fields along with their data types
+   * @param sensitivePayload The map, list or JSON text containing fields to be encrypted
+   * @param tweak A unique value used in the encryption process for additional security
+   * @param outputStructure Optional, returns a map or list payload as maps and lists rather than JSON text (default: true)
+   * @param overRideToken Optional override token, allows an authorized user to retrieve the clear data (default: "NOTOKEN")
+   * @param passPhrase Optional passphrase, allows an authorized user to retrieve the clear data (default: "NOPASSPHRASE")
+   * @return the payload with the encrypted and protected values
+   * @throws ModuleException if encryption fails due to invalid parameters, key issues, or processing errors
+   * @see #encryptJson(DBLConfiguration, String, String, String, String, String, boolean)
+   */
+  @Execution(ExecutionType.CPU_INTENSIVE)
+  @MediaType(value = ANY, strict = false)
+  @Alias("EncryptObject")
+  public Result<Object, Void> encryptObject(@Config DBLConfiguration configuration,
+		  @DisplayName("Sensitive Fields") @Expression(ExpressionSupport.SUPPORTED) String sensitiveFields,
+		  @Content @DisplayName("Sensitive Payload") TypedValue<Object> sensitivePayload,
+		  @DisplayName("Tweak") @Expression(ExpressionSupport.SUPPORTED) String tweak, 
+		  @DisplayName("Output Structure") @Optional(defaultValue = "true") boolean outputStructure,
+  		  @DisplayName("OverRide Token") 
+  		  @Expression(ExpressionSupport.SUPPORTED) 
+  		  @Optional(defaultValue = "NOTOKEN")
+  		  @Placement(order = 1, tab="Advanced") String overRideToken, 
+  		  @DisplayName("Pass Phrase") 
+  	  	  @Expression(ExpressionSupport.SUPPORTED) 
+  		  @Password 
+  		  @Optional(defaultValue = "NOPASSPHRASE")
+  		  @Placement(order = 2, tab="Advanced") String passPhrase) {
+	LOGGER.info(versionTag + " DataBlind EncryptObject" );    	
+    return objectCrypt(configuration, "Encrypt", sensitiveFields, sensitivePayload, tweak, outputStructure,
+    		overRideToken, passPhrase, DBLMetrics.ENCRYPT_OBJECT, "encryptObject");
+  }
+
+  /**
+   * Decrypts previously encrypted fields of a payload held as Java objects.
+   * 
+   * <p>This is the counterpart of EncryptObject, with the same handling of map, list and JSON text
+   * payloads.</p>
+   * 
+   * <p>On success, the operation returns the payload with the decrypted and clear values.</p>
+   * 
+   * <p>On failure, the operation throws ModuleException with exception INVALID_PARAMETER when the
+   * sensitive fields cannot be parsed or the payload is neither a map, a list nor JSON text, or
+   * DATACRYPT_ERROR</p>
+   * 
+   * @param configuration The DataBlind configuration containing the encryption key (must match the key used for encryption)
+   * @param sensitiveFields Json containing sensitive fields along with their data types (must match fields used during encryption)
+   * @param encryptedPayload The map, list or JSON text containing encrypted fields to be decrypted
+   * @param tweak The tweak value used during encryption (must match exactly)
+   * @param outputStructure Optional, returns a map or list payload as maps and lists rather than JSON text (default: true)
+   * @param overRideToken Optional override token, allows an authorized user to retrieve the clear data (default: "NOTOKEN")
+   * @param passPhrase Optional passphrase, allows an authorized user to retrieve the clear data (default: "NOPASSPHRASE")
+   * @return the payload with the decrypted and clear values
+   * @throws ModuleException if decryption fails due to key mismatch, invalid parameters, or processing errors
+   * @see #encryptObject(DBLConfiguration, String, TypedValue, String, boolean, String, String)
+   */
+  @Execution(ExecutionType.CPU_INTENSIVE)
+  @MediaType(value = ANY, strict = false)
+  @Alias("DecryptObject")
+  public Result<Object, Void> decryptObject(@Config DBLConfiguration configuration,
+		  @DisplayName("Sensitive Fields") @Expression(ExpressionSupport.SUPPORTED) String sensitiveFields,
+		  @Content @DisplayName("Encrypted Payload") TypedValue<Object> encryptedPayload,
+		  @DisplayName("Tweak") @Expression(ExpressionSupport.SUPPORTED) String tweak, 
+		  @DisplayName("Output Structure") @Optional(defaultValue = "true") boolean outputStructure,
+		  @DisplayName("OverRide Token") 
+		  @Expression(ExpressionSupport.SUPPORTED) 
+		  @Optional(defaultValue = "NOTOKEN")
+		  @Placement(order = 1, tab="Advanced") String overRideToken, 
+		  @DisplayName("Pass Phrase") 
+	  	  @Expression(ExpressionSupport.SUPPORTED) 
+		  @Password 
+		  @Optional(defaultValue = "NOPASSPHRASE")
+		  @Placement(order = 2, tab="Advanced") String passPhrase) {
+	LOGGER.info(versionTag + " DataBlind DecryptObject" );    	
+    return objectCrypt(configuration, "Decrypt", sensitiveFields, encryptedPayload, tweak, outputStructure,
+    		overRideToken, passPhrase, DBLMetrics.DECRYPT_OBJECT, "decryptObject");
+  }
+
+  /**
+   * Reduces JSON data read as a stream by filtering out sensitive information.
+   * 
+   * <p>This is the streaming variant of reduceJson for large payloads. Without an override token the
+   * document is filtered while the result is read: dropped subtrees are skipped at the byte level and
+   * only the containers on the way to a listed path are opened, so memory depends on nesting depth
+   * rather than document size. Kept values are copied through unchanged. With an override token, or an
+   * operation other than remove and retain, the document is read whole and filtered by the DataBlind
+   * library. Newline delimited documents are supported.</p>
+   * 
+   * <p>On success, the operation returns a repeatable stream with the filtered JSON.</p>
+   * 
+   * <p>On failure, the operation throws ModuleException with exception INVALID_PARAMETER when the
+   * sensitive fields cannot be parsed, or DATACRYPT_ERROR when the library fails. Failures while the
+   * stream is read surface as I/O errors of the consumer.</p>
+   * 
+   * @param configuration The DataBlind configuration containing the encryption key
+   * @param sensitiveFields String containing comma separated sensitive fields (e.g., "account.creditCard,claims[*].ssn")
+   * @param sensitiveJson The JSON document containing fields to be filtered, as a stream
+   * @param operation The filtering operation to perform ("remove" or "retain")
+   * @param overRideToken Optional override token, allows an authorized user to retrieve all data (default: "NOTOKEN")
+   * @param passPhrase Optional passphrase, allows an authorized user to retrieve all data (default: "NOPASSPHRASE")
+   * @return stream of the JSON document after filtering the requested fields
+   * @throws ModuleException if the sensitive fields are invalid or the library fails
+   * @see #filterJson(DBLConfiguration, String, String, String, String, String)
+   */
+  @MediaType(value = APPLICATION_JSON, strict = false)
+  @Alias("reduceJsonStream")
+  public InputStream filterJsonStream(@Config DBLConfiguration configuration,
+		  @DisplayName("Sensitive Fields") @Expression(ExpressionSupport.SUPPORTED) String sensitiveFields,
+		  @Content @DisplayName("Sensitive JSON") InputStream sensitiveJson,
+		  @DisplayName("Operation") @Expression(ExpressionSupport.SUPPORTED) String operation,
+  		  @DisplayName("OverRide Token") 
+  		  @Expression(ExpressionSupport.SUPPORTED) 
+  		  @Optional(defaultValue = "NOTOKEN")
+  		  @Placement(order = 1, tab="Advanced") String overRideToken, 
+  		  @DisplayName("Pass Phrase") 
+  	  	  @Expression(ExpressionSupport.SUPPORTED) 
+  		  @Password 
+  		  @Optional(defaultValue = "NOPASSPHRASE")
+  		  @Placement(order = 2, tab="Advanced") String passPhrase) {
+	LOGGER.info(versionTag + " DataBlind ReduceJsonStream" );    	
+    return streamed(configuration, DBLMetrics.REDUCE_JSON_STREAM, metrics -> {
+      DBLFieldPlan plan = pathPlan(configuration, sensitiveFields, "filterJsonStream");
+      metrics.fieldsRequested(plan);
+      if (filtersLocally(operation, overRideToken)) {
+      	return new DBLJsonFilter(sensitiveJson, plan, DBLJsonFilter.retain(operation));
+      }
+      try {
+      	String json = new String(sensitiveJson.readAllBytes(), StandardCharsets.UTF_8);
+      	String response = configuration.getEngineCache().execute(jsonDataCrypt ->
+      			jsonDataCrypt.reduceJson( operation, json, plan.getSpec(), overRideToken, passPhrase));
+      	return new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8));
+      }
+      catch (Exception e) {
+      	LOGGER.error("Excception, filterJsonStream failed " + e);
+      	LOGGER.error(e.getStackTrace().toString());
+      	throw new ModuleException("Operation filterJsonStream failed due to " + e , DBLErrorProvider.DATACRYPT_ERROR);
+      }
+    });
+  }
+
+  /**
+   * Encrypts specified fields within a JSON document read as a stream.
+   * 
+   * <p>This is the streaming variant of EncryptJson for large payloads. The document is tokenized
+   * incrementally while the result is read, so memory stays roughly constant whatever the size of
+   * the document. Only the values at the sensitive field paths are transformed, in blocks, and
+   * everything else is copied through unchanged. Paths are matched from the document root and
+   * arrays are transparent, so {@code claims.ssn} applies to every element of {@code claims}.
+   * Newline delimited documents are supported.</p>
+   * 
+   * <p>On success, the operation returns a repeatable stream with the encrypted JSON.</p>
+   * 
+   * <p>On failure, the operation throws ModuleException with exception INVALID_PARAMETER when the
+   * sensitive fields cannot be parsed. Failures while the stream is read surface as I/O errors of the
+   * consumer.</p>
+   * 
+   * @param configuration The DataBlind configuration containing the encryption key
+   * @param sensitiveFields Json containing sensitive fields along with their data types
+   * @param sensitiveJson The JSON document containing fields to be encrypted, as a stream
+   * @param tweak A unique value used in the encryption process for additional security
+   * @param overRideToken Optional override token, allows an authorized user to retrieve the clear data (default: "NOTOKEN")
+   * @param passPhrase Optional passphrase, allows an authorized user to retrieve the clear data (default: "NOPASSPHRASE")
+   * @return stream of the JSON document with the encrypted and protected values
+   * @throws ModuleException if the sensitive fields are invalid
+   * @see #encryptJson(DBLConfiguration, String, String, String, String, String, boolean)
+   */
+  @MediaType(value = APPLICATION_JSON, strict = false)
+  @Alias("EncryptJsonStream")
+  public InputStream encryptJsonStream(@Config DBLConfiguration configuration,
+		  @DisplayName("Sensitive Fields") @Expression(ExpressionSupport.SUPPORTED) String sensitiveFields,
+		  @Content @DisplayName("Sensitive JSON") InputStream sensitiveJson,
+		  @DisplayName("Tweak") @Expression(ExpressionSupport.SUPPORTED) String tweak, 
+  		  @DisplayName("OverRide Token") 
+  		  @Expression(ExpressionSupport.SUPPORTED) 
+  		  @Optional(defaultValue = "NOTOKEN")
+  		  @Placement(order = 1, tab="Advanced") String overRideToken, 
+  		  @DisplayName("Pass Phrase") 
+  	  	  @Expression(ExpressionSupport.SUPPORTED) 
+  		  @Password 
+  		  @Optional(defaultValue = "NOPASSPHRASE")
+  		  @Placement(order = 2, tab="Advanced") String passPhrase) {
+	LOGGER.info(versionTag + " DataBlind EncryptJsonStream" );    	
+    return streamed(configuration, DBLMetrics.ENCRYPT_JSON_STREAM, metrics -> {
+      DBLFieldPlan plan = cipherPlan(configuration, sensitiveFields, "encryptJsonStream");
+      metrics.fieldsRequested(plan);
+      return new DBLStreamingCrypt(sensitiveJson, plan, configuration.getMemoCache().memoize(
+      		DBLFieldCipher.of(configuration.getEngineCache(), "Encrypt", tweak, overRideToken, passPhrase),
+      		plan, "Encrypt", tweak, overRideToken, passPhrase));
+    });
+  }
+
+  /**
+   * Decrypts previously encrypted fields within a JSON document read as a stream.
+   * 
+   * <p>This is the streaming variant of DecryptJson for large payloads, with the same memory
+   * profile and path rules as EncryptJsonStream.</p>
+   * 
+   * <p>On success, the operation returns a repeatable stream with the decrypted JSON.</p>
+   * 
+   * <p>On failure, the operation throws ModuleException with exception INVALID_PARAMETER when the
+   * sensitive fields cannot be parsed. Failures while the stream is read surface as I/O errors of the
+   * consumer.</p>
+   * 
+   * @param configuration The DataBlind configuration containing the encryption key (must match the key used for encryption)
+   * @param sensitiveFields Json containing sensitive fields along with their data types (must match fields used during encryption)
+   * @param encryptedJson The JSON document containing encrypted fields to be decrypted, as a stream
+   * @param tweak The tweak value used during encryption (must match exactly)
+   * @param overRideToken Optional override token, allows an authorized user to retrieve the clear data (default: "NOTOKEN")
+   * @param passPhrase Optional passphrase, allows an authorized user to retrieve the clear data (default: "NOPASSPHRASE")
+   * @return stream of the JSON document with the decrypted and clear values
+   * @throws ModuleException if the sensitive fields are invalid
+   * @see #encryptJsonStream(DBLConfiguration, String, InputStream, String, String, String)
+   */
+  @MediaType(value = APPLICATION_JSON, strict = false)
+  @Alias("DecryptJsonStream")
+  public InputStream decryptJsonStream(@Config DBLConfiguration configuration,
+		  @DisplayName("Sensitive Fields") @Expression(ExpressionSupport.SUPPORTED) String sensitiveFields,
+		  @Content @DisplayName("Encrypted JSON") InputStream encryptedJson,
+		  @DisplayName("Tweak") @Expression(ExpressionSupport.SUPPORTED) String tweak, 
+		  @DisplayName("OverRide Token") 
+		  @Expression(ExpressionSupport.SUPPORTED) 
+		  @Optional(defaultValue = "NOTOKEN")
+		  @Placement(order = 1, tab="Advanced") String overRideToken, 
+		  @DisplayName("Pass Phrase") 
+	  	  @Expression(ExpressionSupport.SUPPORTED) 
+		  @Password 
+		  @Optional(defaultValue = "NOPASSPHRASE")
+		  @Placement(order = 2, tab="Advanced") String passPhrase) {
+	LOGGER.info(versionTag + " DataBlind DecryptJsonStream" );    	
+    return streamed(configuration, DBLMetrics.DECRYPT_JSON_STREAM, metrics -> {
+      DBLFieldPlan plan = cipherPlan(configuration, sensitiveFields, "decryptJsonStream");
+      metrics.fieldsRequested(plan);
+      return new DBLStreamingCrypt(encryptedJson, plan, configuration.getMemoCache().memoize(
+      		DBLFieldCipher.of(configuration.getEngineCache(), "Decrypt", tweak, overRideToken, passPhrase),
+      		plan, "Decrypt", tweak, overRideToken, passPhrase));
+    });
+  }
+
+  /**
+   * Re-encrypts the protected fields of a JSON document read as a stream.
+   * 
+   * <p>This is the streaming variant of ReencryptJson for large payloads, with the same memory
+   * profile and path rules as EncryptJsonStream. Each block of values is decrypted with the old key
+   * and tweak and encrypted with the configuration key and the new tweak before it is written out.</p>
+   * 
+   * <p>On success, the operation returns a repeatable stream with the re-encrypted JSON.</p>
+   * 
+   * <p>On failure, the operation throws ModuleException with exception INVALID_PARAMETER when the
+   * sensitive fields cannot be parsed. Failures while the stream is read surface as I/O errors of the
+   * consumer.</p>
+   * 
+   * @param configuration The DataBlind configuration containing the new encryption key
+   * @param sensitiveFields Json containing sensitive fields along with their data types (must match fields used during encryption)
+   * @param encryptedJson The JSON document containing encrypted fields to be re-encrypted, as a stream
+   * @param oldTweak The tweak value used during the original encryption (must match exactly)
+   * @param tweak The tweak value used for the new encryption
+   * @param oldKey Optional, the encryption key used during the original encryption, the configuration key when not set
+   * @param overRideToken Optional override token, allows an authorized user to retrieve the clear data (default: "NOTOKEN")
+   * @param passPhrase Optional passphrase, allows an authorized user to retrieve the clear data (default: "NOPASSPHRASE")
+   * @return stream of the JSON document with the values protected under the new key and tweak
+   * @throws ModuleException if the sensitive fields are invalid
+   * @see #reencryptJson(DBLConfiguration, String, String, String, String, String, String, String, boolean)
+   */
+  @MediaType(value = APPLICATION_JSON, strict = false)
+  @Alias("ReencryptJsonStream")
+  public InputStream reencryptJsonStream(@Config DBLConfiguration configuration,
+		  @DisplayName("Sensitive Fields") @Expression(ExpressionSupport.SUPPORTED) String sensitiveFields,
+		  @Content @DisplayName("Encrypted JSON") InputStream encryptedJson,
+		  @DisplayName("Old Tweak") @Expression(ExpressionSupport.SUPPORTED) String oldTweak, 
+		  @DisplayName("Tweak") @Expression(ExpressionSupport.SUPPORTED) String tweak, 
+		  @DisplayName("Old Key") 
+		  @Expression(ExpressionSupport.SUPPORTED) 
+		  @Password 
+		  @Optional String oldKey, 
+		  @DisplayName("OverRide Token") 
+		  @Expression(ExpressionSupport.SUPPORTED) 
+		  @Optional(defaultValue = "NOTOKEN")
+		  @Placement(order = 1, tab="Advanced") String overRideToken, 
+		  @DisplayName("Pass Phrase") 
+	  	  @Expression(ExpressionSupport.SUPPORTED) 
+		  @Password 
+		  @Optional(defaultValue = "NOPASSPHRASE")
+		  @Placement(order = 2, tab="Advanced") String passPhrase) {
+	LOGGER.info(versionTag + " DataBlind ReencryptJsonStream" );    	
+    return streamed(configuration, DBLMetrics.REENCRYPT_JSON_STREAM, metrics -> {
+      DBLFieldPlan plan = cipherPlan(configuration, sensitiveFields, "reencryptJsonStream");
+      metrics.fieldsRequested(plan);
+      return new DBLStreamingCrypt(encryptedJson, plan,
+      		reencryption(configuration, plan, oldKey, oldTweak, tweak, overRideToken, passPhrase));
+    });
+  }
+
+  /**
+   * Encrypts specified fields in every record of a JSON array or of newline delimited JSON.
+   * 
+   * <p>The same sensitive fields and tweak are applied to each record. Records are processed in
+   * chunks by the configuration worker pool, up to the requested degree of parallelism, and the
+   * output keeps the input order. A record that cannot be encrypted is returned as null and reported
+   * in the errors array; it does not fail the batch.</p>
+   * 
+   * <p>On success, the operation returns {@code {"records":[...],"errors":[{"index":n,"error":"..."}]}}.</p>
+   * 
+   * <p>On failure, the operation throws ModuleException with exception INVALID_PARAMETER if the input
+   * is not a JSON array or newline delimited JSON, or DATACRYPT_ERROR.</p>
+   * 
+   * @param configuration The DataBlind configuration containing the encryption key
+   * @param sensitiveFields Json containing sensitive fields along with their data types
+   * @param records The JSON array or newline delimited JSON records
+   * @param tweak A unique value used in the encryption process for additional security
+   * @param parallelism Maximum number of chunks processed at once, 0 for the size of the worker pool
+   * @param chunkSize Number of records handed to a worker at a time
+   * @param overRideToken Optional override token, allows an authorized user to retrieve the clear data (default: "NOTOKEN")
+   * @param passPhrase Optional passphrase, allows an authorized user to retrieve the clear data (default: "NOPASSPHRASE")
+   * @return JSON string with the encrypted records and the per record errors
+   * @throws ModuleException if the input cannot be split into records or the batch cannot run
+   * @see #encryptJson(DBLConfiguration, String, String, String, String, String, boolean)
+   */
+  @MediaType(value = APPLICATION_JSON, strict = false)
+  @Alias("EncryptJsonBatch")
+  public String encryptJsonBatch(@Config DBLConfiguration configuration,
+		  @DisplayName("Sensitive Fields") @Expression(ExpressionSupport.SUPPORTED) String sensitiveFields,
+		  @Content @DisplayName("Records") InputStream records,
+		  @DisplayName("Tweak") @Expression(ExpressionSupport.SUPPORTED) String tweak, 
+		  @DisplayName("Parallelism") @Optional(defaultValue = "0") int parallelism,
+		  @DisplayName("Chunk Size") @Optional(defaultValue = "100") int chunkSize,
+  		  @DisplayName("OverRide Token") 
+  		  @Expression(ExpressionSupport.SUPPORTED) 
+  		  @Optional(defaultValue = "NOTOKEN")
+  		  @Placement(order = 1, tab="Advanced") String overRideToken, 
+  		  @DisplayName("Pass Phrase") 
+  	  	  @Expression(ExpressionSupport.SUPPORTED) 
+  		  @Password 
+  		  @Optional(defaultValue = "NOPASSPHRASE")
+  		  @Placement(order = 2, tab="Advanced") String passPhrase) {
+	LOGGER.info(versionTag + " DataBlind EncryptJsonBatch" );    	
+    return measured(configuration, DBLMetrics.ENCRYPT_JSON_BATCH, null, metrics -> {
+      DBLFieldPlan plan = cipherPlan(configuration, sensitiveFields, "encryptJsonBatch");
+      metrics.fieldsRequested(plan);
+      return runBatch(configuration, plan, "Encrypt", records, tweak, parallelism, chunkSize, overRideToken, passPhrase,
+      		"encryptJsonBatch");
+    });
+  }
+
+  /**
+   * Decrypts specified fields in every record of a JSON array or of newline delimited JSON.
+   * 
+   * <p>This is the batch counterpart of DecryptJson, with the same chunking, ordering and error
+   * reporting as EncryptJsonBatch.</p>
+   * 
+   * <p>On success, the operation returns {@code {"records":[...],"errors":[{"index":n,"error":"..."}]}}.</p>
+   * 
+   * <p>On failure, the operation throws ModuleException with exception INVALID_PARAMETER if the input
+   * is not a JSON array or newline delimited JSON, or DATACRYPT_ERROR.</p>
+   * 
+   * @param configuration The DataBlind configuration containing the encryption key (must match the key used for encryption)
+   * @param sensitiveFields Json containing sensitive fields along with their data types (must match fields used during encryption)
+   * @param records The JSON array or newline delimited JSON records
+   * @param tweak The tweak value used during encryption (must match exactly)
+   * @param parallelism Maximum number of chunks processed at once, 0 for the size of the worker pool
+   * @param chunkSize Number of records handed to a worker at a time
+   * @param overRideToken Optional override token, allows an authorized user to retrieve the clear data (default: "NOTOKEN")
+   * @param passPhrase Optional passphrase, allows an authorized user to retrieve the clear data (default: "NOPASSPHRASE")
+   * @return JSON string with the decrypted records and the per record errors
+   * @throws ModuleException if the input cannot be split into records or the batch cannot run
+   * @see #encryptJsonBatch(DBLConfiguration, String, InputStream, String, int, int, String, String)
+   */
+  @MediaType(value = APPLICATION_JSON, strict = false)
+  @Alias("DecryptJsonBatch")
+  public String decryptJsonBatch(@Config DBLConfiguration configuration,
+		  @DisplayName("Sensitive Fields") @Expression(ExpressionSupport.SUPPORTED) String sensitiveFields,
+		  @Content @DisplayName("Records") InputStream records,
+		  @DisplayName("Tweak") @Expression(ExpressionSupport.SUPPORTED) String tweak, 
+		  @DisplayName("Parallelism") @Optional(defaultValue = "0") int parallelism,
+		  @DisplayName("Chunk Size") @Optional(defaultValue = "100") int chunkSize,
+		  @DisplayName("OverRide Token") 
+		  @Expression(ExpressionSupport.SUPPORTED) 
+		  @Optional(defaultValue = "NOTOKEN")
+		  @Placement(order = 1, tab="Advanced") String overRideToken, 
+		  @DisplayName("Pass Phrase") 
+	  	  @Expression(ExpressionSupport.SUPPORTED) 
+		  @Password 
+		  @Optional(defaultValue = "NOPASSPHRASE")
+		  @Placement(order = 2, tab="Advanced") String passPhrase) {
+	LOGGER.info(versionTag + " DataBlind DecryptJsonBatch" );    	
+    return measured(configuration, DBLMetrics.DECRYPT_JSON_BATCH, null, metrics -> {
+      DBLFieldPlan plan = cipherPlan(configuration, sensitiveFields, "decryptJsonBatch");
+      metrics.fieldsRequested(plan);
+      return runBatch(configuration, plan, "Decrypt", records, tweak, parallelism, chunkSize, overRideToken, passPhrase,
+      		"decryptJsonBatch");
+    });
+  }
+
+  /**
+   * Re-encrypts the protected fields in every record of a JSON array or of newline delimited JSON.
+   * 
+   * <p>This is the batch counterpart of ReencryptJson, with the same chunking, ordering and error
+   * reporting as EncryptJsonBatch. Each record is read once and its values are re-encrypted a block
+   * at a time, without building a clear copy of the record.</p>
+   * 
+   * <p>On success, the operation returns {@code {"records":[...],"errors":[{"index":n,"error":"..."}]}}.</p>
+   * 
+   * <p>On failure, the operation throws ModuleException with exception INVALID_PARAMETER if the input
+   * is not a JSON array or newline delimited JSON, or DATACRYPT_ERROR.</p>
+   * 
+   * @param configuration The DataBlind configuration containing the new encryption key
+   * @param sensitiveFields Json containing sensitive fields along with their data types (must match fields used during encryption)
+   * @param records The JSON array or newline delimited JSON records
+   * @param oldTweak The tweak value used during the original encryption (must match exactly)
+   * @param tweak The tweak value used for the new encryption
+   * @param oldKey Optional, the encryption key used during the original encryption, the configuration key when not set
+   * @param parallelism Maximum number of chunks processed at once, 0 for the size of the worker pool
+   * @param chunkSize Number of records handed to a worker at a time
+   * @param overRideToken Optional override token, allows an authorized user to retrieve the clear data (default: "NOTOKEN")
+   * @param passPhrase Optional passphrase, allows an authorized user to retrieve the clear data (default: "NOPASSPHRASE")
+   * @return JSON string with the re-encrypted records and the per record errors
+   * @throws ModuleException if the input cannot be split into records or the batch cannot run
+   * @see #encryptJsonBatch(DBLConfiguration, String, InputStream, String, int, int, String, String)
+   */
+  @MediaType(value = APPLICATION_JSON, strict = false)
+  @Alias("ReencryptJsonBatch")
+  public String reencryptJsonBatch(@Config DBLConfiguration configuration,
+		  @DisplayName("Sensitive Fields") @Expression(ExpressionSupport.SUPPORTED) String sensitiveFields,
+		  @Content @DisplayName("Records") InputStream records,
+		  @DisplayName("Old Tweak") @Expression(ExpressionSupport.SUPPORTED) String oldTweak, 
+		  @DisplayName("Tweak") @Expression(ExpressionSupport.SUPPORTED) String tweak, 
+		  @DisplayName("Old Key") 
+		  @Expression(ExpressionSupport.SUPPORTED) 
+		  @Password 
+		  @Optional String oldKey, 
+		  @DisplayName("Parallelism") @Optional(defaultValue = "0") int parallelism,
+		  @DisplayName("Chunk Size") @Optional(defaultValue = "100") int chunkSize,
+		  @DisplayName("OverRide Token") 
+		  @Expression(ExpressionSupport.SUPPORTED) 
+		  @Optional(defaultValue = "NOTOKEN")
+		  @Placement(order = 1, tab="Advanced") String overRideToken, 
+		  @DisplayName("Pass Phrase") 
+	  	  @Expression(ExpressionSupport.SUPPORTED) 
+		  @Password 
+		  @Optional(defaultValue = "NOPASSPHRASE")
+		  @Placement(order = 2, tab="Advanced") String passPhrase) {
+	LOGGER.info(versionTag + " DataBlind ReencryptJsonBatch" );    	
+    return measured(configuration, DBLMetrics.REENCRYPT_JSON_BATCH, null, metrics -> {
+      DBLFieldPlan plan = cipherPlan(configuration, sensitiveFields, "reencryptJsonBatch");
+      metrics.fieldsRequested(plan);
+      DBLBatchCrypt batch = new DBLBatchCrypt(configuration.getWorkerPool(), plan,
+      		reencryption(configuration, plan, oldKey, oldTweak, tweak, overRideToken, passPhrase));
+      return runBatch(batch, records, parallelism, chunkSize, "reencryptJsonBatch");
+    });
+  }
+
+  /**
+   * Encrypts the values of some columns of delimited text, such as CSV, read as a stream.
+   * 
+   * <p>Rows are read in chunks and the values of each sensitive column are encrypted a block at a
+   * time, one engine call per cipher type and chunk, so no row is converted to JSON. With a
+   * parallelism above one, chunks read ahead are encrypted by the configuration worker pool while
+   * the earlier ones are consumed; the output keeps the input order. Quoted fields, doubled quotes
+   * and line breaks inside quotes follow RFC 4180.</p>
+   * 
+   * <p>On success, the operation returns a stream of the delimited text with the encrypted values.</p>
+   * 
+   * <p>On failure, the operation throws ModuleException with exception INVALID_PARAMETER when the
+   * sensitive columns cannot be parsed, the delimiter is not a single character or a column is not in
+   * the header. Failures while the stream is read surface as I/O errors of the consumer.</p>
+   * 
+   * @param configuration The DataBlind configuration containing the encryption key
+   * @param sensitiveColumns Json containing the sensitive columns, by header name or by number from 1, along with their data types
+   * @param records The delimited text containing values to be encrypted, as a stream
+   * @param tweak A unique value used in the encryption process for additional security
+   * @param delimiter Optional, the field delimiter, a single character or TAB (default: ",")
+   * @param header Optional, whether the first row holds the column names (default: true)
+   * @param parallelism Maximum number of chunks processed at once, 0 for the size of the worker pool
+   * @param chunkSize Number of rows handed to a worker at a time
+   * @param overRideToken Optional override token, allows an authorized user to retrieve the clear data (default: "NOTOKEN")
+   * @param passPhrase Optional passphrase, allows an authorized user to retrieve the clear data (default: "NOPASSPHRASE")
+   * @return stream of the delimited text with the encrypted and protected values
+   * @throws ModuleException if the parameters are invalid
+   */
+  @MediaType(value = ANY, strict = false)
+  @Alias("EncryptDelimited")
+  public InputStream encryptDelimited(@Config DBLConfiguration configuration,
+		  @DisplayName("Sensitive Columns") @Expression(ExpressionSupport.SUPPORTED) String sensitiveColumns,
+		  @Content @DisplayName("Records") InputStream records,
+		  @DisplayName("Tweak") @Expression(ExpressionSupport.SUPPORTED) String tweak, 
+		  @DisplayName("Delimiter") @Optional(defaultValue = ",") String delimiter,
+		  @DisplayName("Header") @Optional(defaultValue = "true") boolean header,
+		  @DisplayName("Parallelism") @Optional(defaultValue = "0") int parallelism,
+		  @DisplayName("Chunk Size") @Optional(defaultValue = "1000") int chunkSize,
+		  @DisplayName("OverRide Token") 
+		  @Expression(ExpressionSupport.SUPPORTED) 
+		  @Optional(defaultValue = "NOTOKEN")
+		  @Placement(order = 1, tab="Advanced") String overRideToken, 
+		  @DisplayName("Pass Phrase") 
+	  	  @Expression(ExpressionSupport.SUPPORTED) 
+		  @Password 
+		  @Optional(defaultValue = "NOPASSPHRASE")
+		  @Placement(order = 2, tab="Advanced") String passPhrase) {
+	LOGGER.info(versionTag + " DataBlind EncryptDelimited" );    	
+    return streamed(configuration, DBLMetrics.ENCRYPT_DELIMITED, metrics ->
+    		delimited(configuration, metrics, "Encrypt", sensitiveColumns, records, tweak, delimiter, header, parallelism,
+    				chunkSize, overRideToken, passPhrase, "encryptDelimited"));
+  }
+
+  /**
+   * Decrypts the values of some columns of delimited text, such as CSV, read as a stream.
+   * 
+   * <p>This is the reverse of EncryptDelimited, with the same chunking, parallelism and quoting
+   * rules.</p>
+   * 
+   * <p>On success, the operation returns a stream of the delimited text with the decrypted values.</p>
+   * 
+   * <p>On failure, the operation throws ModuleException with exception INVALID_PARAMETER when the
+   * sensitive columns cannot be parsed, the delimiter is not a single character or a column is not in
+   * the header. Failures while the stream is read surface as I/O errors of the consumer.</p>
+   * 
+   * @param configuration The DataBlind configuration containing the encryption key (must match the key used for encryption)
+   * @param sensitiveColumns Json containing the sensitive columns, by header name or by number from 1, along with their data types (must match columns used during encryption)
+   * @param records The delimited text containing encrypted values to be decrypted, as a stream
+   * @param tweak The tweak value used during encryption (must match exactly)
+   * @param delimiter Optional, the field delimiter, a single character or TAB (default: ",")
+   * @param header Optional, whether the first row holds the column names (default: true)
+   * @param parallelism Maximum number of chunks processed at once, 0 for the size of the worker pool
+   * @param chunkSize Number of rows handed to a worker at a time
+   * @param overRideToken Optional override token, allows an authorized user to retrieve the clear data (default: "NOTOKEN")
+   * @param passPhrase Optional passphrase, allows an authorized user to retrieve the clear data (default: "NOPASSPHRASE")
+   * @return stream of the delimited text with the decrypted and clear values
+   * @throws ModuleException if the parameters are invalid
+   * @see #encryptDelimited(DBLConfiguration, String, InputStream, String, String, boolean, int, int, String, String)
+   */
+  @MediaType(value = ANY, strict = false)
+  @Alias("DecryptDelimited")
+  public InputStream decryptDelimited(@Config DBLConfiguration configuration,
+		  @DisplayName("Sensitive Columns") @Expression(ExpressionSupport.SUPPORTED) String sensitiveColumns,
+		  @Content @DisplayName("Records") InputStream records,
+		  @DisplayName("Tweak") @Expression(ExpressionSupport.SUPPORTED) String tweak, 
+		  @DisplayName("Delimiter") @Optional(defaultValue = ",") String delimiter,
+		  @DisplayName("Header") @Optional(defaultValue = "true") boolean header,
+		  @DisplayName("Parallelism") @Optional(defaultValue = "0") int parallelism,
+		  @DisplayName("Chunk Size") @Optional(defaultValue = "1000") int chunkSize,
+		  @DisplayName("OverRide Token") 
+		  @Expression(ExpressionSupport.SUPPORTED) 
+		  @Optional(defaultValue = "NOTOKEN")
+		  @Placement(order = 1, tab="Advanced") String overRideToken, 
+		  @DisplayName("Pass Phrase") 
+	  	  @Expression(ExpressionSupport.SUPPORTED) 
+		  @Password 
+		  @Optional(defaultValue = "NOPASSPHRASE")
+		  @Placement(order = 2, tab="Advanced") String passPhrase) {
+	LOGGER.info(versionTag + " DataBlind DecryptDelimited" );    	
+    return streamed(configuration, DBLMetrics.DECRYPT_DELIMITED, metrics ->
+    		delimited(configuration, metrics, "Decrypt", sensitiveColumns, records, tweak, delimiter, header, parallelism,
+    				chunkSize, overRideToken, passPhrase, "decryptDelimited"));
+  }
+
+  /**
+   * Generates an override token for users requiring authorization to access to all oroginal data.
+   * 
+   * <p>This operation creates a time-limited HMAC token that can be used to override
+   * certain security restrictions or provide additional authorization for sensitive
+   * operations. The token is generated using the configured encryption key and includes
+   * an expiration time to ensure security.</p>
+   * 
+   * <p>On success, the operation returns a JSON response with the generated token in the response payload.</p>
+   * 
+   * <p>On failure, the operation throws ModuleException with exception DATACRYPT_ERROR</p>
+   * 
+   * @param configuration The DataBlind configuration containing the encryption key used for token generation
+   * @param passPhrase The passphrase used to generate the token
+   * @param expirationSecs The number of seconds until the token expires 
+   * @return JSON string containing the generated token
+   * @throws ModuleException if token generation fails due to invalid parameters, key issues, or processing errors
+   * @see DBLConfiguration#getEncryptionKey()
+   * @see #encryptJson(DBLConfiguration, String, String, String, String, String, boolean)
+   * @see #decryptJson(DBLConfiguration, String, String, String, String, String, boolean, String, boolean)
+   */
+ @MediaType(value = ANY, strict = false)
+ @Alias("OverrideToken")
+ public String overrideToken(@Config DBLConfiguration configuration,
+		  @DisplayName("Passphrase") @Expression(ExpressionSupport.SUPPORTED) String passPhrase,
+		  @DisplayName("Expiration Seconds") @Expression(ExpressionSupport.SUPPORTED) Integer expirationSecs) {
+   LOGGER.info(versionTag + " DataBlind OverrideToken" );    	
+   return measured(configuration, DBLMetrics.OVERRIDE_TOKEN, null, metrics -> {
+     String response = "{ 'Success' : 'false', 'error' : 'Undefined' }";
+     try {    
+         KeyContext kc = configuration.getEngineCache().getKeyContext();
+         HmacToken HmacToken = new HmacToken();
+         response = HmacToken.generateToken( kc, passPhrase, expirationSecs.intValue());
+     }
+     catch (Exception e) {
+       LOGGER.error("Excception, overrideToken failed " + e);
+       LOGGER.error(e.getStackTrace().toString());
+       throw new ModuleException("Operation overrideToken failed due to " + e , DBLErrorProvider.DATACRYPT_ERROR);
+     }
+     return response;
+   });
+ }
+
+  /**
+   * Generates an override token using a new encryption key.
+   * 
+   * <p>This operation creates a time-limited HMAC token using a specified encryption key
+   * rather than the configuration's default key. This allows for dynamic key management
+   * and the creation of tokens with different security contexts. Key contexts are cached
+   * per key by the configuration, up to its key cache size.</p>
+   * 
+   * <p>On success, the operation returns a JSON response with the generated token in the response payload.</p>
+   * 
+   * <p>On failure, the operation throws ModuleException with exception DATACRYPT_ERROR</p>
+   * 
+   * @param configuration The DataBlind configuration holding the key context cache
+   * @param key The encryption key to use for token generation (must be valid and accessible)
+   * @param passPhrase The passphrase used to generate the token
+   * @param expirationSecs The number of seconds until the token expires (must be positive)
+   * @return JSON string containing the generated token
+   * @throws ModuleException if token generation fails due to invalid key, parameters, or processing errors
+   * @see #overrideToken(DBLConfiguration, String, Integer)
+   */
+ @MediaType(value = ANY, strict = false)
+ @Alias("OverrideTokenWithNewKey")
+ public String overrideTokenWithNewKey(@Config DBLConfiguration configuration,
+		  @DisplayName("Key") @Expression(ExpressionSupport.SUPPORTED) String key,
+		  @DisplayName("Passphrase") @Expression(ExpressionSupport.SUPPORTED) String passPhrase,
+		  @DisplayName("Expiration Seconds") @Expression(ExpressionSupport.SUPPORTED) Integer expirationSecs) {
+   LOGGER.info(versionTag + " DataBlind OverrideTokenWithNewKey" );    	
+   return measured(configuration, DBLMetrics.OVERRIDE_TOKEN_WITH_NEW_KEY, null, metrics -> {
+     String response = "{ 'Success' : 'false', 'error' : 'Undefined' }";
+     try {    
+         KeyContext kc = configuration.getEngineCache().keyContextFor(key);
+         HmacToken HmacToken = new HmacToken();
+         response = HmacToken.generateToken( kc, passPhrase, expirationSecs.intValue());
+     }
+     catch (Exception e) {
+       LOGGER.error("Excception, overrideTokenWithNewKey failed " + e);
+       LOGGER.error(e.getStackTrace().toString());
+       throw new ModuleException("Operation overrideTokenWithNewKey failed due to " + e , DBLErrorProvider.DATACRYPT_ERROR);
+     }
+     return response;
+   });
+ }
+
+  private InputStream delimited(DBLConfiguration configuration, DBLOperationMetrics metrics, String cryptOperation,
+		  String sensitiveColumns, InputStream records, String tweak, String delimiter, boolean header, int parallelism,
+		  int chunkSize, String overRideToken, String passPhrase, String operationName) {
+    DBLFieldPlan plan = cipherPlan(configuration, sensitiveColumns, operationName);
+    metrics.fieldsRequested(plan);
+    ForkJoinPool pool = configuration.getWorkerPool();
+    DBLFieldCipher.BlockTransform cipher = configuration.getMemoCache().memoize(
+    		DBLFieldCipher.of(configuration.getEngineCache(), cryptOperation, tweak, overRideToken, passPhrase),
+    		plan, cryptOperation, tweak, overRideToken, passPhrase);
+    try {
+    	return DBLDelimitedCrypt.open(records, plan, delimiter(delimiter), header, cipher, pool,
+    			parallelism > 0 ? parallelism : pool.getParallelism(), chunkSize);
+    }
+    catch (IllegalArgumentException e) {
+    	LOGGER.error("Excception, " + operationName + " failed " + e);
+    	throw new ModuleException("Operation " + operationName + " failed due to " + e , DBLErrorProvider.INVALID_PARAMETER);
+    }
+    catch (IOException e) {
+    	LOGGER.error("Excception, " + operationName + " failed " + e);
+    	throw new ModuleException("Operation " + operationName + " failed due to " + e , DBLErrorProvider.DATACRYPT_ERROR);
+    }
+  }
+
+  private static char delimiter(String delimiter) {
+    if (delimiter == null) {
+      return ',';
+    }
+    if ("TAB".equalsIgnoreCase(delimiter) || "\\t".equals(delimiter)) {
+      return '\t';
+    }
+    if (delimiter.length() != 1) {
+      throw new IllegalArgumentException("Delimiter must be a single character or TAB, got '" + delimiter + "'");
+    }
+    return delimiter.charAt(0);
+  }
+
+  private String runBatch(DBLConfiguration configuration, DBLFieldPlan plan, String cryptOperation, InputStream records,
+		  String tweak, int parallelism, int chunkSize, String overRideToken, String passPhrase, String operationName) {
+    DBLBatchCrypt batch = new DBLBatchCrypt(configuration.getEngineCache(), configuration.getWorkerPool(), plan,
+    		cryptOperation, tweak, overRideToken, passPhrase, configuration.getMemoCache());
+    return runBatch(batch, records, parallelism, chunkSize, operationName);
+  }
+
+  private String runBatch(DBLBatchCrypt batch, InputStream records, int parallelism, int chunkSize,
+		  String operationName) {
+    byte[] input;
+    try {
+    	input = records.readAllBytes();
+    }
+    catch (IOException e) {
+    	LOGGER.error("Excception, " + operationName + " failed " + e);
+    	throw new ModuleException("Operation " + operationName + " failed due to " + e , DBLErrorProvider.DATACRYPT_ERROR);
+    }
+    try {
+    	return batch.run(input, parallelism, chunkSize);
+    }
+    catch (IOException e) {
+    	LOGGER.error("Excception, " + operationName + " failed " + e);
+    	throw new ModuleException("Operation " + operationName + " failed due to " + e , DBLErrorProvider.INVALID_PARAMETER);
+    }
+    catch (InterruptedException e) {
+    	Thread.currentThread().interrupt();
+    	throw new ModuleException("Operation " + operationName + " was interrupted" , DBLErrorProvider.TIME_OUT);
+    }
+    catch (Exception e) {
+    	LOGGER.error("Excception, " + operationName + " failed " + e);
+    	LOGGER.error(e.getStackTrace().toString());
+    	throw new ModuleException("Operation " + operationName + " failed due to " + e , DBLErrorProvider.DATACRYPT_ERROR);
+    }
+  }
+
+  private Result<Object, Void> objectCrypt(DBLConfiguration configuration, String cryptOperation, String sensitiveFields,
+		  TypedValue<Object> payload, String tweak, boolean outputStructure, String overRideToken, String passPhrase,
+		  String metricsName, String operationName) {
+    Object value = payload == null ? null : payload.getValue();
+    String text = null;
+    try {
+    	text = payloadText(value);
+    }
+    catch (IOException e) {
+    	LOGGER.error("Excception, " + operationName + " failed " + e);
+    	throw new ModuleException("Operation " + operationName + " failed due to " + e , DBLErrorProvider.DATACRYPT_ERROR);
+    }
+    if (text == null && !DBLObjectCrypt.isStructure(value)) {
+    	LOGGER.error("Excception, " + operationName + " failed, unsupported payload " + (value == null ? null : value.getClass()));
+    	throw new ModuleException("Operation " + operationName + " failed due to an unsupported payload, expected a map, a list or JSON text" , DBLErrorProvider.INVALID_PARAMETER);
+    }
+    String json = text;
+    return measured(configuration, metricsName, json, metrics -> {
+      DBLFieldPlan plan = cipherPlan(configuration, sensitiveFields, operationName);
+      metrics.fieldsRequested(plan);
+      try {
+      	if (json != null) {
+      		String response = configuration.getMemoCache().applies(plan, overRideToken)
+      				? configuration.getParallelCrypt().transformSequentially(cryptOperation, tweak, json, plan, overRideToken, passPhrase)
+      				: configuration.getEngineCache().execute(jsonDataCrypt ->
+      						jsonDataCrypt.transform( cryptOperation, tweak, json, plan.getSpec(), overRideToken, passPhrase));
+      		return Result.<Object, Void>builder().output(response)
+      				.mediaType(org.mule.runtime.api.metadata.MediaType.APPLICATION_JSON).build();
+      	}
+      	Object response = DBLObjectCrypt.transform(value, plan, configuration.getMemoCache().memoize(
+      			DBLFieldCipher.of(configuration.getEngineCache(), cryptOperation, tweak, overRideToken, passPhrase),
+      			plan, cryptOperation, tweak, overRideToken, passPhrase));
+      	return outputStructure
+      			? Result.<Object, Void>builder().output(response)
+      					.mediaType(org.mule.runtime.api.metadata.MediaType.APPLICATION_JAVA).build()
+      			: Result.<Object, Void>builder().output(DBLObjectCrypt.toJson(response))
+      					.mediaType(org.mule.runtime.api.metadata.MediaType.APPLICATION_JSON).build();
+      }
+      catch (Exception e) {
+      	LOGGER.error("Excception, " + operationName + " failed " + e);
+      	LOGGER.error(e.getStackTrace().toString());
+      	throw new ModuleException("Operation " + operationName + " failed due to " + e , DBLErrorProvider.DATACRYPT_ERROR);
+      }
+    });
+  }
+
+  /**
+   * @return the JSON text of a payload that is a string, bytes or a stream, or null for any other payload
+   */
+  private static String payloadText(Object value) throws IOException {
+    if (value instanceof CharSequence) {
+      return value.toString();
+    }
+    if (value instanceof byte[]) {
+      return new String((byte[]) value, StandardCharsets.UTF_8);
+    }
+    if (value instanceof CursorStreamProvider) {
+      try (InputStream in = ((CursorStreamProvider) value).openCursor()) {
+        return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+      }
+    }
+    if (value instanceof InputStream) {
+      return new String(((InputStream) value).readAllBytes(), StandardCharsets.UTF_8);
+    }
+    return null;
+  }
+
+  /**
+   * Returns the block transform of a re-encryption: decryption with the old key and tweak, then encryption with the
+   * configuration key and the new tweak. Clear values only ever exist for one block at a time.
+   */
+  private DBLFieldCipher.BlockTransform reencryption(DBLConfiguration configuration, DBLFieldPlan plan, String oldKey,
+		  String oldTweak, String tweak, String overRideToken, String passPhrase) {
+    String key = oldKey == null || oldKey.isEmpty() || oldKey.equals(configuration.getEncryptionKey()) ? null : oldKey;
+    DBLFieldCipher.BlockTransform decrypt = DBLFieldCipher.of(configuration.getEngineCache(), key, "Decrypt", oldTweak,
+    		overRideToken, passPhrase);
+    // the memo belongs to the configuration key, so only the encryption side may use it
+    DBLFieldCipher.BlockTransform encrypt = configuration.getMemoCache().memoize(
+    		DBLFieldCipher.of(configuration.getEngineCache(), "Encrypt", tweak, overRideToken, passPhrase),
+    		plan, "Encrypt", tweak, overRideToken, passPhrase);
+    return decrypt.andThen(encrypt);
+  }
+
+  /**
+   * Runs the body of an operation, recording its latency, sizes and failure in the metrics of the configuration.
+   */
+  private <T> T measured(DBLConfiguration configuration, String operationName, String input,
+		  Function<DBLOperationMetrics, T> body) {
+    DBLOperationMetrics metrics = configuration.getMetrics().operation(operationName);
+    long started = System.nanoTime();
+    T output;
+    try {
+      output = body.apply(metrics);
+    }
+    catch (RuntimeException e) {
+      metrics.failure(started, e);
+      throw e;
+    }
+    // structured outputs are not counted
+    metrics.success(started, input, output instanceof CharSequence ? (CharSequence) output : null);
+    return output;
+  }
+
+  /**
+   * Runs the body of an operation returning a stream, counting the call or its failure in the metrics of the
+   * configuration. The stream is transformed while the flow reads it, so neither latency nor sizes are recorded.
+   */
+  private InputStream streamed(DBLConfiguration configuration, String operationName,
+		  Function<DBLOperationMetrics, InputStream> body) {
+    DBLOperationMetrics metrics = configuration.getMetrics().operation(operationName);
+    InputStream output;
+    try {
+      output = body.apply(metrics);
+    }
+    catch (RuntimeException e) {
+      metrics.failed(e);
+      throw e;
+    }
+    metrics.opened();
+    return output;
+  }
+
+  /**
+   * Runs the body of an operation returning a JSON document, as {@link #measured(DBLConfiguration, String, String,
+   * Function)} does, and returns the phase timings, fields and sizes of the call as the attributes of its result.
+   */
+  private Result<String, DBLAttributes> timed(DBLConfiguration configuration, String operationName, String input,
+		  BiFunction<DBLOperationMetrics, DBLPhaseTimer, String> body) {
+    DBLOperationMetrics metrics = configuration.getMetrics().operation(operationName);
+    DBLPhaseTimer timer = DBLPhaseTimer.of(configuration.isPhaseTimings());
+    long started = System.nanoTime();
+    String output;
+    try {
+      output = body.apply(metrics, timer);
+    }
+    catch (RuntimeException e) {
+      metrics.failure(started, e);
+      throw e;
+    }
+    long elapsed = System.nanoTime() - started;
+    long inputBytes = DBLOperationMetrics.utf8Length(input);
+    long outputBytes = DBLOperationMetrics.utf8Length(output);
+    metrics.completed(elapsed, inputBytes, outputBytes);
+    return Result.<String, DBLAttributes>builder().output(output)
+    		.attributes(new DBLAttributes(timer, elapsed, inputBytes, outputBytes)).build();
+  }
+
+  /**
+   * Wraps the callback of a non-blocking operation so that its completion is recorded in the metrics of the
+   * configuration, and completes it with the phase timings of {@code timer} as attributes. The output is a stream and
+   * its size is not counted.
+   */
+  private CompletionCallback<InputStream, Void> measured(DBLConfiguration configuration, String operationName,
+		  String input, DBLPhaseTimer timer, CompletionCallback<InputStream, DBLAttributes> callback) {
+    DBLOperationMetrics metrics = configuration.getMetrics().operation(operationName);
+    long started = System.nanoTime();
+    return new CompletionCallback<InputStream, Void>() {
+      @Override
+      public void success(Result<InputStream, Void> result) {
+        long elapsed = System.nanoTime() - started;
+        long inputBytes = DBLOperationMetrics.utf8Length(input);
+        metrics.completed(elapsed, inputBytes, 0);
+        callback.success(Result.<InputStream, DBLAttributes>builder().output(result.getOutput())
+        		.attributes(new DBLAttributes(timer, elapsed, inputBytes, -1)).build());
+      }
+
+      @Override
+      public void error(Throwable e) {
+        metrics.failure(started, e);
+        callback.error(e);
+      }
+    };
+  }
+
+  /**
+   * Returns the compiled plan of a cipher specification, failing with INVALID_PARAMETER if it cannot be parsed.
+   */
+  private DBLFieldPlan cipherPlan(DBLConfiguration configuration, String sensitiveFields, String operationName) {
+    try {
+      return configuration.getFieldPlanCache().cipherPlan(sensitiveFields);
+    }
+    catch (IllegalArgumentException e) {
+      LOGGER.error("Excception, " + operationName + " failed " + e);
+      throw new ModuleException("Operation " + operationName + " failed due to " + e , DBLErrorProvider.INVALID_PARAMETER);
+    }
+  }
+
+  /**
+   * Returns the compiled plan of a cipher specification restricted to a projection, failing with INVALID_PARAMETER
+   * if either is malformed or the projection lists a path that is not a sensitive field.
+   */
+  private DBLFieldPlan projectedPlan(DBLConfiguration configuration, String sensitiveFields, String projection,
+		  String operationName) {
+    try {
+      return configuration.getFieldPlanCache().projectedPlan(sensitiveFields, projection);
+    }
+    catch (IllegalArgumentException e) {
+      LOGGER.error("Excception, " + operationName + " failed " + e);
+      throw new ModuleException("Operation " + operationName + " failed due to " + e , DBLErrorProvider.INVALID_PARAMETER);
+    }
+  }
+
+  /**
+   * Returns the compiled plan of a path list, failing with INVALID_PARAMETER if it is empty or malformed.
+   */
+  private DBLFieldPlan pathPlan(DBLConfiguration configuration, String sensitiveFields, String operationName) {
+    try {
+      return configuration.getFieldPlanCache().pathPlan(sensitiveFields);
+    }
+    catch (IllegalArgumentException e) {
+      LOGGER.error("Excception, " + operationName + " failed " + e);
+      throw new ModuleException("Operation " + operationName + " failed due to " + e , DBLErrorProvider.INVALID_PARAMETER);
+    }
+  }
+
+  /**
+   * Documents filtered without an override token never need the engine, the connector walks them itself.
+   */
+  private static boolean filtersLocally(String operation, String overRideToken) {
+    if (overRideToken != null && !"NOTOKEN".equals(overRideToken)) {
+      return false;
+    }
+    try {
+      DBLJsonFilter.retain(operation);
+      return true;
+    }
+    catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Returns the shape fingerprint of a document, or null if it cannot be read (the NLP service then decides).
+   */
+  private String fingerprint(String sensitiveJson) {
+    try {
+      return DBLShapeLearner.fingerprint(sensitiveJson.getBytes(StandardCharsets.UTF_8));
+    }
+    catch (Exception e) {
+      return null;
+    }
+  }
+
+  /**
+   * Reads the NLP response on the worker pool, completes the operation with it and learns a plan for the shape of
+   * the request, so the HTTP client thread never waits on the response body.
+   *
+   * @return false if the worker pool does not take the task, the response is then left to the caller
+   */
+  private boolean learnShape(DBLConfiguration configuration, String shape, String request, InputStream response,
+		  CompletionCallback<InputStream, Void> callback, String tweak, String overRideToken, String passPhrase) {
+    try {
+      configuration.getWorkerPool().execute(() -> {
+        byte[] body;
+        try (InputStream in = response) {
+          body = in.readAllBytes();
+        }
+        catch (IOException e) {
+          callback.error(nlpFailure(e));
+          return;
+        }
+        callback.success(Result.<InputStream, Void>builder().output(new ByteArrayInputStream(body)).build());
+        DBLFieldPlan plan;
+        try {
+          String protectedJson = new String(body, StandardCharsets.UTF_8);
+          plan = configuration.getEngineCache().execute(jsonDataCrypt ->
+          		DBLShapeLearner.learn(jsonDataCrypt, request, protectedJson, tweak, overRideToken, passPhrase));
+        }
+        catch (Exception e) {
+          // nothing is known about the shape, it is learned again from the next response
+          LOGGER.warn("DataBlind document shape could not be learned: " + e);
+          return;
+        }
+        configuration.getShapeCache().put(shape, plan);
+      });
+      return true;
+    }
+    catch (RuntimeException e) {
+      // the configuration is stopping, the shape is learned another time
+      return false;
+    }
+  }
+
+  /**
+   * Encrypts the fields the local field detector of the configuration finds, returns the document unchanged
+   * when it finds none.
+   */
+  private Result<InputStream, Void> detectLocally(DBLConfiguration configuration, DBLPhaseTimer timer,
+		  String sensitiveJson, String tweak, String overRideToken, String passPhrase) throws Exception {
+    String response = sensitiveJson;
+    // detecting the fields is what resolves the plan here
+    long resolving = timer.start();
+    String cipherSpec = configuration.getFieldDetector().detect(sensitiveJson);
+    DBLFieldPlan plan = cipherSpec == null ? null : configuration.getFieldPlanCache().cipherPlan(cipherSpec);
+    timer.stop(DBLPhaseTimer.Phase.PLAN, resolving);
+    if (plan != null) {
+      timer.fieldsRequested(plan);
+      long crypto = timer.start();
+      response = configuration.getEngineCache().execute(jsonDataCrypt ->
+          jsonDataCrypt.transform( "Encrypt", tweak, sensitiveJson, plan.getSpec(), overRideToken, passPhrase));
+      timer.stop(DBLPhaseTimer.Phase.CRYPTO, crypto);
+    }
+    return Result.<InputStream, Void>builder()
+        .output(new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8))).build();
+  }
+
+  /**
+   * Fails the operation with the NLP failure, or falls back to local detection on the worker pool with
+   * REMOTE_THEN_LOCAL, or when the request was refused and the overload action of the connection is LOCAL.
+   */
+  private void remoteFailed(DBLConnection connection, DBLConfiguration configuration, DBLPhaseTimer timer,
+		  DBLFieldDetection detection, Throwable failure, String sensitiveJson, String tweak, String overRideToken, String passPhrase,
+		  CompletionCallback<InputStream, Void> completion) {
+    ModuleException error = nlpFailure(failure);
+    boolean refused = error.getType() == DBLErrorProvider.TOO_MANY_REQUESTS
+        || error.getType() == DBLErrorProvider.SERVICE_UNAVAILABLE;
+    if (detection != DBLFieldDetection.REMOTE_THEN_LOCAL
+        && !(refused && connection.getOverloadAction() == DBLOverloadAction.LOCAL)) {
+      completion.error(error);
+      return;
+    }
+    LOGGER.warn("DataBlind NLP service unavailable, detecting the sensitive fields locally: " + error.getMessage());
+    try {
+      configuration.getWorkerPool().execute(() -> {
+        try {
+          completion.success(detectLocally(configuration, timer, sensitiveJson, tweak, overRideToken, passPhrase));
+        } catch (Exception e) {
+          completion.error(nlpFailure(e));
+        }
+      });
+    } catch (RuntimeException e) {
+      completion.error(error);
+    }
+  }
+
+  /**
+   * Maps a failed NLP request to its module error: TOO_MANY_REQUESTS, SERVICE_UNAVAILABLE, TIME_OUT or
+   * DATACRYPT_ERROR.
+   */
+  private ModuleException nlpFailure(Throwable failure) {
+    Throwable cause = failure;
+    while (cause instanceof CompletionException && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    LOGGER.error("Excception, encryptJsonUsingNLP failed " + cause);
+    if (cause instanceof DBLServiceGuard.CircuitOpenException) {
+      return new ModuleException("Operation encryptJsonUsingNLP refused: " + cause.getMessage(), DBLErrorProvider.SERVICE_UNAVAILABLE, cause);
+    }
+    if (cause instanceof RejectedExecutionException) {
+      return new ModuleException("Operation encryptJsonUsingNLP rejected: " + cause.getMessage(), DBLErrorProvider.TOO_MANY_REQUESTS, cause);
+    }
+    if (cause instanceof DBLNlpBatcher.StatusException) {
+      int status = ((DBLNlpBatcher.StatusException) cause).getStatus();
+      if (status == 429) {
+        return new ModuleException("Operation encryptJsonUsingNLP rejected: " + cause.getMessage(), DBLErrorProvider.TOO_MANY_REQUESTS, cause);
+      }
+      if (status == 502 || status == 503 || status == 504) {
+        return new ModuleException("Operation encryptJsonUsingNLP refused: " + cause.getMessage(), DBLErrorProvider.SERVICE_UNAVAILABLE, cause);
+      }
+      return new ModuleException("Operation encryptJsonUsingNLP failed due to " + cause, DBLErrorProvider.DATACRYPT_ERROR, cause);
+    }
+    // the HTTP client may report a response timeout wrapped in an I/O error
+    for (Throwable t = cause; t != null; t = t.getCause()) {
+      if (t instanceof TimeoutException) {
+        return new ModuleException("Operation encryptJsonUsingNLP timed out: " + t.getMessage(), DBLErrorProvider.TIME_OUT, cause);
+      }
+    }
+    return new ModuleException("Operation encryptJsonUsingNLP failed due to " + cause, DBLErrorProvider.DATACRYPT_ERROR, cause);
+  }
+}
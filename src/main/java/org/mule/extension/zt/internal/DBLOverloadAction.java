@@ -0,0 +1,22 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+/**
+ * What happens to an NLP request the {@link DBLServiceGuard} of the connection provider does not let through.
+ */
+public enum DBLOverloadAction {
+
+  /** The request fails at once. */
+  FAIL_FAST,
+  /** Over the concurrency limit, the request waits for a slot up to the overload queue timeout. */
+  QUEUE,
+  /** The request is protected by the local field detector of the configuration instead. */
+  LOCAL
+}
@@ -0,0 +1,382 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Transforms the sensitive fields of one JSON document on several threads.
+ *
+ * <p>The document is scanned once to locate the values on the sensitive paths. Values are grouped by cipher type,
+ * the groups are cut into blocks and each block is transformed with one {@link DBLFieldCipher} call. The calling
+ * thread transforms blocks alongside the workers of the configuration pool rather than waiting for them, so a
+ * document never keeps more threads busy than the pool has workers, and always progresses on a saturated pool. The results are then spliced back at the offsets of the original
+ * values, so everything else in the document is kept byte for byte. Values of the cipher types the plan marks for
+ * the {@link DBLMemoCache} are looked up there before any block reaches the engine.</p>
+ *
+ * <p>Splitting a document only pays off when it has enough values. Documents below the threshold go through a
+ * single {@link com.ztensor.datacrypt.JsonDataCrypt#transform} call on the calling thread, or a single block when
+ * the plan memoizes values. Unless a fixed threshold
+ * is configured, the threshold follows the measured cost of a value: the cheaper a value, the more values a
+ * document needs before it is split. Once documents have been scanned, their average length per value tells which
+ * documents are too short to reach the threshold, and those are not scanned at all.</p>
+ */
+final class DBLParallelCrypt {
+
+  static final int DEFAULT_THRESHOLD = 64;
+  static final int MIN_BLOCK_VALUES = 8;
+  static final int MAX_THRESHOLD = 4096;
+
+  // sequential work worth splitting, and the least work given to one forked task
+  private static final long SPLIT_NANOS = 1_000_000L;
+  private static final long BLOCK_NANOS = 200_000L;
+
+  private final DBLEngineCache engines;
+  private final ForkJoinPool pool;
+  private final int fixedThreshold;
+  private final DBLMemoCache memo;
+  // moving averages, updated by concurrent calls
+  private final AtomicLong nanosPerValue = new AtomicLong();
+  private final AtomicLong charsPerValue = new AtomicLong();
+
+  /**
+   * @param fixedThreshold number of matched values from which documents are split, 0 to adapt it to the measured
+   *        cost of a value
+   * @param memo memo of the values of the cipher types that plans mark for it
+   */
+  DBLParallelCrypt(DBLEngineCache engines, ForkJoinPool pool, int fixedThreshold, DBLMemoCache memo) {
+    this.engines = engines;
+    this.pool = pool;
+    this.fixedThreshold = Math.max(0, fixedThreshold);
+    this.memo = memo;
+  }
+
+  /**
+   * Runs {@code operation} ("Encrypt" or "Decrypt") on the fields of {@code plan} in {@code json}.
+   */
+  String transform(String operation, String tweak, String json, DBLFieldPlan plan, String overRideToken,
+                   String passPhrase) throws Exception {
+    return transform(operation, tweak, json, plan, overRideToken, passPhrase, DBLPhaseTimer.OFF);
+  }
+
+  /**
+   * As {@link #transform(String, String, String, DBLFieldPlan, String, String)}, recording its phases in
+   * {@code timer}.
+   */
+  String transform(String operation, String tweak, String json, DBLFieldPlan plan, String overRideToken,
+                   String passPhrase, DBLPhaseTimer timer) throws Exception {
+    boolean memoized = memo.applies(plan, overRideToken);
+    if (!memoized && (pool.getParallelism() < 2 || isTooShortToSplit(json.length()))) {
+      long chars = charsPerValue.get();
+      return transformDocument(operation, tweak, json, plan, overRideToken, passPhrase,
+          chars > 0 ? (int) (json.length() / chars) : 0, timer);
+    }
+    long parse = timer.start();
+    byte[] document = json.getBytes(StandardCharsets.UTF_8);
+    List<Slot> slots = locate(document, plan);
+    timer.stop(DBLPhaseTimer.Phase.PARSE, parse);
+    if (!slots.isEmpty()) {
+      average(charsPerValue, Math.max(1, json.length() / slots.size()));
+    }
+    if (slots.isEmpty() || slots.size() < threshold() || pool.getParallelism() < 2) {
+      if (!slots.isEmpty() && memoized) {
+        return transformFields(document, slots, cipher(operation, tweak, plan, overRideToken, passPhrase), timer);
+      }
+      return transformDocument(operation, tweak, json, plan, overRideToken, passPhrase, slots.size(), timer);
+    }
+
+    return transformBlocks(document, slots, cipher(operation, tweak, plan, overRideToken, passPhrase), timer);
+  }
+
+  /**
+   * Tells from its length alone that a document is too short to reach the threshold. The document is assumed to be
+   * at most twice as dense in values as the documents scanned so far; nothing is assumed before the first scan.
+   *
+   * @param length the length of the document in chars
+   */
+  boolean isTooShortToSplit(int length) {
+    long chars = charsPerValue.get();
+    return chars > 0 && length < threshold() * chars / 2;
+  }
+
+  private DBLFieldCipher.BlockTransform cipher(String operation, String tweak, DBLFieldPlan plan,
+                                               String overRideToken, String passPhrase) {
+    return memo.memoize(DBLFieldCipher.of(engines, operation, tweak, overRideToken, passPhrase), plan, operation,
+        tweak, overRideToken, passPhrase);
+  }
+
+  /**
+   * Runs {@code operation} on the whole document with a single engine call on the calling thread.
+   *
+   * @param values the number of matched values, or an estimate of it, to measure the cost of a value
+   */
+  private String transformDocument(String operation, String tweak, String json, DBLFieldPlan plan,
+                                   String overRideToken, String passPhrase, int values, DBLPhaseTimer timer)
+      throws Exception {
+    long start = System.nanoTime();
+    String result = engines.execute(engine ->
+        engine.transform(operation, tweak, json, plan.getSpec(), overRideToken, passPhrase));
+    record(System.nanoTime() - start, values);
+    timer.stop(DBLPhaseTimer.Phase.CRYPTO, start);
+    return result;
+  }
+
+  /**
+   * Applies {@code cipher} to the fields of {@code plan} in {@code json} in one pass over the document. The values
+   * are split into blocks on the worker pool when {@code parallel} is set and there are enough of them, and are
+   * otherwise transformed as a single block on the calling thread.
+   */
+  String transform(String json, DBLFieldPlan plan, DBLFieldCipher.BlockTransform cipher, boolean parallel)
+      throws Exception {
+    return transform(json, plan, cipher, parallel, DBLPhaseTimer.OFF);
+  }
+
+  /**
+   * As {@link #transform(String, DBLFieldPlan, DBLFieldCipher.BlockTransform, boolean)}, recording its phases in
+   * {@code timer}.
+   */
+  String transform(String json, DBLFieldPlan plan, DBLFieldCipher.BlockTransform cipher, boolean parallel,
+                   DBLPhaseTimer timer) throws Exception {
+    long parse = timer.start();
+    byte[] document = json.getBytes(StandardCharsets.UTF_8);
+    List<Slot> slots = locate(document, plan);
+    timer.stop(DBLPhaseTimer.Phase.PARSE, parse);
+    if (slots.isEmpty()) {
+      return json;
+    }
+    if (!parallel || slots.size() < threshold() || pool.getParallelism() < 2) {
+      return transformFields(document, slots, cipher, timer);
+    }
+    return transformBlocks(document, slots, cipher, timer);
+  }
+
+  private String transformBlocks(byte[] document, List<Slot> slots, DBLFieldCipher.BlockTransform cipher,
+                                 DBLPhaseTimer timer) throws Exception {
+    long crypto = timer.start();
+    List<List<Slot>> blocks = blocks(slots);
+    AtomicInteger nextBlock = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch(blocks.size());
+    AtomicReference<Exception> failure = new AtomicReference<>();
+    Runnable worker = () -> {
+      int block;
+      while ((block = nextBlock.getAndIncrement()) < blocks.size()) {
+        try {
+          if (failure.get() == null) {
+            transformBlock(blocks.get(block), cipher);
+          }
+        } catch (Exception e) {
+          failure.compareAndSet(null, e);
+        } finally {
+          done.countDown();
+        }
+      }
+    };
+    // the calling thread is one of the workers, so a document uses at most as many threads as the pool has
+    int workers = Math.min(blocks.size(), pool.getParallelism());
+    for (int i = 1; i < workers; i++) {
+      pool.execute(worker);
+    }
+    worker.run();
+    // blocks left to workers that have not started yet are claimed by the calling thread above
+    done.await();
+    if (failure.get() != null) {
+      throw failure.get();
+    }
+    timer.stop(DBLPhaseTimer.Phase.CRYPTO, crypto);
+    long serialize = timer.start();
+    String result = splice(document, slots);
+    timer.stop(DBLPhaseTimer.Phase.SERIALIZE, serialize);
+    return result;
+  }
+
+  /**
+   * Runs {@code operation} on the fields of {@code plan} in {@code json} on the calling thread, value by value
+   * rather than as a whole document, so that memoized values skip the engine.
+   */
+  String transformSequentially(String operation, String tweak, String json, DBLFieldPlan plan, String overRideToken,
+                               String passPhrase) throws Exception {
+    return transformSequentially(operation, tweak, json, plan, overRideToken, passPhrase, DBLPhaseTimer.OFF);
+  }
+
+  /**
+   * As {@link #transformSequentially(String, String, String, DBLFieldPlan, String, String)}, recording its phases
+   * in {@code timer}.
+   */
+  String transformSequentially(String operation, String tweak, String json, DBLFieldPlan plan, String overRideToken,
+                               String passPhrase, DBLPhaseTimer timer) throws Exception {
+    long parse = timer.start();
+    byte[] document = json.getBytes(StandardCharsets.UTF_8);
+    List<Slot> slots = locate(document, plan);
+    timer.stop(DBLPhaseTimer.Phase.PARSE, parse);
+    if (slots.isEmpty()) {
+      return json;
+    }
+    return transformFields(document, slots, memo.memoize(
+        DBLFieldCipher.of(engines, operation, tweak, overRideToken, passPhrase), plan, operation, tweak, overRideToken,
+        passPhrase), timer);
+  }
+
+  /**
+   * @return the number of matched values from which a document is split
+   */
+  int threshold() {
+    if (fixedThreshold > 0) {
+      return fixedThreshold;
+    }
+    long cost = nanosPerValue.get();
+    if (cost <= 0) {
+      return DEFAULT_THRESHOLD;
+    }
+    return (int) Math.max(2 * MIN_BLOCK_VALUES, Math.min(MAX_THRESHOLD, SPLIT_NANOS / cost));
+  }
+
+  private void record(long nanos, int values) {
+    if (values > 0) {
+      average(nanosPerValue, Math.max(1, nanos / values));
+    }
+  }
+
+  private static void average(AtomicLong average, long sample) {
+    average.accumulateAndGet(sample, (current, next) -> current <= 0 ? next : (current * 7 + next) / 8);
+  }
+
+  /**
+   * Finds the string and number values on the sensitive paths of {@code plan}, in document order.
+   */
+  static List<Slot> locate(byte[] document, DBLFieldPlan plan) throws IOException {
+    List<Slot> slots = new ArrayList<>();
+    DBLJsonScanner scanner = new DBLJsonScanner(document);
+    DBLPathTracker tracker = new DBLPathTracker(scanner, plan.getTrie());
+    int token;
+    do {
+      boolean capture = tracker.captureNext();
+      token = scanner.next(capture);
+      tracker.advance(token);
+      if (capture && (token == DBLJsonScanner.STRING || token == DBLJsonScanner.NUMBER)) {
+        slots.add(new Slot((int) scanner.tokenStart(), (int) scanner.tokenEnd(),
+            tracker.lastNode().field().getCipherSpec(), scanner.captured()));
+      }
+    } while (token != DBLJsonScanner.END_OF_INPUT);
+    return slots;
+  }
+
+  /**
+   * Groups the slots by cipher type and cuts each group into blocks sized for the pool.
+   */
+  private List<List<Slot>> blocks(List<Slot> slots) {
+    Map<String, List<Slot>> groups = new LinkedHashMap<>();
+    for (Slot slot : slots) {
+      groups.computeIfAbsent(slot.cipherSpec, k -> new ArrayList<>()).add(slot);
+    }
+    // about two blocks per thread, but never blocks so small that handing them out costs more than the work
+    int tasks = 2 * pool.getParallelism();
+    int size = Math.max(MIN_BLOCK_VALUES, (slots.size() + tasks - 1) / tasks);
+    long cost = nanosPerValue.get();
+    if (cost > 0) {
+      size = (int) Math.max(size, Math.min(slots.size(), BLOCK_NANOS / cost));
+    }
+    List<List<Slot>> blocks = new ArrayList<>();
+    for (List<Slot> group : groups.values()) {
+      for (int from = 0; from < group.size(); from += size) {
+        blocks.add(group.subList(from, Math.min(group.size(), from + size)));
+      }
+    }
+    return blocks;
+  }
+
+  /**
+   * Transforms {@code slots} with one {@code cipher} call, then splices the results into {@code document}.
+   */
+  static String transformFields(byte[] document, List<Slot> slots, DBLFieldCipher.BlockTransform cipher)
+      throws Exception {
+    return transformFields(document, slots, cipher, DBLPhaseTimer.OFF);
+  }
+
+  /**
+   * As {@link #transformFields(byte[], List, DBLFieldCipher.BlockTransform)}, recording its phases in {@code timer}.
+   */
+  static String transformFields(byte[] document, List<Slot> slots, DBLFieldCipher.BlockTransform cipher,
+                                DBLPhaseTimer timer) throws Exception {
+    long crypto = timer.start();
+    String[] specs = new String[slots.size()];
+    String[] rawValues = new String[slots.size()];
+    for (int i = 0; i < specs.length; i++) {
+      specs[i] = slots.get(i).cipherSpec;
+      rawValues[i] = slots.get(i).rawValue;
+    }
+    String[] results = cipher.apply(specs, rawValues);
+    for (int i = 0; i < results.length; i++) {
+      slots.get(i).result = results[i];
+    }
+    timer.stop(DBLPhaseTimer.Phase.CRYPTO, crypto);
+    long serialize = timer.start();
+    String result = splice(document, slots);
+    timer.stop(DBLPhaseTimer.Phase.SERIALIZE, serialize);
+    return result;
+  }
+
+  private static String splice(byte[] document, List<Slot> slots) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(document.length + document.length / 4);
+    int copied = 0;
+    for (Slot slot : slots) {
+      out.write(document, copied, slot.start - copied);
+      byte[] value = slot.result.getBytes(StandardCharsets.UTF_8);
+      out.write(value, 0, value.length);
+      copied = slot.end;
+    }
+    out.write(document, copied, document.length - copied);
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  private void transformBlock(List<Slot> block, DBLFieldCipher.BlockTransform cipher) throws Exception {
+    String[] specs = new String[block.size()];
+    String[] rawValues = new String[block.size()];
+    for (int i = 0; i < specs.length; i++) {
+      specs[i] = block.get(i).cipherSpec;
+      rawValues[i] = block.get(i).rawValue;
+    }
+    long start = System.nanoTime();
+    String[] results = cipher.apply(specs, rawValues);
+    record(System.nanoTime() - start, specs.length);
+    for (int i = 0; i < results.length; i++) {
+      block.get(i).result = results[i];
+    }
+  }
+
+  /**
+   * A matched value: its byte range in the document, its cipher type, its raw text and, once transformed, the raw
+   * text replacing it.
+   */
+  static final class Slot {
+
+    final int start;
+    final int end;
+    final String cipherSpec;
+    final String rawValue;
+    String result;
+
+    Slot(int start, int end, String cipherSpec, String rawValue) {
+      this.start = start;
+      this.end = end;
+      this.cipherSpec = cipherSpec;
+      this.rawValue = rawValue;
+    }
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.util.Arrays;
+
+/**
+ * Follows the position of a {@link DBLJsonScanner} in a {@link DBLPathTrie}, so that a document walker knows
+ * before each token whether the next value sits on a sensitive path.
+ *
+ * <p>Usage: ask {@link #captureNext()} to decide how to scan the next token, then report the token with
+ * {@link #advance(int)}. The node of the value just scanned stays available from {@link #lastNode()}.</p>
+ */
+final class DBLPathTracker {
+
+  private final DBLJsonScanner scanner;
+  private final DBLPathTrie.Node root;
+  private DBLPathTrie.Node[] nodes = new DBLPathTrie.Node[32];
+  private DBLPathTrie.Node valueNode;
+  private DBLPathTrie.Node lastNode;
+
+  DBLPathTracker(DBLJsonScanner scanner, DBLPathTrie trie) {
+    this.scanner = scanner;
+    this.root = trie.root();
+    this.valueNode = root;
+  }
+
+  /**
+   * @return true if the next token, when it is a scalar, is the value of a sensitive field
+   */
+  boolean captureNext() {
+    return valueNode != null && valueNode.field() != null;
+  }
+
+  /**
+   * @return the node of the next value, or {@code null} when no sensitive path continues there
+   */
+  DBLPathTrie.Node nextNode() {
+    return valueNode;
+  }
+
+  /**
+   * @return the node the last token was matched against (the field node for a captured value)
+   */
+  DBLPathTrie.Node lastNode() {
+    return lastNode;
+  }
+
+  /**
+   * Updates the position after the scanner returned {@code token}.
+   */
+  void advance(int token) {
+    int depth = scanner.depth();
+    lastNode = valueNode;
+    switch (token) {
+      case DBLJsonScanner.END_OF_INPUT:
+        return;
+      case DBLJsonScanner.FIELD_NAME:
+        DBLPathTrie.Node parent = nodes[depth - 1];
+        valueNode = parent == null ? null : parent.child(scanner.fieldName());
+        return;
+      case DBLJsonScanner.START_OBJECT:
+      case DBLJsonScanner.START_ARRAY:
+        if (depth > nodes.length) {
+          nodes = Arrays.copyOf(nodes, nodes.length * 2);
+        }
+        nodes[depth - 1] = valueNode;
+        // array elements share the node of the array; object members are looked up by name
+        valueNode = token == DBLJsonScanner.START_ARRAY ? valueNode : null;
+        return;
+      case DBLJsonScanner.END_OBJECT:
+      case DBLJsonScanner.END_ARRAY:
+        nodes[depth] = null;
+        afterValue(depth);
+        return;
+      default:
+        afterValue(depth);
+    }
+  }
+
+  private void afterValue(int depth) {
+    // inside an array the next element shares the array node, inside an object the next name decides and
+    // at the top level a following document (newline delimited input) starts from the root again
+    if (depth == 0) {
+      valueNode = root;
+    } else {
+      valueNode = scanner.inObject() ? null : nodes[depth - 1];
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The paths of a {@link DBLFieldPlan} arranged as a trie of field names, so a document walker can tell in one map
+ * lookup per field name whether it is inside a sensitive path.
+ *
+ * <p>Arrays are transparent: the elements of an array are matched against the node of the array itself, so
+ * {@code claims.ssn} applies to the {@code ssn} of every element of {@code claims}. A {@value #ANY} segment
+ * matches any field name; the paths under it are copied into its named siblings when the trie is built, so a walker
+ * still follows a single node.</p>
+ */
+final class DBLPathTrie {
+
+  static final String ANY = "*";
+
+  /**
+   * A trie node. A node with a field is the end of a sensitive path.
+   */
+  static final class Node {
+
+    private final Map<String, Node> children = new HashMap<>();
+    private DBLFieldPlan.Field field;
+
+    /**
+     * @return the child for {@code name}, or {@code null} if no sensitive path continues with that name
+     */
+    Node child(String name) {
+      Node child = children.get(name);
+      return child != null ? child : children.get(ANY);
+    }
+
+    /**
+     * @return the field ending at this node, or {@code null}
+     */
+    DBLFieldPlan.Field field() {
+      return field;
+    }
+
+    boolean isLeaf() {
+      return children.isEmpty();
+    }
+  }
+
+  private final Node root = new Node();
+
+  DBLPathTrie(List<DBLFieldPlan.Field> fields) {
+    for (DBLFieldPlan.Field field : fields) {
+      Node node = root;
+      for (int i = 0; i < field.segmentCount(); i++) {
+        node = node.children.computeIfAbsent(field.segment(i), k -> new Node());
+      }
+      // a path listed twice keeps its first cipher type
+      if (node.field == null) {
+        node.field = field;
+      }
+    }
+    spreadWildcards(root);
+  }
+
+  private static void spreadWildcards(Node node) {
+    Node any = node.children.get(ANY);
+    if (any != null) {
+      for (Map.Entry<String, Node> child : node.children.entrySet()) {
+        if (!ANY.equals(child.getKey())) {
+          merge(child.getValue(), any);
+        }
+      }
+    }
+    for (Node child : node.children.values()) {
+      spreadWildcards(child);
+    }
+  }
+
+  private static void merge(Node target, Node source) {
+    if (target.field == null) {
+      target.field = source.field;
+    }
+    for (Map.Entry<String, Node> child : source.children.entrySet()) {
+      merge(target.children.computeIfAbsent(child.getKey(), k -> new Node()), child.getValue());
+    }
+  }
+
+  Node root() {
+    return root;
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+/**
+ * Time spent by one operation call in each of its phases, measured with {@link System#nanoTime()}, and the plan of
+ * the sensitive fields it transformed.
+ *
+ * <p>A call runs its phases one after the other, so a timer is used by one thread at a time; the remote phase of a
+ * non-blocking call is recorded by the thread that completes it. A disabled timer does not read the clock, and
+ * {@link #OFF}, shared by the calls that report no attributes, records nothing at all.</p>
+ */
+final class DBLPhaseTimer {
+
+  enum Phase {
+    /** Finding the sensitive values in the document. */
+    PARSE,
+    /** Resolving the sensitive fields to a compiled plan. */
+    PLAN,
+    /** Encrypting or decrypting the values, or the whole document when the engine handles it. */
+    CRYPTO,
+    /** Writing the transformed values back into the document. */
+    SERIALIZE,
+    /** Waiting for the DataGuard API. */
+    REMOTE
+  }
+
+  static final DBLPhaseTimer OFF = new DBLPhaseTimer(false);
+
+  private static final Phase[] PHASES = Phase.values();
+
+  private final boolean enabled;
+  private final long[] nanos;
+  private DBLFieldPlan plan;
+
+  private DBLPhaseTimer(boolean enabled) {
+    this.enabled = enabled;
+    this.nanos = enabled ? new long[PHASES.length] : null;
+  }
+
+  /**
+   * @return a new timer for one call, which only keeps the plan when timings are disabled
+   */
+  static DBLPhaseTimer of(boolean enabled) {
+    return new DBLPhaseTimer(enabled);
+  }
+
+  boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * @return the start of a phase, to be passed to {@link #stop(Phase, long)}
+   */
+  long start() {
+    return enabled ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Adds the time since {@code started} to {@code phase}.
+   */
+  void stop(Phase phase, long started) {
+    if (enabled) {
+      nanos[phase.ordinal()] += System.nanoTime() - started;
+    }
+  }
+
+  /**
+   * @return the time spent in {@code phase}, -1 when timings are disabled
+   */
+  long nanos(Phase phase) {
+    return enabled ? nanos[phase.ordinal()] : -1;
+  }
+
+  /**
+   * Remembers the plan the call transforms, for its field counts.
+   */
+  void fieldsRequested(DBLFieldPlan plan) {
+    if (this != OFF) {
+      this.plan = plan;
+    }
+  }
+
+  DBLFieldPlan plan() {
+    return plan;
+  }
+}
@@ -0,0 +1,430 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Concurrency limiter and circuit breaker in front of the DataGuard API, shared by all connections of a connection
+ * provider.
+ *
+ * <p>Every call of the guarded {@link DBLNlpBatcher.Transport}, single or batch, takes a slot. With an adaptive limit,
+ * the number of slots is learned with AIMD: it grows by about one per round trip while the API answers within
+ * {@value #LATENCY_TOLERANCE} times its baseline latency, and shrinks by {@value #BACKOFF} when a reply is slower, an
+ * error or a timeout, at most once per round trip. The baseline is the lowest round trip seen, slowly drifting up so
+ * that it follows an API that became slower for good. Without an adaptive limit, the limit is fixed.</p>
+ *
+ * <p>After {@code failureThreshold} failures in a row the circuit opens and calls are refused with a
+ * {@link CircuitOpenException} without reaching the API. Once the open time has passed, one probe call is let
+ * through: its success closes the circuit, its failure opens it again. A failure is an exception, a timeout or a
+ * reply with status 429 or 5xx.</p>
+ *
+ * <p>A call over the limit is refused with a {@link RejectedExecutionException}, or with {@link DBLOverloadAction#QUEUE}
+ * waits in arrival order for a slot, up to the queue timeout. Calls are never queued while the circuit is open.</p>
+ */
+final class DBLServiceGuard implements DBLServiceGuardMXBean {
+
+  static final int INITIAL_LIMIT = 16;
+  static final double LATENCY_TOLERANCE = 2.0;
+  static final double BACKOFF = 0.9;
+  private static final int BASELINE_DRIFT = 1000;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DBLServiceGuard.class);
+
+  enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  /**
+   * Refusal of a call while the circuit is open.
+   */
+  static final class CircuitOpenException extends RejectedExecutionException {
+
+    private static final long serialVersionUID = 1L;
+
+    CircuitOpenException(String message) {
+      super(message);
+    }
+  }
+
+  private final boolean adaptive;
+  private final int maxLimit;
+  private final int failureThreshold;
+  private final long openNanos;
+  private final DBLOverloadAction action;
+  private final long queueTimeoutMillis;
+  private final LongSupplier clock;
+  private final ScheduledExecutorService timer;
+
+  private final Object lock = new Object();
+  private final ArrayDeque<Call> queue = new ArrayDeque<>();
+  private double limit;
+  private int inFlight;
+  private double baselineNanos;
+  private long lastDecreaseAt = Long.MIN_VALUE;
+  private State state = State.CLOSED;
+  private int consecutiveFailures;
+  private long openedAt;
+  private boolean probing;
+  private long openings;
+  private long completed;
+  private long failed;
+  private long rejected;
+  private ObjectName registered;
+
+  /**
+   * @param adaptive learn the limit, rather than keeping it at {@code maxLimit}
+   * @param maxLimit the highest number of calls in flight
+   * @param failureThreshold failures in a row that open the circuit, 0 to never open it
+   * @param openMillis time the circuit stays open before a probe call is let through
+   * @param action what happens to calls over the limit
+   * @param queueTimeoutMillis longest wait for a slot with {@link DBLOverloadAction#QUEUE}
+   * @param clock source of {@link System#nanoTime()}
+   */
+  DBLServiceGuard(boolean adaptive, int maxLimit, int failureThreshold, long openMillis, DBLOverloadAction action,
+                  long queueTimeoutMillis, LongSupplier clock) {
+    this.adaptive = adaptive;
+    this.maxLimit = Math.max(1, maxLimit);
+    this.failureThreshold = Math.max(0, failureThreshold);
+    this.openNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, openMillis));
+    this.action = action == null ? DBLOverloadAction.FAIL_FAST : action;
+    this.queueTimeoutMillis = Math.max(0, queueTimeoutMillis);
+    this.clock = clock;
+    this.limit = adaptive ? Math.min(INITIAL_LIMIT, this.maxLimit) : this.maxLimit;
+    this.timer = this.action == DBLOverloadAction.QUEUE ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "datablind-service-guard");
+      thread.setDaemon(true);
+      return thread;
+    }) : null;
+  }
+
+  DBLOverloadAction getAction() {
+    return action;
+  }
+
+  /**
+   * @return {@code transport} with every call going through this guard
+   */
+  DBLNlpBatcher.Transport guard(DBLNlpBatcher.Transport transport) {
+    return (path, body) -> submit(() -> transport.post(path, body));
+  }
+
+  /**
+   * Makes {@code call} now, later or never, depending on the limit and the circuit.
+   *
+   * @return the reply of the call, or a failed future if it was refused
+   */
+  CompletableFuture<DBLNlpBatcher.Reply> submit(Supplier<CompletableFuture<DBLNlpBatcher.Reply>> call) {
+    Call pending = new Call(call);
+    RejectedExecutionException refusal = null;
+    boolean start = false;
+    synchronized (lock) {
+      long now = clock.getAsLong();
+      if (state == State.OPEN && now - openedAt >= openNanos) {
+        state = State.HALF_OPEN;
+        probing = false;
+      }
+      if (state == State.OPEN || (state == State.HALF_OPEN && probing)) {
+        rejected++;
+        refusal = circuitOpen();
+      } else if (state == State.HALF_OPEN) {
+        probing = true;
+        pending.probe = true;
+        start = true;
+      } else if (inFlight < currentLimit()) {
+        start = true;
+      } else if (action == DBLOverloadAction.QUEUE && queue.size() < maxLimit) {
+        queue.add(pending);
+      } else {
+        rejected++;
+        refusal = new RejectedExecutionException("DataBlind API concurrency limit reached (" + currentLimit()
+            + " requests in flight)");
+      }
+      if (start) {
+        inFlight++;
+      }
+    }
+    if (refusal != null) {
+      pending.future.completeExceptionally(refusal);
+    } else if (start) {
+      start(pending);
+    } else {
+      try {
+        pending.timeout = timer.schedule(() -> expire(pending), queueTimeoutMillis, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        // stopped meanwhile
+        expire(pending);
+      }
+    }
+    return pending.future;
+  }
+
+  /**
+   * Fails the calls still waiting and stops the queue timer.
+   */
+  void dispose() {
+    List<Call> waiting;
+    synchronized (lock) {
+      waiting = new ArrayList<>(queue);
+      queue.clear();
+    }
+    waiting.forEach(call -> call.future.completeExceptionally(
+        new RejectedExecutionException("DataBlind connection provider stopped")));
+    if (timer != null) {
+      timer.shutdownNow();
+    }
+  }
+
+  /**
+   * Registers this guard with the platform MBean server. A name already taken is logged and skipped.
+   */
+  synchronized void register(String configName) {
+    try {
+      ObjectName name = new ObjectName(DBLMetrics.DOMAIN + ":type=DataBlind,config="
+          + ObjectName.quote(configName == null || configName.isEmpty() ? "default" : configName)
+          + ",connection=ServiceGuard");
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+      registered = name;
+    } catch (JMException e) {
+      LOGGER.warn("DataBlind service guard metrics could not be registered: " + e);
+    }
+  }
+
+  synchronized void unregister() {
+    if (registered != null) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(registered);
+      } catch (JMException e) {
+        LOGGER.warn("DataBlind metrics " + registered + " could not be unregistered: " + e);
+      }
+      registered = null;
+    }
+  }
+
+  private void start(Call call) {
+    if (call.timeout != null) {
+      call.timeout.cancel(false);
+    }
+    call.startedAt = clock.getAsLong();
+    CompletableFuture<DBLNlpBatcher.Reply> sent;
+    try {
+      sent = call.call.get();
+    } catch (RuntimeException e) {
+      sent = new CompletableFuture<>();
+      sent.completeExceptionally(e);
+    }
+    sent.whenComplete((reply, failure) -> {
+      try {
+        release(call, reply, failure);
+      } finally {
+        if (failure != null) {
+          call.future.completeExceptionally(failure);
+        } else {
+          call.future.complete(reply);
+        }
+      }
+    });
+  }
+
+  private void release(Call call, DBLNlpBatcher.Reply reply, Throwable failure) {
+    List<Call> next = new ArrayList<>();
+    List<Call> dropped = null;
+    synchronized (lock) {
+      long now = clock.getAsLong();
+      inFlight--;
+      completed++;
+      if (failure != null || reply.status == 429 || reply.status >= 500) {
+        failed++;
+        onFailure(call, now);
+      } else {
+        onSuccess(call, now - call.startedAt, now);
+      }
+      if (state != State.CLOSED) {
+        dropped = new ArrayList<>(queue);
+        queue.clear();
+        rejected += dropped.size();
+      } else {
+        while (!queue.isEmpty() && inFlight < currentLimit()) {
+          inFlight++;
+          next.add(queue.poll());
+        }
+      }
+    }
+    if (dropped != null) {
+      dropped.forEach(waiting -> waiting.future.completeExceptionally(circuitOpen()));
+    }
+    next.forEach(this::start);
+  }
+
+  private void onSuccess(Call call, long rtt, long now) {
+    if (call.probe) {
+      state = State.CLOSED;
+      probing = false;
+      LOGGER.info("DataBlind API answered again, circuit closed");
+    }
+    consecutiveFailures = 0;
+    baselineNanos = baselineNanos == 0 ? rtt : Math.min(rtt, baselineNanos + baselineNanos / BASELINE_DRIFT);
+    if (!adaptive) {
+      return;
+    }
+    if (rtt > baselineNanos * LATENCY_TOLERANCE) {
+      decrease(call, now);
+    } else if ((inFlight + 1) * 2 >= limit) {
+      // only grow a limit that is used
+      limit = Math.min(maxLimit, limit + 1 / limit);
+    }
+  }
+
+  private void onFailure(Call call, long now) {
+    if (adaptive) {
+      decrease(call, now);
+    }
+    if (call.probe) {
+      open(now, "its probe call failed");
+    } else if (state == State.CLOSED && failureThreshold > 0 && ++consecutiveFailures >= failureThreshold) {
+      open(now, consecutiveFailures + " failures in a row");
+    }
+  }
+
+  /**
+   * Shrinks the limit, once for the calls that were in flight together.
+   */
+  private void decrease(Call call, long now) {
+    if (call.startedAt > lastDecreaseAt) {
+      limit = Math.max(1, limit * BACKOFF);
+      lastDecreaseAt = now;
+    }
+  }
+
+  private void open(long now, String reason) {
+    state = State.OPEN;
+    openedAt = now;
+    probing = false;
+    consecutiveFailures = 0;
+    openings++;
+    LOGGER.warn("DataBlind API circuit opened after " + reason + ", calls are refused for "
+        + TimeUnit.NANOSECONDS.toMillis(openNanos) + " ms");
+  }
+
+  private void expire(Call call) {
+    synchronized (lock) {
+      if (!queue.remove(call)) {
+        return;
+      }
+      rejected++;
+    }
+    call.future.completeExceptionally(new RejectedExecutionException("No DataBlind API request slot within "
+        + queueTimeoutMillis + " ms"));
+  }
+
+  private CircuitOpenException circuitOpen() {
+    return new CircuitOpenException("DataBlind API circuit is open, calls are refused for "
+        + TimeUnit.NANOSECONDS.toMillis(openNanos) + " ms after it opens");
+  }
+
+  private int currentLimit() {
+    return Math.max(1, (int) limit);
+  }
+
+  @Override
+  public int getConcurrencyLimit() {
+    synchronized (lock) {
+      return currentLimit();
+    }
+  }
+
+  @Override
+  public int getInFlightRequests() {
+    synchronized (lock) {
+      return inFlight;
+    }
+  }
+
+  @Override
+  public int getQueuedRequests() {
+    synchronized (lock) {
+      return queue.size();
+    }
+  }
+
+  @Override
+  public long getBaselineLatencyMicros() {
+    synchronized (lock) {
+      return (long) (baselineNanos / 1_000);
+    }
+  }
+
+  @Override
+  public String getCircuitState() {
+    synchronized (lock) {
+      return state.name();
+    }
+  }
+
+  @Override
+  public long getCircuitOpenings() {
+    synchronized (lock) {
+      return openings;
+    }
+  }
+
+  @Override
+  public long getCompletedRequests() {
+    synchronized (lock) {
+      return completed;
+    }
+  }
+
+  @Override
+  public long getFailedRequests() {
+    synchronized (lock) {
+      return failed;
+    }
+  }
+
+  @Override
+  public long getRejectedRequests() {
+    synchronized (lock) {
+      return rejected;
+    }
+  }
+
+  /**
+   * A call of the transport and its caller.
+   */
+  private static final class Call {
+
+    final Supplier<CompletableFuture<DBLNlpBatcher.Reply>> call;
+    final CompletableFuture<DBLNlpBatcher.Reply> future = new CompletableFuture<>();
+    boolean probe;
+    long startedAt;
+    volatile ScheduledFuture<?> timeout;
+
+    Call(Supplier<CompletableFuture<DBLNlpBatcher.Reply>> call) {
+      this.call = call;
+    }
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+/**
+ * JMX view of the concurrency limiter and circuit breaker in front of the DataGuard API, registered as
+ * {@code org.mule.extension.zt:type=DataBlind,config=<config name>,connection=ServiceGuard}.
+ */
+public interface DBLServiceGuardMXBean {
+
+  /**
+   * @return the number of API calls currently allowed in flight
+   */
+  int getConcurrencyLimit();
+
+  /**
+   * @return the number of API calls in flight
+   */
+  int getInFlightRequests();
+
+  /**
+   * @return the number of API calls waiting for a slot
+   */
+  int getQueuedRequests();
+
+  /**
+   * @return the round trip time the limiter takes as the latency of an unloaded API, in microseconds, 0 before the
+   *         first reply
+   */
+  long getBaselineLatencyMicros();
+
+  /**
+   * @return {@code CLOSED}, {@code OPEN} or {@code HALF_OPEN}
+   */
+  String getCircuitState();
+
+  /**
+   * @return the number of times the circuit opened
+   */
+  long getCircuitOpenings();
+
+  /**
+   * @return API calls answered, successfully or not
+   */
+  long getCompletedRequests();
+
+  /**
+   * @return API calls that failed, timed out or were answered with status 429 or 5xx
+   */
+  long getFailedRequests();
+
+  /**
+   * @return API calls not sent, because the limit was reached, the wait for a slot timed out or the circuit was open
+   */
+  long getRejectedRequests();
+}
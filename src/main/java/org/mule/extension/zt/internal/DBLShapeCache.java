@@ -0,0 +1,215 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded cache of the sensitive fields plans learned from the NLP service, keyed by document shape.
+ *
+ * <p>A shape is the fingerprint computed by {@link DBLShapeLearner#fingerprint(byte[])}: it covers field paths and
+ * value kinds, never values. A shape maps either to the plan that reproduces the NLP result for it, or to a marker
+ * saying that no such plan could be learned, so that the shape is not studied again on every call. Both expire
+ * after the time to live.</p>
+ *
+ * <p>Learned plans can be kept in a snapshot file so they survive restarts. The file holds fingerprints and field
+ * specifications only: no document values and no keys.</p>
+ */
+public final class DBLShapeCache {
+
+  private static final String SNAPSHOT_HEADER = "# DataBlind shape cache v1";
+
+  /**
+   * What is known about a shape.
+   */
+  static final class Entry {
+
+    private final DBLFieldPlan plan;
+    private final long expiresAt;
+
+    Entry(DBLFieldPlan plan, long expiresAt) {
+      this.plan = plan;
+      this.expiresAt = expiresAt;
+    }
+
+    /**
+     * @return the learned plan, or {@code null} if the shape could not be learned
+     */
+    DBLFieldPlan getPlan() {
+      return plan;
+    }
+  }
+
+  private final int maxEntries;
+  private final long ttlMillis;
+  private final Path snapshot;
+  private final LongSupplier clock;
+  private final Map<String, Entry> entries;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * @param maxEntries maximum number of shapes kept, 0 to disable the cache
+   * @param ttlMillis time after which what was learned about a shape is forgotten
+   * @param snapshot file the learned plans are loaded from and saved to, or {@code null}
+   */
+  public DBLShapeCache(int maxEntries, long ttlMillis, Path snapshot) {
+    this(maxEntries, ttlMillis, snapshot, System::currentTimeMillis);
+  }
+
+  DBLShapeCache(int maxEntries, long ttlMillis, Path snapshot, LongSupplier clock) {
+    this.maxEntries = Math.max(0, maxEntries);
+    this.ttlMillis = Math.max(1, ttlMillis);
+    this.snapshot = snapshot;
+    this.clock = clock;
+    int max = Math.max(1, this.maxEntries);
+    this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > max;
+      }
+    };
+  }
+
+  public boolean isEnabled() {
+    return maxEntries > 0;
+  }
+
+  /**
+   * @return what is known about the shape, or {@code null} if it was never seen or has expired
+   */
+  Entry get(String fingerprint) {
+    Entry entry;
+    synchronized (entries) {
+      entry = entries.get(fingerprint);
+      if (entry != null && entry.expiresAt <= clock.getAsLong()) {
+        entries.remove(fingerprint);
+        entry = null;
+      }
+    }
+    if (entry != null && entry.plan != null) {
+      hits.increment();
+    } else {
+      misses.increment();
+    }
+    return entry;
+  }
+
+  /**
+   * Records the plan learned for a shape, or {@code null} if none could be learned.
+   */
+  void put(String fingerprint, DBLFieldPlan plan) {
+    Entry entry = new Entry(plan, clock.getAsLong() + ttlMillis);
+    synchronized (entries) {
+      entries.put(fingerprint, entry);
+    }
+  }
+
+  /**
+   * Loads the learned plans of the snapshot file, skipping expired and unreadable lines.
+   *
+   * @return the number of plans loaded
+   */
+  int load() throws IOException {
+    if (snapshot == null || !Files.isRegularFile(snapshot)) {
+      return 0;
+    }
+    long now = clock.getAsLong();
+    int loaded = 0;
+    try (BufferedReader reader = Files.newBufferedReader(snapshot, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] parts = line.split("\t", 3);
+        if (line.startsWith("#") || parts.length != 3) {
+          continue;
+        }
+        try {
+          long expiresAt = Long.parseLong(parts[1]);
+          if (expiresAt > now) {
+            synchronized (entries) {
+              entries.put(parts[0], new Entry(DBLFieldPlan.compileCipherSpec(parts[2]), expiresAt));
+            }
+            loaded++;
+          }
+        } catch (IllegalArgumentException e) {
+          // a line we cannot use is a shape we learn again
+        }
+      }
+    }
+    return loaded;
+  }
+
+  /**
+   * Writes the learned plans to the snapshot file, replacing it atomically.
+   *
+   * @return the number of plans saved
+   */
+  int save() throws IOException {
+    if (snapshot == null) {
+      return 0;
+    }
+    List<String> lines = new ArrayList<>();
+    long now = clock.getAsLong();
+    synchronized (entries) {
+      for (Map.Entry<String, Entry> e : entries.entrySet()) {
+        Entry entry = e.getValue();
+        if (entry.plan != null && entry.expiresAt > now) {
+          lines.add(e.getKey() + '\t' + entry.expiresAt + '\t' + entry.plan.getSpec());
+        }
+      }
+    }
+    Path parent = snapshot.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    Path temp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+    try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+      writer.write(SNAPSHOT_HEADER);
+      writer.newLine();
+      for (String line : lines) {
+        writer.write(line);
+        writer.newLine();
+      }
+    }
+    Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return lines.size();
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import com.ztensor.datacrypt.*;
+
+/**
+ * Computes document shapes and learns, from one NLP round trip, a sensitive fields plan that encrypts documents of
+ * that shape locally with the same result.
+ *
+ * <p>The NLP service returns the protected document, not the fields it chose. The learner compares the request
+ * with the response to find the values that changed, then recovers the cipher type of each changed path by
+ * encrypting the original values locally with each format preserving type until one reproduces the service output.
+ * Format preserving encryption is deterministic for a key and tweak, which is what makes this possible. A plan is
+ * only returned after encrypting the whole request with it reproduces the whole response.</p>
+ */
+final class DBLShapeLearner {
+
+  private static final String MODE = "FE";
+
+  private DBLShapeLearner() {
+  }
+
+  /**
+   * Computes the fingerprint of the shape of a JSON document: the paths of its values, with array levels marked,
+   * and the kind of each value. Values themselves do not contribute, and neither do array lengths or member order.
+   */
+  static String fingerprint(byte[] json) throws Exception {
+    TreeSet<String> shape = new TreeSet<>();
+    Walker walker = new Walker(json);
+    int token;
+    while ((token = walker.next()) != DBLJsonScanner.END_OF_INPUT) {
+      char kind = kind(token);
+      if (kind != 0) {
+        shape.add(walker.shape() + ':' + kind);
+      }
+    }
+    return DBLEngineCache.digest(String.join("\n", shape));
+  }
+
+  /**
+   * Learns the plan that turns {@code request} into {@code response}.
+   *
+   * @return the plan, or {@code null} if the response cannot be reproduced locally
+   * @throws IOException if either document cannot be read, or the response is not the request with some values
+   *         changed, for example an error message
+   */
+  static DBLFieldPlan learn(JsonDataCrypt engine, String request, String response, String tweak,
+                            String overRideToken, String passPhrase) throws Exception {
+    Map<String, List<String[]>> changed = changedValues(request.getBytes(StandardCharsets.UTF_8),
+        response.getBytes(StandardCharsets.UTF_8));
+    if (changed == null) {
+      throw new IOException("The NLP response does not have the structure of the request");
+    }
+    if (changed.isEmpty() || changed.containsKey("")) {
+      return null;
+    }
+    StringBuilder spec = new StringBuilder().append('{');
+    for (Map.Entry<String, List<String[]>> path : changed.entrySet()) {
+      DBLCipherType type = recoverType(engine, path.getValue(), tweak, overRideToken, passPhrase);
+      if (type == null) {
+        return null;
+      }
+      if (spec.length() > 1) {
+        spec.append(',');
+      }
+      spec.append(DBLJsonScanner.quote(path.getKey())).append(':')
+          .append(DBLJsonScanner.quote(MODE + ":" + type.getSpecToken()));
+    }
+    DBLFieldPlan plan = DBLFieldPlan.compileCipherSpec(spec.append('}').toString());
+
+    String local = engine.transform("Encrypt", tweak, request, plan.getSpec(), overRideToken, passPhrase);
+    return local != null && sameDocument(local.getBytes(StandardCharsets.UTF_8),
+        response.getBytes(StandardCharsets.UTF_8)) ? plan : null;
+  }
+
+  /**
+   * Lists, by path, the raw values that differ between two documents of the same structure as
+   * {@code {original, protected}} pairs.
+   *
+   * @return the changed values, or {@code null} if the structures differ
+   */
+  static Map<String, List<String[]>> changedValues(byte[] request, byte[] response) throws IOException {
+    Map<String, List<String[]>> changed = new LinkedHashMap<>();
+    Walker before = new Walker(request);
+    Walker after = new Walker(response);
+    while (true) {
+      int token = before.next();
+      int other = after.next();
+      boolean scalars = DBLJsonScanner.isScalar(token) && DBLJsonScanner.isScalar(other);
+      if (token != other && !scalars) {
+        return null;
+      }
+      if (token == DBLJsonScanner.END_OF_INPUT) {
+        return changed;
+      }
+      if (token == DBLJsonScanner.FIELD_NAME && !before.name().equals(after.name())) {
+        return null;
+      }
+      if (scalars && !before.raw().equals(after.raw())) {
+        changed.computeIfAbsent(before.path(), k -> new ArrayList<>()).add(new String[] {before.raw(), after.raw()});
+      }
+    }
+  }
+
+  private static DBLCipherType recoverType(JsonDataCrypt engine, List<String[]> values, String tweak,
+                                           String overRideToken, String passPhrase) {
+    String[] originals = new String[values.size()];
+    for (int i = 0; i < originals.length; i++) {
+      originals[i] = values.get(i)[0];
+    }
+    for (DBLCipherType type : DBLCipherType.values()) {
+      String[] specs = new String[originals.length];
+      Arrays.fill(specs, MODE + ":" + type.getSpecToken());
+      try {
+        String[] results = DBLFieldCipher.transform(engine, "Encrypt", tweak, specs, originals, overRideToken,
+            passPhrase);
+        boolean reproduced = true;
+        for (int i = 0; i < results.length && reproduced; i++) {
+          reproduced = results[i].equals(values.get(i)[1]);
+        }
+        if (reproduced) {
+          return type;
+        }
+      } catch (Exception e) {
+        // the values do not fit this type
+      }
+    }
+    return null;
+  }
+
+  private static boolean sameDocument(byte[] left, byte[] right) throws IOException {
+    Map<String, List<String[]>> differences = changedValues(left, right);
+    return differences != null && differences.isEmpty();
+  }
+
+  private static char kind(int token) {
+    switch (token) {
+      case DBLJsonScanner.START_OBJECT: return 'O';
+      case DBLJsonScanner.START_ARRAY: return 'A';
+      case DBLJsonScanner.STRING: return 'S';
+      case DBLJsonScanner.NUMBER: return 'N';
+      case DBLJsonScanner.TRUE:
+      case DBLJsonScanner.FALSE: return 'B';
+      case DBLJsonScanner.NULL: return 'Z';
+      default: return 0;
+    }
+  }
+
+  /**
+   * Walks a document keeping the path of the current value: {@link #path()} in the dotted form of sensitive fields
+   * specifications (arrays are transparent) and {@link #shape()} with array levels marked by {@code []}.
+   */
+  static final class Walker {
+
+    private final DBLJsonScanner scanner;
+    private final List<String> paths = new ArrayList<>();
+    private final List<String> shapes = new ArrayList<>();
+    private final List<Boolean> objects = new ArrayList<>();
+    private String name;
+    private String path = "";
+    private String shape = "";
+    private String raw;
+
+    Walker(byte[] json) {
+      this.scanner = new DBLJsonScanner(json);
+    }
+
+    int next() throws IOException {
+      int token = scanner.next(true);
+      switch (token) {
+        case DBLJsonScanner.END_OF_INPUT:
+          return token;
+        case DBLJsonScanner.FIELD_NAME:
+          name = scanner.fieldName();
+          return token;
+        case DBLJsonScanner.END_OBJECT:
+        case DBLJsonScanner.END_ARRAY:
+          int last = paths.size() - 1;
+          path = paths.remove(last);
+          shape = shapes.remove(last);
+          objects.remove(last);
+          return token;
+        default:
+          int open = paths.size();
+          if (open == 0) {
+            path = "";
+            shape = "";
+          } else if (objects.get(open - 1)) {
+            String parent = paths.get(open - 1);
+            path = parent.isEmpty() ? name : parent + "." + name;
+            shape = shapes.get(open - 1) + "." + name;
+          } else {
+            path = paths.get(open - 1);
+            shape = shapes.get(open - 1) + "[]";
+          }
+          if (token == DBLJsonScanner.START_OBJECT || token == DBLJsonScanner.START_ARRAY) {
+            paths.add(path);
+            shapes.add(shape);
+            objects.add(token == DBLJsonScanner.START_OBJECT);
+            raw = null;
+          } else {
+            raw = scanner.captured();
+          }
+          return token;
+      }
+    }
+
+    String name() {
+      return name;
+    }
+
+    String path() {
+      return path;
+    }
+
+    String shape() {
+      return shape;
+    }
+
+    /**
+     * @return the raw JSON text of the last scalar value
+     */
+    String raw() {
+      return raw;
+    }
+  }
+}
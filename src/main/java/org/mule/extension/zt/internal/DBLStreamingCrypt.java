@@ -0,0 +1,286 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An {@link InputStream} that reads a JSON document from a source stream and yields it with the sensitive fields of
+ * a {@link DBLFieldPlan} transformed.
+ *
+ * <p>The document is tokenized incrementally as the consumer reads, so nothing is held beyond the tokenizer buffer,
+ * the stack of open containers and a bounded window of output. Everything outside the sensitive fields, blanks
+ * included, is copied through unchanged. Matched values are collected into blocks of up to {@code maxBlockValues}
+ * values (or until {@code maxHeldBytes} of output wait behind them) and each block is transformed with a single
+ * {@link DBLFieldCipher.BlockTransform} call.</p>
+ */
+final class DBLStreamingCrypt extends InputStream {
+
+  static final int DEFAULT_BLOCK_VALUES = 256;
+  static final int DEFAULT_HELD_BYTES = 256 * 1024;
+
+  private final InputStream source;
+  private final DBLJsonScanner scanner;
+  private final DBLFieldCipher.BlockTransform transform;
+  private final int maxBlockValues;
+  private final int maxHeldBytes;
+
+  private final DBLPathTracker tracker;
+
+  private final HeldOutput output = new HeldOutput();
+  private boolean finished;
+
+  DBLStreamingCrypt(InputStream source, DBLFieldPlan plan, DBLFieldCipher.BlockTransform transform) {
+    this(source, plan, transform, DEFAULT_BLOCK_VALUES, DEFAULT_HELD_BYTES);
+  }
+
+  DBLStreamingCrypt(InputStream source, DBLFieldPlan plan, DBLFieldCipher.BlockTransform transform,
+                    int maxBlockValues, int maxHeldBytes) {
+    this.source = source;
+    this.scanner = new DBLJsonScanner(source);
+    this.scanner.setEcho(output);
+    this.transform = transform;
+    this.maxBlockValues = Math.max(1, maxBlockValues);
+    this.maxHeldBytes = Math.max(1, maxHeldBytes);
+    this.tracker = new DBLPathTracker(scanner, plan.getTrie());
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] one = new byte[1];
+    int n = read(one, 0, 1);
+    return n < 0 ? -1 : one[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    while (output.readable() == 0) {
+      if (finished) {
+        return -1;
+      }
+      step();
+    }
+    return output.drain(b, off, len);
+  }
+
+  @Override
+  public int available() {
+    return output.readable();
+  }
+
+  @Override
+  public void close() throws IOException {
+    finished = true;
+    source.close();
+  }
+
+  /**
+   * Consumes one token, releasing output once it no longer waits on pending values.
+   */
+  private void step() throws IOException {
+    boolean capture = tracker.captureNext();
+    int token = scanner.next(capture);
+    tracker.advance(token);
+    switch (token) {
+      case DBLJsonScanner.END_OF_INPUT:
+        resolve();
+        finished = true;
+        return;
+      case DBLJsonScanner.NULL:
+      case DBLJsonScanner.TRUE:
+      case DBLJsonScanner.FALSE:
+        if (capture) {
+          // nothing to protect in a literal, put it back as it was
+          byte[] literal = scanner.captured().getBytes(StandardCharsets.US_ASCII);
+          output.write(literal, 0, literal.length);
+        }
+        return;
+      case DBLJsonScanner.STRING:
+      case DBLJsonScanner.NUMBER:
+        if (capture) {
+          output.hold(tracker.lastNode().field().getCipherSpec(), scanner.captured());
+          if (output.heldValues() >= maxBlockValues || output.heldBytes() >= maxHeldBytes) {
+            resolve();
+          }
+        }
+        return;
+    }
+  }
+
+  private void resolve() throws IOException {
+    if (output.heldValues() == 0) {
+      return;
+    }
+    String[] results;
+    try {
+      results = transform.apply(output.heldSpecs(), output.heldRawValues());
+    } catch (IOException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IOException("DataBlind field transformation failed: " + e.getMessage(), e);
+    }
+    output.release(results);
+  }
+
+  /**
+   * Output sink of the scanner. While no value is pending, bytes go straight to the readable buffer; once a value
+   * is held, following bytes are parked behind it until the block is resolved.
+   */
+  private static final class HeldOutput extends OutputStream {
+
+    private byte[] ready = new byte[8 * 1024];
+    private int readyStart;
+    private int readyEnd;
+
+    private final List<byte[]> parked = new ArrayList<>();
+    private final List<String> specs = new ArrayList<>();
+    private final List<String> rawValues = new ArrayList<>();
+    private final ByteSink current = new ByteSink();
+    private int heldBytes;
+
+    @Override
+    public void write(int b) {
+      if (specs.isEmpty()) {
+        ensureReady(1);
+        ready[readyEnd++] = (byte) b;
+      } else {
+        current.write(b);
+        heldBytes++;
+      }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      if (specs.isEmpty()) {
+        ensureReady(len);
+        System.arraycopy(b, off, ready, readyEnd, len);
+        readyEnd += len;
+      } else {
+        current.write(b, off, len);
+        heldBytes += len;
+      }
+    }
+
+    void hold(String spec, String rawValue) {
+      if (!specs.isEmpty()) {
+        parked.add(current.toByteArray());
+        current.reset();
+      }
+      specs.add(spec);
+      rawValues.add(rawValue);
+    }
+
+    int heldValues() {
+      return specs.size();
+    }
+
+    int heldBytes() {
+      return heldBytes;
+    }
+
+    String[] heldSpecs() {
+      return specs.toArray(new String[0]);
+    }
+
+    String[] heldRawValues() {
+      return rawValues.toArray(new String[0]);
+    }
+
+    /**
+     * Writes the transformed values, interleaved with the bytes parked behind each of them, to the readable buffer.
+     */
+    void release(String[] results) {
+      parked.add(current.toByteArray());
+      current.reset();
+      specs.clear();
+      rawValues.clear();
+      heldBytes = 0;
+      for (int i = 0; i < results.length; i++) {
+        byte[] value = results[i].getBytes(StandardCharsets.UTF_8);
+        write(value, 0, value.length);
+        byte[] after = parked.get(i);
+        write(after, 0, after.length);
+      }
+      parked.clear();
+    }
+
+    int readable() {
+      return readyEnd - readyStart;
+    }
+
+    int drain(byte[] b, int off, int len) {
+      int n = Math.min(len, readable());
+      System.arraycopy(ready, readyStart, b, off, n);
+      readyStart += n;
+      if (readyStart == readyEnd) {
+        readyStart = readyEnd = 0;
+      }
+      return n;
+    }
+
+    private void ensureReady(int len) {
+      if (readyEnd + len <= ready.length) {
+        return;
+      }
+      int live = readable();
+      if (live + len <= ready.length) {
+        System.arraycopy(ready, readyStart, ready, 0, live);
+      } else {
+        byte[] grown = new byte[Math.max(ready.length * 2, live + len)];
+        System.arraycopy(ready, readyStart, grown, 0, live);
+        ready = grown;
+      }
+      readyStart = 0;
+      readyEnd = live;
+    }
+  }
+
+  /**
+   * A {@link java.io.ByteArrayOutputStream} without synchronization.
+   */
+  private static final class ByteSink {
+
+    private byte[] bytes = new byte[256];
+    private int count;
+
+    void write(int b) {
+      grow(1);
+      bytes[count++] = (byte) b;
+    }
+
+    void write(byte[] b, int off, int len) {
+      grow(len);
+      System.arraycopy(b, off, bytes, count, len);
+      count += len;
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(bytes, count);
+    }
+
+    void reset() {
+      count = 0;
+    }
+
+    private void grow(int len) {
+      if (count + len > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, count + len));
+      }
+    }
+  }
+}
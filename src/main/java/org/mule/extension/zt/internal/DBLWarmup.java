@@ -0,0 +1,210 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs synthetic work through the engines of a configuration when it starts, so that class loading, key setup and
+ * JIT compilation of the cipher types do not land on the first messages.
+ *
+ * <p>Every cipher type of {@link DBLTypeProvider} is first used on its own, in each of {@link #MODES}, so that a type
+ * the engine rejects is logged and left out rather than failing the others. The types that work are then put in
+ * one document of sample values, which goes through encryption, decryption and filtering for the requested number
+ * of iterations, or until the time limit. The values vary with the iteration so that no cache short-cuts the
+ * work.</p>
+ */
+final class DBLWarmup implements DBLWarmupMXBean {
+
+  static final String[] MODES = {"FE", "AES"};
+
+  private static final String TWEAK = "datablind-warmup";
+  private static final String NO_TOKEN = "NOTOKEN";
+  private static final String NO_PASSPHRASE = "NOPASSPHRASE";
+
+  /**
+   * One round of work on a document.
+   */
+  @FunctionalInterface
+  interface Exercise {
+    /**
+     * @param document a clear JSON document
+     * @param cipherSpec the cipher specification of its sensitive fields
+     * @param paths the same fields as a path list
+     */
+    void run(String document, String cipherSpec, String paths) throws Exception;
+  }
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DBLWarmup.class);
+
+  private final Exercise exercise;
+  private final int iterations;
+  private final long timeoutMillis;
+  private final LongSupplier clock;
+
+  private final List<String> failed = Collections.synchronizedList(new ArrayList<>());
+  private volatile boolean complete;
+  private volatile long durationMillis = -1;
+  private volatile int iterationsRun;
+  private volatile int cipherTypes;
+
+  /**
+   * @param iterations number of iterations over the document of every cipher type
+   * @param timeoutMillis time after which no further iteration is started
+   */
+  DBLWarmup(Exercise exercise, int iterations, long timeoutMillis) {
+    this(exercise, iterations, timeoutMillis, System::currentTimeMillis);
+  }
+
+  DBLWarmup(Exercise exercise, int iterations, long timeoutMillis, LongSupplier clock) {
+    this.exercise = exercise;
+    this.iterations = Math.max(0, iterations);
+    this.timeoutMillis = Math.max(0, timeoutMillis);
+    this.clock = clock;
+  }
+
+  /**
+   * The exercise of a configuration: EncryptJson, DecryptJson and reduceJson through the engine, the block transform
+   * of the streaming and parallel operations, and the local filter.
+   */
+  static Exercise of(DBLEngineCache engines) {
+    return (document, cipherSpec, paths) -> {
+      DBLFieldPlan plan = DBLFieldPlan.compileCipherSpec(cipherSpec);
+      DBLFieldPlan pathPlan = DBLFieldPlan.compilePathList(paths);
+      engines.execute(engine -> {
+        String encrypted = engine.transform("Encrypt", TWEAK, document, plan.getSpec(), NO_TOKEN, NO_PASSPHRASE);
+        engine.transform("Decrypt", TWEAK, encrypted, plan.getSpec(), NO_TOKEN, NO_PASSPHRASE);
+        engine.reduceJson(DBLJsonFilter.REMOVE, document, pathPlan.getSpec(), NO_TOKEN, NO_PASSPHRASE);
+        byte[] bytes = document.getBytes(StandardCharsets.UTF_8);
+        DBLParallelCrypt.transformFields(bytes, DBLParallelCrypt.locate(bytes, plan), (specs, rawValues) ->
+            DBLFieldCipher.transform(engine, "Encrypt", TWEAK, specs, rawValues, NO_TOKEN, NO_PASSPHRASE));
+        return null;
+      });
+      DBLJsonFilter.filter(document, pathPlan, false);
+    };
+  }
+
+  /**
+   * Runs the warm-up on the calling thread. Failures are logged, never thrown.
+   */
+  void run() {
+    long started = clock.getAsLong();
+    long deadline = started + timeoutMillis;
+    List<DBLCipherType> types = new ArrayList<>();
+    List<String> modes = new ArrayList<>();
+    for (String mode : MODES) {
+      for (DBLCipherType type : DBLCipherType.values()) {
+        String spec = mode + ":" + type.getSpecToken();
+        try {
+          exercise.run(document(Collections.singletonList(type), Collections.singletonList(mode), 0),
+              cipherSpec(Collections.singletonList(type), Collections.singletonList(mode)),
+              paths(Collections.singletonList(type), Collections.singletonList(mode)));
+          types.add(type);
+          modes.add(mode);
+        } catch (Exception | LinkageError e) {
+          LOGGER.warn("DataBlind warm-up could not use cipher type " + spec + ": " + e);
+          failed.add(spec);
+        }
+      }
+    }
+    cipherTypes = types.size();
+    int run = 0;
+    if (!types.isEmpty()) {
+      String cipherSpec = cipherSpec(types, modes);
+      String paths = paths(types, modes);
+      while (run < iterations && clock.getAsLong() < deadline) {
+        try {
+          exercise.run(document(types, modes, run + 1), cipherSpec, paths);
+        } catch (Exception | LinkageError e) {
+          LOGGER.warn("DataBlind warm-up stopped after " + run + " iterations: " + e);
+          break;
+        }
+        iterationsRun = ++run;
+      }
+    }
+    durationMillis = clock.getAsLong() - started;
+    complete = true;
+    LOGGER.info("DataBlind warm-up: " + cipherTypes + " cipher types, " + run + " iterations in " + durationMillis
+        + " ms" + (failed.isEmpty() ? "" : ", unusable cipher types " + failed));
+  }
+
+  @Override
+  public boolean isComplete() {
+    return complete;
+  }
+
+  @Override
+  public long getDurationMillis() {
+    return durationMillis;
+  }
+
+  @Override
+  public int getIterations() {
+    return iterationsRun;
+  }
+
+  @Override
+  public int getCipherTypes() {
+    return cipherTypes;
+  }
+
+  @Override
+  public List<String> getFailedCipherTypes() {
+    synchronized (failed) {
+      return new ArrayList<>(failed);
+    }
+  }
+
+  static String document(List<DBLCipherType> types, List<String> modes, int n) {
+    StringBuilder json = new StringBuilder(64 * types.size()).append('{');
+    for (int i = 0; i < types.size(); i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append('"').append(field(types.get(i), modes.get(i))).append("\":")
+          .append(DBLJsonScanner.quote(types.get(i).sample(n)));
+    }
+    return json.append('}').toString();
+  }
+
+  private static String cipherSpec(List<DBLCipherType> types, List<String> modes) {
+    StringBuilder spec = new StringBuilder(32 * types.size()).append('{');
+    for (int i = 0; i < types.size(); i++) {
+      if (i > 0) {
+        spec.append(',');
+      }
+      spec.append('"').append(field(types.get(i), modes.get(i))).append("\":\"").append(modes.get(i)).append(':')
+          .append(types.get(i).getSpecToken()).append('"');
+    }
+    return spec.append('}').toString();
+  }
+
+  private static String paths(List<DBLCipherType> types, List<String> modes) {
+    StringBuilder paths = new StringBuilder();
+    for (int i = 0; i < types.size(); i++) {
+      if (i > 0) {
+        paths.append(',');
+      }
+      paths.append(field(types.get(i), modes.get(i)));
+    }
+    return paths.toString();
+  }
+
+  private static String field(DBLCipherType type, String mode) {
+    return mode.toLowerCase(Locale.ROOT) + "_" + type.name().toLowerCase(Locale.ROOT);
+  }
+}
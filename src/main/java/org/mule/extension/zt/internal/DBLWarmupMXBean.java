@@ -0,0 +1,43 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import java.util.List;
+
+/**
+ * JMX view of the warm-up of one DataBlind configuration, registered as
+ * {@code org.mule.extension.zt:type=DataBlind,config=<config name>,phase=WarmUp}.
+ */
+public interface DBLWarmupMXBean {
+
+  /**
+   * @return true once the warm-up has finished, whether or not every cipher type could be used
+   */
+  boolean isComplete();
+
+  /**
+   * @return time the warm-up took, in milliseconds, -1 before it finishes
+   */
+  long getDurationMillis();
+
+  /**
+   * @return synthetic iterations run, which is fewer than requested when the time limit was reached
+   */
+  int getIterations();
+
+  /**
+   * @return {@code MODE:TYPE} cipher specifications initialized
+   */
+  int getCipherTypes();
+
+  /**
+   * @return the {@code MODE:TYPE} cipher specifications the engine could not use
+   */
+  List<String> getFailedCipherTypes();
+}
@@ -1,44 +1,44 @@
-/*
- * Copyright 2025 ZTensor, Inc. All rights reserved.
- * This software is proprietary and confidential. Unauthorized copying, 
- * distribution, or use of this software, via any medium, is strictly prohibited.
- * 
- * This software is licensed for commercial use only. For licensing information,
- * please contact ZTensor, Inc.
- */
-package org.mule.extension.zt;
-
-import static org.hamcrest.MatcherAssert.assertThat;
-import static org.hamcrest.core.Is.is;
-import org.mule.functional.junit4.MuleArtifactFunctionalTestCase;
-import org.junit.Test;
-
-public class CWOperationsTestCase extends MuleArtifactFunctionalTestCase {
-
-  /**
-   * Specifies the mule config xml with the flows that are going to be executed in the tests, this file lives in the test resources.
-   */
-  @Override
-  protected String getConfigFile() {
-    return "test-mule-config.xml";
-  }
-
-  @Test
-  public void executeSayHiOperation() throws Exception {
-    String payloadValue = ((String) flowRunner("sayHiFlow").run()
-                                      .getMessage()
-                                      .getPayload()
-                                      .getValue());
-    assertThat(payloadValue, is("Hello Mariano Gonzalez!!!"));
-  }
-
-  @Test
-  public void executeRetrieveInfoOperation() throws Exception {
-    String payloadValue = ((String) flowRunner("retrieveInfoFlow")
-                                      .run()
-                                      .getMessage()
-                                      .getPayload()
-                                      .getValue());
-    assertThat(payloadValue, is("Using Configuration [configId] with Connection id [aValue:100]"));
-  }
-}
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import org.mule.functional.junit4.MuleArtifactFunctionalTestCase;
+import org.junit.Test;
+
+public class CWOperationsTestCase extends MuleArtifactFunctionalTestCase {
+
+  /**
+   * Specifies the mule config xml with the flows that are going to be executed in the tests, this file lives in the test resources.
+   */
+  @Override
+  protected String getConfigFile() {
+    return "test-mule-config.xml";
+  }
+
+  @Test
+  public void executeSayHiOperation() throws Exception {
+    String payloadValue = ((String) flowRunner("sayHiFlow").run()
+                                      .getMessage()
+                                      .getPayload()
+                                      .getValue());
+    assertThat(payloadValue, is("Hello Mariano Gonzalez!!!"));
+  }
+
+  @Test
+  public void executeRetrieveInfoOperation() throws Exception {
+    String payloadValue = ((String) flowRunner("retrieveInfoFlow")
+                                      .run()
+                                      .getMessage()
+                                      .getPayload()
+                                      .getValue());
+    assertThat(payloadValue, is("Using Configuration [configId] with Connection id [aValue:100]"));
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import org.junit.Test;
+
+/**
+ * Checks the phase timings and field counts returned as {@link DBLAttributes}.
+ */
+public class DBLAttributesTestCase {
+
+  private static final String SENSITIVE_FIELDS =
+      "{'name':'FE:PERSON_NAME','contact.email':'FE:EMAIL_ADDRESS','claims[*].ssn':'FE:SSN','alias':'FE:NAME'}";
+
+  @Test
+  public void phasesAccumulate() throws Exception {
+    DBLPhaseTimer timer = DBLPhaseTimer.of(true);
+    long started = timer.start();
+    Thread.sleep(2);
+    timer.stop(DBLPhaseTimer.Phase.CRYPTO, started);
+    long cryptoNanos = timer.nanos(DBLPhaseTimer.Phase.CRYPTO);
+    started = timer.start();
+    timer.stop(DBLPhaseTimer.Phase.CRYPTO, started);
+    DBLAttributes attributes = new DBLAttributes(timer, 5_000_000, 10, 20);
+    assertThat(cryptoNanos >= 2_000_000, is(true));
+    assertThat(attributes.getCryptoNanos() >= cryptoNanos, is(true));
+    assertThat(attributes.getParseNanos(), is(0L));
+    assertThat(attributes.getRemoteNanos(), is(0L));
+    assertThat(attributes.getTotalNanos(), is(5_000_000L));
+    assertThat(attributes.getOutputBytes(), is(20L));
+  }
+
+  @Test
+  public void disabledTimingsAreMinusOne() {
+    DBLPhaseTimer timer = DBLPhaseTimer.of(false);
+    timer.stop(DBLPhaseTimer.Phase.PARSE, timer.start());
+    timer.fieldsRequested(DBLFieldPlan.compileCipherSpec(SENSITIVE_FIELDS));
+    DBLAttributes attributes = new DBLAttributes(timer, 5_000_000, 10, 20);
+    assertThat(attributes.getTotalNanos(), is(-1L));
+    assertThat(attributes.getParseNanos(), is(-1L));
+    assertThat(attributes.getCryptoNanos(), is(-1L));
+    assertThat(attributes.getInputBytes(), is(10L));
+    assertThat(attributes.getFieldsRequested().size(), is(3));
+  }
+
+  @Test
+  public void fieldsAreCountedByCipherType() {
+    DBLPhaseTimer timer = DBLPhaseTimer.of(true);
+    timer.fieldsRequested(DBLFieldPlan.compileCipherSpec(SENSITIVE_FIELDS));
+    DBLAttributes attributes = new DBLAttributes(timer, 0, 0, 0);
+    assertThat(attributes.getFieldsRequested().get("PersonName"), is(2));
+    assertThat(attributes.getFieldsRequested().get("EmailAddress"), is(1));
+    assertThat(attributes.getFieldsRequested().get("SSN"), is(1));
+  }
+
+  @Test
+  public void sharedTimerKeepsNothing() {
+    DBLPhaseTimer.OFF.fieldsRequested(DBLFieldPlan.compileCipherSpec(SENSITIVE_FIELDS));
+    assertThat(new DBLAttributes(DBLPhaseTimer.OFF, 0, -1, -1).getFieldsRequested().isEmpty(), is(true));
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Checks how {@link DBLBatchCrypt#split(byte[])} slices a JSON array or newline delimited JSON into records, and that
+ * {@link DBLBatchCrypt#run(byte[], int, int)} keeps their order across parallel chunks and reports failed records.
+ */
+public class DBLBatchCryptTestCase {
+
+  private static final DBLFieldPlan PLAN = DBLFieldPlan.compileCipherSpec("{'ssn':'FE:SSN'}");
+
+  private final ForkJoinPool pool = new ForkJoinPool(4);
+  private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+  // "x" -> "<x>", slowly enough for the chunks to spread over the workers; "bad" fails
+  private final DBLFieldCipher.BlockTransform brackets = (cipherSpecs, rawValues) -> {
+    threads.add(Thread.currentThread());
+    Thread.sleep(1);
+    String[] results = new String[rawValues.length];
+    for (int i = 0; i < rawValues.length; i++) {
+      if (rawValues[i].equals("\"bad\"")) {
+        throw new IllegalStateException("cannot protect " + rawValues[i]);
+      }
+      results[i] = "\"<" + rawValues[i].substring(1, rawValues[i].length() - 1) + ">\"";
+    }
+    return results;
+  };
+
+  @After
+  public void shutdownPool() {
+    pool.shutdown();
+  }
+
+  @Test
+  public void parallelChunksKeepTheOrderOfTheRecords() throws Exception {
+    StringBuilder input = new StringBuilder("[");
+    StringBuilder expected = new StringBuilder("{\"records\":[");
+    for (int i = 0; i < 100; i++) {
+      String separator = i > 0 ? "," : "";
+      input.append(separator).append("{\"id\":").append(i).append(",\"ssn\":\"s").append(i).append("\"}");
+      expected.append(separator).append("{\"id\":").append(i).append(",\"ssn\":\"<s").append(i).append(">\"}");
+    }
+    String result = run(input.append(']').toString(), 4, 3);
+    assertThat(result, is(expected.append("],\"errors\":[]}").toString()));
+    // the calling thread takes chunks along with the workers of the pool
+    assertThat(threads.contains(Thread.currentThread()), is(true));
+    assertThat(threads.size() > 1, is(true));
+  }
+
+  @Test
+  public void singleWorkerIsTheCallingThread() throws Exception {
+    String result = run("{\"ssn\":\"a\"}\n{\"ssn\":\"b\"}\n{\"ssn\":\"c\"}\n", 1, 1);
+    assertThat(result, is("{\"records\":[{\"ssn\":\"<a>\"},{\"ssn\":\"<b>\"},{\"ssn\":\"<c>\"}],\"errors\":[]}"));
+    assertThat(threads, is(Set.of(Thread.currentThread())));
+  }
+
+  @Test
+  public void failedRecordIsReportedWithoutFailingTheBatch() throws Exception {
+    String result = run("[{\"ssn\":\"a\"},{\"ssn\":\"b\"},{\"ssn\":\"bad\"},{\"ssn\":\"c\"},{\"name\":\"d\"}]", 2, 2);
+    assertThat(result, is("{\"records\":[{\"ssn\":\"<a>\"},{\"ssn\":\"<b>\"},null,{\"ssn\":\"<c>\"},{\"name\":\"d\"}],"
+        + "\"errors\":[{\"index\":2,\"error\":\"java.lang.IllegalStateException: cannot protect \\\"bad\\\"\"}]}"));
+  }
+
+  @Test
+  public void emptyBatchHasNoRecordsAndNoErrors() throws Exception {
+    assertThat(run("[]", 4, 10), is("{\"records\":[],\"errors\":[]}"));
+    assertThat(run("", 4, 10), is("{\"records\":[],\"errors\":[]}"));
+    assertThat(threads.isEmpty(), is(true));
+  }
+
+  @Test
+  public void arrayElementsAreRecords() throws IOException {
+    assertThat(split("[ {\"a\":[1,{\"b\":\"]\"}]}, [2,3],\"x\\\"\", 4 , null ]"),
+        is(List.of("{\"a\":[1,{\"b\":\"]\"}]}", "[2,3]", "\"x\\\"\"", "4", "null")));
+  }
+
+  @Test
+  public void emptyArrayHasNoRecords() throws IOException {
+    assertThat(split(" [ ] ").isEmpty(), is(true));
+  }
+
+  @Test
+  public void newlineDelimitedDocumentsAreRecords() throws IOException {
+    assertThat(split("{\"a\":1}\n{\"b\":{\"c\":[\"\u6771\"]}}\r\n\n{\"d\":\"\\n\"}\n"),
+        is(List.of("{\"a\":1}", "{\"b\":{\"c\":[\"\u6771\"]}}", "{\"d\":\"\\n\"}")));
+  }
+
+  @Test
+  public void contentAfterTheArrayFails() {
+    boolean failed = false;
+    try {
+      split("[{\"a\":1}] {\"b\":2}");
+    } catch (IOException e) {
+      failed = true;
+    }
+    assertThat(failed, is(true));
+  }
+
+  @Test
+  public void unterminatedArrayFails() {
+    boolean failed = false;
+    try {
+      split("[{\"a\":1},");
+    } catch (IOException e) {
+      failed = true;
+    }
+    assertThat(failed, is(true));
+  }
+
+  private String run(String input, int parallelism, int chunkSize) throws Exception {
+    return new DBLBatchCrypt(pool, PLAN, brackets).run(input.getBytes(StandardCharsets.UTF_8), parallelism, chunkSize);
+  }
+
+  private static List<String> split(String input) throws IOException {
+    return DBLBatchCrypt.split(input.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.lang.reflect.Field;
+
+import org.junit.Test;
+
+import org.mule.runtime.api.exception.MuleException;
+
+/**
+ * Checks that {@link DBLConfiguration#start()} creates the configured field detector, and builds no engines or
+ * worker threads when the detector cannot be created.
+ */
+public class DBLConfigurationTestCase {
+
+  @Test
+  public void unknownDetectorFailsTheStartBeforeTheEngines() throws Exception {
+    DBLConfiguration configuration = configuration("org.example.MissingDetector");
+    try {
+      configuration.start();
+      assertThat("the start fails", false);
+    } catch (MuleException e) {
+      assertThat(e.getCause() instanceof ClassNotFoundException, is(true));
+    }
+    assertThat(notStarted(configuration::getWorkerPool), is(true));
+    assertThat(notStarted(configuration::getEngineCache), is(true));
+    assertThat(notStarted(configuration::getMemoCache), is(true));
+  }
+
+  @Test
+  public void configuredDetectorIsCreated() throws Exception {
+    DBLConfiguration configuration = configuration(DBLLocalFieldDetector.class.getName());
+    configuration.start();
+    try {
+      assertThat(configuration.getFieldDetector() instanceof DBLLocalFieldDetector, is(true));
+      assertThat(configuration.getWorkerPool().isShutdown(), is(false));
+    } finally {
+      configuration.stop();
+    }
+  }
+
+  private static DBLConfiguration configuration(String fieldDetectorClass) throws ReflectiveOperationException {
+    DBLConfiguration configuration = new DBLConfiguration();
+    set(configuration, "configName", "configuration-test");
+    set(configuration, "encryptionKey", "datablind-test-key");
+    set(configuration, "enginePoolSize", 1);
+    set(configuration, "keyCacheSize", 1);
+    set(configuration, "fieldPlanCacheSize", 16);
+    set(configuration, "workerThreads", 2);
+    set(configuration, "fieldDetectorClass", fieldDetectorClass);
+    return configuration;
+  }
+
+  private static boolean notStarted(Runnable getter) {
+    try {
+      getter.run();
+      return false;
+    } catch (IllegalStateException e) {
+      return true;
+    }
+  }
+
+  private static void set(Object target, String field, Object value) throws ReflectiveOperationException {
+    Field declared = target.getClass().getDeclaredField(field);
+    declared.setAccessible(true);
+    declared.set(target, value);
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mule.runtime.api.connection.ConnectionValidationResult;
+
+/**
+ * Checks the status checks of {@link DBLConnectionProvider#validate(DBLConnection)} against a local stub of the
+ * DataGuard status URI, which answers with {@code status}.
+ */
+public class DBLConnectionProviderTestCase {
+
+  private HttpServer server;
+  private String baseUri;
+  private final AtomicInteger statusCalls = new AtomicInteger();
+  private final AtomicInteger closedBodies = new AtomicInteger();
+  private volatile int status = 200;
+  private final HttpClient client = HttpClient.newHttpClient();
+
+  @Before
+  public void startStubServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext(DBLConnectionProvider.STATUS_PATH, exchange -> {
+      statusCalls.incrementAndGet();
+      byte[] reply = "{\"status\":\"UP\"}".getBytes(StandardCharsets.UTF_8);
+      exchange.sendResponseHeaders(status, reply.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(reply);
+      }
+    });
+    server.start();
+    baseUri = "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  @After
+  public void stopStubServer() {
+    server.stop(0);
+  }
+
+  @Test
+  public void statusIsCheckedOnceWithinTheInterval() throws Exception {
+    DBLConnectionProvider provider = provider(60_000);
+    assertThat(provider.validate(null).isValid(), is(true));
+    assertThat(provider.validate(null).isValid(), is(true));
+    assertThat(provider.validate(null).isValid(), is(true));
+    assertThat(statusCalls.get(), is(1));
+  }
+
+  @Test
+  public void statusIsCheckedEveryTimeWithoutInterval() throws Exception {
+    DBLConnectionProvider provider = provider(0);
+    provider.validate(null);
+    provider.validate(null);
+    assertThat(statusCalls.get(), is(2));
+  }
+
+  @Test
+  public void serverErrorStatusFailsAndIsCached() throws Exception {
+    status = 503;
+    DBLConnectionProvider provider = provider(60_000);
+    ConnectionValidationResult result = provider.validate(null);
+    assertThat(result.isValid(), is(false));
+    assertThat(result.getMessage().contains("server error. Status code: 503"), is(true));
+    status = 200;
+    assertThat(provider.validate(null).isValid(), is(false));
+    assertThat(statusCalls.get(), is(1));
+  }
+
+  @Test
+  public void clientErrorStatusFails() throws Exception {
+    status = 401;
+    ConnectionValidationResult result = provider(0).validate(null);
+    assertThat(result.isValid(), is(false));
+    assertThat(result.getMessage().contains("client error. Status code: 401"), is(true));
+  }
+
+  @Test
+  public void unreachableApiFails() throws Exception {
+    DBLConnectionProvider provider = provider(0);
+    server.stop(0);
+    assertThat(provider.validate(null).isValid(), is(false));
+  }
+
+  @Test
+  public void responseIsClosed() throws Exception {
+    DBLConnectionProvider provider = provider(0);
+    provider.validate(null);
+    status = 500;
+    provider.validate(null);
+    assertThat(closedBodies.get(), is(2));
+  }
+
+  @Test
+  public void noApiMeansNoStatusCheck() throws Exception {
+    DBLConnectionProvider provider = provider(0);
+    set(provider, "apiUri", null);
+    set(provider, "apiKey", null);
+    assertThat(provider.validate(null).isValid(), is(true));
+    assertThat(statusCalls.get(), is(0));
+  }
+
+  private DBLConnectionProvider provider(int statusCheckInterval) throws ReflectiveOperationException {
+    DBLConnectionProvider provider = new DBLConnectionProvider();
+    set(provider, "apiUri", baseUri);
+    set(provider, "apiKey", "test-key");
+    set(provider, "statusCheckInterval", statusCheckInterval);
+    provider.setStatusTransport(path -> {
+      HttpResponse<InputStream> response = client.send(HttpRequest.newBuilder(URI.create(baseUri + path)).GET().build(),
+          HttpResponse.BodyHandlers.ofInputStream());
+      return new DBLNlpBatcher.Reply(response.statusCode(), new FilterInputStream(response.body()) {
+        @Override
+        public void close() throws IOException {
+          closedBodies.incrementAndGet();
+          super.close();
+        }
+      });
+    });
+    return provider;
+  }
+
+  private static void set(Object target, String field, Object value) throws ReflectiveOperationException {
+    Field declared = target.getClass().getDeclaredField(field);
+    declared.setAccessible(true);
+    declared.set(target, value);
+  }
+}
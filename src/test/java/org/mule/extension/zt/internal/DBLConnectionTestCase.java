@@ -0,0 +1,115 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Test;
+
+/**
+ * Checks the limit of NLP requests in flight on a {@link DBLConnection}, with a transport whose replies the test
+ * completes by hand.
+ */
+public class DBLConnectionTestCase {
+
+  private final List<CompletableFuture<DBLNlpBatcher.Reply>> sent = new CopyOnWriteArrayList<>();
+  private volatile RuntimeException sendFailure;
+
+  private final DBLNlpBatcher.Transport transport = (path, body) -> {
+    if (sendFailure != null) {
+      throw sendFailure;
+    }
+    CompletableFuture<DBLNlpBatcher.Reply> reply = new CompletableFuture<>();
+    sent.add(reply);
+    return reply;
+  };
+
+  private final DBLConnection connection = new DBLConnection("test", null, "http://localhost", "key", 1000, 2,
+      new DBLNlpBatcher(transport, 1, 0));
+
+  @Test
+  public void requestOverTheLimitIsRejectedRightAway() throws Exception {
+    CompletableFuture<InputStream> first = connection.sendNlp(request());
+    CompletableFuture<InputStream> second = connection.sendNlp(request());
+    CompletableFuture<InputStream> third = connection.sendNlp(request());
+    assertThat(connection.getInFlightRequests(), is(2));
+    assertThat(sent.size(), is(2));
+    assertThat(third.isCompletedExceptionally(), is(true));
+    assertThat(cause(third) instanceof RejectedExecutionException, is(true));
+
+    sent.get(0).complete(reply(200));
+    assertThat(new String(first.get().readAllBytes(), StandardCharsets.UTF_8), is("{}"));
+    assertThat(connection.getInFlightRequests(), is(1));
+    connection.sendNlp(request());
+    assertThat(sent.size(), is(3));
+    assertThat(second.isDone(), is(false));
+  }
+
+  @Test
+  public void failedRequestReleasesItsPermit() throws Exception {
+    CompletableFuture<InputStream> failed = connection.sendNlp(request());
+    CompletableFuture<InputStream> error = connection.sendNlp(request());
+    sent.get(0).completeExceptionally(new IOException("connection reset"));
+    sent.get(1).complete(reply(500));
+    assertThat(failed.isCompletedExceptionally(), is(true));
+    assertThat(cause(error) instanceof DBLNlpBatcher.StatusException, is(true));
+    assertThat(connection.getInFlightRequests(), is(0));
+  }
+
+  @Test
+  public void refusedRequestReleasesItsPermit() throws Exception {
+    // as the service guard refuses a request, by failing it before it is sent
+    CompletableFuture<InputStream> refused = connection.sendNlp(request());
+    sent.get(0).completeExceptionally(new RejectedExecutionException("circuit open"));
+    assertThat(cause(refused) instanceof RejectedExecutionException, is(true));
+    assertThat(connection.getInFlightRequests(), is(0));
+  }
+
+  @Test
+  public void requestThatCannotBeSentReleasesItsPermit() {
+    sendFailure = new IllegalStateException("batcher disposed");
+    for (int i = 0; i < 3; i++) {
+      try {
+        connection.sendNlp(request());
+        assertThat("the failure to send is thrown", false);
+      } catch (IllegalStateException e) {
+        assertThat(e == sendFailure, is(true));
+      }
+    }
+    assertThat(connection.getInFlightRequests(), is(0));
+  }
+
+  private static DBLNlpRequest request() {
+    return new DBLNlpRequest("key", "tweak", "{}", "NOTOKEN", "NOPASSPHRASE");
+  }
+
+  private static DBLNlpBatcher.Reply reply(int status) {
+    return new DBLNlpBatcher.Reply(status, new ByteArrayInputStream("{}".getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static Throwable cause(CompletableFuture<InputStream> future) throws InterruptedException {
+    try {
+      future.get();
+      return null;
+    } catch (ExecutionException e) {
+      return e.getCause();
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Checks how {@link DBLDelimitedCrypt} reads, transforms and writes delimited text. The engine is replaced by a
+ * transform that upper-cases the values and prefixes them with their cipher type.
+ */
+public class DBLDelimitedCryptTestCase {
+
+  private final AtomicInteger calls = new AtomicInteger();
+
+  private final DBLFieldCipher.BlockTransform cipher = (cipherSpecs, rawValues) -> {
+    calls.incrementAndGet();
+    String[] results = new String[rawValues.length];
+    for (int i = 0; i < rawValues.length; i++) {
+      byte[] raw = rawValues[i].getBytes(StandardCharsets.UTF_8);
+      String value = DBLJsonScanner.decodeString(raw, 0, raw.length);
+      results[i] = DBLJsonScanner.quote(cipherSpecs[i].substring(3) + ":" + value.toUpperCase());
+    }
+    return results;
+  };
+
+  @Test
+  public void columnsAreFoundByHeaderName() throws IOException {
+    String csv = "id,name,ssn\r\n1,ann,111\r\n2,\"bob, jr\",\r\n";
+    assertThat(run(csv, "{'name':'FE:PERSON_NAME','ssn':'FE:SSN'}", ',', true, 1, 10),
+        is("id,name,ssn\r\n1,PERSON_NAME:ANN,SSN:111\r\n2,\"PERSON_NAME:BOB, JR\",\r\n"));
+    // one call per cipher type for the single chunk
+    assertThat(calls.get(), is(2));
+  }
+
+  @Test
+  public void columnsAreNumberedWithoutHeader() throws IOException {
+    assertThat(run("ann\t111\nbob\t222", "{'2':'FE:SSN'}", '\t', false, 1, 1), is("ann\tSSN:111\nbob\tSSN:222"));
+    assertThat(calls.get(), is(2));
+  }
+
+  @Test
+  public void quotesAndLineBreaksInsideQuotesAreKept() throws IOException {
+    String csv = "note,name\n\"say \"\"hi\"\"\nthere\",\"al\"\n";
+    assertThat(run(csv, "{'name':'FE:PERSON_NAME'}", ',', true, 1, 10),
+        is("note,name\n\"say \"\"hi\"\"\nthere\",\"PERSON_NAME:AL\"\n"));
+  }
+
+  @Test
+  public void parallelChunksKeepTheInputOrder() throws IOException {
+    StringBuilder csv = new StringBuilder("n,v\n");
+    StringBuilder expected = new StringBuilder("n,v\n");
+    for (int i = 0; i < 5000; i++) {
+      csv.append(i).append(",v").append(i).append('\n');
+      expected.append(i).append(",SSN:V").append(i).append('\n');
+    }
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      InputStream in = DBLDelimitedCrypt.open(bytes(csv.toString()), DBLFieldPlan.compileCipherSpec("{'v':'FE:SSN'}"),
+          ',', true, cipher, pool, 4, 64);
+      assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8), is(expected.toString()));
+    } finally {
+      pool.shutdown();
+    }
+    assertThat(calls.get(), is((5000 + 63) / 64));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void unknownColumnIsRejected() throws IOException {
+    run("a,b\n1,2\n", "{'c':'FE:SSN'}", ',', true, 1, 10);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void quoteIsNotADelimiter() throws IOException {
+    run("a\n", "{'1':'FE:SSN'}", '"', false, 1, 10);
+  }
+
+  private String run(String csv, String columns, char delimiter, boolean header, int parallelism, int chunkSize)
+      throws IOException {
+    try (InputStream in = DBLDelimitedCrypt.open(bytes(csv), DBLFieldPlan.compileCipherSpec(columns), delimiter,
+        header, cipher, ForkJoinPool.commonPool(), parallelism, chunkSize)) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  private static InputStream bytes(String text) {
+    return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+  }
+}
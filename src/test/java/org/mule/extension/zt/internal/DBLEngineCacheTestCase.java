@@ -0,0 +1,109 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+
+import com.ztensor.datacrypt.JsonDataCrypt;
+import com.ztensor.datacrypt.KeyContext;
+
+/**
+ * Checks how {@link DBLEngineCache} pools its engines and keeps the key contexts of other keys.
+ */
+public class DBLEngineCacheTestCase {
+
+  private static final String KEY = "datablind-test-key";
+
+  @Test
+  public void engineIsReusedAfterACall() throws Exception {
+    DBLEngineCache cache = new DBLEngineCache(KEY, 2, 2);
+    JsonDataCrypt first = cache.execute(engine -> engine);
+    assertThat(cache.execute(engine -> engine) == first, is(true));
+  }
+
+  @Test
+  public void engineIsReturnedAfterAFailedCall() throws Exception {
+    DBLEngineCache cache = new DBLEngineCache(KEY, 1, 2);
+    JsonDataCrypt[] used = new JsonDataCrypt[1];
+    try {
+      cache.execute(engine -> {
+        used[0] = engine;
+        throw new IllegalStateException("engine failed");
+      });
+      assertThat("the failure of the call is thrown", false);
+    } catch (IllegalStateException e) {
+      assertThat(e.getMessage(), is("engine failed"));
+    }
+    assertThat(cache.execute(engine -> engine) == used[0], is(true));
+  }
+
+  @Test
+  public void concurrentCallsGetTheirOwnEnginesAndTheSurplusIsDropped() throws Exception {
+    DBLEngineCache cache = new DBLEngineCache(KEY, 1, 2);
+    JsonDataCrypt[] outer = new JsonDataCrypt[1];
+    JsonDataCrypt inner = cache.execute(engine -> {
+      outer[0] = engine;
+      return cache.execute(nested -> nested);
+    });
+    assertThat(inner == outer[0], is(false));
+    // the inner engine went back first and filled the pool of one, the outer one was dropped
+    JsonDataCrypt[] again = new JsonDataCrypt[1];
+    JsonDataCrypt created = cache.execute(engine -> {
+      again[0] = engine;
+      return cache.execute(nested -> nested);
+    });
+    assertThat(again[0] == inner, is(true));
+    assertThat(created == outer[0], is(false));
+  }
+
+  @Test
+  public void leastRecentlyUsedKeyContextIsEvicted() throws Exception {
+    DBLEngineCache cache = new DBLEngineCache(KEY, 1, 2);
+    KeyContext a = cache.keyContextFor("key-a");
+    KeyContext b = cache.keyContextFor("key-b");
+    assertThat(cache.keyContextFor("key-a") == a, is(true));
+    KeyContext c = cache.keyContextFor("key-c");
+    // b was the least recently used
+    assertThat(cache.keyContextFor("key-a") == a, is(true));
+    assertThat(cache.keyContextFor("key-c") == c, is(true));
+    assertThat(cache.keyContextFor("key-b") == b, is(false));
+  }
+
+  @Test
+  public void otherKeysAreNotTheConfigurationKey() throws Exception {
+    DBLEngineCache cache = new DBLEngineCache(KEY, 1, 2);
+    assertThat(cache.keyContextFor("key-a") == cache.getKeyContext(), is(false));
+    JsonDataCrypt pooled = cache.execute(engine -> engine);
+    assertThat(cache.execute("key-a", engine -> engine) == pooled, is(false));
+    assertThat(cache.execute(null, engine -> engine) == pooled, is(true));
+  }
+
+  @Test
+  public void disposedCacheCannotBeUsed() throws Exception {
+    DBLEngineCache cache = new DBLEngineCache(KEY, 1, 2);
+    cache.dispose();
+    assertThat(fails(() -> cache.execute(engine -> engine)), is(true));
+    assertThat(fails(() -> cache.keyContextFor("key-a")), is(true));
+    assertThat(fails(cache::getKeyContext), is(true));
+  }
+
+  private static boolean fails(Callable<?> use) throws Exception {
+    try {
+      use.call();
+      return false;
+    } catch (IllegalStateException e) {
+      return true;
+    }
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.ztensor.datacrypt.JsonDataCrypt;
+
+/**
+ * Checks against the DataBlind library that transforming the values of a document as a {@link DBLFieldCipher}
+ * block gives the same values as transforming the whole document, so that the ciphertext of a value depends on its
+ * cipher type, the key and the tweak, but not on its field name or path.
+ */
+public class DBLFieldCipherTestCase {
+
+  private static final String KEY = "datablind-test-key";
+  private static final String TWEAK = "047474";
+
+  private static final DBLFieldPlan PLAN = DBLFieldPlan.compileCipherSpec("{'name':'FE:PERSON_NAME',"
+      + "'contact.name':'FE:PERSON_NAME','contact.email':'FE:EMAIL_ADDRESS','claims.ssn':'FE:SSN',"
+      + "'claims.card':'FE:CREDIT_CARD'}");
+
+  private static final String DOCUMENT = "{\"name\":\"Ann Smith\",\"contact\":{\"name\":\"Ann Smith\","
+      + "\"email\":\"ann@example.com\"},\"claims\":[{\"ssn\":\"123-45-6789\",\"card\":\"4111111111111111\"},"
+      + "{\"ssn\":\"987-65-4321\",\"card\":\"5500005555555559\"}],\"note\":\"kept\"}";
+
+  @Test
+  public void blockGivesTheValuesOfTheWholeDocument() throws Exception {
+    JsonDataCrypt engine = new JsonDataCrypt(DBLEngineCache.newKeyContext(KEY));
+    String whole = engine.transform("Encrypt", TWEAK, DOCUMENT, PLAN.getSpec(), "NOTOKEN", "NOPASSPHRASE");
+    String blockwise = transformFields(engine, "Encrypt", DOCUMENT);
+
+    List<String> values = values(blockwise);
+    assertThat(values, is(values(whole)));
+    assertThat(values.equals(values(DOCUMENT)), is(false));
+    // the same value under two paths is protected the same way
+    assertThat(values.get(0), is(values.get(1)));
+  }
+
+  @Test
+  public void blockDecryptsTheWholeDocument() throws Exception {
+    JsonDataCrypt engine = new JsonDataCrypt(DBLEngineCache.newKeyContext(KEY));
+    String encrypted = engine.transform("Encrypt", TWEAK, DOCUMENT, PLAN.getSpec(), "NOTOKEN", "NOPASSPHRASE");
+    assertThat(values(transformFields(engine, "Decrypt", encrypted)), is(values(DOCUMENT)));
+  }
+
+  private static String transformFields(JsonDataCrypt engine, String operation, String json) throws Exception {
+    byte[] document = json.getBytes(StandardCharsets.UTF_8);
+    return DBLParallelCrypt.transformFields(document, DBLParallelCrypt.locate(document, PLAN),
+        (cipherSpecs, rawValues) -> DBLFieldCipher.transform(engine, operation, TWEAK, cipherSpecs, rawValues,
+            "NOTOKEN", "NOPASSPHRASE"));
+  }
+
+  /**
+   * @return the raw text of the sensitive values of {@code json}, in document order
+   */
+  private static List<String> values(String json) throws Exception {
+    List<String> values = new ArrayList<>();
+    for (DBLParallelCrypt.Slot slot : DBLParallelCrypt.locate(json.getBytes(StandardCharsets.UTF_8), PLAN)) {
+      values.add(slot.rawValue);
+    }
+    return values;
+  }
+}
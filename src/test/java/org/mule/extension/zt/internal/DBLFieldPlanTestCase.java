@@ -0,0 +1,58 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import org.junit.Test;
+
+/**
+ * Checks the projection of cipher plans used by DecryptJson.
+ */
+public class DBLFieldPlanTestCase {
+
+  private static final String SENSITIVE_FIELDS =
+      "{'name':'FE:PERSON_NAME','contact.email':'FE:EMAIL_ADDRESS','claims[*].ssn':'FE:SSN'}";
+
+  @Test
+  public void projectionKeepsOnlyTheListedFields() {
+    DBLFieldPlan plan = DBLFieldPlan.compileCipherSpec(SENSITIVE_FIELDS).project(" contact.email , claims.ssn");
+    assertThat(plan.getSpec(), is("{\"contact.email\":\"FE:EMAIL_ADDRESS\",\"claims[*].ssn\":\"FE:SSN\"}"));
+    assertThat(plan.getUnprojected().getSpec(), is("{\"name\":\"FE:PERSON_NAME\"}"));
+  }
+
+  @Test
+  public void fullProjectionHasNothingLeftOut() {
+    DBLFieldPlan plan = DBLFieldPlan.compileCipherSpec(SENSITIVE_FIELDS).project("name,contact.email,claims.ssn,name");
+    assertThat(plan.getFields().size(), is(3));
+    assertThat(plan.getUnprojected() == null, is(true));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void projectionMustBeASubsetOfTheSensitiveFields() {
+    DBLFieldPlan.compileCipherSpec(SENSITIVE_FIELDS).project("name,contact.phone");
+  }
+
+  @Test
+  public void unprojectedFieldsCanBeDropped() throws Exception {
+    DBLFieldPlan plan = DBLFieldPlan.compileCipherSpec(SENSITIVE_FIELDS).project("contact.email");
+    String json = "{\"name\":\"x\",\"contact\":{\"email\":\"y\"},\"claims\":[{\"ssn\":\"z\",\"id\":1}]}";
+    assertThat(DBLJsonFilter.filter(json, plan.getUnprojected(), false),
+        is("{\"contact\":{\"email\":\"y\"},\"claims\":[{\"id\":1}]}"));
+  }
+
+  @Test
+  public void projectedPlansAreCached() {
+    DBLFieldPlanCache cache = new DBLFieldPlanCache(8);
+    DBLFieldPlan first = cache.projectedPlan(SENSITIVE_FIELDS, "name");
+    assertThat(cache.projectedPlan(SENSITIVE_FIELDS, "name") == first, is(true));
+    assertThat(cache.projectedPlan(SENSITIVE_FIELDS, "contact.email") == first, is(false));
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Checks the remove and retain rules, wildcards and streaming of {@link DBLJsonFilter}.
+ */
+public class DBLJsonFilterTestCase {
+
+  private static final String DOCUMENT = "{\"name\": \"Bob\", \"ssn\": \"1\\\"2\", "
+      + "\"account\": {\"creditCard\": \"4111\", \"bank\": {\"codes\": [1, {\"note\": \"]}{\"}]}}, "
+      + "\"claims\": [{\"ssn\": 1, \"amount\": 2}, {\"ssn\": 3}, 5], \"none\": null}";
+
+  @Test
+  public void removeDropsListedPathsAndKeepsTheRest() throws IOException {
+    assertThat(filter("ssn,account.creditCard", DOCUMENT, false),
+        is("{\"name\":\"Bob\",\"account\":{\"bank\":{\"codes\": [1, {\"note\": \"]}{\"}]}},"
+            + "\"claims\":[{\"ssn\": 1, \"amount\": 2}, {\"ssn\": 3}, 5],\"none\":null}"));
+  }
+
+  @Test
+  public void retainKeepsListedPathsAndTheirContainers() throws IOException {
+    assertThat(filter("ssn,account.creditCard", DOCUMENT, true),
+        is("{\"ssn\":\"1\\\"2\",\"account\":{\"creditCard\":\"4111\"}}"));
+  }
+
+  @Test
+  public void arraysAreTransparentWithOrWithoutWildcard() throws IOException {
+    String expected = "{\"claims\":[{\"ssn\":1},{\"ssn\":3}]}";
+    assertThat(filter("claims.ssn", DOCUMENT, true), is(expected));
+    assertThat(filter("claims[*].ssn", DOCUMENT, true), is(expected));
+    assertThat(filter("claims[].ssn", DOCUMENT, true), is(expected));
+    assertThat(filter("claims[*].ssn", DOCUMENT, false).contains("\"claims\":[{\"amount\":2},{},5]"), is(true));
+  }
+
+  @Test
+  public void nameWildcardMatchesEveryMember() throws IOException {
+    assertThat(filter("account.*", DOCUMENT, false).contains("\"account\":{}"), is(true));
+    assertThat(filter("*.creditCard,account.bank", "{\"account\":{\"creditCard\":1,\"bank\":2,\"x\":3},\"card\":4}",
+        true), is("{\"account\":{\"creditCard\":1,\"bank\":2}}"));
+  }
+
+  @Test
+  public void newlineDelimitedDocumentsAreFilteredOneByOne() throws IOException {
+    assertThat(filter("ssn", "{\"ssn\":1,\"a\":1}\n{\"a\":2,\"ssn\":3}\n", false), is("{\"a\":1}\n{\"a\":2}"));
+  }
+
+  @Test
+  public void operationIsCaseInsensitive() {
+    assertThat(DBLJsonFilter.retain(" Retain "), is(true));
+    assertThat(DBLJsonFilter.retain("REMOVE"), is(false));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void unknownOperationIsRejected() {
+    DBLJsonFilter.retain("mask");
+  }
+
+  @Test
+  public void largeDocumentIsFilteredWhileStreaming() throws IOException {
+    int records = 200_000;
+    InputStream source = new GeneratedRecords(records);
+    byte[] chunk = new byte[4096];
+    long retained = 0;
+    try (InputStream filtered = new DBLJsonFilter(source, DBLFieldPlan.compilePathList("records[*].id"), true)) {
+      int n;
+      while ((n = filtered.read(chunk)) > 0) {
+        retained += n;
+        // the filter never holds more than the last tokens it produced
+        assertThat(filtered.available() < 64 * 1024, is(true));
+      }
+    }
+    StringBuilder expected = new StringBuilder("{\"records\":[");
+    for (int i = 0; i < records; i++) {
+      expected.append(i > 0 ? "," : "").append("{\"id\":").append(i).append('}');
+    }
+    assertThat(retained, is((long) expected.append("]}").length()));
+  }
+
+  private static String filter(String paths, String json, boolean retain) throws IOException {
+    return DBLJsonFilter.filter(json, DBLFieldPlan.compilePathList(paths), retain);
+  }
+
+  /**
+   * {"records":[{"id":0,"payload":{...}},...]} generated as it is read.
+   */
+  private static final class GeneratedRecords extends InputStream {
+
+    private final int records;
+    private int next;
+    private byte[] current = "{\"records\":[".getBytes(StandardCharsets.UTF_8);
+    private int pos;
+
+    GeneratedRecords(int records) {
+      this.records = records;
+    }
+
+    @Override
+    public int read() {
+      if (pos == current.length && !advance()) {
+        return -1;
+      }
+      return current[pos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (pos == current.length && !advance()) {
+        return -1;
+      }
+      int n = Math.min(len, current.length - pos);
+      System.arraycopy(current, pos, b, off, n);
+      pos += n;
+      return n;
+    }
+
+    private boolean advance() {
+      if (next > records) {
+        return false;
+      }
+      String text = next == records ? "]}" : (next > 0 ? "," : "") + "{\"id\":" + next
+          + ",\"payload\":{\"text\":\"lorem ipsum [{\\\"quoted\\\"}]\",\"values\":[1,2,3,{\"deep\":[true,false]}]}}";
+      next++;
+      current = text.getBytes(StandardCharsets.UTF_8);
+      pos = 0;
+      return true;
+    }
+  }
+}
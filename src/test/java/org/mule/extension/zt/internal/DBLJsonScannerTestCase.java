@@ -0,0 +1,212 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Checks the tokens, captured text, offsets and echo of {@link DBLJsonScanner}, on documents in memory and on
+ * streams read a few bytes at a time.
+ */
+public class DBLJsonScannerTestCase {
+
+  private static final String DOCUMENT =
+      "{ \"name\": \"Ann \\\"Jr\\\"\", \"city\": \"Z\u00fcrich \u6771\u4eac\", \"age\": -4.5e2,\n"
+      + "  \"tags\": [ true, false, null, [ \"a\\\\b\", \"\\u00e9\" ] ], \"na\\u006de\": {} }";
+
+  @Test
+  public void tokensAreReportedInDocumentOrder() throws IOException {
+    DBLJsonScanner scanner = new DBLJsonScanner(bytes("{\"a\":[1,\"x\",{\"b\":null}],\"c\":true}"));
+    List<Integer> tokens = new ArrayList<>();
+    int token;
+    while ((token = scanner.next(false)) != DBLJsonScanner.END_OF_INPUT) {
+      tokens.add(token);
+    }
+    assertThat(tokens, is(List.of(DBLJsonScanner.START_OBJECT, DBLJsonScanner.FIELD_NAME,
+        DBLJsonScanner.START_ARRAY, DBLJsonScanner.NUMBER, DBLJsonScanner.STRING, DBLJsonScanner.START_OBJECT,
+        DBLJsonScanner.FIELD_NAME, DBLJsonScanner.NULL, DBLJsonScanner.END_OBJECT, DBLJsonScanner.END_ARRAY,
+        DBLJsonScanner.FIELD_NAME, DBLJsonScanner.TRUE, DBLJsonScanner.END_OBJECT)));
+    assertThat(scanner.depth(), is(0));
+  }
+
+  @Test
+  public void capturedValuesKeepTheirRawText() throws IOException {
+    assertThat(scalars(new DBLJsonScanner(bytes(DOCUMENT))), is(List.of("\"Ann \\\"Jr\\\"\"",
+        "\"Z\u00fcrich \u6771\u4eac\"", "-4.5e2", "true", "false", "null", "\"a\\\\b\"", "\"\\u00e9\"")));
+  }
+
+  @Test
+  public void fieldNamesAreDecoded() throws IOException {
+    DBLJsonScanner scanner = new DBLJsonScanner(bytes(DOCUMENT));
+    List<String> names = new ArrayList<>();
+    int token;
+    while ((token = scanner.next(false)) != DBLJsonScanner.END_OF_INPUT) {
+      if (token == DBLJsonScanner.FIELD_NAME) {
+        names.add(scanner.fieldName());
+      }
+    }
+    assertThat(names, is(List.of("name", "city", "age", "tags", "name")));
+  }
+
+  @Test
+  public void echoCopiesTheDocumentExceptCapturedValues() throws IOException {
+    ByteArrayOutputStream echo = new ByteArrayOutputStream();
+    DBLJsonScanner scanner = new DBLJsonScanner(bytes(DOCUMENT));
+    scanner.setEcho(echo);
+    while (scanner.next(false) != DBLJsonScanner.END_OF_INPUT) {
+      // echo only
+    }
+    assertThat(echo.toString(StandardCharsets.UTF_8), is(DOCUMENT));
+
+    echo.reset();
+    scanner = new DBLJsonScanner(bytes("{\"a\": \"x\", \"b\": 12}"));
+    scanner.setEcho(echo);
+    int token;
+    while ((token = scanner.next(true)) != DBLJsonScanner.END_OF_INPUT) {
+      if (DBLJsonScanner.isScalar(token)) {
+        echo.write('?');
+      }
+    }
+    assertThat(echo.toString(StandardCharsets.UTF_8), is("{\"a\": ?, \"b\": ?}"));
+  }
+
+  @Test
+  public void offsetsAreByteOffsets() throws IOException {
+    byte[] document = bytes("{\"\u00e9\":\"\u6771\",\"n\":7}");
+    DBLJsonScanner scanner = new DBLJsonScanner(document);
+    List<String> slices = new ArrayList<>();
+    int token;
+    while ((token = scanner.next(true)) != DBLJsonScanner.END_OF_INPUT) {
+      if (DBLJsonScanner.isScalar(token)) {
+        slices.add(new String(document, (int) scanner.tokenStart(),
+            (int) (scanner.tokenEnd() - scanner.tokenStart()), StandardCharsets.UTF_8));
+      }
+    }
+    assertThat(slices, is(List.of("\"\u6771\"", "7")));
+  }
+
+  @Test
+  public void streamReadInSmallPiecesGivesTheSameTokens() throws IOException {
+    StringBuilder large = new StringBuilder("[");
+    for (int i = 0; i < 2_000; i++) {
+      large.append(i > 0 ? "," : "").append("{\"id\":").append(i).append(",\"s\":\"\\\"q\\\" \u00e9\u6771 ").append(i)
+          .append("\"}");
+    }
+    String document = large.append(']').toString();
+    List<String> expected = scalars(new DBLJsonScanner(bytes(document)));
+    ByteArrayOutputStream echo = new ByteArrayOutputStream();
+    DBLJsonScanner streamed = new DBLJsonScanner(new TrickleInputStream(bytes(document), 7));
+    streamed.setEcho(echo);
+    assertThat(scalars(streamed), is(expected));
+    assertThat(expected.size(), is(4_000));
+
+    echo.reset();
+    streamed = new DBLJsonScanner(new TrickleInputStream(bytes(document), 5));
+    streamed.setEcho(echo);
+    while (streamed.next(false) != DBLJsonScanner.END_OF_INPUT) {
+      // echo only
+    }
+    assertThat(echo.toString(StandardCharsets.UTF_8), is(document));
+  }
+
+  @Test
+  public void skipValuePassesOverNestedContainers() throws IOException {
+    DBLJsonScanner scanner = new DBLJsonScanner(bytes("{\"a\": {\"x\":[1,{\"y\":\"]}\\\"\"}]}, \"b\": 2}"));
+    assertThat(scanner.next(false), is(DBLJsonScanner.START_OBJECT));
+    assertThat(scanner.next(false), is(DBLJsonScanner.FIELD_NAME));
+    scanner.skipValue();
+    assertThat(scanner.next(false), is(DBLJsonScanner.FIELD_NAME));
+    assertThat(scanner.fieldName(), is("b"));
+    assertThat(scanner.next(true), is(DBLJsonScanner.NUMBER));
+    assertThat(scanner.captured(), is("2"));
+  }
+
+  @Test
+  public void newlineDelimitedDocumentsFollowEachOther() throws IOException {
+    DBLJsonScanner scanner = new DBLJsonScanner(bytes("{\"a\":1}\n{\"a\":2}\n\"x\"\n"));
+    assertThat(scalars(scanner), is(List.of("1", "2", "\"x\"")));
+  }
+
+  @Test
+  public void stringsAreDecodedAndQuoted() throws IOException {
+    byte[] raw = bytes("\"a\\\"b\\\\c\\n\\u00e9\\u6771\\/\"");
+    String decoded = DBLJsonScanner.decodeString(raw, 0, raw.length);
+    assertThat(decoded, is("a\"b\\c\n\u00e9\u6771/"));
+    String quoted = DBLJsonScanner.quote("a\"b\\c\n\u0001\u00e9");
+    assertThat(quoted, is("\"a\\\"b\\\\c\\n\\u0001\u00e9\""));
+    byte[] again = bytes(quoted);
+    assertThat(DBLJsonScanner.decodeString(again, 0, again.length), is("a\"b\\c\n\u0001\u00e9"));
+  }
+
+  @Test
+  public void malformedInputFails() {
+    for (String document : new String[] {"{\"a\":1", "[1}", "{\"a\":\"x}", "{\"a\":tru}", "{\"a\":@}"}) {
+      boolean failed = false;
+      try {
+        DBLJsonScanner scanner = new DBLJsonScanner(bytes(document));
+        while (scanner.next(true) != DBLJsonScanner.END_OF_INPUT) {
+          // until the error
+        }
+      } catch (IOException e) {
+        failed = true;
+      }
+      assertThat(document, failed, is(true));
+    }
+  }
+
+  private static List<String> scalars(DBLJsonScanner scanner) throws IOException {
+    List<String> values = new ArrayList<>();
+    int token;
+    while ((token = scanner.next(true)) != DBLJsonScanner.END_OF_INPUT) {
+      if (DBLJsonScanner.isScalar(token)) {
+        values.add(scanner.captured());
+      }
+    }
+    return values;
+  }
+
+  private static byte[] bytes(String text) {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Returns at most {@code piece} bytes per read, so tokens and multi-byte characters straddle buffer fills.
+   */
+  static final class TrickleInputStream extends InputStream {
+
+    private final InputStream in;
+    private final int piece;
+
+    TrickleInputStream(byte[] data, int piece) {
+      this.in = new ByteArrayInputStream(data);
+      this.piece = piece;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return in.read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      return in.read(b, off, Math.min(len, piece));
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import org.junit.Test;
+
+/**
+ * Checks the cipher specifications {@link DBLLocalFieldDetector} builds from the values and names of a document.
+ */
+public class DBLLocalFieldDetectorTestCase {
+
+  private final DBLLocalFieldDetector detector = new DBLLocalFieldDetector();
+
+  @Test
+  public void valuesAreFoundByTheirShape() throws Exception {
+    String spec = detector.detect("{\"a\":\"123-45-6789\",\"b\":\"4111 1111 1111 1111\",\"c\":\"jane.doe@example.com\","
+        + "\"d\":\"(555) 123-4567\",\"e\":\"10.0.0.1\",\"f\":\"12/31/2024\",\"g\":\"12/31/2024 23:59:00\","
+        + "\"h\":\"hello\",\"i\":\"4111 1111 1111 1112\",\"j\":\"300.1.1.1\"}");
+    assertThat(spec, is("{\"a\":\"FE:SSN\",\"b\":\"FE:CreditCardNumber\",\"c\":\"FE:EmailAddress\","
+        + "\"d\":\"FE:PhoneNumber\",\"e\":\"FE:IPAddress\",\"f\":\"FE:Date\",\"g\":\"FE:DateTime\"}"));
+    DBLFieldPlan.compileCipherSpec(spec);
+  }
+
+  @Test
+  public void namesFindValuesWithoutAShape() throws Exception {
+    String spec = detector.detect("{\"First_Name\":\"Jane\",\"street-address\":\"1 Main St\",\"amount\":12.5,"
+        + "\"SSN\":\"123456789\",\"count\":12,\"nickname\":\"JD\"}");
+    assertThat(spec, is("{\"First_Name\":\"FE:PersonName\",\"street-address\":\"FE:StreetAddress\","
+        + "\"amount\":\"FE:CurrencyAmount\",\"SSN\":\"FE:SSN\"}"));
+  }
+
+  @Test
+  public void arraysAreTransparentAndValuesVote() throws Exception {
+    String spec = detector.detect("{\"customer\":{\"contacts\":[{\"value\":\"jane@example.com\"},"
+        + "{\"value\":\"john@example.com\"},{\"value\":\"555-123-4567\"}],\"phones\":[\"555-123-4567\"]}}");
+    assertThat(spec, is("{\"customer.contacts.value\":\"FE:EmailAddress\",\"customer.phones\":\"FE:PhoneNumber\"}"));
+  }
+
+  @Test
+  public void topLevelArraysShareTheirPaths() throws Exception {
+    assertThat(detector.detect("[{\"ssn\":\"123-45-6789\"},{\"ssn\":\"987-65-4321\"}]"),
+        is("{\"ssn\":\"FE:SSN\"}"));
+  }
+
+  @Test
+  public void namesThatCannotBeWrittenAsPathsAreLeftOut() throws Exception {
+    assertThat(detector.detect("{\"e.mail\":\"jane@example.com\",\"\":\"123-45-6789\"}") == null, is(true));
+  }
+
+  @Test
+  public void nothingSensitiveGivesNoSpecification() throws Exception {
+    assertThat(detector.detect("{\"id\":42,\"status\":\"open\",\"tags\":[\"a\",\"b\"],\"ok\":true}") == null, is(true));
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+/**
+ * Checks what {@link DBLMemoCache} remembers, for how long, and the {@code :MEMO} marker of sensitive fields.
+ */
+public class DBLMemoCacheTestCase {
+
+  private static final DBLFieldPlan PLAN = DBLFieldPlan.compileCipherSpec(
+      "{'state':'FE:STATE:MEMO','ssn':'FE:SSN'}");
+
+  private final AtomicLong now = new AtomicLong(1_000_000);
+  private final List<String> computed = new ArrayList<>();
+
+  private final DBLFieldCipher.BlockTransform engine = (cipherSpecs, rawValues) -> {
+    String[] results = new String[rawValues.length];
+    for (int i = 0; i < rawValues.length; i++) {
+      computed.add(rawValues[i]);
+      results[i] = "\"" + cipherSpecs[i] + "/" + rawValues[i].replace("\"", "") + "\"";
+    }
+    return results;
+  };
+
+  @Test
+  public void markerIsStrippedFromTheLibrarySpecification() {
+    assertThat(PLAN.getSpec(), is("{\"state\":\"FE:STATE\",\"ssn\":\"FE:SSN\"}"));
+    assertThat(PLAN.getFields().get(0).isMemo(), is(true));
+    assertThat(PLAN.getFields().get(1).isMemo(), is(false));
+    assertThat(PLAN.getMemoSpecs().contains("FE:STATE"), is(true));
+    assertThat(PLAN.getMemoSpecs().size(), is(1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void markerIsOnlyAcceptedForFormatPreservingEncryption() {
+    DBLFieldPlan.compileCipherSpec("{'card':'AES:CREDIT_CARD:MEMO'}");
+  }
+
+  @Test
+  public void repeatedValuesOfMemoizedTypesAreComputedOnce() throws Exception {
+    DBLMemoCache cache = new DBLMemoCache(16, 60_000, now::get);
+    DBLFieldCipher.BlockTransform memo = cache.memoize(engine, PLAN, "Encrypt", "tweak", "NOTOKEN", "NOPASSPHRASE");
+    String[] specs = {"FE:STATE", "FE:STATE", "FE:SSN", "FE:SSN"};
+    String[] first = memo.apply(specs, new String[] {"\"CA\"", "\"CA\"", "\"123\"", "\"123\""});
+    assertThat(first[0], is("\"FE:STATE/CA\""));
+    assertThat(first[1], is("\"FE:STATE/CA\""));
+    assertThat(first[3], is("\"FE:SSN/123\""));
+    assertThat(computed.size(), is(3));
+
+    String[] second = memo.apply(specs, new String[] {"\"CA\"", "\"NY\"", "\"123\"", "\"456\""});
+    assertThat(second[0], is("\"FE:STATE/CA\""));
+    assertThat(second[1], is("\"FE:STATE/NY\""));
+    // CA from the memo, NY and both SSN values from the engine
+    assertThat(computed.size(), is(6));
+    assertThat(cache.getHits(), is(1L));
+    assertThat(cache.getMisses(), is(2L));
+    assertThat(cache.getSize(), is(2));
+  }
+
+  @Test
+  public void operationTweakAndPassphraseArePartOfTheEntry() throws Exception {
+    DBLMemoCache cache = new DBLMemoCache(16, 60_000, now::get);
+    String[] specs = {"FE:STATE"};
+    String[] values = {"\"CA\""};
+    cache.memoize(engine, PLAN, "Encrypt", "tweak", "NOTOKEN", "NOPASSPHRASE").apply(specs, values);
+    cache.memoize(engine, PLAN, "Decrypt", "tweak", "NOTOKEN", "NOPASSPHRASE").apply(specs, values);
+    cache.memoize(engine, PLAN, "Encrypt", "other", "NOTOKEN", "NOPASSPHRASE").apply(specs, values);
+    cache.memoize(engine, PLAN, "Encrypt", "tweak", "NOTOKEN", "passphrase").apply(specs, values);
+    assertThat(computed.size(), is(4));
+    assertThat(cache.getHits(), is(0L));
+  }
+
+  @Test
+  public void resultsObtainedWithATokenAreNotServedAfterTheTokenExpires() throws Exception {
+    DBLMemoCache cache = new DBLMemoCache(16, 60_000, now::get);
+    assertThat(cache.applies(PLAN, "token"), is(false));
+    assertThat(cache.memoize(engine, PLAN, "Decrypt", "tweak", "token", "NOPASSPHRASE") == engine, is(true));
+    // a token valid for 10 s decrypts a value, then expires well within the memo time to live
+    DBLFieldCipher.BlockTransform tokenEngine = (cipherSpecs, rawValues) -> {
+      if (now.get() >= 1_010_000) {
+        throw new IllegalStateException("token expired");
+      }
+      return engine.apply(cipherSpecs, rawValues);
+    };
+    String[] specs = {"FE:STATE"};
+    String[] values = {"\"CA\""};
+    cache.memoize(tokenEngine, PLAN, "Decrypt", "tweak", "token", "NOPASSPHRASE").apply(specs, values);
+    now.addAndGet(10_000);
+    try {
+      cache.memoize(tokenEngine, PLAN, "Decrypt", "tweak", "token", "NOPASSPHRASE").apply(specs, values);
+      assertThat("the expired token reaches the engine", false);
+    } catch (IllegalStateException e) {
+      assertThat(e.getMessage(), is("token expired"));
+    }
+    assertThat(cache.getSize(), is(0));
+    assertThat(cache.getHits(), is(0L));
+  }
+
+  @Test
+  public void largeCachesAreStriped() throws Exception {
+    DBLMemoCache cache = new DBLMemoCache(2048, 60_000, now::get);
+    DBLFieldCipher.BlockTransform memo = cache.memoize(engine, PLAN, "Encrypt", "tweak", "NOTOKEN", "NOPASSPHRASE");
+    String[] specs = new String[3000];
+    String[] values = new String[3000];
+    for (int i = 0; i < values.length; i++) {
+      specs[i] = "FE:STATE";
+      values[i] = "\"S" + i + "\"";
+    }
+    memo.apply(specs, values);
+    // every stripe evicts its oldest entries once full, so the stripes together stay within the size
+    assertThat(cache.getSize() <= 2048, is(true));
+    assertThat(cache.getSize() + cache.getEvictions(), is(3000L));
+    now.addAndGet(60_000);
+    memo.apply(new String[] {"FE:STATE"}, new String[] {"\"S2999\""});
+    assertThat(cache.getHits(), is(0L));
+  }
+
+  @Test
+  public void entriesExpireAfterTheirTimeToLive() throws Exception {
+    DBLMemoCache cache = new DBLMemoCache(16, 60_000, now::get);
+    DBLFieldCipher.BlockTransform memo = cache.memoize(engine, PLAN, "Encrypt", "tweak", "NOTOKEN", "NOPASSPHRASE");
+    memo.apply(new String[] {"FE:STATE"}, new String[] {"\"CA\""});
+    now.addAndGet(59_999);
+    memo.apply(new String[] {"FE:STATE"}, new String[] {"\"CA\""});
+    assertThat(computed.size(), is(1));
+    now.addAndGet(1);
+    memo.apply(new String[] {"FE:STATE"}, new String[] {"\"CA\""});
+    assertThat(computed.size(), is(2));
+    assertThat(cache.getExpirations(), is(1L));
+    assertThat(cache.getSize(), is(1));
+  }
+
+  @Test
+  public void cacheIsBoundedAndCanBeDisabled() throws Exception {
+    DBLMemoCache cache = new DBLMemoCache(2, 60_000, now::get);
+    DBLFieldCipher.BlockTransform memo = cache.memoize(engine, PLAN, "Encrypt", "tweak", "NOTOKEN", "NOPASSPHRASE");
+    memo.apply(new String[] {"FE:STATE", "FE:STATE", "FE:STATE"}, new String[] {"\"CA\"", "\"NY\"", "\"TX\""});
+    assertThat(cache.getSize(), is(2));
+    assertThat(cache.getEvictions(), is(1L));
+    cache.clear();
+    assertThat(cache.getSize(), is(0));
+
+    DBLMemoCache disabled = new DBLMemoCache(0, 60_000, now::get);
+    assertThat(disabled.applies(PLAN, "NOTOKEN"), is(false));
+    assertThat(disabled.memoize(engine, PLAN, "Encrypt", "tweak", "NOTOKEN", "NOPASSPHRASE") == engine, is(true));
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.junit.Test;
+import org.mule.runtime.extension.api.exception.ModuleException;
+
+/**
+ * Checks the latency histogram and the JMX view of {@link DBLMetrics}.
+ */
+public class DBLMetricsTestCase {
+
+  @Test
+  public void percentilesAreWithinOneBucket() {
+    DBLLatencyHistogram histogram = new DBLLatencyHistogram();
+    for (long micros = 1; micros <= 1000; micros++) {
+      histogram.record(micros * 1000);
+    }
+    assertThat(histogram.getCount(), is(1000L));
+    assertWithin(histogram.getValueAt(0.5), 500_000);
+    assertWithin(histogram.getValueAt(0.99), 990_000);
+    assertWithin(histogram.getValueAt(0.999), 999_000);
+    assertThat(histogram.getValueAt(1.0), is(1_000_000L));
+    assertThat(histogram.getMax(), is(1_000_000L));
+  }
+
+  @Test
+  public void bucketsCoverEveryValue() {
+    long[] values = {0, 1, 15, 16, 17, 31, 32, 1023, 1024, 123_456_789, Long.MAX_VALUE};
+    for (long value : values) {
+      int index = DBLLatencyHistogram.index(value);
+      assertThat(value <= DBLLatencyHistogram.upperBound(index), is(true));
+      assertThat(index == 0 || value > DBLLatencyHistogram.upperBound(index - 1), is(true));
+    }
+  }
+
+  @Test
+  public void utf8LengthMatchesEncoding() {
+    String text = "plain, \u00e9t\u00e9, \u20ac and \ud83d\ude00";
+    assertThat(DBLOperationMetrics.utf8Length(text), is((long) text.getBytes(StandardCharsets.UTF_8).length));
+  }
+
+  @Test
+  public void operationsAreExposedThroughJmx() throws Exception {
+    DBLMetrics metrics = new DBLMetrics("metrics-test");
+    metrics.register();
+    try {
+      DBLOperationMetrics encrypt = metrics.operation(DBLMetrics.ENCRYPT_JSON);
+      long started = System.nanoTime();
+      encrypt.fieldsRequested(
+          DBLFieldPlan.compileCipherSpec("{\"ssn\":\"FE:SSN\",\"card\":\"FE:CreditCard\",\"pin\":\"AES:PIN\"}"));
+      encrypt.success(started, "{\"ssn\":\"123\"}", "{\"ssn\":\"\u00e9\"}");
+      encrypt.failure(started, new ModuleException("bad", DBLErrorProvider.INVALID_PARAMETER));
+      encrypt.failure(started, new IllegalStateException("stopped"));
+
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = metrics.objectName(DBLMetrics.ENCRYPT_JSON);
+      assertThat(server.getAttribute(name, "Calls"), is(3L));
+      assertThat(server.getAttribute(name, "Errors"), is(2L));
+      assertThat(server.getAttribute(name, "BytesIn"), is(13L));
+      assertThat(server.getAttribute(name, "BytesOut"), is(12L));
+      TabularData errors = (TabularData) server.getAttribute(name, "ErrorsByType");
+      assertThat(value(errors, "INVALID_PARAMETER"), is(1L));
+      assertThat(value(errors, "OTHER"), is(1L));
+      TabularData fields = (TabularData) server.getAttribute(name, "FieldsRequested");
+      assertThat(value(fields, "SSN"), is(1L));
+      assertThat(value(fields, "CreditCardNumber"), is(1L));
+      assertThat(value(fields, "OTHER"), is(1L));
+
+      server.invoke(name, "reset", new Object[0], new String[0]);
+      assertThat(server.getAttribute(name, "Calls"), is(0L));
+    } finally {
+      metrics.unregister();
+    }
+    assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(metrics.objectName(DBLMetrics.ENCRYPT_JSON)),
+        is(false));
+  }
+
+  @Test
+  public void streamedOperationsCountCallsAndErrorsOnly() {
+    DBLOperationMetrics stream = new DBLMetrics("metrics-test").operation(DBLMetrics.ENCRYPT_JSON_STREAM);
+    stream.opened();
+    stream.failed(new ModuleException("bad", DBLErrorProvider.INVALID_PARAMETER));
+    assertThat(stream.getCalls(), is(2L));
+    assertThat(stream.getErrors(), is(1L));
+    assertThat(stream.getLatencyMaxMicros(), is(0L));
+    assertThat(stream.getBytesIn(), is(0L));
+  }
+
+  private static long value(TabularData table, String key) {
+    CompositeData row = table.get(new Object[] {key});
+    return row == null ? 0 : (Long) row.get("value");
+  }
+
+  private static void assertWithin(long actual, long expected) {
+    // one log-linear bucket is at most 1/16 of its value wide
+    assertThat(actual + " close to " + expected, Math.abs(actual - expected) <= expected / 16, is(true));
+  }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks {@link DBLNlpBatcher} against a local stub of the DataBlind API, so no network access is needed.
+ * <p>
+ * The stub answers every request document {@code {...}} with {@code {...,"protected":true}}, on both the single and
+ * the batch endpoint, or with {@code errorStatus} when it is set.
+ */
+public class DBLNlpBatcherTestCase {
+
+  private HttpServer server;
+  private String baseUri;
+  private final AtomicInteger singleCalls = new AtomicInteger();
+  private final AtomicInteger batchCalls = new AtomicInteger();
+  private volatile boolean batchEndpoint = true;
+  private volatile int errorStatus;
+  private volatile boolean shortBatchReply;
+  private final HttpClient client = HttpClient.newHttpClient();
+
+  @Before
+  public void startStubServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext(DBLNlpBatcher.SINGLE_PATH, exchange -> {
+      singleCalls.incrementAndGet();
+      String body = read(exchange);
+      if (errorStatus != 0) {
+        reply(exchange, errorStatus, "{\"error\":\"busy\"}");
+        return;
+      }
+      reply(exchange, 200, answer(body));
+    });
+    server.createContext(DBLNlpBatcher.BATCH_PATH, exchange -> {
+      if (!batchEndpoint) {
+        reply(exchange, 404, "{}");
+        return;
+      }
+      batchCalls.incrementAndGet();
+      String body = read(exchange);
+      if (errorStatus != 0) {
+        reply(exchange, errorStatus, "{\"error\":\"busy\"}");
+        return;
+      }
+      String requests = body.substring(body.indexOf('['), body.lastIndexOf(']') + 1);
+      StringBuilder responses = new StringBuilder("{\"responses\":[");
+      List<String> documents = DBLBatchCrypt.split(requests.getBytes(StandardCharsets.UTF_8));
+      for (int i = 0; i < documents.size() - (shortBatchReply ? 1 : 0); i++) {
+        responses.append(i > 0 ? "," : "").append(answer(documents.get(i)));
+      }
+      reply(exchange, 200, responses.append("]}").toString());
+    });
+    server.start();
+    baseUri = "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  @After
+  public void stopStubServer() {
+    server.stop(0);
+  }
+
+  @Test
+  public void fullBatchIsSentAsOneRequest() throws Exception {
+    DBLNlpBatcher batcher = new DBLNlpBatcher(this::post, 4, 10_000);
+    try {
+      List<CompletableFuture<InputStream>> results = submit(batcher, 4);
+      for (int i = 0; i < 4; i++) {
+        assertThat(text(results.get(i).get(5, TimeUnit.SECONDS)), is(answer(body(i))));
+      }
+      assertThat(batchCalls.get(), is(1));
+      assertThat(singleCalls.get(), is(0));
+    } finally {
+      batcher.dispose();
+    }
+  }
+
+  @Test
+  public void partialBatchIsSentWhenTheWindowCloses() throws Exception {
+    DBLNlpBatcher batcher = new DBLNlpBatcher(this::post, 10, 50);
+    try {
+      List<CompletableFuture<InputStream>> results = submit(batcher, 3);
+      for (int i = 0; i < 3; i++) {
+        assertThat(text(results.get(i).get(5, TimeUnit.SECONDS)), is(answer(body(i))));
+      }
+      assertThat(batchCalls.get(), is(1));
+    } finally {
+      batcher.dispose();
+    }
+  }
+
+  @Test
+  public void missingBatchEndpointFallsBackToSingleRequests() throws Exception {
+    batchEndpoint = false;
+    DBLNlpBatcher batcher = new DBLNlpBatcher(this::post, 2, 10_000);
+    try {
+      List<CompletableFuture<InputStream>> results = submit(batcher, 2);
+      for (int i = 0; i < 2; i++) {
+        assertThat(text(results.get(i).get(5, TimeUnit.SECONDS)), is(answer(body(i))));
+      }
+      assertThat(batcher.isBatching(), is(false));
+
+      // once switched off, requests go straight to the single endpoint
+      assertThat(text(batcher.submit(request(7)).get(5, TimeUnit.SECONDS)), is(answer(body(7))));
+      assertThat(singleCalls.get(), is(3));
+    } finally {
+      batcher.dispose();
+    }
+  }
+
+  @Test
+  public void batchSizeOfOneSendsSingleRequests() throws Exception {
+    DBLNlpBatcher batcher = new DBLNlpBatcher(this::post, 1, 10_000);
+    try {
+      assertThat(text(batcher.submit(request(1)).get(5, TimeUnit.SECONDS)), is(answer(body(1))));
+      assertThat(singleCalls.get(), is(1));
+      assertThat(batchCalls.get(), is(0));
+    } finally {
+      batcher.dispose();
+    }
+  }
+
+  @Test
+  public void errorStatusFailsSingleRequest() throws Exception {
+    errorStatus = 503;
+    DBLNlpBatcher batcher = new DBLNlpBatcher(this::post, 1, 10_000);
+    try {
+      assertThat(status(batcher.submit(request(1))), is(503));
+      assertThat(singleCalls.get(), is(1));
+    } finally {
+      batcher.dispose();
+    }
+  }
+
+  @Test
+  public void errorStatusFailsTheWholeBatchWithoutRetrying() throws Exception {
+    errorStatus = 429;
+    DBLNlpBatcher batcher = new DBLNlpBatcher(this::post, 3, 10_000);
+    try {
+      List<CompletableFuture<InputStream>> results = submit(batcher, 3);
+      for (CompletableFuture<InputStream> result : results) {
+        assertThat(status(result), is(429));
+      }
+      assertThat(batchCalls.get(), is(1));
+      assertThat(singleCalls.get(), is(0));
+      assertThat(batcher.isBatching(), is(true));
+    } finally {
+      batcher.dispose();
+    }
+  }
+
+  @Test
+  public void unmatchedBatchReplyIsRetriedOneByOne() throws Exception {
+    shortBatchReply = true;
+    DBLNlpBatcher batcher = new DBLNlpBatcher(this::post, 2, 10_000);
+    try {
+      List<CompletableFuture<InputStream>> results = submit(batcher, 2);
+      for (int i = 0; i < 2; i++) {
+        assertThat(text(results.get(i).get(5, TimeUnit.SECONDS)), is(answer(body(i))));
+      }
+      assertThat(batchCalls.get(), is(1));
+      assertThat(singleCalls.get(), is(2));
+    } finally {
+      batcher.dispose();
+    }
+  }
+
+  @Test
+  public void batchReplyIsSliced() throws Exception {
+    byte[] reply = "{\"responses\":[{\"a\":[1,2]},\"x\",{\"b\":{}}],\"ignored\":1}".getBytes(StandardCharsets.UTF_8);
+    assertThat(DBLNlpBatcher.responses(reply).toString(), is("[{\"a\":[1,2]}, \"x\", {\"b\":{}}]"));
+  }
+
+  private List<CompletableFuture<InputStream>> submit(DBLNlpBatcher batcher, int count) {
+    List<CompletableFuture<InputStream>> results = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      results.add(batcher.submit(request(i)));
+    }
+    return results;
+  }
+
+  /**
+   * @return the status of the {@link DBLNlpBatcher.StatusException} the request failed with
+   */
+  private static int status(CompletableFuture<InputStream> result) throws Exception {
+    try {
+      result.get(5, TimeUnit.SECONDS);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+      return ((DBLNlpBatcher.StatusException) cause).getStatus();
+    }
+    throw new AssertionError("The request did not fail");
+  }
+
+  private CompletableFuture<DBLNlpBatcher.Reply> post(String path, InputStream body) {
+    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUri + path))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofInputStream(() -> body))
+        .build();
+    return client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+        .thenApply(response -> new DBLNlpBatcher.Reply(response.statusCode(), response.body()));
+  }
+
+  private static DBLNlpRequest request(int id) {
+    return new DBLNlpRequest("key", "tweak", "{\"id\":" + id + "}", "NOTOKEN", "NOPASSPHRASE");
+  }
+
+  private static String body(int id) throws IOException {
+    return text(request(id).open());
+  }
+
+  private static String text(InputStream in) throws IOException {
+    try (InputStream stream = in) {
+      return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  private static String answer(String document) {
+    return document.substring(0, document.lastIndexOf('}')) + ",\"protected\":true}";
+  }
+
+  private static String read(HttpExchange exchange) throws IOException {
+    return new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+  }
+
+  private static void reply(HttpExchange exchange, int status, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * Checks how {@link DBLNlpChunker} splits documents, joins the protected chunks and retries failed chunks. The NLP
+ * service is replaced by a function that upper-cases the string values of the request.
+ */
+public class DBLNlpChunkerTestCase {
+
+  private static final Pattern STRING_VALUE = Pattern.compile("\"[^\"]*\"(\\s*:)?");
+
+  private final AtomicInteger calls = new AtomicInteger();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+
+  private final Function<String, CompletableFuture<InputStream>> service = chunk -> {
+    calls.incrementAndGet();
+    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+    return CompletableFuture.supplyAsync(() -> {
+      inFlight.decrementAndGet();
+      // names are followed by a colon and kept as they are
+      String reply = STRING_VALUE.matcher(chunk)
+          .replaceAll(string -> string.group(1) != null ? string.group() : string.group().toUpperCase());
+      return new ByteArrayInputStream(reply.getBytes(StandardCharsets.UTF_8));
+    });
+  };
+
+  @Test
+  public void topLevelArrayIsSplitIntoChunks() throws IOException {
+    List<String> chunks = new DBLNlpChunker(null, 2, 4, 0).split("[{\"a\":1}, {\"a\":2},{\"a\":3}]");
+    assertThat(chunks.size(), is(2));
+    assertThat(chunks.get(0), is("[{\"a\":1}, {\"a\":2}]"));
+    assertThat(chunks.get(1), is("[{\"a\":3}]"));
+  }
+
+  @Test
+  public void arrayAtPathIsSplitWithTheRestOfTheDocument() throws IOException {
+    List<String> chunks = new DBLNlpChunker("batch.records", 1, 4, 0)
+        .split("{\"batch\":{\"id\":7,\"records\":[\"x\",\"y\"],\"tail\":true}}");
+    assertThat(chunks.size(), is(2));
+    assertThat(chunks.get(1), is("{\"batch\":{\"id\":7,\"records\":[\"y\"],\"tail\":true}}"));
+  }
+
+  @Test
+  public void smallOrUnsplittableDocumentsAreNotChunked() throws IOException {
+    assertThat(new DBLNlpChunker(null, 4, 4, 0).split("[1,2,3]") == null, is(true));
+    assertThat(new DBLNlpChunker(null, 1, 4, 0).split("{\"a\":[1,2,3]}") == null, is(true));
+    assertThat(new DBLNlpChunker("b", 1, 4, 0).split("{\"a\":[1,2,3]}") == null, is(true));
+  }
+
+  @Test
+  public void responsesAreJoinedInOrderWithBoundedConcurrency() throws Exception {
+    StringBuilder json = new StringBuilder("{\"id\":\"doc\",\"records\":[");
+    StringBuilder expected = new StringBuilder("{\"id\":\"DOC\",\"records\":[");
+    for (int i = 0; i < 100; i++) {
+      json.append(i == 0 ? "" : ",").append("{\"name\":\"n").append(i).append("\"}");
+      expected.append(i == 0 ? "" : ",").append("{\"name\":\"N").append(i).append("\"}");
+    }
+    json.append("]}");
+    expected.append("]}");
+    DBLNlpChunker chunker = new DBLNlpChunker("records", 7, 3, 0);
+    List<String> chunks = chunker.split(json.toString());
+    byte[] joined = chunker.send(chunks, service, Runnable::run).get(10, TimeUnit.SECONDS);
+    assertThat(new String(joined, StandardCharsets.UTF_8), is(expected.toString()));
+    assertThat(calls.get(), is(15));
+    assertThat(maxInFlight.get() <= 3, is(true));
+  }
+
+  @Test
+  public void failedChunkIsSentAgainOnItsOwn() throws Exception {
+    AtomicInteger failures = new AtomicInteger(2);
+    Function<String, CompletableFuture<InputStream>> flaky = chunk -> chunk.contains("3") && failures
+        .getAndDecrement() > 0 ? CompletableFuture.failedFuture(new IOException("reset")) : service.apply(chunk);
+    DBLNlpChunker chunker = new DBLNlpChunker(null, 1, 2, 2);
+    byte[] joined = chunker.send(chunker.split("[\"a1\",\"a2\",\"a3\"]"), flaky, Runnable::run)
+        .get(10, TimeUnit.SECONDS);
+    assertThat(new String(joined, StandardCharsets.UTF_8), is("[\"A1\",\"A2\",\"A3\"]"));
+    assertThat(calls.get(), is(3));
+  }
+
+  @Test
+  public void chunkFailingEveryRetryFailsTheDocument() throws Exception {
+    Function<String, CompletableFuture<InputStream>> broken = chunk -> chunk.contains("2")
+        ? CompletableFuture.failedFuture(new IOException("reset")) : service.apply(chunk);
+    DBLNlpChunker chunker = new DBLNlpChunker(null, 1, 1, 1);
+    try {
+      chunker.send(chunker.split("[1,2,3]"), broken, Runnable::run).get(10, TimeUnit.SECONDS);
+      throw new AssertionError("the document should fail");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause() instanceof IOException || e.getCause().getCause() instanceof IOException, is(true));
+    }
+    // the third chunk is never sent once the second has failed
+    assertThat(calls.get(), is(1));
+  }
+}
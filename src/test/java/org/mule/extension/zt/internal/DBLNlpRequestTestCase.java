@@ -0,0 +1,75 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+/**
+ * Checks the streamed NLP request body of {@link DBLNlpRequest}.
+ */
+public class DBLNlpRequestTestCase {
+
+  @Test
+  public void envelopeWrapsTheDocument() throws IOException {
+    DBLNlpRequest request = new DBLNlpRequest("k\"1", "tweak", "{\"name\":\"Zo\u00eb\"}", "NOTOKEN", null);
+    assertThat(text(request.open()), is("{\"key\":\"k\\\"1\",\"tweak\":\"tweak\",\"data\":{\"name\":\"Zo\u00eb\"},"
+        + "\"overRideToken\":\"NOTOKEN\",\"overRidePassPhrase\":null}"));
+  }
+
+  @Test
+  public void largeDocumentIsEncodedAsUtf8() throws IOException {
+    String document = document(200_000);
+    DBLNlpRequest request = new DBLNlpRequest("key", "tweak", document, "NOTOKEN", "NOPASSPHRASE");
+    String body = text(request.open());
+    assertThat(body.substring(body.indexOf("\"data\":") + 7, body.indexOf(",\"overRideToken\"")), is(document));
+    // the body can be read again, to retry a request
+    assertThat(text(request.open()), is(body));
+  }
+
+  @Test
+  public void batchBodyListsTheRequests() throws IOException {
+    DBLNlpRequest first = new DBLNlpRequest("key", "t1", "{\"a\":1}", "NOTOKEN", "NOPASSPHRASE");
+    DBLNlpRequest second = new DBLNlpRequest("key", "t2", "[2]", "NOTOKEN", "NOPASSPHRASE");
+    assertThat(text(DBLNlpRequest.openBatch(Arrays.asList(first, second))),
+        is("{\"requests\":[" + text(first.open()) + "," + text(second.open()) + "]}"));
+  }
+
+  @Test
+  public void gzipBodyInflatesToTheBody() throws IOException {
+    DBLNlpRequest request = new DBLNlpRequest("key", "tweak", document(50_000), "NOTOKEN", "NOPASSPHRASE");
+    byte[] compressed = DBLNlpRequest.gzip(request.open()).readAllBytes();
+    String inflated = text(new GZIPInputStream(new ByteArrayInputStream(compressed)));
+    assertThat(inflated, is(text(request.open())));
+    assertThat(compressed.length < inflated.length() / 4, is(true));
+  }
+
+  private static String document(int people) {
+    StringBuilder json = new StringBuilder("{\"people\":[");
+    for (int i = 0; i < people; i++) {
+      json.append(i > 0 ? "," : "").append("{\"id\":").append(i).append(",\"name\":\"Zo\u00eb ").append(i).append("\"}");
+    }
+    return json.append("]}").toString();
+  }
+
+  private static String text(InputStream in) throws IOException {
+    try (InputStream stream = in) {
+      return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Checks that {@link DBLObjectCrypt} transforms the values of maps and lists in place of JSON text, with the path
+ * rules of the JSON operations.
+ */
+public class DBLObjectCryptTestCase {
+
+  private final List<String> calls = new ArrayList<>();
+
+  // strings become "TYPE/value", numbers are negated
+  private final DBLFieldCipher.BlockTransform cipher = (cipherSpecs, rawValues) -> {
+    calls.add(String.join(",", rawValues));
+    String[] results = new String[rawValues.length];
+    for (int i = 0; i < rawValues.length; i++) {
+      results[i] = rawValues[i].startsWith("\"")
+          ? "\"" + cipherSpecs[i] + "/" + rawValues[i].substring(1)
+          : new BigDecimal(rawValues[i]).negate().toString();
+    }
+    return results;
+  };
+
+  @Test
+  public void nestedValuesAreTransformedInOneBlock() throws Exception {
+    DBLFieldPlan plan = DBLFieldPlan.compileCipherSpec("{'ssn':'FE:SSN','claims.amount':'FE:CURRENCY_AMOUNT'}");
+    Map<String, Object> document = map("name", "Ann", "ssn", "123-45-6789",
+        "claims", Arrays.asList(map("amount", 10, "id", 1), map("amount", 2.5, "id", 2)));
+
+    @SuppressWarnings("unchecked")
+    Map<String, Object> result = (Map<String, Object>) DBLObjectCrypt.transform(document, plan, cipher);
+    assertThat(result.get("ssn"), is("FE:SSN/123-45-6789"));
+    assertThat(result.get("name"), is("Ann"));
+    List<?> claims = (List<?>) result.get("claims");
+    assertThat(((Map<?, ?>) claims.get(0)).get("amount"), is(-10L));
+    assertThat(((Map<?, ?>) claims.get(1)).get("amount"), is(-2.5));
+    assertThat(((Map<?, ?>) claims.get(1)).get("id"), is(2));
+    assertThat(calls.size(), is(1));
+    assertThat(calls.get(0), is("\"123-45-6789\",10,2.5"));
+  }
+
+  @Test
+  public void inputIsNotModifiedAndUntouchedSubtreesAreShared() throws Exception {
+    DBLFieldPlan plan = DBLFieldPlan.compileCipherSpec("{'contact.email':'FE:EMAIL_ADDRESS'}");
+    Map<String, Object> address = Collections.unmodifiableMap(map("city", "Paris"));
+    Map<String, Object> contact = Collections.unmodifiableMap(map("email", "a@b.c"));
+    Map<String, Object> document = Collections.unmodifiableMap(map("contact", contact, "address", address));
+
+    Map<?, ?> result = (Map<?, ?>) DBLObjectCrypt.transform(document, plan, cipher);
+    assertThat(((Map<?, ?>) result.get("contact")).get("email"), is("FE:EMAIL_ADDRESS/a@b.c"));
+    assertThat(contact.get("email"), is("a@b.c"));
+    assertThat(result.get("address") == address, is(true));
+  }
+
+  @Test
+  public void arraysOfScalarsAndOtherTypesFollowTheJsonRules() throws Exception {
+    DBLFieldPlan plan = DBLFieldPlan.compileCipherSpec("{'phones':'FE:PHONE_NUMBER','flag':'FE:SSN'}");
+    Map<String, Object> document = map("phones", Arrays.asList("555-1234", null, "555-9876"), "flag", true);
+
+    Map<?, ?> result = (Map<?, ?>) DBLObjectCrypt.transform(document, plan, cipher);
+    assertThat(result.get("phones"), is(Arrays.<Object>asList("FE:PHONE_NUMBER/555-1234", null,
+        "FE:PHONE_NUMBER/555-9876")));
+    // booleans and nulls are not transformed, as in JSON text
+    assertThat(result.get("flag"), is(true));
+  }
+
+  @Test
+  public void documentWithoutMatchesIsReturnedAsIs() throws Exception {
+    DBLFieldPlan plan = DBLFieldPlan.compileCipherSpec("{'ssn':'FE:SSN'}");
+    Map<String, Object> document = map("name", "Ann");
+    assertThat(DBLObjectCrypt.transform(document, plan, cipher) == document, is(true));
+    assertThat(calls.isEmpty(), is(true));
+  }
+
+  @Test
+  public void structuresAreWrittenAsJson() {
+    Map<String, Object> document = map("name", "A\"n", "n", 1, "ok", false, "none", null,
+        "list", Arrays.asList(1.5, "x"), "array", new Object[] {"y"});
+    assertThat(DBLObjectCrypt.toJson(document),
+        is("{\"name\":\"A\\\"n\",\"n\":1,\"ok\":false,\"none\":null,\"list\":[1.5,\"x\"],\"array\":[\"y\"]}"));
+    assertThat(DBLObjectCrypt.isStructure(document), is(true));
+    assertThat(DBLObjectCrypt.isStructure("{}"), is(false));
+  }
+
+  private static Map<String, Object> map(Object... entries) {
+    Map<String, Object> map = new LinkedHashMap<>();
+    for (int i = 0; i < entries.length; i += 2) {
+      map.put((String) entries[i], entries[i + 1]);
+    }
+    return map;
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Checks that {@link DBLParallelCrypt} splices the transformed values into the untouched rest of the document, both
+ * when the values go as a single block on the calling thread and when they are split over the pool, and that it
+ * falls back to the whole document without scanning documents too short to be split. The calling thread transforms
+ * blocks itself rather than waiting on the pool.
+ */
+public class DBLParallelCryptTestCase {
+
+  private static final DBLFieldPlan PLAN = DBLFieldPlan.compileCipherSpec("{'name':'FE:PERSON_NAME','ssn':'FE:SSN'}");
+
+  private final ForkJoinPool pool = new ForkJoinPool(4);
+  private final AtomicInteger calls = new AtomicInteger();
+  private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+  // "x" -> "<x>", 12 -> "<12>"
+  private final DBLFieldCipher.BlockTransform brackets = (cipherSpecs, rawValues) -> {
+    calls.incrementAndGet();
+    threads.add(Thread.currentThread());
+    String[] results = new String[rawValues.length];
+    for (int i = 0; i < rawValues.length; i++) {
+      String value = rawValues[i].startsWith("\"") ? rawValues[i].substring(1, rawValues[i].length() - 1)
+          : rawValues[i];
+      results[i] = "\"<" + value + ">\"";
+    }
+    return results;
+  };
+
+  @After
+  public void shutdownPool() {
+    pool.shutdown();
+  }
+
+  @Test
+  public void valuesAreSplicedIntoTheDocumentAsIs() throws Exception {
+    DBLParallelCrypt crypt = new DBLParallelCrypt(null, pool, 0, null);
+    String json = "{ \"name\" : \"Zo\\u00e9 \\\"Z\\\"\",\n  \"note\": \"caf\u00e9 \u2603\", \"ssn\":123456789 ,"
+        + "\"kids\":[{\"name\":\"Al\"}], \"other\": {\"ssn\": null} }";
+    String result = crypt.transform(json, PLAN, brackets, true);
+    assertThat(result, is("{ \"name\" : \"<Zo\\u00e9 \\\"Z\\\">\",\n  \"note\": \"caf\u00e9 \u2603\", "
+        + "\"ssn\":\"<123456789>\" ,\"kids\":[{\"name\":\"Al\"}], \"other\": {\"ssn\": null} }"));
+    assertThat(calls.get(), is(1));
+  }
+
+  @Test
+  public void documentWithoutValuesIsNotTransformed() throws Exception {
+    DBLParallelCrypt crypt = new DBLParallelCrypt(null, pool, 0, null);
+    String json = "{\"note\":\"kept\"}";
+    assertThat(crypt.transform(json, PLAN, brackets, true), is(json));
+    assertThat(calls.get(), is(0));
+  }
+
+  @Test
+  public void documentBelowTheThresholdIsOneBlockOnTheCallingThread() throws Exception {
+    DBLParallelCrypt crypt = new DBLParallelCrypt(null, pool, 64, null);
+    assertThat(crypt.transform(records(31), PLAN, brackets, true), is(transformed(31)));
+    assertThat(calls.get(), is(1));
+    assertThat(threads, is(Set.of(Thread.currentThread())));
+  }
+
+  @Test
+  public void documentIsOneBlockWhenNotParallel() throws Exception {
+    DBLParallelCrypt crypt = new DBLParallelCrypt(null, pool, 2, null);
+    assertThat(crypt.transform(records(100), PLAN, brackets, false), is(transformed(100)));
+    assertThat(calls.get(), is(1));
+  }
+
+  @Test
+  public void splitDocumentIsSplicedInOrder() throws Exception {
+    DBLParallelCrypt crypt = new DBLParallelCrypt(null, pool, 64, null);
+    assertThat(crypt.transform(records(200), PLAN, brackets, true), is(transformed(200)));
+    assertThat(calls.get() > 1, is(true));
+  }
+
+  @Test
+  public void splitDocumentProgressesOnASaturatedPool() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    for (int i = 0; i < pool.getParallelism(); i++) {
+      pool.execute(() -> {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+    }
+    try {
+      DBLParallelCrypt crypt = new DBLParallelCrypt(null, pool, 64, null);
+      assertThat(crypt.transform(records(200), PLAN, brackets, true), is(transformed(200)));
+      assertThat(threads, is(Set.of(Thread.currentThread())));
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test
+  public void failureOfABlockIsThrownAsIs() throws Exception {
+    DBLParallelCrypt crypt = new DBLParallelCrypt(null, pool, 2, null);
+    IllegalStateException failure = new IllegalStateException("engine failed");
+    try {
+      crypt.transform(records(100), PLAN, (cipherSpecs, rawValues) -> {
+        throw failure;
+      }, true);
+      assertThat("the failure of a block is thrown", false);
+    } catch (IllegalStateException e) {
+      assertThat(e == failure, is(true));
+    }
+  }
+
+  @Test
+  public void shortDocumentsAreNotScannedOnceTheDensityIsKnown() throws Exception {
+    DBLParallelCrypt crypt = new DBLParallelCrypt(new DBLEngineCache("datablind-test-key", 1, 1), pool, 16,
+        new DBLMemoCache(0, 0));
+    String json = records(2);
+    // nothing is known before the first scan
+    assertThat(crypt.isTooShortToSplit(1), is(false));
+    crypt.transform("Encrypt", "047474", json, PLAN, "NOTOKEN", "NOPASSPHRASE");
+    // 4 values in json: a document needs about 4 times its length to reach 16 values, half that when denser
+    assertThat(crypt.isTooShortToSplit(json.length()), is(true));
+    assertThat(crypt.isTooShortToSplit(2 * json.length() - 8), is(true));
+    assertThat(crypt.isTooShortToSplit(2 * json.length() + 8), is(false));
+  }
+
+  @Test
+  public void fixedThresholdIsKept() {
+    assertThat(new DBLParallelCrypt(null, pool, 5, null).threshold(), is(5));
+    assertThat(new DBLParallelCrypt(null, pool, 0, null).threshold(), is(DBLParallelCrypt.DEFAULT_THRESHOLD));
+  }
+
+  private static String records(int count) {
+    StringBuilder json = new StringBuilder("[");
+    for (int i = 0; i < count; i++) {
+      json.append(i > 0 ? "," : "").append("{\"name\":\"n").append(i).append("\",\"ssn\":").append(i).append('}');
+    }
+    return json.append(']').toString();
+  }
+
+  private static String transformed(int count) {
+    StringBuilder json = new StringBuilder("[");
+    for (int i = 0; i < count; i++) {
+      json.append(i > 0 ? "," : "").append("{\"name\":\"<n").append(i).append(">\",\"ssn\":\"<").append(i)
+          .append(">\"}");
+    }
+    return json.append(']').toString();
+  }
+}
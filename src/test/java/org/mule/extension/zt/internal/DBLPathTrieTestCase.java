@@ -0,0 +1,129 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Checks how {@link DBLPathTrie} arranges the sensitive paths and how {@link DBLPathTracker} follows a document
+ * through them: arrays at any depth, wildcards, escaped field names and newline delimited documents.
+ */
+public class DBLPathTrieTestCase {
+
+  @Test
+  public void pathsShareTheirPrefixes() {
+    DBLPathTrie trie = plan("{'account.card':'FE:CREDIT_CARD','account.owner.name':'FE:PERSON_NAME'}").getTrie();
+    DBLPathTrie.Node account = trie.root().child("account");
+    assertThat(account.field() == null, is(true));
+    assertThat(account.child("card").field().getCipherSpec(), is("FE:CREDIT_CARD"));
+    assertThat(account.child("card").isLeaf(), is(true));
+    assertThat(account.child("owner").child("name").field().getCipherSpec(), is("FE:PERSON_NAME"));
+    assertThat(account.child("other") == null, is(true));
+    assertThat(trie.root().child("card") == null, is(true));
+  }
+
+  @Test
+  public void arrayMarkersAreIgnored() {
+    DBLPathTrie trie = plan("{'claims[*].ssn':'FE:SSN','rows[][].n':'FE:SSN'}").getTrie();
+    assertThat(trie.root().child("claims").child("ssn").field().getCipherSpec(), is("FE:SSN"));
+    assertThat(trie.root().child("rows").child("n").field() == null, is(false));
+  }
+
+  @Test
+  public void wildcardIsCopiedIntoNamedSiblings() {
+    DBLPathTrie trie = plan("{'users.*.email':'FE:EMAIL_ADDRESS','users.admin.phone':'FE:PHONE_NUMBER'}").getTrie();
+    DBLPathTrie.Node admin = trie.root().child("users").child("admin");
+    assertThat(admin.child("email").field().getCipherSpec(), is("FE:EMAIL_ADDRESS"));
+    assertThat(admin.child("phone").field().getCipherSpec(), is("FE:PHONE_NUMBER"));
+    DBLPathTrie.Node guest = trie.root().child("users").child("guest");
+    assertThat(guest.child("email").field().getCipherSpec(), is("FE:EMAIL_ADDRESS"));
+    assertThat(guest.child("phone") == null, is(true));
+  }
+
+  @Test
+  public void firstCipherTypeOfADuplicatePathWins() {
+    DBLPathTrie trie = plan("{'ssn':'FE:SSN','ssn':'AES:SSN'}").getTrie();
+    assertThat(trie.root().child("ssn").field().getCipherSpec(), is("FE:SSN"));
+  }
+
+  @Test
+  public void valuesAreMatchedFromTheRoot() throws IOException {
+    DBLFieldPlan plan = plan("{'ssn':'FE:SSN','contact.email':'FE:EMAIL_ADDRESS'}");
+    assertThat(matches(plan, "{\"ssn\":\"1\",\"contact\":{\"email\":\"a@b\",\"ssn\":\"2\"},\"email\":\"c@d\"}"),
+        is(List.of("FE:SSN=\"1\"", "FE:EMAIL_ADDRESS=\"a@b\"")));
+  }
+
+  @Test
+  public void arraysAreTransparentAtAnyDepth() throws IOException {
+    DBLFieldPlan plan = plan("{'claims.ssn':'FE:SSN','codes':'FE:SSN'}");
+    String document = "{\"claims\":[{\"ssn\":\"1\"},[{\"ssn\":\"2\"},[{\"ssn\":3}]],{\"id\":\"x\",\"ssn\":null}],"
+        + "\"codes\":[\"a\",[\"b\",[]],{\"c\":\"no\"}],\"after\":{\"ssn\":\"no\"}}";
+    assertThat(matches(plan, document), is(List.of("FE:SSN=\"1\"", "FE:SSN=\"2\"", "FE:SSN=3", "FE:SSN=null",
+        "FE:SSN=\"a\"", "FE:SSN=\"b\"")));
+  }
+
+  @Test
+  public void containerOnASensitivePathIsNotMatchedItself() throws IOException {
+    DBLFieldPlan plan = plan("{'contact':'FE:EMAIL_ADDRESS'}");
+    assertThat(matches(plan, "{\"contact\":{\"email\":\"a@b\"},\"other\":\"x\"}"), is(List.of()));
+  }
+
+  @Test
+  public void wildcardMatchesAnyFieldName() throws IOException {
+    DBLFieldPlan plan = plan("{'users.*.email':'FE:EMAIL_ADDRESS'}");
+    String document = "{\"users\":{\"ann\":{\"email\":\"a@b\"},\"bob\":{\"email\":\"c@d\",\"name\":\"Bob\"}},"
+        + "\"email\":\"no\"}";
+    assertThat(matches(plan, document), is(List.of("FE:EMAIL_ADDRESS=\"a@b\"", "FE:EMAIL_ADDRESS=\"c@d\"")));
+  }
+
+  @Test
+  public void escapedFieldNamesAreMatchedDecoded() throws IOException {
+    DBLFieldPlan plan = plan("{'n\u00e9.ssn':'FE:SSN'}");
+    assertThat(matches(plan, "{\"n\\u00e9\":{\"s\\u0073n\":\"1\"},\"n\u00e9\":{\"ssn\":\"\\\"2\\\"\"}}"),
+        is(List.of("FE:SSN=\"1\"", "FE:SSN=\"\\\"2\\\"\"")));
+  }
+
+  @Test
+  public void everyNewlineDelimitedDocumentStartsFromTheRoot() throws IOException {
+    DBLFieldPlan plan = plan("{'ssn':'FE:SSN'}");
+    assertThat(matches(plan, "{\"ssn\":\"1\"}\n{\"a\":{\"ssn\":\"no\"},\"ssn\":\"2\"}\n[{\"ssn\":\"3\"}]\n"),
+        is(List.of("FE:SSN=\"1\"", "FE:SSN=\"2\"", "FE:SSN=\"3\"")));
+  }
+
+  private static DBLFieldPlan plan(String cipherSpec) {
+    return DBLFieldPlan.compileCipherSpec(cipherSpec);
+  }
+
+  /**
+   * @return {@code MODE:TYPE=raw value} for every scalar the tracker marks as sensitive, in document order
+   */
+  private static List<String> matches(DBLFieldPlan plan, String document) throws IOException {
+    DBLJsonScanner scanner = new DBLJsonScanner(document.getBytes(StandardCharsets.UTF_8));
+    DBLPathTracker tracker = new DBLPathTracker(scanner, plan.getTrie());
+    List<String> matches = new ArrayList<>();
+    int token;
+    do {
+      boolean capture = tracker.captureNext();
+      token = scanner.next(capture);
+      tracker.advance(token);
+      if (capture && DBLJsonScanner.isScalar(token)) {
+        matches.add(tracker.lastNode().field().getCipherSpec() + "=" + scanner.captured());
+      }
+    } while (token != DBLJsonScanner.END_OF_INPUT);
+    return matches;
+  }
+}
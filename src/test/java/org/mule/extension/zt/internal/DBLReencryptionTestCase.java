@@ -0,0 +1,118 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Checks that re-encryption chains the two block transforms over a single pass of the document, for whole
+ * documents, split documents and batches.
+ */
+public class DBLReencryptionTestCase {
+
+  private static final DBLFieldPlan PLAN = DBLFieldPlan.compileCipherSpec("{'ssn':'FE:SSN','card':'FE:CREDIT_CARD'}");
+
+  private final AtomicInteger decryptCalls = new AtomicInteger();
+  private final AtomicInteger encryptCalls = new AtomicInteger();
+
+  // "old-x" -> "x"
+  private final DBLFieldCipher.BlockTransform decrypt = (cipherSpecs, rawValues) -> {
+    decryptCalls.incrementAndGet();
+    String[] results = new String[rawValues.length];
+    for (int i = 0; i < rawValues.length; i++) {
+      if (!rawValues[i].startsWith("\"old-")) {
+        throw new IllegalStateException("not protected with the old key: " + rawValues[i]);
+      }
+      results[i] = "\"" + rawValues[i].substring(5);
+    }
+    return results;
+  };
+
+  // "x" -> "new-x"
+  private final DBLFieldCipher.BlockTransform encrypt = (cipherSpecs, rawValues) -> {
+    encryptCalls.incrementAndGet();
+    String[] results = new String[rawValues.length];
+    for (int i = 0; i < rawValues.length; i++) {
+      results[i] = "\"new-" + rawValues[i].substring(1);
+    }
+    return results;
+  };
+
+  @Test
+  public void chainPassesTheDecryptedBlockToTheEncryption() throws Exception {
+    String[] results = decrypt.andThen(encrypt).apply(new String[] {"FE:SSN", "FE:CREDIT_CARD"},
+        new String[] {"\"old-123\"", "\"old-4111\""});
+    assertThat(results[0], is("\"new-123\""));
+    assertThat(results[1], is("\"new-4111\""));
+    assertThat(decryptCalls.get(), is(1));
+    assertThat(encryptCalls.get(), is(1));
+  }
+
+  @Test
+  public void documentIsReencryptedInPlaceWithOneCallPerSide() throws Exception {
+    DBLParallelCrypt crypt = new DBLParallelCrypt(null, new ForkJoinPool(1), 0, null);
+    String json = "{ \"name\": \"Ann\", \"ssn\": \"old-123\", \"cards\": [ ], \"card\": \"old-4111\" }";
+    String result = crypt.transform(json, PLAN, decrypt.andThen(encrypt), false);
+    assertThat(result, is("{ \"name\": \"Ann\", \"ssn\": \"new-123\", \"cards\": [ ], \"card\": \"new-4111\" }"));
+    assertThat(decryptCalls.get(), is(1));
+    assertThat(encryptCalls.get(), is(1));
+  }
+
+  @Test
+  public void documentWithoutSensitiveValuesIsReturnedAsIs() throws Exception {
+    DBLParallelCrypt crypt = new DBLParallelCrypt(null, new ForkJoinPool(1), 0, null);
+    String json = "{\"name\":\"Ann\"}";
+    assertThat(crypt.transform(json, PLAN, decrypt.andThen(encrypt), false), is(json));
+    assertThat(decryptCalls.get(), is(0));
+  }
+
+  @Test
+  public void splitDocumentKeepsTheOrderOfItsValues() throws Exception {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      DBLParallelCrypt crypt = new DBLParallelCrypt(null, pool, 2, null);
+      StringBuilder json = new StringBuilder("[");
+      StringBuilder expected = new StringBuilder("[");
+      for (int i = 0; i < 100; i++) {
+        String separator = i > 0 ? "," : "";
+        json.append(separator).append("{\"ssn\":\"old-").append(i).append("\",\"card\":\"old-c").append(i).append("\"}");
+        expected.append(separator).append("{\"ssn\":\"new-").append(i).append("\",\"card\":\"new-c").append(i)
+            .append("\"}");
+      }
+      String result = crypt.transform(json.append(']').toString(), PLAN, decrypt.andThen(encrypt), true);
+      assertThat(result, is(expected.append(']').toString()));
+      assertThat(decryptCalls.get() > 1, is(true));
+      assertThat(encryptCalls.get(), is(decryptCalls.get()));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void batchReportsRecordsThatCannotBeReencrypted() throws Exception {
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      DBLBatchCrypt batch = new DBLBatchCrypt(pool, PLAN, decrypt.andThen(encrypt));
+      byte[] input = "[{\"ssn\":\"old-1\"},{\"ssn\":\"plain\"},{\"name\":\"Bob\"}]".getBytes(StandardCharsets.UTF_8);
+      String result = batch.run(input, 2, 1);
+      assertThat(result.startsWith("{\"records\":[{\"ssn\":\"new-1\"},null,{\"name\":\"Bob\"}],\"errors\":[{\"index\":1,"),
+          is(true));
+      assertThat(encryptCalls.get(), is(1));
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
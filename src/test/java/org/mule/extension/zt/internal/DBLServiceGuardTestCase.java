@@ -0,0 +1,174 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+/**
+ * Checks how {@link DBLServiceGuard} learns its limit, opens and closes its circuit and queues calls, with a
+ * controlled clock and calls completed by the test.
+ */
+public class DBLServiceGuardTestCase {
+
+  private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final AtomicLong now = new AtomicLong(1_000 * MILLI);
+  private final List<CompletableFuture<DBLNlpBatcher.Reply>> sent = new ArrayList<>();
+
+  @Test
+  public void fastRepliesRaiseTheLimitAndSlowRepliesLowerIt() {
+    DBLServiceGuard guard = guard(true, 64, 0, DBLOverloadAction.FAIL_FAST);
+    assertThat(guard.getConcurrencyLimit(), is(DBLServiceGuard.INITIAL_LIMIT));
+    for (int round = 0; round < 8; round++) {
+      roundTrip(guard, 16, 10, 200);
+    }
+    assertThat(guard.getConcurrencyLimit() > DBLServiceGuard.INITIAL_LIMIT, is(true));
+    assertThat(guard.getBaselineLatencyMicros(), is(10_000L));
+
+    int before = guard.getConcurrencyLimit();
+    roundTrip(guard, before, 50, 200);
+    int slow = guard.getConcurrencyLimit();
+    // one decrease for the calls that were in flight together
+    assertThat(slow < before && slow >= (int) (before * DBLServiceGuard.BACKOFF), is(true));
+    now.addAndGet(MILLI);
+    roundTrip(guard, 4, 10, 503);
+    int failed = guard.getConcurrencyLimit();
+    assertThat(failed < slow && failed >= (int) (slow * DBLServiceGuard.BACKOFF), is(true));
+    assertThat(guard.getCircuitState(), is("CLOSED"));
+  }
+
+  @Test
+  public void callsOverTheLimitAreRefused() throws Exception {
+    DBLServiceGuard guard = guard(false, 2, 0, DBLOverloadAction.FAIL_FAST);
+    CompletableFuture<DBLNlpBatcher.Reply> first = submit(guard);
+    submit(guard);
+    assertThat(failure(submit(guard)) instanceof RejectedExecutionException, is(true));
+    assertThat(guard.getRejectedRequests(), is(1L));
+
+    sent.get(0).complete(new DBLNlpBatcher.Reply(200, null));
+    assertThat(first.get().status, is(200));
+    assertThat(guard.getInFlightRequests(), is(1));
+    assertThat(submit(guard).isDone(), is(false));
+  }
+
+  @Test
+  public void theCircuitOpensAndAProbeClosesIt() throws Exception {
+    DBLServiceGuard guard = guard(false, 8, 3, DBLOverloadAction.FAIL_FAST);
+    for (int i = 0; i < 3; i++) {
+      submit(guard);
+      sent.get(i).completeExceptionally(new IOException("reset"));
+    }
+    assertThat(guard.getCircuitState(), is("OPEN"));
+    assertThat(guard.getCircuitOpenings(), is(1L));
+    assertThat(failure(submit(guard)) instanceof DBLServiceGuard.CircuitOpenException, is(true));
+    assertThat(sent.size(), is(3));
+
+    now.addAndGet(30_000 * MILLI);
+    CompletableFuture<DBLNlpBatcher.Reply> probe = submit(guard);
+    assertThat(guard.getCircuitState(), is("HALF_OPEN"));
+    // only the probe goes through
+    assertThat(failure(submit(guard)) instanceof DBLServiceGuard.CircuitOpenException, is(true));
+    sent.get(3).complete(new DBLNlpBatcher.Reply(500, null));
+    probe.get();
+    assertThat(guard.getCircuitState(), is("OPEN"));
+    assertThat(guard.getCircuitOpenings(), is(2L));
+
+    now.addAndGet(30_000 * MILLI);
+    submit(guard);
+    sent.get(4).complete(new DBLNlpBatcher.Reply(200, null));
+    assertThat(guard.getCircuitState(), is("CLOSED"));
+    assertThat(guard.getFailedRequests(), is(4L));
+    assertThat(guard.getCompletedRequests(), is(5L));
+  }
+
+  @Test
+  public void queuedCallsStartWhenASlotFreesUp() throws Exception {
+    DBLServiceGuard guard = guard(false, 1, 0, DBLOverloadAction.QUEUE);
+    try {
+      submit(guard);
+      CompletableFuture<DBLNlpBatcher.Reply> queued = submit(guard);
+      assertThat(guard.getQueuedRequests(), is(1));
+      assertThat(sent.size(), is(1));
+
+      sent.get(0).complete(new DBLNlpBatcher.Reply(200, null));
+      assertThat(guard.getQueuedRequests(), is(0));
+      assertThat(sent.size(), is(2));
+      sent.get(1).complete(new DBLNlpBatcher.Reply(201, null));
+      assertThat(queued.get(5, TimeUnit.SECONDS).status, is(201));
+    } finally {
+      guard.dispose();
+    }
+  }
+
+  @Test
+  public void queuedCallsGiveUpAfterTheQueueTimeout() throws Exception {
+    DBLServiceGuard guard = new DBLServiceGuard(false, 1, 0, 30_000, DBLOverloadAction.QUEUE, 20, now::get);
+    try {
+      submit(guard);
+      CompletableFuture<DBLNlpBatcher.Reply> queued = submit(guard);
+      try {
+        queued.get(5, TimeUnit.SECONDS);
+      } catch (ExecutionException e) {
+        assertThat(e.getCause() instanceof RejectedExecutionException, is(true));
+      }
+      assertThat(queued.isCompletedExceptionally(), is(true));
+      assertThat(guard.getQueuedRequests(), is(0));
+      assertThat(sent.size(), is(1));
+    } finally {
+      guard.dispose();
+    }
+  }
+
+  private DBLServiceGuard guard(boolean adaptive, int maxLimit, int failureThreshold, DBLOverloadAction action) {
+    return new DBLServiceGuard(adaptive, maxLimit, failureThreshold, 30_000, action, 60_000, now::get);
+  }
+
+  private CompletableFuture<DBLNlpBatcher.Reply> submit(DBLServiceGuard guard) {
+    return guard.submit(() -> {
+      CompletableFuture<DBLNlpBatcher.Reply> call = new CompletableFuture<>();
+      sent.add(call);
+      return call;
+    });
+  }
+
+  /**
+   * Sends {@code calls} calls together and answers them all after {@code millis}.
+   */
+  private void roundTrip(DBLServiceGuard guard, int calls, long millis, int status) {
+    int first = sent.size();
+    for (int i = 0; i < calls; i++) {
+      submit(guard);
+    }
+    now.addAndGet(millis * MILLI);
+    for (int i = first; i < sent.size(); i++) {
+      sent.get(i).complete(new DBLNlpBatcher.Reply(status, null));
+    }
+  }
+
+  private static Throwable failure(CompletableFuture<?> future) throws InterruptedException {
+    try {
+      future.get();
+      return null;
+    } catch (ExecutionException e) {
+      return e.getCause();
+    }
+  }
+}
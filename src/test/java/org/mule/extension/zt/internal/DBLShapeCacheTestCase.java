@@ -0,0 +1,142 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks the expiry, bounds and snapshot file of {@link DBLShapeCache}.
+ */
+public class DBLShapeCacheTestCase {
+
+  private static final DBLFieldPlan PLAN = DBLFieldPlan.compileCipherSpec("{'claims.ssn':'FE:SSN'}");
+
+  private final AtomicLong now = new AtomicLong(1_000_000);
+  private Path directory;
+
+  @Before
+  public void createDirectory() throws IOException {
+    directory = Files.createTempDirectory("datablind-shapes");
+  }
+
+  @After
+  public void deleteDirectory() throws IOException {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(directory);
+  }
+
+  @Test
+  public void entriesExpireAfterTheirTtl() {
+    DBLShapeCache cache = new DBLShapeCache(16, 60_000, null, now::get);
+    cache.put("shape", PLAN);
+    now.addAndGet(59_999);
+    assertThat(cache.get("shape").getPlan().getSpec(), is(PLAN.getSpec()));
+    now.addAndGet(1);
+    assertThat(cache.get("shape") == null, is(true));
+    assertThat(cache.size(), is(0));
+    assertThat(cache.getHitCount(), is(1L));
+    assertThat(cache.getMissCount(), is(1L));
+  }
+
+  @Test
+  public void shapeWithoutPlanIsRemembered() {
+    DBLShapeCache cache = new DBLShapeCache(16, 60_000, null, now::get);
+    assertThat(cache.get("shape") == null, is(true));
+    cache.put("shape", null);
+    DBLShapeCache.Entry entry = cache.get("shape");
+    assertThat(entry == null, is(false));
+    assertThat(entry.getPlan() == null, is(true));
+    assertThat(cache.getHitCount(), is(0L));
+  }
+
+  @Test
+  public void leastRecentlyUsedShapeIsDropped() {
+    DBLShapeCache cache = new DBLShapeCache(2, 60_000, null, now::get);
+    cache.put("a", PLAN);
+    cache.put("b", PLAN);
+    cache.get("a");
+    cache.put("c", PLAN);
+    assertThat(cache.size(), is(2));
+    assertThat(cache.get("b") == null, is(true));
+    assertThat(cache.get("a") == null, is(false));
+  }
+
+  @Test
+  public void snapshotKeepsLearnedPlansOnly() throws IOException {
+    Path snapshot = directory.resolve("shapes.txt");
+    DBLShapeCache cache = new DBLShapeCache(16, 60_000, snapshot, now::get);
+    cache.put("learned", PLAN);
+    cache.put("unknown", null);
+    assertThat(cache.save(), is(1));
+
+    List<String> lines = Files.readAllLines(snapshot, StandardCharsets.UTF_8);
+    assertThat(lines.size(), is(2));
+    assertThat(lines.get(0).startsWith("#"), is(true));
+    assertThat(lines.get(1), is("learned\t1060000\t" + PLAN.getSpec()));
+
+    now.addAndGet(30_000);
+    DBLShapeCache restarted = new DBLShapeCache(16, 60_000, snapshot, now::get);
+    assertThat(restarted.load(), is(1));
+    assertThat(restarted.get("learned").getPlan().getSpec(), is(PLAN.getSpec()));
+    assertThat(restarted.get("unknown") == null, is(true));
+    // loaded plans keep the expiry they were learned with
+    now.addAndGet(30_000);
+    assertThat(restarted.get("learned") == null, is(true));
+  }
+
+  @Test
+  public void expiredAndUnreadableLinesAreSkipped() throws IOException {
+    Path snapshot = directory.resolve("shapes.txt");
+    Files.write(snapshot, List.of("# DataBlind shape cache v1", "old\t999999\t" + PLAN.getSpec(),
+        "bad-expiry\tsoon\t" + PLAN.getSpec(), "bad-spec\t2000000\t{'ssn':", "short\t2000000",
+        "good\t2000000\t" + PLAN.getSpec()), StandardCharsets.UTF_8);
+    DBLShapeCache cache = new DBLShapeCache(16, 60_000, snapshot, now::get);
+    assertThat(cache.load(), is(1));
+    assertThat(cache.size(), is(1));
+    assertThat(cache.get("good") == null, is(false));
+  }
+
+  @Test
+  public void missingSnapshotLoadsNothing() throws IOException {
+    assertThat(new DBLShapeCache(16, 60_000, directory.resolve("none.txt"), now::get).load(), is(0));
+    assertThat(new DBLShapeCache(16, 60_000, null, now::get).load(), is(0));
+    assertThat(new DBLShapeCache(16, 60_000, null, now::get).save(), is(0));
+  }
+
+  @Test
+  public void saveReplacesThePreviousSnapshot() throws IOException {
+    Path snapshot = directory.resolve("shapes.txt");
+    DBLShapeCache cache = new DBLShapeCache(16, 60_000, snapshot, now::get);
+    cache.put("a", PLAN);
+    cache.put("b", PLAN);
+    assertThat(cache.save(), is(2));
+    cache.clear();
+    cache.put("c", PLAN);
+    assertThat(cache.save(), is(1));
+    assertThat(Files.readAllLines(snapshot, StandardCharsets.UTF_8).size(), is(2));
+    assertThat(Files.exists(directory.resolve("shapes.txt.tmp")), is(false));
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.ztensor.datacrypt.JsonDataCrypt;
+
+/**
+ * Checks the shape fingerprints of {@link DBLShapeLearner}, how it lines up a request with its NLP response and,
+ * with the DataBlind library, how it recovers the cipher types.
+ */
+public class DBLShapeLearnerTestCase {
+
+  private static final String REQUEST = "{\"name\":\"Ann Smith\",\"claims\":[{\"ssn\":\"123-45-6789\",\"n\":1},"
+      + "{\"ssn\":\"987-65-4321\",\"n\":2}],\"email\":\"ann@example.com\"}";
+
+  @Test
+  public void fingerprintIgnoresValuesLengthsAndOrder() throws Exception {
+    String shape = fingerprint(REQUEST);
+    assertThat(fingerprint("{\"email\":\"b@c\",\"claims\":[{\"n\":7,\"ssn\":\"x\"}],\"name\":\"Bob\"}"), is(shape));
+    assertThat(fingerprint("{ \"name\" : \"Bob\", \"email\" : \"\",\n \"claims\" : [ {\"ssn\":\"\",\"n\":0},"
+        + " {\"n\":3,\"ssn\":\"y\"}, {\"ssn\":\"z\",\"n\":-1e3} ] }"), is(shape));
+  }
+
+  @Test
+  public void fingerprintFollowsPathsAndKinds() throws Exception {
+    String shape = fingerprint(REQUEST);
+    // a number where a string was
+    assertThat(fingerprint(REQUEST.replace("\"n\":1", "\"n\":\"1\"")).equals(shape), is(false));
+    // a renamed field
+    assertThat(fingerprint(REQUEST.replace("\"email\"", "\"mail\"")).equals(shape), is(false));
+    // one more array level
+    assertThat(fingerprint(REQUEST.replace("[{\"ssn\":\"123-45-6789\",\"n\":1}", "[[{\"ssn\":\"123-45-6789\",\"n\":1}]"))
+        .equals(shape), is(false));
+    // an extra field
+    assertThat(fingerprint(REQUEST.replace("{\"name\"", "{\"id\":null,\"name\"")).equals(shape), is(false));
+  }
+
+  @Test
+  public void changedValuesAreListedByPath() throws IOException {
+    String response = REQUEST.replace("Ann Smith", "Xyz Qrstu").replace("123-45-6789", "555-12-3456")
+        .replace("987-65-4321", "555-98-7654");
+    Map<String, List<String[]>> changed = changed(REQUEST, response);
+    assertThat(changed.keySet().toString(), is("[name, claims.ssn]"));
+    List<String[]> ssns = changed.get("claims.ssn");
+    assertThat(ssns.size(), is(2));
+    assertThat(ssns.get(0)[0], is("\"123-45-6789\""));
+    assertThat(ssns.get(0)[1], is("\"555-12-3456\""));
+    assertThat(ssns.get(1)[1], is("\"555-98-7654\""));
+  }
+
+  @Test
+  public void scalarOfAnotherKindIsAChange() throws IOException {
+    Map<String, List<String[]>> changed = changed("{\"n\":1}", "{\"n\":\"4\"}");
+    assertThat(changed.get("n").get(0)[1], is("\"4\""));
+    assertThat(changed("{\"n\":1}", "{ \"n\" : 1 }").isEmpty(), is(true));
+  }
+
+  @Test
+  public void otherStructuresAreNotLinedUp() throws IOException {
+    assertThat(changed(REQUEST, "{\"error\":\"Too many requests\"}") == null, is(true));
+    assertThat(changed("{\"a\":\"x\"}", "{\"b\":\"x\"}") == null, is(true));
+    assertThat(changed("{\"a\":[\"x\"]}", "{\"a\":[\"x\",\"y\"]}") == null, is(true));
+    assertThat(changed("{\"a\":\"x\"}", "{\"a\":{\"x\":1}}") == null, is(true));
+  }
+
+  @Test
+  public void responseThatIsNotTheRequestFailsLearning() throws Exception {
+    // the engine is not reached: the documents are compared first
+    for (String response : new String[] {"{\"error\":\"Too many requests\"}", "Service Unavailable", "{\"name\":"}) {
+      boolean failed = false;
+      try {
+        DBLShapeLearner.learn(null, REQUEST, response, "047474", "NOTOKEN", "NOPASSPHRASE");
+      } catch (IOException e) {
+        failed = true;
+      }
+      assertThat(response, failed, is(true));
+    }
+  }
+
+  @Test
+  public void responseWithNothingProtectedHasNoPlan() throws Exception {
+    assertThat(DBLShapeLearner.learn(null, REQUEST, REQUEST, "047474", "NOTOKEN", "NOPASSPHRASE") == null, is(true));
+    assertThat(DBLShapeLearner.learn(null, "\"x\"", "\"y\"", "047474", "NOTOKEN", "NOPASSPHRASE") == null, is(true));
+  }
+
+  @Test
+  public void cipherTypesAreRecoveredFromTheResponse() throws Exception {
+    JsonDataCrypt engine = new JsonDataCrypt(DBLEngineCache.newKeyContext("datablind-test-key"));
+    DBLFieldPlan used = DBLFieldPlan.compileCipherSpec(
+        "{'name':'FE:PERSON_NAME','claims.ssn':'FE:SSN','email':'FE:EMAIL_ADDRESS'}");
+    String response = engine.transform("Encrypt", "047474", REQUEST, used.getSpec(), "NOTOKEN", "NOPASSPHRASE");
+
+    DBLFieldPlan learned = DBLShapeLearner.learn(engine, REQUEST, response, "047474", "NOTOKEN", "NOPASSPHRASE");
+    assertThat(learned == null, is(false));
+    assertThat(learned.getFields().size(), is(3));
+    String local = engine.transform("Encrypt", "047474", REQUEST, learned.getSpec(), "NOTOKEN", "NOPASSPHRASE");
+    assertThat(changed(local, response).isEmpty(), is(true));
+
+    // a tweak other than the one of the response reproduces nothing
+    assertThat(DBLShapeLearner.learn(engine, REQUEST, response, "058585", "NOTOKEN", "NOPASSPHRASE") == null,
+        is(true));
+  }
+
+  private static String fingerprint(String json) throws Exception {
+    return DBLShapeLearner.fingerprint(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static Map<String, List<String[]>> changed(String request, String response) throws IOException {
+    return DBLShapeLearner.changedValues(request.getBytes(StandardCharsets.UTF_8),
+        response.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Checks that {@link DBLStreamingCrypt} splices the transformed values back in place, byte for byte around them,
+ * whatever the block size and however the source stream is read.
+ */
+public class DBLStreamingCryptTestCase {
+
+  private static final DBLFieldPlan PLAN =
+      DBLFieldPlan.compileCipherSpec("{'name':'FE:PERSON_NAME','claims.ssn':'FE:SSN','claims.amount':'FE:SSN'}");
+
+  private static final String DOCUMENT =
+      "{ \"name\" : \"Ann \\\"Jr\\\" Z\u00fcrich\",\n"
+      + "  \"claims\": [ {\"ssn\":\"123\", \"amount\": 12.5e1, \"note\":\"\u6771\u4eac\"},\n"
+      + "    [ {\"ssn\": \"\\u0034\\u0035\"}, {\"ssn\": null} ], {\"ssn\": true} ],\n"
+      + "  \"other\": {\"name\": \"kept\"}, \"ssn\": \"kept\" }";
+
+  private static final String EXPECTED =
+      "{ \"name\" : \"#Ann \\\"Jr\\\" Z\u00fcrich\",\n"
+      + "  \"claims\": [ {\"ssn\":\"#123\", \"amount\": \"#12.5e1\", \"note\":\"\u6771\u4eac\"},\n"
+      + "    [ {\"ssn\": \"#\\u0034\\u0035\"}, {\"ssn\": null} ], {\"ssn\": true} ],\n"
+      + "  \"other\": {\"name\": \"kept\"}, \"ssn\": \"kept\" }";
+
+  private final List<Integer> blocks = new ArrayList<>();
+
+  // "x" -> "#x", 12 -> "#12"
+  private final DBLFieldCipher.BlockTransform mark = (cipherSpecs, rawValues) -> {
+    blocks.add(rawValues.length);
+    String[] results = new String[rawValues.length];
+    for (int i = 0; i < rawValues.length; i++) {
+      String raw = rawValues[i];
+      results[i] = raw.startsWith("\"") ? "\"#" + raw.substring(1) : "\"#" + raw + "\"";
+    }
+    return results;
+  };
+
+  @Test
+  public void valuesAreReplacedInPlace() throws IOException {
+    assertThat(read(new DBLStreamingCrypt(source(DOCUMENT, 1 << 20), PLAN, mark)), is(EXPECTED));
+    assertThat(blocks, is(List.of(4)));
+  }
+
+  @Test
+  public void blocksAreCutAtTheirMaximumSize() throws IOException {
+    assertThat(read(new DBLStreamingCrypt(source(DOCUMENT, 1 << 20), PLAN, mark, 3, 1 << 20)), is(EXPECTED));
+    assertThat(blocks, is(List.of(3, 1)));
+    blocks.clear();
+    assertThat(read(new DBLStreamingCrypt(source(DOCUMENT, 1 << 20), PLAN, mark, 1, 1 << 20)), is(EXPECTED));
+    assertThat(blocks, is(List.of(1, 1, 1, 1)));
+  }
+
+  @Test
+  public void blocksAreCutWhenTooMuchOutputWaits() throws IOException {
+    assertThat(read(new DBLStreamingCrypt(source(DOCUMENT, 1 << 20), PLAN, mark, 100, 8)), is(EXPECTED));
+    assertThat(blocks.size() > 1, is(true));
+  }
+
+  @Test
+  public void sourceReadInSmallPiecesGivesTheSameOutput() throws IOException {
+    StringBuilder document = new StringBuilder("[");
+    StringBuilder expected = new StringBuilder("[");
+    for (int i = 0; i < 1_000; i++) {
+      document.append(i > 0 ? ",\n" : "").append("{\"name\":\"\u00e9\u6771 ").append(i).append("\",\"id\":").append(i)
+          .append('}');
+      expected.append(i > 0 ? ",\n" : "").append("{\"name\":\"#\u00e9\u6771 ").append(i).append("\",\"id\":").append(i)
+          .append('}');
+    }
+    document.append(']');
+    expected.append(']');
+    assertThat(read(new DBLStreamingCrypt(source(document.toString(), 3), PLAN, mark)), is(expected.toString()));
+    assertThat(blocks, is(List.of(256, 256, 256, 232)));
+  }
+
+  @Test
+  public void newlineDelimitedDocumentsAreTransformedOneAfterTheOther() throws IOException {
+    String document = "{\"name\":\"a\"}\n{\"name\":\"b\",\"x\":{\"name\":\"c\"}}\n{\"claims\":[{\"ssn\":1}]}\n";
+    assertThat(read(new DBLStreamingCrypt(source(document, 2), PLAN, mark)),
+        is("{\"name\":\"#a\"}\n{\"name\":\"#b\",\"x\":{\"name\":\"c\"}}\n{\"claims\":[{\"ssn\":\"#1\"}]}\n"));
+  }
+
+  @Test
+  public void documentWithoutSensitiveValuesIsCopied() throws IOException {
+    String document = "{ \"id\": 1, \"list\": [ ] }";
+    assertThat(read(new DBLStreamingCrypt(source(document, 1 << 20), PLAN, mark)), is(document));
+    assertThat(blocks.isEmpty(), is(true));
+  }
+
+  @Test
+  public void failedTransformSurfacesAsAnIOException() {
+    DBLFieldCipher.BlockTransform failing = (cipherSpecs, rawValues) -> {
+      throw new IllegalStateException("engine down");
+    };
+    boolean failed = false;
+    try {
+      read(new DBLStreamingCrypt(source(DOCUMENT, 1 << 20), PLAN, failing));
+    } catch (IOException e) {
+      failed = e.getMessage().contains("engine down");
+    }
+    assertThat(failed, is(true));
+  }
+
+  @Test
+  public void outputMatchesTheInMemorySplice() throws Exception {
+    byte[] document = DOCUMENT.getBytes(StandardCharsets.UTF_8);
+    String spliced = DBLParallelCrypt.transformFields(document, DBLParallelCrypt.locate(document, PLAN), mark);
+    assertThat(spliced, is(EXPECTED));
+  }
+
+  private static InputStream source(String document, int piece) {
+    return new DBLJsonScannerTestCase.TrickleInputStream(document.getBytes(StandardCharsets.UTF_8), piece);
+  }
+
+  private static String read(InputStream in) throws IOException {
+    try (InputStream stream = in) {
+      // small reads, so output is drained while values are still held
+      byte[] buffer = new byte[5];
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      int n;
+      while ((n = stream.read(buffer, 0, buffer.length)) >= 0) {
+        out.write(buffer, 0, n);
+      }
+      return out.toString(StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2025 ZTensor, Inc. All rights reserved.
+ * This software is proprietary and confidential. Unauthorized copying, 
+ * distribution, or use of this software, via any medium, is strictly prohibited.
+ * 
+ * This software is licensed for commercial use only. For licensing information,
+ * please contact ZTensor, Inc.
+ */
+package org.mule.extension.zt.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+/**
+ * Checks what {@link DBLWarmup} runs, how it skips the cipher types the engine rejects and when it stops.
+ */
+public class DBLWarmupTestCase {
+
+  private static final int TYPES = DBLCipherType.values().length * DBLWarmup.MODES.length;
+
+  private final AtomicLong now = new AtomicLong(1_000);
+  private final List<String> documents = new ArrayList<>();
+  private final List<String> specs = new ArrayList<>();
+
+  @Test
+  public void everyCipherTypeIsUsedOnItsOwnThenTogether() {
+    DBLWarmup warmup = new DBLWarmup(record(null), 3, 60_000, now::get);
+    assertThat(warmup.isComplete(), is(false));
+    assertThat(warmup.getDurationMillis(), is(-1L));
+    warmup.run();
+
+    assertThat(warmup.isComplete(), is(true));
+    assertThat(warmup.getCipherTypes(), is(TYPES));
+    assertThat(warmup.getIterations(), is(3));
+    assertThat(documents.size(), is(TYPES + 3));
+    assertThat(specs.get(0), is("{\"fe_date\":\"FE:Date\"}"));
+    String all = specs.get(TYPES);
+    assertThat(all.contains("\"fe_ssn\":\"FE:SSN\""), is(true));
+    assertThat(all.contains("\"aes_email_address\":\"AES:EmailAddress\""), is(true));
+    // the values change with each iteration
+    assertThat(documents.get(TYPES).equals(documents.get(TYPES + 1)), is(false));
+    DBLFieldPlan.compileCipherSpec(all);
+  }
+
+  @Test
+  public void rejectedCipherTypesAreLeftOut() {
+    DBLWarmup warmup = new DBLWarmup(record("AES:GPSCoordinate"), 2, 60_000, now::get);
+    warmup.run();
+
+    assertThat(warmup.getFailedCipherTypes(), is(Collections.singletonList("AES:GPSCoordinate")));
+    assertThat(warmup.getCipherTypes(), is(TYPES - 1));
+    assertThat(warmup.getIterations(), is(2));
+    assertThat(specs.get(specs.size() - 1).contains("AES:GPSCoordinate"), is(false));
+  }
+
+  @Test
+  public void iterationsStopAtTheTimeout() {
+    DBLWarmup warmup = new DBLWarmup((document, cipherSpec, paths) -> now.addAndGet(100), 1_000, 1_000, now::get);
+    warmup.run();
+
+    // the single type rounds take 100 ms each and already use up the time
+    assertThat(warmup.getIterations(), is(0));
+    assertThat(warmup.getCipherTypes(), is(TYPES));
+    assertThat(warmup.getDurationMillis(), is(TYPES * 100L));
+    assertThat(warmup.isComplete(), is(true));
+  }
+
+  @Test
+  public void failingIterationEndsTheWarmUpWithoutThrowing() {
+    DBLWarmup warmup = new DBLWarmup((document, cipherSpec, paths) -> {
+      if (cipherSpec.indexOf(',') > 0) {
+        throw new IllegalStateException("engine gone");
+      }
+    }, 5, 60_000, now::get);
+    warmup.run();
+
+    assertThat(warmup.getIterations(), is(0));
+    assertThat(warmup.isComplete(), is(true));
+  }
+
+  private DBLWarmup.Exercise record(String rejected) {
+    return (document, cipherSpec, paths) -> {
+      if (rejected != null && cipherSpec.contains("\"" + rejected + "\"") && cipherSpec.indexOf(',') < 0) {
+        throw new IllegalArgumentException("unsupported type");
+      }
+      documents.add(document);
+      specs.add(cipherSpec);
+    };
+  }
+}